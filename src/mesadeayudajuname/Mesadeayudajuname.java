@@ -5,6 +5,18 @@
 package mesadeayudajuname;
 
 import mesadeayudajuname.app.MesaDeAyudaApp;
+import mesadeayudajuname.app.ModoComandos;
+import mesadeayudajuname.app.ServidorHttp;
+import mesadeayudajuname.model.AlmacenTexto;
+import mesadeayudajuname.service.EscaladorPrioridad;
+import mesadeayudajuname.service.ReplicacionLider;
+import mesadeayudajuname.service.ReplicacionSeguidor;
+import mesadeayudajuname.service.TableroService;
+import mesadeayudajuname.service.VigilanteDiccionarios;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Scanner;
 
 /**
  * Clase principal del sistema de Mesa de Ayuda.
@@ -14,13 +26,55 @@ import mesadeayudajuname.app.MesaDeAyudaApp;
  */
 public class Mesadeayudajuname {
 
+    private static final int PUERTO_POR_DEFECTO = 8080;
+    
+    /**
+     * Propiedad del sistema para guardar el texto de los tickets fuera del
+     * heap: "memoria" para memoria nativa, o la ruta de un archivo de
+     * trabajo proyectado en memoria.
+     */
+    private static final String PROPIEDAD_TEXTO_FUERA_DEL_HEAP = "mesadeayuda.textoFueraDelHeap";
+    
     /**
      * Método principal que inicia la aplicación.
+     * Sin argumentos inicia la consola interactiva; con
+     * {@code --servidor [puerto]} inicia el servidor HTTP/JSON.
+     * {@code --lider <puertoReplicacion> [puerto]} inicia el servidor y
+     * además replica el tablero a procesos seguidores, y
+     * {@code --seguidor <host:puerto> [puerto]} inicia una réplica de solo
+     * lectura que puede promoverse escribiendo "promover".
+     * {@code --comandos [archivo]} y {@code --comando <comando> [argumentos]}
+     * ejecutan comandos sin interacción (ver {@link ModoComandos}).
+     * Con {@code -Dmesadeayuda.textoFueraDelHeap=memoria} (o con la ruta de
+     * un archivo) los títulos y descripciones se guardan fuera del heap, y
+     * con {@code -Dmesadeayuda.directorioDatos=<directorio>} los datos se
+     * guardan en ese directorio en lugar del de trabajo.
      * 
-     * @param args argumentos de línea de comandos (no utilizados)
+     * @param args argumentos de línea de comandos
      */
     public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--comandos") || args[0].equals("--comando"))) {
+            // La salida estándar queda solo para los resultados JSON
+            configurarAlmacenTexto(System.err);
+            System.exit(ModoComandos.ejecutar(args));
+        }
+        
         System.out.println("Iniciando Sistema de Mesa de Ayuda...");
+        configurarAlmacenTexto(System.out);
+        iniciarVigilanteDiccionarios();
+        
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            iniciarServidor(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--lider")) {
+            iniciarLider(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--seguidor")) {
+            iniciarSeguidor(args);
+            return;
+        }
         
         try {
             MesaDeAyudaApp app = new MesaDeAyudaApp();
@@ -30,4 +84,161 @@ public class Mesadeayudajuname {
             e.printStackTrace();
         }
     }
+    
+    /**
+     * Activa el almacén de texto fuera del heap si se pidió con la propiedad
+     * del sistema. Debe ejecutarse antes de cargar los tickets.
+     * 
+     * @param mensajes Destino del aviso de activación
+     */
+    private static void configurarAlmacenTexto(PrintStream mensajes) {
+        String destino = System.getProperty(PROPIEDAD_TEXTO_FUERA_DEL_HEAP);
+        if (destino == null || destino.trim().isEmpty()) {
+            return;
+        }
+        try {
+            if (destino.trim().equalsIgnoreCase("memoria")) {
+                AlmacenTexto.activar(AlmacenTexto.enMemoria());
+                mensajes.println("Texto de los tickets fuera del heap, en memoria nativa");
+            } else {
+                AlmacenTexto.activar(AlmacenTexto.enArchivo(new File(destino.trim())));
+                mensajes.println("Texto de los tickets fuera del heap, en " + destino.trim());
+            }
+        } catch (IOException e) {
+            System.err.println("Se guardará el texto en el heap: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Recarga las palabras clave del clasificador cada vez que se modifica
+     * el archivo de diccionarios.
+     */
+    private static void iniciarVigilanteDiccionarios() {
+        try {
+            new VigilanteDiccionarios().iniciar();
+        } catch (IOException e) {
+            System.err.println("No se vigilarán cambios en los diccionarios: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Inicia el modo servidor HTTP sin consola.
+     * 
+     * @param args argumentos de línea de comandos
+     */
+    private static void iniciarServidor(String[] args) {
+        try {
+            int puerto = (args.length > 1) ? Integer.parseInt(args[1]) : PUERTO_POR_DEFECTO;
+            TableroService tableroService = new TableroService();
+            ServidorHttp servidor = new ServidorHttp(tableroService, puerto);
+            EscaladorPrioridad escalador = new EscaladorPrioridad(tableroService);
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                escalador.detener();
+                servidor.detener();
+                tableroService.guardarDatos();
+                tableroService.guardarIndices();
+                tableroService.esperarPuntoControl();
+            }));
+            
+            escalador.iniciar();
+            servidor.iniciar();
+        } catch (NumberFormatException e) {
+            System.err.println("Puerto no válido: " + args[1]);
+        } catch (Exception e) {
+            System.err.println("Error fatal al iniciar el servidor: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Inicia el servidor HTTP como líder de replicación.
+     * 
+     * @param args argumentos de línea de comandos
+     */
+    private static void iniciarLider(String[] args) {
+        try {
+            int puertoReplicacion = Integer.parseInt(args[1]);
+            int puerto = (args.length > 2) ? Integer.parseInt(args[2]) : PUERTO_POR_DEFECTO;
+            TableroService tableroService = new TableroService();
+            ReplicacionLider lider = new ReplicacionLider(tableroService, puertoReplicacion);
+            ServidorHttp servidor = new ServidorHttp(tableroService, puerto);
+            EscaladorPrioridad escalador = new EscaladorPrioridad(tableroService);
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                escalador.detener();
+                lider.detener();
+                servidor.detener();
+                tableroService.guardarDatos();
+                tableroService.guardarIndices();
+                tableroService.esperarPuntoControl();
+            }));
+            
+            escalador.iniciar();
+            lider.iniciar();
+            servidor.iniciar();
+        } catch (NumberFormatException e) {
+            System.err.println("Puerto no válido: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error fatal al iniciar el líder: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Inicia una réplica de solo lectura de un líder y atiende consultas
+     * HTTP sobre ella. Al leer "promover" de la entrada estándar, la réplica
+     * pasa a ser el tablero principal y acepta escrituras.
+     * 
+     * @param args argumentos de línea de comandos
+     */
+    private static void iniciarSeguidor(String[] args) {
+        try {
+            int separador = args[1].lastIndexOf(':');
+            if (separador <= 0) {
+                System.err.println("Dirección del líder no válida (se espera host:puerto): " + args[1]);
+                return;
+            }
+            String host = args[1].substring(0, separador);
+            int puertoLider = Integer.parseInt(args[1].substring(separador + 1));
+            int puerto = (args.length > 2) ? Integer.parseInt(args[2]) : PUERTO_POR_DEFECTO;
+            
+            ReplicacionSeguidor seguidor = new ReplicacionSeguidor(host, puertoLider);
+            TableroService tableroService = seguidor.getTableroService();
+            ServidorHttp servidor = new ServidorHttp(tableroService, puerto);
+            // Mientras sea réplica no escala; tras promoverse toma el relevo del líder
+            EscaladorPrioridad escalador = new EscaladorPrioridad(tableroService);
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                escalador.detener();
+                seguidor.detener();
+                servidor.detener();
+                tableroService.guardarDatos();
+                tableroService.guardarIndices();
+                tableroService.esperarPuntoControl();
+            }));
+            
+            escalador.iniciar();
+            seguidor.iniciar();
+            servidor.iniciar();
+            System.out.println("Réplica de solo lectura. Escriba 'promover' para tomar el control.");
+            
+            Scanner scanner = new Scanner(System.in);
+            while (scanner.hasNextLine()) {
+                if (scanner.nextLine().trim().equalsIgnoreCase("promover")) {
+                    try {
+                        seguidor.promover();
+                        break;
+                    } catch (IllegalStateException e) {
+                        System.err.println("No se pudo promover la réplica: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Puerto no válido: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error fatal al iniciar el seguidor: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package mesadeayudajuname.app;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cliente de prueba de carga para {@link ServidorHttp}.
+ * Lanza un hilo virtual por usuario concurrente; cada uno envía peticiones
+ * en bucle hasta agotar el total. Al terminar muestra el rendimiento y
+ * los percentiles de latencia.
+ *
+ * Uso:
+ * <pre>
+ *   java -cp mesadeayudajuname.jar mesadeayudajuname.app.ClienteCargaHttp \
+ *        [url] [concurrencia] [peticiones] [porcentajeEscrituras]
+ * </pre>
+ * Por defecto: http://localhost:8080, 1000 usuarios, 100000 peticiones y
+ * 0% de escrituras. Las escrituras crean tickets reales en el servidor.
+ *
+ * @author juanulb
+ */
+public class ClienteCargaHttp {
+    private static final String[] TITULOS = {
+        "Servidor principal sin conexión",
+        "Impresora no responde",
+        "Excel se cierra al abrir archivos",
+        "Usuario bloqueado en sistema",
+        "Solicitud de nuevo monitor"
+    };
+
+    /**
+     * Punto de entrada del cliente de carga.
+     *
+     * @param args url, concurrencia, peticiones y porcentaje de escrituras
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String url = (args.length > 0) ? args[0] : "http://localhost:8080";
+        int concurrencia = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        int totalPeticiones = (args.length > 2) ? Integer.parseInt(args[2]) : 100_000;
+        int porcentajeEscrituras = (args.length > 3) ? Integer.parseInt(args[3]) : 0;
+
+        HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+        long[] latencias = new long[totalPeticiones];
+        AtomicInteger siguiente = new AtomicInteger();
+        AtomicLong errores = new AtomicLong();
+
+        System.out.printf("Enviando %d peticiones a %s con %d usuarios concurrentes (%d%% escrituras)%n",
+                          totalPeticiones, url, concurrencia, porcentajeEscrituras);
+
+        long inicio = System.nanoTime();
+        try (ExecutorService usuarios = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < concurrencia; u++) {
+                usuarios.submit(() -> {
+                    int indice;
+                    while ((indice = siguiente.getAndIncrement()) < totalPeticiones) {
+                        HttpRequest peticion = crearPeticion(url, porcentajeEscrituras);
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                            if (respuesta.statusCode() >= 400) {
+                                errores.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errores.incrementAndGet();
+                        }
+                        latencias[indice] = System.nanoTime() - t0;
+                    }
+                    return null;
+                });
+            }
+        }
+        long duracion = System.nanoTime() - inicio;
+
+        Arrays.sort(latencias);
+        double segundos = duracion / 1e9;
+        System.out.printf("Tiempo total: %.2f s%n", segundos);
+        System.out.printf("Rendimiento: %.0f peticiones/s%n", totalPeticiones / segundos);
+        System.out.printf("Errores: %d%n", errores.get());
+        System.out.printf("Latencia p50: %.2f ms | p90: %.2f ms | p99: %.2f ms | máx: %.2f ms%n",
+                          percentil(latencias, 50), percentil(latencias, 90),
+                          percentil(latencias, 99), latencias[latencias.length - 1] / 1e6);
+    }
+
+    /**
+     * Genera una petición aleatoria según la proporción de escrituras.
+     */
+    private static HttpRequest crearPeticion(String url, int porcentajeEscrituras) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String titulo = TITULOS[aleatorio.nextInt(TITULOS.length)];
+        String cuerpo = "{\"titulo\":\"" + titulo + "\",\"descripcion\":\"Prueba de carga: " + titulo + "\"}";
+
+        if (aleatorio.nextInt(100) < porcentajeEscrituras) {
+            return HttpRequest.newBuilder(URI.create(url + "/tickets"))
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+        }
+
+        switch (aleatorio.nextInt(3)) {
+            case 0:
+                return HttpRequest.newBuilder(URI.create(url + "/pendientes")).GET().build();
+            case 1:
+                return HttpRequest.newBuilder(URI.create(url + "/metricas")).GET().build();
+            default:
+                return HttpRequest.newBuilder(URI.create(url + "/clasificar"))
+                    .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                    .build();
+        }
+    }
+
+    /**
+     * Calcula un percentil sobre un arreglo de latencias ordenado.
+     *
+     * @return latencia en milisegundos
+     */
+    private static double percentil(long[] ordenadas, int percentil) {
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+}
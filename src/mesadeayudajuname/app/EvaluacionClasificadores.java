@@ -0,0 +1,121 @@
+package mesadeayudajuname.app;
+
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.service.*;
+import mesadeayudajuname.util.CSVRepository;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Compara la exactitud de {@link Clasificador}, basado en palabras clave,
+ * con la de {@link ClasificadorBayes} sobre los tickets cerrados de
+ * tickets.csv, cuya categoría y prioridad ya fueron confirmadas.
+ *
+ * Los tickets cerrados se ordenan por fecha de cierre; el modelo bayesiano
+ * se entrena con los primeros y ambos clasificadores se evalúan con los
+ * restantes, como si el modelo se hubiera usado en producción desde ese
+ * momento. Se muestra el porcentaje de aciertos en categoría y en
+ * prioridad y el tiempo promedio por clasificación.
+ *
+ * Uso (en el directorio de los CSV):
+ * <pre>
+ *   java -cp mesadeayudajuname.jar mesadeayudajuname.app.EvaluacionClasificadores \
+ *        [porcentajeEntrenamiento]
+ * </pre>
+ * Por defecto se entrena con el 80% de los tickets cerrados.
+ *
+ * @author juanulb
+ */
+public class EvaluacionClasificadores {
+
+    /**
+     * Aciertos y tiempo de un clasificador sobre el conjunto de prueba.
+     */
+    private static final class Resultado {
+        private int aciertosCategoria;
+        private int aciertosPrioridad;
+        private long nanosegundos;
+
+        private void registrar(Ticket ticket, ResultadoClasificacion clasificacion, long duracion) {
+            if (clasificacion.getCategoria().equalsIgnoreCase(ticket.getCategoria())) {
+                aciertosCategoria++;
+            }
+            if (clasificacion.getPrioridad() == ticket.getPrioridad()) {
+                aciertosPrioridad++;
+            }
+            nanosegundos += duracion;
+        }
+    }
+
+    /**
+     * Punto de entrada de la evaluación.
+     *
+     * @param args porcentaje de tickets cerrados usados para entrenar
+     * @throws IOException si no se pueden leer los CSV
+     */
+    public static void main(String[] args) throws IOException {
+        int porcentajeEntrenamiento = (args.length > 0) ? Integer.parseInt(args[0]) : 80;
+        if (porcentajeEntrenamiento <= 0 || porcentajeEntrenamiento >= 100) {
+            System.err.println("El porcentaje de entrenamiento debe estar entre 1 y 99");
+            return;
+        }
+
+        CSVRepository repository = new CSVRepository();
+        Map<Integer, Tecnico> tecnicos = new HashMap<>();
+        for (Tecnico tecnico : repository.cargarTecnicos()) {
+            tecnicos.put(tecnico.getId(), tecnico);
+        }
+        List<Ticket> cerrados = repository.cargarTickets(tecnicos).stream()
+            .filter(t -> t.getEstado() == Estado.CERRADO && t.getFechaCierre() != null)
+            .sorted(Comparator.comparing(Ticket::getFechaCierre).thenComparingInt(Ticket::getId))
+            .collect(Collectors.toList());
+
+        int cantidadEntrenamiento = cerrados.size() * porcentajeEntrenamiento / 100;
+        if (cantidadEntrenamiento == 0 || cantidadEntrenamiento == cerrados.size()) {
+            System.err.println("No hay suficientes tickets cerrados para evaluar (" + cerrados.size() + ")");
+            return;
+        }
+        List<Ticket> entrenamiento = cerrados.subList(0, cantidadEntrenamiento);
+        List<Ticket> prueba = cerrados.subList(cantidadEntrenamiento, cerrados.size());
+
+        ClasificadorBayes bayes = new ClasificadorBayes();
+        long inicio = System.nanoTime();
+        for (Ticket ticket : entrenamiento) {
+            bayes.entrenar(ticket);
+        }
+        double msEntrenamiento = (System.nanoTime() - inicio) / 1e6;
+
+        // Calentamiento del JIT con el conjunto de entrenamiento, sin medir
+        for (Ticket ticket : entrenamiento) {
+            Clasificador.clasificar(ticket.getTitulo(), ticket.getDescripcion());
+            bayes.clasificar(ticket.getTitulo(), ticket.getDescripcion());
+        }
+
+        Resultado reglas = new Resultado();
+        Resultado modelo = new Resultado();
+        for (Ticket ticket : prueba) {
+            long t0 = System.nanoTime();
+            ResultadoClasificacion porReglas = Clasificador.clasificar(ticket.getTitulo(), ticket.getDescripcion());
+            long t1 = System.nanoTime();
+            ResultadoClasificacion porModelo = bayes.clasificar(ticket.getTitulo(), ticket.getDescripcion());
+            long t2 = System.nanoTime();
+            reglas.registrar(ticket, porReglas, t1 - t0);
+            modelo.registrar(ticket, porModelo, t2 - t1);
+        }
+
+        System.out.printf("Tickets cerrados: %d (entrenamiento %d, prueba %d)%n",
+                          cerrados.size(), entrenamiento.size(), prueba.size());
+        System.out.printf("Entrenamiento del modelo bayesiano: %.1f ms%n%n", msEntrenamiento);
+        System.out.printf("%-18s %12s %12s %14s%n", "Clasificador", "Categoría", "Prioridad", "µs/ticket");
+        imprimir("Palabras clave", reglas, prueba.size());
+        imprimir("Bayes", modelo, prueba.size());
+    }
+
+    private static void imprimir(String nombre, Resultado resultado, int total) {
+        System.out.printf("%-18s %11.1f%% %11.1f%% %14.2f%n", nombre,
+                          resultado.aciertosCategoria * 100.0 / total,
+                          resultado.aciertosPrioridad * 100.0 / total,
+                          resultado.nanosegundos / 1e3 / total);
+    }
+}
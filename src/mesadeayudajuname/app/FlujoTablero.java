@@ -0,0 +1,243 @@
+package mesadeayudajuname.app;
+
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.service.*;
+import mesadeayudajuname.util.Json;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Flujo en vivo del tablero para clientes server-sent events (SSE).
+ * Recibe los cambios del {@link BusEventos}, serializa cada uno una sola vez
+ * como un evento SSE numerado y lo guarda en un historial circular acotado.
+ * Cada cliente conectado solo copia esos bytes ya preparados, de modo que el
+ * costo del servidor crece con la tasa de cambios y no con la cantidad de
+ * espectadores por el tamaño del tablero.
+ *
+ * Al conectarse, un cliente recibe una instantánea de los pendientes y luego
+ * solo los cambios. Si se reconecta enviando {@code Last-Event-ID} y ese
+ * número sigue en el historial, se le reenvían únicamente los cambios que se
+ * perdió; si no, recibe una instantánea nueva. Los IDs de evento tienen la
+ * forma {@code <época>-<número>}, donde la época identifica al proceso: los
+ * números vuelven a empezar en cada arranque, así que un ID de otro proceso
+ * siempre lleva a una instantánea.
+ *
+ * @author juanulb
+ */
+public class FlujoTablero {
+    private static final int CAPACIDAD_HISTORIAL = 8192;
+    private static final long LATIDO_MS = 15_000;
+    private static final byte[] LATIDO = ": latido\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final TableroService tableroService;
+    private final String epoca;
+    private final byte[][] historial;
+    private final ReentrantLock candado;
+    private final Condition hayCambios;
+    private final BusEventos.Suscripcion suscripcion;
+
+    private long ultimaSecuencia;
+    private long ultimoEventoBus;
+
+    /**
+     * Constructor del flujo. Se suscribe de inmediato al bus del servicio.
+     *
+     * @param tableroService Servicio del tablero a observar
+     */
+    public FlujoTablero(TableroService tableroService) {
+        this.tableroService = tableroService;
+        this.epoca = Long.toString(System.currentTimeMillis(), 36);
+        this.historial = new byte[CAPACIDAD_HISTORIAL][];
+        this.candado = new ReentrantLock();
+        this.hayCambios = candado.newCondition();
+        this.ultimaSecuencia = 0;
+        this.ultimoEventoBus = 0;
+        this.suscripcion = tableroService.getBusEventos()
+            .suscribir(this::alRecibir, CAPACIDAD_HISTORIAL, PoliticaDesborde.DESCARTAR_ANTIGUO);
+    }
+
+    /**
+     * Detiene la recepción de cambios.
+     */
+    public void detener() {
+        suscripcion.cancelar();
+    }
+
+    /**
+     * Convierte un evento del bus en un evento SSE y lo agrega al historial.
+     * Si el bus descartó eventos, se emite un evento de reinicio para que los
+     * clientes soliciten una instantánea nueva.
+     */
+    private void alRecibir(EventoTicket evento) {
+        boolean huboPerdida = ultimoEventoBus != 0 && evento.getSecuencia() != ultimoEventoBus + 1;
+        ultimoEventoBus = evento.getSecuencia();
+
+        if (huboPerdida) {
+            agregar("reinicio", null);
+        }
+        if (evento.getTipo() == TipoEvento.TECNICO_AGREGADO) {
+            return;
+        }
+
+        Map<String, Object> ticket = tableroService.leer(() -> {
+            Ticket actual = tableroService.buscarTicketPorId(evento.getTicketId());
+            return (actual != null) ? Json.ticket(actual) : null;
+        });
+        if (ticket != null) {
+            agregar(evento.getTipo().name(), ticket);
+        }
+    }
+
+    /**
+     * Serializa un evento SSE y lo publica a los clientes.
+     */
+    private void agregar(String tipo, Map<String, Object> ticket) {
+        candado.lock();
+        try {
+            long secuencia = ultimaSecuencia + 1;
+
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("seq", secuencia);
+            datos.put("tipo", tipo);
+            if (ticket != null) {
+                datos.put("ticket", ticket);
+            }
+
+            historial[(int) (secuencia % CAPACIDAD_HISTORIAL)] = marco(secuencia, tipo, datos);
+            ultimaSecuencia = secuencia;
+            hayCambios.signalAll();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Atiende a un cliente hasta que se desconecta.
+     *
+     * @param salida Flujo de salida de la respuesta HTTP
+     * @param ultimoIdCliente Último ID de evento recibido por el cliente, o
+     *                        null si es nuevo
+     * @throws IOException cuando el cliente se desconecta
+     */
+    public void transmitir(OutputStream salida, String ultimoIdCliente) throws IOException {
+        long ultimo = secuenciaDe(ultimoIdCliente);
+        long enviado = puedeReanudar(ultimo) ? ultimo : enviarInstantanea(salida);
+
+        while (true) {
+            byte[] siguiente;
+            boolean reiniciar = false;
+
+            candado.lock();
+            try {
+                while (enviado == ultimaSecuencia) {
+                    if (!hayCambios.await(LATIDO_MS, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                }
+                if (enviado == ultimaSecuencia) {
+                    siguiente = LATIDO;
+                } else if (ultimaSecuencia - enviado > CAPACIDAD_HISTORIAL) {
+                    // El cliente es demasiado lento y el historial ya se sobrescribió
+                    siguiente = null;
+                    reiniciar = true;
+                } else {
+                    enviado++;
+                    siguiente = historial[(int) (enviado % CAPACIDAD_HISTORIAL)];
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                candado.unlock();
+            }
+
+            if (reiniciar) {
+                enviado = enviarInstantanea(salida);
+                continue;
+            }
+
+            salida.write(siguiente);
+            salida.flush();
+        }
+    }
+
+    /**
+     * Extrae el número de un ID de evento de este proceso.
+     *
+     * @return número del evento, o -1 si el ID falta, no es válido o es de
+     *         otra época
+     */
+    private long secuenciaDe(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int guion = id.lastIndexOf('-');
+        if (guion < 0 || !id.substring(0, guion).trim().equals(epoca)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(guion + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Indica si los cambios posteriores a un número todavía están en el historial.
+     */
+    private boolean puedeReanudar(long ultimoIdCliente) {
+        candado.lock();
+        try {
+            return ultimoIdCliente >= 0
+                && ultimoIdCliente <= ultimaSecuencia
+                && ultimaSecuencia - ultimoIdCliente <= CAPACIDAD_HISTORIAL;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Envía una instantánea de los tickets pendientes.
+     * Se toma el número de secuencia antes de leer los pendientes: los cambios
+     * posteriores se reenviarán aunque ya estén reflejados, lo que es inocuo
+     * porque cada cambio lleva el estado completo del ticket.
+     *
+     * @return número de secuencia al que corresponde la instantánea
+     */
+    private long enviarInstantanea(OutputStream salida) throws IOException {
+        long secuencia;
+        candado.lock();
+        try {
+            secuencia = ultimaSecuencia;
+        } finally {
+            candado.unlock();
+        }
+
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("seq", secuencia);
+        datos.put("pendientes", tableroService.leer(() -> Json.tickets(tableroService.pendientesPorPrioridad())));
+
+        salida.write(marco(secuencia, "instantanea", datos));
+        salida.flush();
+        return secuencia;
+    }
+
+    /**
+     * Construye los bytes de un evento SSE.
+     */
+    private byte[] marco(long secuencia, String tipo, Map<String, Object> datos) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("id: ").append(epoca).append('-').append(secuencia).append('\n');
+        sb.append("event: ").append(tipo).append('\n');
+        sb.append("data: ");
+        Json.escribir(datos, sb);
+        sb.append("\n\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
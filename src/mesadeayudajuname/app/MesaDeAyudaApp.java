@@ -2,6 +2,10 @@ package mesadeayudajuname.app;
 
 import mesadeayudajuname.model.*;
 import mesadeayudajuname.service.*;
+import mesadeayudajuname.util.RenderizadorTabla;
+import mesadeayudajuname.util.Validador;
+import java.io.OutputStreamWriter;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
@@ -11,7 +15,10 @@ import java.util.*;
  * @author juanulb
  */
 public class MesaDeAyudaApp {
+    private static final int FILAS_POR_PAGINA = 100;
+    
     private TableroService tableroService;
+    private EscaladorPrioridad escaladorPrioridad;
     private Scanner scanner;
     
     /**
@@ -27,6 +34,10 @@ public class MesaDeAyudaApp {
             mesadeayudajuname.util.DatosEjemplo.inicializarDatosEjemplo(tableroService);
             System.out.println();
         }
+        
+        // Escalar en segundo plano los tickets pendientes que envejecen
+        this.escaladorPrioridad = new EscaladorPrioridad(tableroService);
+        escaladorPrioridad.iniciar();
     }
     
     /**
@@ -66,6 +77,9 @@ public class MesaDeAyudaApp {
                     case 8:
                         mostrarAyuda();
                         break;
+                    case 9:
+                        despacharPendientes();
+                        break;
                     case 0:
                         continuar = false;
                         despedida();
@@ -110,6 +124,7 @@ public class MesaDeAyudaApp {
         System.out.println("║ 6. Gestionar técnicos                 ║");
         System.out.println("║ 7. Ver métricas                       ║");
         System.out.println("║ 8. Ayuda                              ║ ");
+        System.out.println("║ 9. Despacho automático                ║");
         System.out.println("║ 0. Salir                              ║");
         System.out.println("╚═══════════════════════════════════════╝");
         System.out.print("Seleccione una opción: ");
@@ -184,6 +199,12 @@ public class MesaDeAyudaApp {
         }
         
         System.out.println("\nTicket #" + ticketId + " creado exitosamente!");
+        
+        Ticket creado = tableroService.buscarTicketPorId(ticketId);
+        if (creado != null && creado.esDuplicado()) {
+            System.out.println("AVISO: Parece un duplicado del ticket #" + creado.getDuplicadoDe()
+                               + "; quedó vinculado a él.");
+        }
     }
     
     /**
@@ -199,29 +220,7 @@ public class MesaDeAyudaApp {
             return;
         }
         
-        System.out.printf("%-4s %-20s %-12s %-10s %-15s %-8s%n", 
-                         "ID", "TÍTULO", "CATEGORÍA", "ESTADO", "TÉCNICO", "PRIORIDAD");
-        System.out.println("─".repeat(75));
-        
-        for (Ticket ticket : pendientes) {
-            String tecnico = (ticket.getTecnicoAsignado() != null) ? 
-                           ticket.getTecnicoAsignado().getNombre() : "Sin asignar";
-            
-            String prioridadIcon = "";
-            switch (ticket.getPrioridad()) {
-                case ALTA: prioridadIcon = "ALTA"; break;
-                case MEDIA: prioridadIcon = "MEDIA"; break;
-                case BAJA: prioridadIcon = "BAJA"; break;
-            }
-            
-            System.out.printf("%-4d %-20s %-12s %-10s %-15s %s%n",
-                             ticket.getId(),
-                             truncarTexto(ticket.getTitulo(), 20),
-                             ticket.getCategoria(),
-                             ticket.getEstado(),
-                             truncarTexto(tecnico, 15),
-                             prioridadIcon);
-        }
+        mostrarTablaTickets(pendientes);
         
         System.out.println("\nTotal de tickets pendientes: " + pendientes.size());
     }
@@ -279,6 +278,30 @@ public class MesaDeAyudaApp {
         System.out.println("Ticket asignado exitosamente!");
     }
     
+    /**
+     * Asigna automáticamente todos los tickets sin técnico al técnico
+     * menos cargado de su categoría.
+     */
+    private void despacharPendientes() {
+        System.out.println("\n┌────────── DESPACHO AUTOMÁTICO ──────────┐");
+        
+        Map<Integer, Integer> asignaciones = tableroService.despacharPendientes();
+        
+        if (asignaciones.isEmpty()) {
+            System.out.println("No hay tickets que se puedan despachar.");
+            return;
+        }
+        
+        for (Map.Entry<Integer, Integer> asignacion : asignaciones.entrySet()) {
+            Tecnico tecnico = tableroService.buscarTecnicoPorId(asignacion.getValue());
+            System.out.printf("#%d -> %s (carga: %d)\n",
+                             asignacion.getKey(), tecnico.getNombre(),
+                             tableroService.getCargaTecnico(tecnico.getId()));
+        }
+        
+        System.out.println("\nTotal de tickets despachados: " + asignaciones.size());
+    }
+    
     /**
      * Cambia el estado de un ticket.
      */
@@ -348,6 +371,9 @@ public class MesaDeAyudaApp {
         System.out.println("1. Buscar por categoría");
         System.out.println("2. Buscar por estado");
         System.out.println("3. Buscar por técnico asignado");
+        System.out.println("4. Búsqueda combinada (varios filtros)");
+        System.out.println("5. Búsqueda por texto (más relevantes primero)");
+        System.out.println("6. Ver historial de un ticket");
         System.out.print("Seleccione tipo de búsqueda: ");
         
         int tipo = leerEntero();
@@ -387,6 +413,22 @@ public class MesaDeAyudaApp {
                 resultados = tableroService.buscarPorTecnico(tecnicoId);
                 break;
                 
+            case 4:
+                ConsultaTickets consulta = leerConsultaCombinada();
+                System.out.println("Plan: " + tableroService.explicarConsulta(consulta));
+                resultados = tableroService.consultar(consulta);
+                break;
+                
+            case 5:
+                System.out.print("Palabras a buscar: ");
+                String texto = scanner.nextLine().trim();
+                resultados = tableroService.buscarTexto(texto, 20);
+                break;
+                
+            case 6:
+                mostrarHistorialTicket();
+                return;
+                
             default:
                 System.out.println("ERROR: Opción no válida.");
                 return;
@@ -395,6 +437,85 @@ public class MesaDeAyudaApp {
         mostrarResultadosBusqueda(resultados);
     }
     
+    /**
+     * Lee los filtros de una búsqueda combinada. Cada filtro se omite
+     * dejando la respuesta vacía.
+     */
+    private ConsultaTickets leerConsultaCombinada() {
+        System.out.println("Deje vacío cualquier filtro que no desee aplicar.");
+        ConsultaTickets consulta = new ConsultaTickets();
+        
+        System.out.print("Categoría: ");
+        consulta.conCategoria(scanner.nextLine());
+        
+        System.out.print("Estado (ABIERTO, EN_CURSO, CERRADO): ");
+        String estado = scanner.nextLine().trim();
+        if (!estado.isEmpty()) {
+            consulta.conEstado(Estado.valueOf(estado.toUpperCase()));
+        }
+        
+        System.out.print("Prioridad (BAJA, MEDIA, ALTA): ");
+        String prioridad = scanner.nextLine().trim();
+        if (!prioridad.isEmpty()) {
+            consulta.conPrioridad(Prioridad.valueOf(prioridad.toUpperCase()));
+        }
+        
+        System.out.print("ID del técnico: ");
+        String tecnico = scanner.nextLine().trim();
+        if (!tecnico.isEmpty()) {
+            consulta.conTecnico(Integer.parseInt(tecnico));
+        }
+        
+        System.out.print("Creado desde (AAAA-MM-DD): ");
+        String creadoDesde = scanner.nextLine();
+        System.out.print("Creado hasta (AAAA-MM-DD): ");
+        String creadoHasta = scanner.nextLine();
+        consulta.creadoEntre(Validador.parsearFecha(creadoDesde, false, "creado desde"),
+                             Validador.parsearFecha(creadoHasta, true, "creado hasta"));
+        
+        System.out.print("Cerrado desde (AAAA-MM-DD): ");
+        String cerradoDesde = scanner.nextLine();
+        System.out.print("Cerrado hasta (AAAA-MM-DD): ");
+        String cerradoHasta = scanner.nextLine();
+        consulta.cerradoEntre(Validador.parsearFecha(cerradoDesde, false, "cerrado desde"),
+                              Validador.parsearFecha(cerradoHasta, true, "cerrado hasta"));
+        
+        System.out.print("Texto en título o descripción: ");
+        consulta.conTexto(scanner.nextLine());
+        
+        return consulta;
+    }
+    
+    /**
+     * Muestra las transiciones de un ticket, de la más antigua a la más
+     * reciente.
+     */
+    private void mostrarHistorialTicket() {
+        System.out.print("ID del ticket: ");
+        int ticketId = leerEntero();
+        if (tableroService.buscarTicketPorId(ticketId) == null) {
+            System.out.println("ERROR: Ticket no encontrado.");
+            return;
+        }
+        
+        List<HistorialTransiciones.Transicion> transiciones = tableroService.historialTicket(ticketId);
+        if (transiciones.isEmpty()) {
+            System.out.println("El ticket no tiene transiciones registradas.");
+            return;
+        }
+        
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+        System.out.printf("%-20s %-22s %s%n", "FECHA", "TRANSICIÓN", "TÉCNICO");
+        System.out.println("─".repeat(60));
+        for (HistorialTransiciones.Transicion transicion : transiciones) {
+            Tecnico tecnico = tableroService.buscarTecnicoPorId(transicion.getTecnicoId());
+            System.out.printf("%-20s %-22s %s%n",
+                             transicion.getFecha().format(formatter),
+                             transicion.getTipo(),
+                             (tecnico != null) ? tecnico.getNombre() : "Sin asignar");
+        }
+    }
+    
     /**
      * Muestra los resultados de una búsqueda.
      */
@@ -406,24 +527,57 @@ public class MesaDeAyudaApp {
             return;
         }
         
-        System.out.printf("%-4s %-20s %-12s %-10s %-15s %-8s%n", 
-                         "ID", "TÍTULO", "CATEGORÍA", "ESTADO", "TÉCNICO", "PRIORIDAD");
-        System.out.println("─".repeat(75));
+        mostrarTablaTickets(tickets);
+        
+        System.out.println("\nTotal encontrados: " + tickets.size());
+    }
+    
+    /**
+     * Muestra una tabla de tickets de a {@value #FILAS_POR_PAGINA} filas,
+     * preguntando antes de cada página siguiente.
+     */
+    private void mostrarTablaTickets(List<Ticket> tickets) {
+        RenderizadorTabla tabla = crearTabla(
+            new String[] {"ID", "TÍTULO", "CATEGORÍA", "ESTADO", "TÉCNICO", "PRIORIDAD"},
+            new int[] {4, 20, 12, 10, 15, 0});
+        tabla.escribirEncabezado();
         
         for (Ticket ticket : tickets) {
-            String tecnico = (ticket.getTecnicoAsignado() != null) ? 
-                           ticket.getTecnicoAsignado().getNombre() : "Sin asignar";
-            
-            System.out.printf("%-4d %-20s %-12s %-10s %-15s %s%n",
-                             ticket.getId(),
-                             truncarTexto(ticket.getTitulo(), 20),
-                             ticket.getCategoria(),
-                             ticket.getEstado(),
-                             truncarTexto(tecnico, 15),
-                             ticket.getPrioridad());
+            Tecnico tecnico = ticket.getTecnicoAsignado();
+            tabla.celda(ticket.getId())
+                 .celda(ticket.getTitulo())
+                 .celda(ticket.getCategoria())
+                 .celda(ticket.getEstado().name())
+                 .celda((tecnico != null) ? tecnico.getNombre() : "Sin asignar")
+                 .celda(ticket.getPrioridad().name());
+            if (!tabla.terminarFila()) {
+                break;
+            }
         }
-        
-        System.out.println("\nTotal encontrados: " + tickets.size());
+        tabla.terminar();
+    }
+    
+    /**
+     * Crea una tabla paginada sobre la salida estándar.
+     */
+    private RenderizadorTabla crearTabla(String[] titulos, int[] anchos) {
+        RenderizadorTabla tabla = new RenderizadorTabla(
+            new OutputStreamWriter(System.out, System.out.charset()), titulos, anchos);
+        tabla.setPaginacion(FILAS_POR_PAGINA, () -> continuarTabla(tabla));
+        return tabla;
+    }
+    
+    /**
+     * Pregunta si mostrar la página siguiente de una tabla; "t" muestra el
+     * resto sin más pausas.
+     */
+    private boolean continuarTabla(RenderizadorTabla tabla) {
+        System.out.print("-- Enter: " + FILAS_POR_PAGINA + " más | t: todos | q: terminar -- ");
+        String respuesta = scanner.hasNextLine() ? scanner.nextLine().trim() : "q";
+        if (respuesta.equalsIgnoreCase("t")) {
+            tabla.setPaginacion(0, null);
+        }
+        return !respuesta.equalsIgnoreCase("q");
     }
     
     /**
@@ -439,6 +593,7 @@ public class MesaDeAyudaApp {
         System.out.println("   Tickets cerrados: " + metricas.get("ticketsCerrados"));
         System.out.printf("   Porcentaje cerrados: %.1f%%\n", (Double) metricas.get("porcentajeCerrados"));
         System.out.printf("   Tiempo promedio resolución: %.1f minutos\n", (Double) metricas.get("tiempoPromedioResolucion"));
+        System.out.printf("   Espera promedio hasta el inicio: %.1f minutos\n", (Double) metricas.get("tiempoPromedioEspera"));
         
         @SuppressWarnings("unchecked")
         Map<Estado, Long> ticketsPorEstado = (Map<Estado, Long>) metricas.get("ticketsPorEstado");
@@ -455,6 +610,23 @@ public class MesaDeAyudaApp {
             long count = ticketsPorPrioridad.getOrDefault(prioridad, 0L);
             System.out.printf("   %s: %d\n", prioridad, count);
         }
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Long> ticketsPorCategoria = (Map<String, Long>) metricas.get("ticketsPorCategoria");
+        System.out.println("\nTickets por Categoría:");
+        for (Map.Entry<String, Long> entrada : ticketsPorCategoria.entrySet()) {
+            System.out.printf("   %s: %d\n", entrada.getKey(), entrada.getValue());
+        }
+        
+        System.out.println("\nEscalamientos por antigüedad:");
+        System.out.println("   Escalamientos realizados: " + metricas.get("escalamientos"));
+        System.out.println("   Tickets escalados: " + metricas.get("ticketsEscalados"));
+        System.out.println("   Tickets duplicados vinculados: " + metricas.get("ticketsDuplicados"));
+        
+        System.out.println("\nCaché de clasificación:");
+        System.out.println("   Aciertos: " + metricas.get("cacheClasificacionAciertos"));
+        System.out.println("   Fallos: " + metricas.get("cacheClasificacionFallos"));
+        System.out.println("   Tickets aprendidos por el modelo bayesiano: " + metricas.get("modeloBayesTickets"));
     }
     
     /**
@@ -465,6 +637,7 @@ public class MesaDeAyudaApp {
         
         System.out.println("1. Ver todos los técnicos");
         System.out.println("2. Agregar nuevo técnico");
+        System.out.println("3. Modificar habilidades de un técnico");
         System.out.print("Seleccione una opción: ");
         
         int opcion = leerEntero();
@@ -476,11 +649,51 @@ public class MesaDeAyudaApp {
             case 2:
                 agregarTecnico();
                 break;
+            case 3:
+                modificarSkillsTecnico();
+                break;
             default:
                 System.out.println("ERROR: Opción no válida.");
         }
     }
     
+    /**
+     * Agrega o quita una habilidad de un técnico existente.
+     */
+    private void modificarSkillsTecnico() {
+        System.out.print("ID del técnico: ");
+        int tecnicoId = leerEntero();
+        Tecnico tecnico = tableroService.buscarTecnicoPorId(tecnicoId);
+        if (tecnico == null) {
+            System.out.println("ERROR: Técnico no encontrado.");
+            return;
+        }
+        System.out.println("Habilidades actuales: " + String.join(", ", tecnico.getSkills()));
+        
+        System.out.println("1. Agregar habilidad");
+        System.out.println("2. Quitar habilidad");
+        System.out.print("Seleccione una opción: ");
+        int opcion = leerEntero();
+        if (opcion != 1 && opcion != 2) {
+            System.out.println("ERROR: Opción no válida.");
+            return;
+        }
+        
+        System.out.print("Habilidad: ");
+        String skill = scanner.nextLine().trim();
+        if (skill.isEmpty()) {
+            System.out.println("ERROR: La habilidad no puede estar vacía.");
+            return;
+        }
+        
+        if (opcion == 1) {
+            tableroService.agregarSkillTecnico(tecnicoId, skill);
+        } else {
+            tableroService.removerSkillTecnico(tecnicoId, skill);
+        }
+        System.out.println("Habilidades actualizadas exitosamente!");
+    }
+    
     /**
      * Muestra todos los técnicos.
      */
@@ -493,16 +706,19 @@ public class MesaDeAyudaApp {
         }
         
         System.out.println("\nTécnicos Registrados:");
-        System.out.printf("%-4s %-20s %-30s%n", "ID", "NOMBRE", "HABILIDADES");
-        System.out.println("─".repeat(55));
+        RenderizadorTabla tabla = crearTabla(new String[] {"ID", "NOMBRE", "HABILIDADES"},
+                                             new int[] {4, 20, 30});
+        tabla.escribirEncabezado();
         
         for (Tecnico tecnico : tecnicos) {
-            String skills = String.join(", ", tecnico.getSkills());
-            System.out.printf("%-4d %-20s %-30s%n",
-                             tecnico.getId(),
-                             truncarTexto(tecnico.getNombre(), 20),
-                             truncarTexto(skills, 30));
+            tabla.celda(tecnico.getId())
+                 .celda(tecnico.getNombre())
+                 .celda(String.join(", ", tecnico.getSkills()));
+            if (!tabla.terminarFila()) {
+                break;
+            }
         }
+        tabla.terminar();
     }
     
     /**
@@ -565,6 +781,8 @@ public class MesaDeAyudaApp {
      */
     private void despedida() {
         tableroService.guardarDatos();
+        tableroService.guardarIndices();
+        tableroService.esperarPuntoControl();
         System.out.println("\n╔══════════════════════════════════════════════════════════════╗");
         System.out.println("║                     ¡HASTA LUEGO!                            ║");
         System.out.println("║              Datos guardados exitosamente                    ║");
@@ -584,13 +802,4 @@ public class MesaDeAyudaApp {
             return -1;
         }
     }
-    
-    /**
-     * Trunca un texto a una longitud máxima.
-     */
-    private String truncarTexto(String texto, int maxLength) {
-        if (texto == null) return "";
-        if (texto.length() <= maxLength) return texto;
-        return texto.substring(0, maxLength - 3) + "...";
-    }
 }
\ No newline at end of file
@@ -0,0 +1,409 @@
+package mesadeayudajuname.app;
+
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.service.*;
+import mesadeayudajuname.util.Json;
+import mesadeayudajuname.util.Validador;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Modo no interactivo: ejecuta comandos sobre el tablero sin menús ni
+ * pausas, para scripts y tareas programadas.
+ *
+ * Los comandos llegan de a uno por línea desde un archivo o la entrada
+ * estándar, o como argumentos de la línea de comandos. Los valores con
+ * espacios van entre comillas dobles y las líneas vacías o que empiezan
+ * con # se ignoran:
+ * <pre>
+ *   create "título" "descripción" [categoría [prioridad]]   (sin categoría: clasificación automática)
+ *   assign &lt;ticketId&gt; &lt;tecnicoId&gt;
+ *   start &lt;ticketId&gt;
+ *   close &lt;ticketId&gt;
+ *   search [categoria=] [estado=] [prioridad=] [tecnico=] [texto=] [creadoDesde=] [creadoHasta=]
+ *          [cerradoDesde=] [cerradoHasta=] [limite=] [q=]
+ *   metrics
+ * </pre>
+ * También se aceptan los nombres en castellano (crear, asignar, iniciar,
+ * cerrar, buscar, metricas).
+ *
+ * Las modificaciones consecutivas se acumulan y se ejecutan juntas con
+ * {@link TableroService#ejecutarLote(List, boolean)}, que acepta operaciones
+ * sobre tickets creados antes en el mismo lote; una consulta ejecuta antes
+ * lo acumulado para respetar el orden del script. Los datos se guardan una
+ * sola vez al final.
+ *
+ * Por cada comando se escribe en la salida estándar una línea JSON con el
+ * número de línea, el comando, "ok" y el resultado o el error. El código
+ * de salida es 0 si todos los comandos tuvieron éxito, 1 si alguno falló y
+ * 2 si no se pudo leer el script o abrir el directorio de datos, por ejemplo
+ * porque un servidor lo está usando.
+ *
+ * @author juanulb
+ */
+public class ModoComandos {
+    private static final int OPERACIONES_POR_LOTE = 1000;
+
+    private final TableroService tableroService;
+    private final PrintStream salida;
+    private final List<OperacionLote> lote;
+    private final List<Map<String, Object>> encabezadosLote;
+    private boolean huboCambios;
+    private int fallidos;
+
+    /**
+     * Constructor del modo de comandos.
+     *
+     * @param tableroService Servicio del tablero
+     * @param salida Destino de las líneas JSON
+     */
+    public ModoComandos(TableroService tableroService, PrintStream salida) {
+        this.tableroService = tableroService;
+        this.salida = salida;
+        this.lote = new ArrayList<>();
+        this.encabezadosLote = new ArrayList<>();
+    }
+
+    /**
+     * Ejecuta el modo de comandos según los argumentos del programa:
+     * {@code --comandos [archivo]} lee un script del archivo, o de la entrada
+     * estándar si falta o es "-"; {@code --comando <comando> [argumentos...]}
+     * ejecuta un único comando.
+     *
+     * @param args argumentos de línea de comandos, empezando por la opción
+     * @return código de salida
+     */
+    public static int ejecutar(String[] args) {
+        PrintStream salida = new PrintStream(new BufferedOutputStream(
+            new FileOutputStream(FileDescriptor.out), 1 << 16), false, StandardCharsets.UTF_8);
+        TableroService tableroService;
+        try {
+            tableroService = new TableroService();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+        ModoComandos modo = new ModoComandos(tableroService, salida);
+
+        if (args[0].equals("--comando")) {
+            if (args.length < 2) {
+                System.err.println("Falta el comando a ejecutar");
+                return 2;
+            }
+            modo.ejecutarComando(1, Arrays.asList(args).subList(1, args.length));
+            return modo.terminar();
+        }
+
+        boolean entradaEstandar = args.length < 2 || args[1].equals("-");
+        try (BufferedReader script = new BufferedReader(new InputStreamReader(
+                 entradaEstandar ? System.in : new FileInputStream(args[1]), StandardCharsets.UTF_8))) {
+            modo.ejecutar(script);
+        } catch (IOException e) {
+            System.err.println("Error al leer el script: " + e.getMessage());
+            modo.terminar();
+            return 2;
+        }
+        return modo.terminar();
+    }
+
+    /**
+     * Ejecuta todas las líneas de un script. Hay que llamar a
+     * {@link #terminar()} al final.
+     *
+     * @param script Script con un comando por línea
+     * @throws IOException si hay error en la lectura
+     */
+    public void ejecutar(BufferedReader script) throws IOException {
+        String linea;
+        int numero = 0;
+        while ((linea = script.readLine()) != null) {
+            numero++;
+            String texto = linea.trim();
+            if (texto.isEmpty() || texto.startsWith("#")) {
+                continue;
+            }
+            try {
+                ejecutarComando(numero, separar(texto));
+            } catch (IllegalArgumentException e) {
+                // Comillas sin cerrar
+                ejecutarLote();
+                escribirError(encabezado(numero, texto.split("\\s+")[0].toLowerCase()), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ejecuta lo acumulado, guarda los datos si hubo cambios y vacía la
+     * salida.
+     *
+     * @return código de salida: 0 si no falló ningún comando, 1 si no
+     */
+    public int terminar() {
+        ejecutarLote();
+        if (huboCambios) {
+            tableroService.guardarDatos();
+            tableroService.guardarIndices();
+        }
+        tableroService.esperarPuntoControl();
+        salida.flush();
+        return (fallidos == 0) ? 0 : 1;
+    }
+
+    /**
+     * Ejecuta un comando ya separado en palabras.
+     *
+     * @param numero Número de línea, para identificar el resultado
+     * @param palabras Nombre del comando y sus argumentos
+     */
+    public void ejecutarComando(int numero, List<String> palabras) {
+        String comando = palabras.get(0).toLowerCase();
+        List<String> argumentos = palabras.subList(1, palabras.size());
+        Map<String, Object> encabezado = encabezado(numero, comando);
+
+        try {
+            switch (comando) {
+                case "create":
+                case "crear":
+                    acumular(encabezado, crear(argumentos));
+                    break;
+                case "assign":
+                case "asignar":
+                    exigirArgumentos(argumentos, 2, "assign <ticketId> <tecnicoId>");
+                    acumular(encabezado, OperacionLote.asignar(parsearId(argumentos.get(0), "ticketId"),
+                                                               parsearId(argumentos.get(1), "tecnicoId")));
+                    break;
+                case "start":
+                case "iniciar":
+                    exigirArgumentos(argumentos, 1, "start <ticketId>");
+                    acumular(encabezado, OperacionLote.iniciar(parsearId(argumentos.get(0), "ticketId")));
+                    break;
+                case "close":
+                case "cerrar":
+                    exigirArgumentos(argumentos, 1, "close <ticketId>");
+                    acumular(encabezado, OperacionLote.cerrar(parsearId(argumentos.get(0), "ticketId")));
+                    break;
+                case "search":
+                case "buscar":
+                    ejecutarLote();
+                    List<Object> encontrados = tableroService.leer(() -> Json.tickets(buscar(argumentos)));
+                    encabezado.put("ok", true);
+                    encabezado.put("tickets", encontrados);
+                    escribir(encabezado);
+                    break;
+                case "metrics":
+                case "metricas":
+                    ejecutarLote();
+                    encabezado.put("ok", true);
+                    encabezado.put("metricas", tableroService.calcularMetricas());
+                    escribir(encabezado);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Comando desconocido: " + palabras.get(0));
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            ejecutarLote();
+            escribirError(encabezado, e.getMessage());
+        }
+    }
+
+    private static OperacionLote crear(List<String> argumentos) {
+        exigirArgumentos(argumentos, 2, "create <titulo> <descripcion> [categoria [prioridad]]");
+        if (argumentos.size() == 2) {
+            return OperacionLote.crearConClasificacion(argumentos.get(0), argumentos.get(1));
+        }
+        Prioridad prioridad = (argumentos.size() > 3) ? parsearPrioridad(argumentos.get(3)) : Prioridad.BAJA;
+        return OperacionLote.crear(argumentos.get(0), argumentos.get(1), argumentos.get(2), prioridad);
+    }
+
+    /**
+     * Agrega una modificación al lote pendiente.
+     */
+    private void acumular(Map<String, Object> encabezado, OperacionLote operacion) {
+        lote.add(operacion);
+        encabezadosLote.add(encabezado);
+        if (lote.size() >= OPERACIONES_POR_LOTE) {
+            ejecutarLote();
+        }
+    }
+
+    /**
+     * Ejecuta las modificaciones acumuladas sin guardar y escribe sus
+     * resultados.
+     */
+    private void ejecutarLote() {
+        if (lote.isEmpty()) {
+            return;
+        }
+        List<ResultadoLote> resultados;
+        try {
+            resultados = tableroService.ejecutarLote(lote, false);
+        } catch (IllegalStateException e) {
+            // Tablero de solo lectura: falla el lote completo
+            for (Map<String, Object> encabezado : encabezadosLote) {
+                escribirError(encabezado, e.getMessage());
+            }
+            limpiarLote();
+            return;
+        }
+
+        for (ResultadoLote resultado : resultados) {
+            Map<String, Object> encabezado = encabezadosLote.get(resultado.getIndice());
+            if (resultado.isExitoso()) {
+                huboCambios = true;
+                encabezado.put("ok", true);
+                encabezado.put("ticketId", resultado.getTicketId());
+                escribir(encabezado);
+            } else {
+                escribirError(encabezado, resultado.getMensaje());
+            }
+        }
+        limpiarLote();
+    }
+
+    private void limpiarLote() {
+        lote.clear();
+        encabezadosLote.clear();
+    }
+
+    /**
+     * Busca tickets según filtros clave=valor. Con "q" busca por relevancia;
+     * con "limite", los más antiguos por fecha de creación.
+     */
+    private List<Ticket> buscar(List<String> argumentos) {
+        Map<String, String> filtros = new HashMap<>();
+        for (String argumento : argumentos) {
+            int igual = argumento.indexOf('=');
+            if (igual <= 0) {
+                throw new IllegalArgumentException("Filtro no válido (se espera clave=valor): " + argumento);
+            }
+            filtros.put(argumento.substring(0, igual), argumento.substring(igual + 1));
+        }
+
+        int limite = filtros.containsKey("limite") ? parsearId(filtros.remove("limite"), "limite") : 0;
+        if (filtros.containsKey("q")) {
+            return tableroService.buscarTexto(filtros.remove("q"), (limite > 0) ? limite : 20);
+        }
+
+        ConsultaTickets consulta = new ConsultaTickets()
+            .conCategoria(filtros.remove("categoria"))
+            .conTexto(filtros.remove("texto"))
+            .creadoEntre(Validador.parsearFecha(filtros.remove("creadoDesde"), false, "creadoDesde"),
+                         Validador.parsearFecha(filtros.remove("creadoHasta"), true, "creadoHasta"))
+            .cerradoEntre(Validador.parsearFecha(filtros.remove("cerradoDesde"), false, "cerradoDesde"),
+                          Validador.parsearFecha(filtros.remove("cerradoHasta"), true, "cerradoHasta"));
+        if (filtros.containsKey("estado")) {
+            consulta.conEstado(parsearEstado(filtros.remove("estado")));
+        }
+        if (filtros.containsKey("prioridad")) {
+            consulta.conPrioridad(parsearPrioridad(filtros.remove("prioridad")));
+        }
+        if (filtros.containsKey("tecnico")) {
+            consulta.conTecnico(parsearId(filtros.remove("tecnico"), "tecnico"));
+        }
+        if (!filtros.isEmpty()) {
+            throw new IllegalArgumentException("Filtros desconocidos: " + filtros.keySet());
+        }
+        return (limite > 0) ? tableroService.masAntiguos(consulta, CampoFecha.CREACION, limite)
+                            : tableroService.consultar(consulta);
+    }
+
+    // Métodos de utilidad
+
+    /**
+     * Separa una línea en palabras por espacios, respetando los valores
+     * entre comillas dobles. Dentro de las comillas, \" es una comilla y \\
+     * una barra invertida.
+     *
+     * @param linea Línea del script
+     * @return palabras de la línea
+     * @throws IllegalArgumentException si quedan comillas sin cerrar
+     */
+    static List<String> separar(String linea) {
+        List<String> palabras = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean enComillas = false;
+        boolean hayPalabra = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (enComillas) {
+                if (c == '\\' && i + 1 < linea.length()
+                        && (linea.charAt(i + 1) == '"' || linea.charAt(i + 1) == '\\')) {
+                    actual.append(linea.charAt(++i));
+                } else if (c == '"') {
+                    enComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                enComillas = true;
+                hayPalabra = true;
+            } else if (Character.isWhitespace(c)) {
+                if (hayPalabra) {
+                    palabras.add(actual.toString());
+                    actual.setLength(0);
+                    hayPalabra = false;
+                }
+            } else {
+                actual.append(c);
+                hayPalabra = true;
+            }
+        }
+        if (enComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        if (hayPalabra) {
+            palabras.add(actual.toString());
+        }
+        return palabras;
+    }
+
+    private static Map<String, Object> encabezado(int numero, String comando) {
+        Map<String, Object> encabezado = new LinkedHashMap<>();
+        encabezado.put("linea", numero);
+        encabezado.put("comando", comando);
+        return encabezado;
+    }
+
+    private void escribirError(Map<String, Object> encabezado, String mensaje) {
+        fallidos++;
+        encabezado.put("ok", false);
+        encabezado.put("error", mensaje);
+        escribir(encabezado);
+    }
+
+    private void escribir(Map<String, Object> resultado) {
+        salida.println(Json.escribir(resultado));
+    }
+
+    private static void exigirArgumentos(List<String> argumentos, int minimo, String uso) {
+        if (argumentos.size() < minimo) {
+            throw new IllegalArgumentException("Faltan argumentos. Uso: " + uso);
+        }
+    }
+
+    private static int parsearId(String texto, String nombreCampo) {
+        try {
+            return Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número no válido para '" + nombreCampo + "': " + texto);
+        }
+    }
+
+    private static Prioridad parsearPrioridad(String texto) {
+        try {
+            return Prioridad.valueOf(texto.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Prioridad no válida: " + texto);
+        }
+    }
+
+    private static Estado parsearEstado(String texto) {
+        try {
+            return Estado.valueOf(texto.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estado no válido: " + texto);
+        }
+    }
+}
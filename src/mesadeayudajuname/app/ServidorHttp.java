@@ -0,0 +1,587 @@
+package mesadeayudajuname.app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.service.*;
+import mesadeayudajuname.util.Json;
+import mesadeayudajuname.util.Validador;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP/JSON sin interfaz de consola para el sistema de Mesa de Ayuda.
+ * Usa el servidor HTTP incluido en el JDK y atiende cada petición en su
+ * propio hilo virtual, por lo que miles de conexiones concurrentes solo
+ * cuestan memoria, no hilos del sistema operativo.
+ *
+ * Endpoints disponibles:
+ * <pre>
+ *   GET  /tickets[?categoria=&amp;estado=&amp;prioridad=&amp;tecnico=&amp;texto=
+ *                &amp;creadoDesde=&amp;creadoHasta=&amp;iniciadoDesde=&amp;iniciadoHasta=
+ *                &amp;cerradoDesde=&amp;cerradoHasta=&amp;limite=&amp;orden=creacion|inicio|cierre&amp;en=]
+ *                                                    buscar tickets (filtros combinables; con límite,
+ *                                                    los más antiguos según la fecha de orden)
+ *   GET  /tickets/{id}                               consultar un ticket
+ *   GET  /tickets/{id}/historial                     transiciones del ticket
+ *   GET  /buscar?q=&amp;limite=                           buscar por relevancia en título y descripción
+ *   POST /tickets                                    crear (sin categoría: clasificación automática)
+ *   POST /tickets/{id}/asignar                       asignar {"tecnicoId": n}
+ *   POST /tickets/{id}/despachar                     asignar al técnico menos cargado
+ *   POST /tickets/{id}/iniciar                       iniciar trabajo
+ *   POST /tickets/{id}/cerrar                        cerrar
+ *   POST /clasificar                                 clasificar {"titulo", "descripcion"} con palabras
+ *                                                    clave y, si hay historial, con el modelo bayesiano
+ *   POST /reclasificar                               reclasificar los tickets abiertos con
+ *                                                    clasificación automática con los
+ *                                                    diccionarios actuales
+ *   GET  /pendientes[?prioridad=&amp;limite=&amp;en=]        pendientes por prioridad, o los más antiguos
+ *   GET  /tecnicos/en-curso?limite=                  tickets en curso más largos de cada técnico
+ *   GET  /historial?desde=&amp;hasta=[&amp;limite=]          transiciones de todos los tickets en un
+ *                                                    rango de fechas
+ *   GET  /metricas[?en=]                             métricas del sistema
+ *   GET  /tecnicos                                   listar técnicos
+ *   POST /tecnicos                                   agregar {"nombre", "skills": [...]}
+ *   GET  /tablero/flujo                              flujo SSE de pendientes y cambios
+ * </pre>
+ * El parámetro {@code en} (por ejemplo {@code en=2025-03-10T09:00}) responde
+ * con el tablero tal como estaba en ese instante, reconstruido desde el
+ * journal en disco.
+ *
+ * @author juanulb
+ */
+public class ServidorHttp {
+    private static final int BACKLOG = 4096;
+
+    private final TableroService tableroService;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final FlujoTablero flujoTablero;
+
+    /**
+     * Constructor del servidor.
+     *
+     * @param tableroService Servicio del tablero a exponer
+     * @param puerto Puerto TCP en el que escuchar
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public ServidorHttp(TableroService tableroService, int puerto) throws IOException {
+        this.tableroService = tableroService;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), BACKLOG);
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.flujoTablero = new FlujoTablero(tableroService);
+
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/", this::atender);
+    }
+
+    /**
+     * Inicia el servidor.
+     */
+    public void iniciar() {
+        servidor.start();
+        System.out.println("Servidor HTTP escuchando en el puerto " + getPuerto());
+    }
+
+    /**
+     * Detiene el servidor, esperando hasta un segundo a que terminen las
+     * peticiones en curso.
+     */
+    public void detener() {
+        flujoTablero.detener();
+        servidor.stop(1);
+        ejecutor.shutdown();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Atiende una petición: la enruta, serializa la respuesta y traduce las
+     * excepciones de negocio a códigos HTTP.
+     */
+    private void atender(HttpExchange intercambio) throws IOException {
+        try {
+            Respuesta respuesta = enrutar(intercambio);
+            if (respuesta != null) {
+                responder(intercambio, respuesta.codigo, respuesta.cuerpo);
+            }
+        } catch (ErrorHttp e) {
+            responder(intercambio, e.codigo, error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            responder(intercambio, 400, error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            responder(intercambio, 409, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            responder(intercambio, 500, error("Error interno: " + e.getMessage()));
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    /**
+     * Resuelve la ruta y el método de una petición.
+     *
+     * @return respuesta a enviar, o null si el manejador ya respondió
+     */
+    private Respuesta enrutar(HttpExchange intercambio) throws IOException {
+        String metodo = intercambio.getRequestMethod();
+        String[] partes = segmentos(intercambio.getRequestURI().getPath());
+        Map<String, String> parametros = parametros(intercambio.getRequestURI().getRawQuery());
+
+        if (partes.length == 0) {
+            throw new ErrorHttp(404, "Ruta no encontrada");
+        }
+
+        switch (partes[0]) {
+            case "tickets":
+                return enrutarTickets(intercambio, metodo, partes, parametros);
+            case "buscar":
+                exigirMetodo(metodo, "GET");
+                return buscarTexto(parametros);
+            case "clasificar":
+                exigirMetodo(metodo, "POST");
+                return clasificar(leerCuerpo(intercambio));
+            case "reclasificar":
+                exigirMetodo(metodo, "POST");
+                return reclasificar();
+            case "pendientes":
+                exigirMetodo(metodo, "GET");
+                TableroService tablero = tableroEn(parametros);
+                if (parametros.containsKey("limite")) {
+                    Prioridad prioridad = parametros.containsKey("prioridad")
+                        ? parsearEnum(Prioridad.class, parametros.get("prioridad"), "prioridad") : null;
+                    int limite = parsearLimite(parametros);
+                    return new Respuesta(200, tablero.leer(
+                        () -> Json.tickets(tablero.pendientesMasAntiguos(prioridad, limite))));
+                }
+                return new Respuesta(200, tablero.leer(() -> Json.tickets(tablero.pendientesPorPrioridad())));
+            case "historial":
+                exigirMetodo(metodo, "GET");
+                return historialEntre(parametros);
+            case "metricas":
+                exigirMetodo(metodo, "GET");
+                return new Respuesta(200, tableroEn(parametros).calcularMetricas());
+            case "tablero":
+                if (partes.length == 2 && partes[1].equals("flujo")) {
+                    exigirMetodo(metodo, "GET");
+                    transmitirFlujo(intercambio, parametros);
+                    return null;
+                }
+                break;
+            case "tecnicos":
+                if (partes.length == 2 && partes[1].equals("en-curso")) {
+                    exigirMetodo(metodo, "GET");
+                    int limite = parsearLimite(parametros);
+                    return new Respuesta(200, tableroService.leer(() -> {
+                        Map<String, Object> porTecnico = new LinkedHashMap<>();
+                        for (Map.Entry<Integer, List<Ticket>> entrada
+                                 : tableroService.enCursoMasLargosPorTecnico(limite).entrySet()) {
+                            porTecnico.put(String.valueOf(entrada.getKey()), Json.tickets(entrada.getValue()));
+                        }
+                        return porTecnico;
+                    }));
+                }
+                if (partes.length == 1 && metodo.equals("GET")) {
+                    return new Respuesta(200, tableroService.leer(() -> {
+                        List<Object> tecnicos = new ArrayList<>();
+                        for (Tecnico tecnico : tableroService.getTecnicos()) {
+                            tecnicos.add(Json.tecnico(tecnico));
+                        }
+                        return tecnicos;
+                    }));
+                }
+                if (partes.length == 1 && metodo.equals("POST")) {
+                    return agregarTecnico(leerCuerpo(intercambio));
+                }
+                break;
+            default:
+                break;
+        }
+        throw new ErrorHttp(404, "Ruta no encontrada: " + metodo + " " + intercambio.getRequestURI().getPath());
+    }
+
+    /**
+     * Enruta las peticiones bajo /tickets.
+     */
+    private Respuesta enrutarTickets(HttpExchange intercambio, String metodo, String[] partes,
+                                     Map<String, String> parametros) throws IOException {
+        if (partes.length == 1) {
+            if (metodo.equals("GET")) {
+                TableroService tablero = tableroEn(parametros);
+                return new Respuesta(200, tablero.leer(() -> Json.tickets(buscarTickets(tablero, parametros))));
+            }
+            exigirMetodo(metodo, "POST");
+            return crearTicket(leerCuerpo(intercambio));
+        }
+
+        int ticketId = parsearEntero(partes[1], "ID de ticket");
+
+        if (partes.length == 2) {
+            exigirMetodo(metodo, "GET");
+            return new Respuesta(200, ticketJson(ticketId));
+        }
+
+        if (partes.length == 3 && partes[2].equals("historial")) {
+            exigirMetodo(metodo, "GET");
+            obtenerTicket(ticketId);
+            return new Respuesta(200, transiciones(tableroService.historialTicket(ticketId)));
+        }
+
+        if (partes.length == 3) {
+            exigirMetodo(metodo, "POST");
+            obtenerTicket(ticketId);
+
+            switch (partes[2]) {
+                case "asignar":
+                    Map<String, Object> cuerpo = leerCuerpo(intercambio);
+                    tableroService.asignarTicket(ticketId, enteroRequerido(cuerpo, "tecnicoId"));
+                    break;
+                case "despachar":
+                    if (tableroService.despacharTicket(ticketId) == -1) {
+                        throw new IllegalStateException("No hay técnicos que puedan atender este ticket");
+                    }
+                    break;
+                case "iniciar":
+                    tableroService.iniciarTicket(ticketId);
+                    break;
+                case "cerrar":
+                    tableroService.cerrarTicket(ticketId);
+                    break;
+                default:
+                    throw new ErrorHttp(404, "Acción no encontrada: " + partes[2]);
+            }
+            return new Respuesta(200, ticketJson(ticketId));
+        }
+
+        throw new ErrorHttp(404, "Ruta no encontrada");
+    }
+
+    /**
+     * Busca tickets por relevancia con el índice de texto completo.
+     */
+    private Respuesta buscarTexto(Map<String, String> parametros) {
+        String texto = parametros.get("q");
+        if (texto == null || texto.trim().isEmpty()) {
+            throw new ErrorHttp(400, "Falta el parámetro q");
+        }
+        int limite = parsearLimite(parametros);
+        return new Respuesta(200, tableroService.leer(() -> Json.tickets(tableroService.buscarTexto(texto, limite))));
+    }
+
+    /**
+     * Devuelve el tablero actual o, si está el parámetro "en", el tablero
+     * reconstruido tal como estaba en ese instante.
+     */
+    private TableroService tableroEn(Map<String, String> parametros) {
+        LocalDateTime instante = Validador.parsearFecha(parametros.get("en"), false, "en");
+        if (instante == null) {
+            return tableroService;
+        }
+        try {
+            return tableroService.estadoEn(instante);
+        } catch (IOException e) {
+            throw new ErrorHttp(500, "No se pudo leer el journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve las transiciones de un rango de fechas; ambos extremos son
+     * obligatorios para no recorrer todo el historial por error.
+     */
+    private Respuesta historialEntre(Map<String, String> parametros) {
+        LocalDateTime desde = Validador.parsearFecha(parametros.get("desde"), false, "desde");
+        LocalDateTime hasta = Validador.parsearFecha(parametros.get("hasta"), true, "hasta");
+        if (desde == null || hasta == null) {
+            throw new ErrorHttp(400, "Faltan los parámetros desde y hasta");
+        }
+        return new Respuesta(200, transiciones(tableroService.transicionesEntre(desde, hasta,
+                                                                                parsearLimite(parametros))));
+    }
+
+    /**
+     * Convierte transiciones del historial en una lista lista para serializar.
+     */
+    private static List<Object> transiciones(List<HistorialTransiciones.Transicion> transiciones) {
+        List<Object> lista = new ArrayList<>(transiciones.size());
+        for (HistorialTransiciones.Transicion transicion : transiciones) {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("ticketId", transicion.getTicketId());
+            mapa.put("tipo", transicion.getTipo());
+            mapa.put("tecnicoId", transicion.getTecnicoId() != 0 ? transicion.getTecnicoId() : null);
+            mapa.put("fecha", transicion.getFecha().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            lista.add(mapa);
+        }
+        return lista;
+    }
+
+    /**
+     * Lee el parámetro "limite", que por defecto vale 20.
+     */
+    private static int parsearLimite(Map<String, String> parametros) {
+        int limite = parametros.containsKey("limite") ? parsearEntero(parametros.get("limite"), "límite") : 20;
+        if (limite <= 0) {
+            throw new ErrorHttp(400, "El límite debe ser positivo");
+        }
+        return limite;
+    }
+
+    /**
+     * Busca tickets combinando todos los filtros indicados en los parámetros.
+     */
+    private List<Ticket> buscarTickets(TableroService tablero, Map<String, String> parametros) {
+        ConsultaTickets consulta = new ConsultaTickets()
+            .conCategoria(parametros.get("categoria"))
+            .conTexto(parametros.get("texto"))
+            .creadoEntre(Validador.parsearFecha(parametros.get("creadoDesde"), false, "creadoDesde"),
+                         Validador.parsearFecha(parametros.get("creadoHasta"), true, "creadoHasta"))
+            .iniciadoEntre(Validador.parsearFecha(parametros.get("iniciadoDesde"), false, "iniciadoDesde"),
+                           Validador.parsearFecha(parametros.get("iniciadoHasta"), true, "iniciadoHasta"))
+            .cerradoEntre(Validador.parsearFecha(parametros.get("cerradoDesde"), false, "cerradoDesde"),
+                          Validador.parsearFecha(parametros.get("cerradoHasta"), true, "cerradoHasta"));
+        if (parametros.containsKey("estado")) {
+            consulta.conEstado(parsearEnum(Estado.class, parametros.get("estado"), "estado"));
+        }
+        if (parametros.containsKey("prioridad")) {
+            consulta.conPrioridad(parsearEnum(Prioridad.class, parametros.get("prioridad"), "prioridad"));
+        }
+        if (parametros.containsKey("tecnico")) {
+            consulta.conTecnico(parsearEntero(parametros.get("tecnico"), "ID de técnico"));
+        }
+        if (parametros.containsKey("limite")) {
+            CampoFecha orden = parametros.containsKey("orden")
+                ? parsearEnum(CampoFecha.class, parametros.get("orden"), "orden") : CampoFecha.CREACION;
+            return tablero.masAntiguos(consulta, orden, parsearLimite(parametros));
+        }
+        return tablero.consultar(consulta);
+    }
+
+    /**
+     * Crea un ticket a partir del cuerpo de la petición.
+     */
+    private Respuesta crearTicket(Map<String, Object> cuerpo) {
+        String titulo = textoOpcional(cuerpo, "titulo");
+        String descripcion = textoOpcional(cuerpo, "descripcion");
+        String categoria = textoOpcional(cuerpo, "categoria");
+
+        int ticketId;
+        if (categoria == null || categoria.trim().isEmpty()) {
+            ticketId = tableroService.crearTicketConClasificacion(titulo, descripcion);
+        } else {
+            String prioridad = textoOpcional(cuerpo, "prioridad");
+            ticketId = tableroService.crearTicket(titulo, descripcion, categoria,
+                prioridad != null ? parsearEnum(Prioridad.class, prioridad, "prioridad") : Prioridad.BAJA);
+        }
+        return new Respuesta(201, ticketJson(ticketId));
+    }
+
+    /**
+     * Clasifica un título y descripción sin crear el ticket.
+     */
+    private Respuesta clasificar(Map<String, Object> cuerpo) {
+        String titulo = textoOpcional(cuerpo, "titulo");
+        String descripcion = textoOpcional(cuerpo, "descripcion");
+        if (titulo == null) titulo = "";
+        if (descripcion == null) descripcion = "";
+
+        ResultadoClasificacion clasificacion = Clasificador.clasificar(titulo, descripcion);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("categoria", clasificacion.getCategoria());
+        resultado.put("prioridad", clasificacion.getPrioridad());
+        resultado.put("palabrasClave", Clasificador.describir(clasificacion));
+        resultado.put("coincidencias", clasificacion.getPalabrasClave());
+
+        ResultadoClasificacion bayes = tableroService.clasificarConBayes(titulo, descripcion);
+        if (bayes != null) {
+            Map<String, Object> sugerencia = new LinkedHashMap<>();
+            sugerencia.put("categoria", bayes.getCategoria());
+            sugerencia.put("prioridad", bayes.getPrioridad());
+            resultado.put("bayes", sugerencia);
+        }
+        return new Respuesta(200, resultado);
+    }
+
+    /**
+     * Reclasifica los tickets abiertos con clasificación automática con los
+     * diccionarios actuales.
+     */
+    private Respuesta reclasificar() {
+        long inicio = System.nanoTime();
+        int reclasificados = tableroService.reclasificarPendientes();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("reclasificados", reclasificados);
+        resultado.put("milisegundos", (System.nanoTime() - inicio) / 1_000_000);
+        return new Respuesta(200, resultado);
+    }
+
+    /**
+     * Agrega un técnico a partir del cuerpo de la petición.
+     */
+    private Respuesta agregarTecnico(Map<String, Object> cuerpo) {
+        List<String> skills = new ArrayList<>();
+        Object valor = cuerpo.get("skills");
+        if (valor instanceof List) {
+            for (Object skill : (List<?>) valor) {
+                skills.add(String.valueOf(skill));
+            }
+        } else if (valor != null) {
+            throw new IllegalArgumentException("El campo 'skills' debe ser un arreglo");
+        }
+
+        int tecnicoId = tableroService.agregarTecnico(textoOpcional(cuerpo, "nombre"), skills);
+        return new Respuesta(201, tableroService.leer(() -> Json.tecnico(tableroService.buscarTecnicoPorId(tecnicoId))));
+    }
+
+    /**
+     * Mantiene abierta una respuesta SSE hasta que el cliente se desconecta.
+     * El punto de reanudación se toma de la cabecera {@code Last-Event-ID}
+     * o, si no está, del parámetro {@code desde}.
+     */
+    private void transmitirFlujo(HttpExchange intercambio, Map<String, String> parametros) throws IOException {
+        String ultimoId = intercambio.getRequestHeaders().getFirst("Last-Event-ID");
+        if (ultimoId == null) {
+            ultimoId = parametros.get("desde");
+        }
+
+        intercambio.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        intercambio.getResponseHeaders().set("Cache-Control", "no-cache");
+        intercambio.sendResponseHeaders(200, 0);
+
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            flujoTablero.transmitir(salida, ultimoId);
+        } catch (IOException e) {
+            // El cliente cerró la conexión
+        }
+    }
+
+    // Métodos de utilidad
+
+    /**
+     * Convierte un ticket a JSON dentro de la sección crítica del tablero.
+     */
+    private Map<String, Object> ticketJson(int ticketId) {
+        return tableroService.leer(() -> Json.ticket(obtenerTicket(ticketId)));
+    }
+
+    private Ticket obtenerTicket(int ticketId) {
+        Ticket ticket = tableroService.buscarTicketPorId(ticketId);
+        if (ticket == null) {
+            throw new ErrorHttp(404, "Ticket con ID " + ticketId + " no encontrado");
+        }
+        return ticket;
+    }
+
+    private static void exigirMetodo(String metodo, String esperado) {
+        if (!metodo.equals(esperado)) {
+            throw new ErrorHttp(405, "Método no soportado: " + metodo);
+        }
+    }
+
+    private static Map<String, Object> leerCuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            return Json.parsearObjeto(new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String textoOpcional(Map<String, Object> cuerpo, String campo) {
+        Object valor = cuerpo.get(campo);
+        return (valor != null) ? valor.toString() : null;
+    }
+
+    private static int enteroRequerido(Map<String, Object> cuerpo, String campo) {
+        Object valor = cuerpo.get(campo);
+        if (!(valor instanceof Number)) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe ser numérico");
+        }
+        return ((Number) valor).intValue();
+    }
+
+    private static int parsearEntero(String texto, String nombreCampo) {
+        try {
+            return Integer.parseInt(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El " + nombreCampo + " debe ser un número");
+        }
+    }
+
+    private static <E extends Enum<E>> E parsearEnum(Class<E> tipo, String texto, String nombreCampo) {
+        try {
+            return Enum.valueOf(tipo, texto.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor no válido para '" + nombreCampo + "': " + texto);
+        }
+    }
+
+    private static String[] segmentos(String ruta) {
+        return Arrays.stream(ruta.split("/"))
+            .filter(s -> !s.isEmpty())
+            .toArray(String[]::new);
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = (igual >= 0) ? par.substring(0, igual) : par;
+            String valor = (igual >= 0) ? par.substring(igual + 1) : "";
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8),
+                           URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static Map<String, Object> error(String mensaje) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("error", mensaje);
+        return cuerpo;
+    }
+
+    private static void responder(HttpExchange intercambio, int codigo, Object cuerpo) throws IOException {
+        byte[] bytes = Json.escribir(cuerpo).getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    /**
+     * Código HTTP y cuerpo de una respuesta.
+     */
+    private static class Respuesta {
+        private final int codigo;
+        private final Object cuerpo;
+
+        Respuesta(int codigo, Object cuerpo) {
+            this.codigo = codigo;
+            this.cuerpo = cuerpo;
+        }
+    }
+
+    /**
+     * Error con un código HTTP explícito, como 404 o 405.
+     */
+    private static class ErrorHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int codigo;
+
+        ErrorHttp(int codigo, String mensaje) {
+            super(mensaje);
+            this.codigo = codigo;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package mesadeayudajuname.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Almacén de los títulos y descripciones de los tickets fuera del heap.
+ *
+ * Los textos se guardan en UTF-8, uno detrás de otro, en bloques de
+ * memoria nativa ({@link MemorySegment}) reservados en un {@link Arena}
+ * compartido, o bien en bloques de un archivo proyectado en memoria. Cada
+ * texto se identifica con una referencia de 64 bits que codifica bloque,
+ * desplazamiento y longitud, de modo que un {@link Ticket} solo guarda dos
+ * enteros largos y el recolector de basura no tiene que recorrer ni mover
+ * los textos. Al leer se decodifica una cadena nueva.
+ *
+ * El almacén solo agrega: un texto reemplazado sigue ocupando su lugar
+ * hasta cerrar el almacén, lo que es aceptable porque los textos de un
+ * ticket casi nunca cambian. Hay un único almacén activo por proceso y
+ * debe activarse antes de cargar los tickets. Escribir es sincronizado;
+ * leer no toma candados.
+ *
+ * @author juanulb
+ */
+public final class AlmacenTexto {
+    /**
+     * Referencia que indica que el texto no está en el almacén.
+     */
+    public static final long SIN_TEXTO = -1L;
+
+    private static final int BITS_LONGITUD = 23;
+    private static final int BITS_DESPLAZAMIENTO = 23;
+    private static final long TAMANO_BLOQUE = 1L << BITS_DESPLAZAMIENTO;   // 8 MB
+    private static final long MASCARA = (1L << BITS_LONGITUD) - 1;
+    private static final int MAXIMO_BLOQUES = 1 << (64 - BITS_LONGITUD - BITS_DESPLAZAMIENTO);
+
+    private static volatile AlmacenTexto activo;
+
+    private final Arena arena;
+    private final FileChannel canal;
+    private final File archivo;
+    private volatile MemorySegment[] bloques;
+    private int cantidadBloques;
+    private long desplazamiento;
+    private long bytesUsados;
+
+    private AlmacenTexto(FileChannel canal, File archivo) {
+        this.arena = Arena.ofShared();
+        this.canal = canal;
+        this.archivo = archivo;
+        this.bloques = new MemorySegment[16];
+        this.cantidadBloques = 0;
+        this.desplazamiento = TAMANO_BLOQUE;
+    }
+
+    /**
+     * Crea un almacén en memoria nativa.
+     *
+     * @return almacén vacío
+     */
+    public static AlmacenTexto enMemoria() {
+        return new AlmacenTexto(null, null);
+    }
+
+    /**
+     * Crea un almacén respaldado por un archivo proyectado en memoria, que
+     * el sistema operativo puede llevar a disco cuando falta memoria. El
+     * archivo es de trabajo: se vacía al crearlo y se borra al cerrar el
+     * almacén o al terminar el proceso.
+     *
+     * @param archivo Archivo de trabajo
+     * @return almacén vacío
+     * @throws IOException si no se puede crear el archivo
+     */
+    public static AlmacenTexto enArchivo(File archivo) throws IOException {
+        FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        archivo.deleteOnExit();
+        return new AlmacenTexto(canal, archivo);
+    }
+
+    /**
+     * Pone en uso un almacén para los textos de los tickets.
+     *
+     * @param almacen Almacén a usar
+     * @throws IllegalStateException si ya hay un almacén activo
+     */
+    public static synchronized void activar(AlmacenTexto almacen) {
+        if (activo != null) {
+            throw new IllegalStateException("Ya hay un almacén de texto activo");
+        }
+        activo = almacen;
+    }
+
+    /**
+     * Devuelve el almacén en uso.
+     *
+     * @return almacén activo, o null si los textos se guardan en el heap
+     */
+    public static AlmacenTexto getActivo() {
+        return activo;
+    }
+
+    /**
+     * Guarda un texto.
+     *
+     * @param texto Texto a guardar
+     * @return referencia para leerlo
+     * @throws IllegalArgumentException si el texto ocupa más de un bloque
+     * @throws IllegalStateException si no se puede reservar otro bloque
+     */
+    public synchronized long guardar(String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MASCARA) {
+            throw new IllegalArgumentException("Texto demasiado largo para el almacén: " + bytes.length + " bytes");
+        }
+        // El desplazamiento debe quedar por debajo del tamaño del bloque
+        if (desplazamiento + bytes.length >= TAMANO_BLOQUE) {
+            agregarBloque();
+        }
+
+        int bloque = cantidadBloques - 1;
+        MemorySegment.copy(bytes, 0, bloques[bloque], ValueLayout.JAVA_BYTE, desplazamiento, bytes.length);
+        long referencia = ((long) bloque << (BITS_DESPLAZAMIENTO + BITS_LONGITUD))
+                          | (desplazamiento << BITS_LONGITUD) | bytes.length;
+        desplazamiento += bytes.length;
+        bytesUsados += bytes.length;
+        return referencia;
+    }
+
+    private void agregarBloque() {
+        if (cantidadBloques == MAXIMO_BLOQUES) {
+            throw new IllegalStateException("El almacén de texto está lleno");
+        }
+
+        MemorySegment bloque;
+        if (canal == null) {
+            bloque = arena.allocate(TAMANO_BLOQUE, 1);
+        } else {
+            try {
+                bloque = canal.map(FileChannel.MapMode.READ_WRITE, cantidadBloques * TAMANO_BLOQUE,
+                                   TAMANO_BLOQUE, arena);
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo ampliar " + archivo + ": " + e.getMessage(), e);
+            }
+        }
+
+        // Los lectores ven el arreglo anterior o el nuevo completo
+        MemorySegment[] actuales = bloques;
+        if (cantidadBloques == actuales.length) {
+            actuales = Arrays.copyOf(actuales, actuales.length * 2);
+        }
+        actuales[cantidadBloques++] = bloque;
+        bloques = actuales;
+        desplazamiento = 0;
+    }
+
+    /**
+     * Lee un texto guardado.
+     *
+     * @param referencia Referencia devuelta por {@link #guardar(String)}
+     * @return texto decodificado
+     */
+    public String leer(long referencia) {
+        int bloque = (int) (referencia >>> (BITS_DESPLAZAMIENTO + BITS_LONGITUD));
+        long inicio = (referencia >>> BITS_LONGITUD) & MASCARA;
+        int longitud = (int) (referencia & MASCARA);
+
+        byte[] bytes = new byte[longitud];
+        MemorySegment.copy(bloques[bloque], ValueLayout.JAVA_BYTE, inicio, bytes, 0, longitud);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return bytes ocupados por los textos guardados
+     */
+    public synchronized long getBytesUsados() {
+        return bytesUsados;
+    }
+
+    /**
+     * @return bytes reservados en bloques, usados o no
+     */
+    public synchronized long getBytesReservados() {
+        return cantidadBloques * TAMANO_BLOQUE;
+    }
+
+    /**
+     * Libera la memoria y, si lo hay, borra el archivo de trabajo. Ningún
+     * ticket del almacén puede leerse después.
+     */
+    public synchronized void cerrar() {
+        arena.close();
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar " + archivo + ": " + e.getMessage());
+            }
+            archivo.delete();
+        }
+    }
+}
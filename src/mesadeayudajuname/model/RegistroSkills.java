@@ -0,0 +1,105 @@
+package mesadeayudajuname.model;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro central de habilidades del sistema.
+ * Asigna a cada habilidad, sin distinguir mayúsculas/minúsculas ni espacios
+ * en los extremos, un identificador entero pequeño y estable durante la
+ * ejecución. Estos identificadores permiten representar las habilidades de
+ * un técnico como un conjunto de bits.
+ *
+ * @author juanulb
+ */
+public final class RegistroSkills {
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final List<String> NOMBRES = new ArrayList<>();
+
+    private RegistroSkills() {
+    }
+
+    /**
+     * Devuelve el ID de una habilidad, registrándola si aún no existe.
+     *
+     * @param skill Nombre de la habilidad
+     * @return ID de la habilidad, o -1 si el nombre está vacío
+     */
+    public static int obtenerId(String skill) {
+        String clave = normalizar(skill);
+        if (clave.isEmpty()) {
+            return -1;
+        }
+
+        Integer id = IDS.get(clave);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (NOMBRES) {
+            return IDS.computeIfAbsent(clave, k -> {
+                NOMBRES.add(k);
+                return NOMBRES.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Busca el ID de una habilidad sin registrarla.
+     *
+     * @param skill Nombre de la habilidad
+     * @return ID de la habilidad, o -1 si no está registrada
+     */
+    public static int buscarId(String skill) {
+        String clave = normalizar(skill);
+        if (clave.isEmpty()) {
+            return -1;
+        }
+
+        Integer id = IDS.get(clave);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Devuelve el nombre normalizado de una habilidad registrada.
+     *
+     * @param id ID de la habilidad
+     * @return nombre en minúsculas de la habilidad
+     */
+    public static String getNombre(int id) {
+        synchronized (NOMBRES) {
+            return NOMBRES.get(id);
+        }
+    }
+
+    /**
+     * Construye el conjunto de bits correspondiente a una lista de habilidades,
+     * registrando las que aún no existan.
+     *
+     * @param skills Lista de habilidades
+     * @return conjunto de bits con un bit activo por habilidad
+     */
+    public static BitSet construirMascara(Collection<String> skills) {
+        BitSet mascara = new BitSet();
+        for (String skill : skills) {
+            int id = obtenerId(skill);
+            if (id >= 0) {
+                mascara.set(id);
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * Normaliza el nombre de una habilidad (trim y minúsculas).
+     *
+     * @param skill Nombre de la habilidad
+     * @return nombre normalizado, o cadena vacía si es nulo
+     */
+    public static String normalizar(String skill) {
+        if (skill == null) {
+            return "";
+        }
+        return skill.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,11 +2,14 @@ package mesadeayudajuname.model;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.BitSet;
 
 /**
  * Representa un técnico del sistema de mesa de ayuda.
  * Cada técnico tiene un ID único, nombre y una lista de habilidades
  * que determinan qué categorías de tickets puede atender.
+ * Las habilidades se guardan además como un conjunto de bits indexado por
+ * los IDs de {@link RegistroSkills}, para verificarlas sin recorrer la lista.
  * 
  * @author juanulb
  */
@@ -14,6 +17,7 @@ public class Tecnico {
     private int id;
     private String nombre;
     private List<String> skills;
+    private BitSet mascaraSkills;
     
     /**
      * Constructor para crear un nuevo técnico.
@@ -26,6 +30,7 @@ public class Tecnico {
         this.id = id;
         this.nombre = nombre;
         this.skills = new ArrayList<>(skills);
+        this.mascaraSkills = RegistroSkills.construirMascara(this.skills);
     }
     
     /**
@@ -38,6 +43,7 @@ public class Tecnico {
         this.id = id;
         this.nombre = nombre;
         this.skills = new ArrayList<>();
+        this.mascaraSkills = new BitSet();
     }
     
     /**
@@ -47,37 +53,48 @@ public class Tecnico {
      * @return true si el técnico puede atender esta categoría, false en caso contrario
      */
     public boolean puedeAtender(String categoria) {
-        if (categoria == null || categoria.trim().isEmpty()) {
-            return false;
-        }
-        
-        // Búsqueda insensible a mayúsculas/minúsculas
-        for (String skill : skills) {
-            if (skill.equalsIgnoreCase(categoria.trim())) {
-                return true;
-            }
-        }
-        return false;
+        return puedeAtender(RegistroSkills.buscarId(categoria));
+    }
+    
+    /**
+     * Verifica si el técnico tiene una habilidad a partir de su ID.
+     * 
+     * @param skillId ID de la habilidad en {@link RegistroSkills}
+     * @return true si el técnico tiene la habilidad, false en caso contrario
+     */
+    public boolean puedeAtender(int skillId) {
+        return skillId >= 0 && mascaraSkills.get(skillId);
     }
     
     /**
      * Agrega una nueva habilidad al técnico.
+     * Para un técnico ya registrado en el tablero debe usarse
+     * {@code TableroService.agregarSkillTecnico}, que además actualiza los
+     * índices de habilidades y el despacho.
      * 
      * @param skill Nueva habilidad a agregar
      */
     public void agregarSkill(String skill) {
-        if (skill != null && !skill.trim().isEmpty() && !skills.contains(skill.trim())) {
+        int skillId = RegistroSkills.obtenerId(skill);
+        if (skillId >= 0 && !mascaraSkills.get(skillId)) {
             skills.add(skill.trim());
+            mascaraSkills.set(skillId);
         }
     }
     
     /**
-     * Remueve una habilidad del técnico.
+     * Remueve una habilidad del técnico, sin distinguir mayúsculas ni
+     * espacios en los extremos.
+     * Para un técnico ya registrado en el tablero debe usarse
+     * {@code TableroService.removerSkillTecnico}.
      * 
      * @param skill Habilidad a remover
      */
     public void removerSkill(String skill) {
-        skills.remove(skill);
+        String clave = RegistroSkills.normalizar(skill);
+        if (skills.removeIf(s -> RegistroSkills.normalizar(s).equals(clave))) {
+            this.mascaraSkills = RegistroSkills.construirMascara(skills);
+        }
     }
     
     // Getters y Setters
@@ -101,8 +118,20 @@ public class Tecnico {
         return new ArrayList<>(skills);
     }
     
+    /**
+     * Reemplaza las habilidades del técnico.
+     * Para un técnico ya registrado en el tablero debe usarse
+     * {@code TableroService.setSkillsTecnico}.
+     * 
+     * @param skills Nuevas habilidades
+     */
     public void setSkills(List<String> skills) {
         this.skills = new ArrayList<>(skills);
+        this.mascaraSkills = RegistroSkills.construirMascara(this.skills);
+    }
+    
+    public BitSet getMascaraSkills() {
+        return (BitSet) mascaraSkills.clone();
     }
     
     @Override
@@ -3,6 +3,7 @@ package mesadeayudajuname.model;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.Duration;
+import java.util.Objects;
 
 /**
  * Representa un ticket de incidencia en el sistema de mesa de ayuda.
@@ -12,8 +13,10 @@ import java.time.Duration;
  */
 public class Ticket {
     private int id;
-    private String titulo;
+    private String titulo;              // null mientras está en el AlmacenTexto
     private String descripcion;
+    private long textoTitulo;           // referencia en el AlmacenTexto
+    private long textoDescripcion;
     private String categoria;
     private Estado estado;
     private Prioridad prioridad;
@@ -21,6 +24,10 @@ public class Ticket {
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaInicio;
     private LocalDateTime fechaCierre;
+    private int escalamientos;
+    private LocalDateTime fechaEscalamiento;
+    private int duplicadoDe;
+    private boolean clasificacionAutomatica;
     
     /**
      * Constructor para crear un nuevo ticket.
@@ -35,6 +42,8 @@ public class Ticket {
         this.id = id;
         this.titulo = titulo;
         this.descripcion = descripcion;
+        this.textoTitulo = AlmacenTexto.SIN_TEXTO;
+        this.textoDescripcion = AlmacenTexto.SIN_TEXTO;
         this.categoria = categoria;
         this.prioridad = prioridad;
         this.estado = Estado.ABIERTO;
@@ -42,6 +51,10 @@ public class Ticket {
         this.tecnicoAsignado = null;
         this.fechaInicio = null;
         this.fechaCierre = null;
+        this.escalamientos = 0;
+        this.fechaEscalamiento = null;
+        this.duplicadoDe = 0;
+        this.clasificacionAutomatica = false;
     }
     
     /**
@@ -98,6 +111,112 @@ public class Ticket {
         this.fechaCierre = LocalDateTime.now();
     }
     
+    /**
+     * Eleva la prioridad de un ticket pendiente por antigüedad.
+     * 
+     * @param nuevaPrioridad Prioridad a la que se eleva el ticket
+     * @throws IllegalStateException si el ticket ya está cerrado
+     * @throws IllegalArgumentException si la nueva prioridad no es mayor que la actual
+     */
+    public void escalar(Prioridad nuevaPrioridad) {
+        if (estado == Estado.CERRADO) {
+            throw new IllegalStateException("No se puede escalar un ticket cerrado");
+        }
+        
+        if (nuevaPrioridad.getValor() <= prioridad.getValor()) {
+            throw new IllegalArgumentException("La prioridad " + nuevaPrioridad + " no es mayor que " + prioridad);
+        }
+        
+        this.prioridad = nuevaPrioridad;
+        this.escalamientos++;
+        this.fechaEscalamiento = LocalDateTime.now();
+    }
+    
+    /**
+     * Vincula el ticket a otro que reporta el mismo problema.
+     * 
+     * @param ticketOriginalId ID del ticket original
+     * @throws IllegalArgumentException si el ID es el del propio ticket o no es positivo
+     */
+    public void marcarDuplicadoDe(int ticketOriginalId) {
+        if (ticketOriginalId <= 0 || ticketOriginalId == id) {
+            throw new IllegalArgumentException("ID de ticket original no válido: " + ticketOriginalId);
+        }
+        this.duplicadoDe = ticketOriginalId;
+    }
+    
+    /**
+     * Marca que la categoría y la prioridad del ticket las eligió el
+     * clasificador y no una persona, de modo que se pueden volver a
+     * calcular al cambiar los diccionarios.
+     */
+    public void marcarClasificacionAutomatica() {
+        this.clasificacionAutomatica = true;
+    }
+    
+    /**
+     * Indica si la categoría y la prioridad las eligió el clasificador.
+     * 
+     * @return true si el ticket se clasificó automáticamente
+     */
+    public boolean esClasificacionAutomatica() {
+        return clasificacionAutomatica;
+    }
+    
+    /**
+     * Indica si el ticket está vinculado a otro como duplicado.
+     * 
+     * @return true si es un duplicado
+     */
+    public boolean esDuplicado() {
+        return duplicadoDe > 0;
+    }
+    
+    /**
+     * Devuelve el instante desde el que el ticket tiene su prioridad actual:
+     * el último escalamiento o, si nunca se escaló, su creación.
+     * 
+     * @return fecha del último cambio de prioridad
+     */
+    public LocalDateTime getFechaPrioridadActual() {
+        return (fechaEscalamiento != null) ? fechaEscalamiento : fechaCreacion;
+    }
+    
+    /**
+     * Copia todo el estado de otro ticket con el mismo ID, sin aplicar las
+     * validaciones del ciclo de vida. Se usa al restaurar o replicar tickets
+     * cuyo estado ya fue validado en su origen.
+     * 
+     * @param origen Ticket del que se copia el estado
+     * @throws IllegalArgumentException si los IDs no coinciden
+     */
+    public void restaurarDesde(Ticket origen) {
+        if (origen.id != this.id) {
+            throw new IllegalArgumentException("No se puede restaurar el ticket " + id + " desde el ticket " + origen.id);
+        }
+        
+        // Un texto igual conserva su lugar en el almacén en vez de ocupar otro
+        if (!Objects.equals(getTitulo(), origen.getTitulo())) {
+            this.titulo = origen.titulo;
+            this.textoTitulo = origen.textoTitulo;
+        }
+        if (!Objects.equals(getDescripcion(), origen.getDescripcion())) {
+            this.descripcion = origen.descripcion;
+            this.textoDescripcion = origen.textoDescripcion;
+        }
+        this.categoria = origen.categoria;
+        this.estado = origen.estado;
+        this.prioridad = origen.prioridad;
+        this.tecnicoAsignado = origen.tecnicoAsignado;
+        this.fechaCreacion = origen.fechaCreacion;
+        this.fechaInicio = origen.fechaInicio;
+        this.fechaCierre = origen.fechaCierre;
+        this.escalamientos = origen.escalamientos;
+        this.fechaEscalamiento = origen.fechaEscalamiento;
+        this.duplicadoDe = origen.duplicadoDe;
+        this.clasificacionAutomatica = origen.clasificacionAutomatica;
+    }
+    
     /**
      * Calcula la duración total de resolución del ticket.
      * 
@@ -140,6 +259,10 @@ public class Ticket {
             sb.append(" | Cerrado: ").append(fechaCierre.format(formatter));
         }
         
+        if (duplicadoDe > 0) {
+            sb.append(" | Duplicado de #").append(duplicadoDe);
+        }
+        
         return sb.toString();
     }
     
@@ -153,19 +276,42 @@ public class Ticket {
     }
     
     public String getTitulo() {
-        return titulo;
+        return (textoTitulo == AlmacenTexto.SIN_TEXTO) ? titulo : AlmacenTexto.getActivo().leer(textoTitulo);
     }
     
     public void setTitulo(String titulo) {
         this.titulo = titulo;
+        this.textoTitulo = AlmacenTexto.SIN_TEXTO;
     }
     
     public String getDescripcion() {
-        return descripcion;
+        return (textoDescripcion == AlmacenTexto.SIN_TEXTO)
+            ? descripcion : AlmacenTexto.getActivo().leer(textoDescripcion);
     }
     
     public void setDescripcion(String descripcion) {
         this.descripcion = descripcion;
+        this.textoDescripcion = AlmacenTexto.SIN_TEXTO;
+    }
+    
+    /**
+     * Mueve el título y la descripción al {@link AlmacenTexto} activo, si lo
+     * hay, y suelta las cadenas del heap. A partir de ahí cada lectura
+     * decodifica el texto. No hace nada si ya se movieron.
+     */
+    public void moverTextoFueraDelHeap() {
+        AlmacenTexto almacen = AlmacenTexto.getActivo();
+        if (almacen == null) {
+            return;
+        }
+        if (titulo != null) {
+            textoTitulo = almacen.guardar(titulo);
+            titulo = null;
+        }
+        if (descripcion != null) {
+            textoDescripcion = almacen.guardar(descripcion);
+            descripcion = null;
+        }
     }
     
     public String getCategoria() {
@@ -204,11 +350,26 @@ public class Ticket {
         return fechaCierre;
     }
     
+    public int getEscalamientos() {
+        return escalamientos;
+    }
+    
+    public LocalDateTime getFechaEscalamiento() {
+        return fechaEscalamiento;
+    }
+    
+    /**
+     * @return ID del ticket original, o 0 si no es un duplicado
+     */
+    public int getDuplicadoDe() {
+        return duplicadoDe;
+    }
+    
     @Override
     public String toString() {
         String tecnicoNombre = (tecnicoAsignado != null) ? tecnicoAsignado.getNombre() : "Sin asignar";
         return String.format("[#%d] %s | %s | %s | Técnico: %s | %s", 
-                           id, titulo, categoria, estado, tecnicoNombre, prioridad);
+                           id, getTitulo(), categoria, estado, tecnicoNombre, prioridad);
     }
     
     @Override
@@ -0,0 +1,305 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Copia por columnas de los campos de los tickets que usan las métricas:
+ * un arreglo primitivo por campo en lugar de un objeto por ticket. Estado y
+ * prioridad se guardan como ordinales en bytes, las fechas como
+ * nanosegundos y la categoría como un código en un diccionario de
+ * categorías, de modo que recorrer todo el tablero es un bucle sobre
+ * arreglos contiguos, sin seguir referencias a fechas, enums ni técnicos.
+ *
+ * Cada ticket ocupa una fila; su ID lleva a la fila mediante un arreglo
+ * indexado por ID, ya que los IDs son consecutivos. Los objetos
+ * {@link Ticket} siguen siendo la fuente de verdad: el almacén es una copia
+ * adicional que se actualiza con cada cambio, así que suma memoria en lugar
+ * de ahorrarla, y sus consultas devuelven conteos, no tickets. Por eso
+ * {@link TableroService} solo lo usa si se activa
+ * {@link TableroService#PROPIEDAD_METRICAS_COLUMNARES}. La clase no es
+ * segura para hilos.
+ *
+ * @author juanulb
+ */
+public class AlmacenColumnar {
+    private static final int CAPACIDAD_INICIAL = 64;
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+    private static final long NS_POR_SEGUNDO = 1_000_000_000L;
+    private static final long SEGUNDOS_POR_MINUTO = 60;
+    private static final byte CERRADO = (byte) Estado.CERRADO.ordinal();
+
+    private int[] tecnicos;          // 0 si no tiene técnico asignado
+    private byte[] estados;
+    private byte[] prioridades;
+    private int[] categorias;
+    private long[] creaciones;
+    private long[] inicios;
+    private long[] cierres;
+    private int[] escalamientos;
+    private int[] duplicadosDe;
+    private int filas;
+
+    private int[] filaPorId;         // ID -> fila + 1, 0 si no está
+    private final List<String> nombresCategorias;
+    private final Map<String, Integer> codigosCategorias;
+
+    /**
+     * Constructor de un almacén vacío.
+     */
+    public AlmacenColumnar() {
+        this.nombresCategorias = new ArrayList<>();
+        this.codigosCategorias = new HashMap<>();
+        limpiar();
+    }
+
+    /**
+     * Vacía el almacén.
+     */
+    public final void limpiar() {
+        tecnicos = new int[CAPACIDAD_INICIAL];
+        estados = new byte[CAPACIDAD_INICIAL];
+        prioridades = new byte[CAPACIDAD_INICIAL];
+        categorias = new int[CAPACIDAD_INICIAL];
+        creaciones = new long[CAPACIDAD_INICIAL];
+        inicios = new long[CAPACIDAD_INICIAL];
+        cierres = new long[CAPACIDAD_INICIAL];
+        escalamientos = new int[CAPACIDAD_INICIAL];
+        duplicadosDe = new int[CAPACIDAD_INICIAL];
+        filas = 0;
+        filaPorId = new int[CAPACIDAD_INICIAL];
+        nombresCategorias.clear();
+        codigosCategorias.clear();
+    }
+
+    /**
+     * Agrega un ticket o reemplaza los valores de su fila.
+     *
+     * @param ticket Ticket agregado o modificado
+     */
+    public void actualizar(Ticket ticket) {
+        int id = ticket.getId();
+        if (id >= filaPorId.length) {
+            filaPorId = Arrays.copyOf(filaPorId, Math.max(id + 1, filaPorId.length * 2));
+        }
+
+        int fila = filaPorId[id] - 1;
+        if (fila < 0) {
+            if (filas == estados.length) {
+                crecer();
+            }
+            fila = filas++;
+            filaPorId[id] = fila + 1;
+        }
+
+        tecnicos[fila] = (ticket.getTecnicoAsignado() != null) ? ticket.getTecnicoAsignado().getId() : 0;
+        estados[fila] = (byte) ticket.getEstado().ordinal();
+        prioridades[fila] = (byte) ticket.getPrioridad().ordinal();
+        categorias[fila] = codigoCategoria(ticket.getCategoria());
+        creaciones[fila] = nanosegundos(ticket.getFechaCreacion());
+        inicios[fila] = nanosegundos(ticket.getFechaInicio());
+        cierres[fila] = nanosegundos(ticket.getFechaCierre());
+        escalamientos[fila] = ticket.getEscalamientos();
+        duplicadosDe[fila] = ticket.getDuplicadoDe();
+    }
+
+    private void crecer() {
+        int capacidad = estados.length * 2;
+        tecnicos = Arrays.copyOf(tecnicos, capacidad);
+        estados = Arrays.copyOf(estados, capacidad);
+        prioridades = Arrays.copyOf(prioridades, capacidad);
+        categorias = Arrays.copyOf(categorias, capacidad);
+        creaciones = Arrays.copyOf(creaciones, capacidad);
+        inicios = Arrays.copyOf(inicios, capacidad);
+        cierres = Arrays.copyOf(cierres, capacidad);
+        escalamientos = Arrays.copyOf(escalamientos, capacidad);
+        duplicadosDe = Arrays.copyOf(duplicadosDe, capacidad);
+    }
+
+    private int codigoCategoria(String categoria) {
+        Integer codigo = codigosCategorias.get(categoria);
+        if (codigo == null) {
+            codigo = nombresCategorias.size();
+            nombresCategorias.add(categoria);
+            codigosCategorias.put(categoria, codigo);
+        }
+        return codigo;
+    }
+
+    /**
+     * Convierte una fecha local en nanosegundos tomándola como UTC, para que
+     * las restas den la misma duración que entre las fechas locales aun si
+     * hay un cambio de horario de por medio. Se conserva la precisión
+     * completa de la fecha (hasta el año 2262) para que los minutos
+     * coincidan con los calculados con {@link Duration}.
+     */
+    private static long nanosegundos(LocalDateTime fecha) {
+        if (fecha == null) {
+            return SIN_FECHA;
+        }
+        return fecha.toEpochSecond(ZoneOffset.UTC) * NS_POR_SEGUNDO + fecha.getNano();
+    }
+
+    /**
+     * Minutos completos entre dos instantes en nanosegundos, igual que
+     * {@code Duration.between(desde, hasta).toMinutes()}: la diferencia se
+     * lleva a segundos redondeando hacia abajo y los minutos se truncan
+     * hacia cero.
+     */
+    private static long minutos(long desde, long hasta) {
+        return Math.floorDiv(hasta - desde, NS_POR_SEGUNDO) / SEGUNDOS_POR_MINUTO;
+    }
+
+    /**
+     * Devuelve la cantidad de tickets.
+     *
+     * @return filas del almacén
+     */
+    public int getTamano() {
+        return filas;
+    }
+
+    /**
+     * Cuenta los tickets de cada estado.
+     *
+     * @return cantidades indexadas por ordinal de {@link Estado}
+     */
+    public long[] contarPorEstado() {
+        return contarOrdinales(estados, Estado.values().length);
+    }
+
+    /**
+     * Cuenta los tickets de cada prioridad.
+     *
+     * @return cantidades indexadas por ordinal de {@link Prioridad}
+     */
+    public long[] contarPorPrioridad() {
+        return contarOrdinales(prioridades, Prioridad.values().length);
+    }
+
+    private long[] contarOrdinales(byte[] columna, int valores) {
+        long[] conteo = new long[valores];
+        for (int i = 0; i < filas; i++) {
+            conteo[columna[i]]++;
+        }
+        return conteo;
+    }
+
+    /**
+     * Cuenta los tickets de cada categoría.
+     *
+     * @return cantidad por nombre de categoría, en orden de aparición
+     */
+    public Map<String, Long> contarPorCategoria() {
+        long[] conteo = new long[nombresCategorias.size()];
+        for (int i = 0; i < filas; i++) {
+            conteo[categorias[i]]++;
+        }
+
+        Map<String, Long> porCategoria = new LinkedHashMap<>();
+        for (int codigo = 0; codigo < conteo.length; codigo++) {
+            if (conteo[codigo] > 0) {
+                porCategoria.put(nombresCategorias.get(codigo), conteo[codigo]);
+            }
+        }
+        return porCategoria;
+    }
+
+    /**
+     * Cuenta los tickets de un estado asignados a cada técnico.
+     *
+     * @param estado Estado de los tickets a contar
+     * @return cantidad por ID de técnico, sin los tickets sin asignar
+     */
+    public Map<Integer, Long> contarPorTecnico(Estado estado) {
+        byte ordinal = (byte) estado.ordinal();
+        Map<Integer, Long> porTecnico = new TreeMap<>();
+        for (int i = 0; i < filas; i++) {
+            if (estados[i] == ordinal && tecnicos[i] != 0) {
+                porTecnico.merge(tecnicos[i], 1L, Long::sum);
+            }
+        }
+        return porTecnico;
+    }
+
+    /**
+     * Calcula la duración promedio de resolución (de inicio a cierre) de
+     * los tickets cerrados, con el mismo criterio que
+     * {@link Ticket#calcularDuracionResolucion()}: minutos completos y solo
+     * duraciones positivas.
+     *
+     * @return minutos promedio, o 0 si no hay tickets resueltos
+     */
+    public double promedioMinutosResolucion() {
+        long suma = 0;
+        long cantidad = 0;
+        for (int i = 0; i < filas; i++) {
+            if (estados[i] == CERRADO && inicios[i] != SIN_FECHA && cierres[i] != SIN_FECHA) {
+                long minutos = minutos(inicios[i], cierres[i]);
+                if (minutos > 0) {
+                    suma += minutos;
+                    cantidad++;
+                }
+            }
+        }
+        return (cantidad > 0) ? (double) suma / cantidad : 0.0;
+    }
+
+    /**
+     * Calcula la espera promedio (de creación a inicio) de los tickets ya
+     * iniciados.
+     *
+     * @return minutos promedio, o 0 si no hay tickets iniciados
+     */
+    public double promedioMinutosEspera() {
+        long suma = 0;
+        long cantidad = 0;
+        for (int i = 0; i < filas; i++) {
+            if (inicios[i] != SIN_FECHA && creaciones[i] != SIN_FECHA) {
+                suma += minutos(creaciones[i], inicios[i]);
+                cantidad++;
+            }
+        }
+        return (cantidad > 0) ? (double) suma / cantidad : 0.0;
+    }
+
+    /**
+     * @return suma de los escalamientos de todos los tickets
+     */
+    public long sumarEscalamientos() {
+        long suma = 0;
+        for (int i = 0; i < filas; i++) {
+            suma += escalamientos[i];
+        }
+        return suma;
+    }
+
+    /**
+     * @return cantidad de tickets escalados al menos una vez
+     */
+    public long contarEscalados() {
+        long cantidad = 0;
+        for (int i = 0; i < filas; i++) {
+            if (escalamientos[i] > 0) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * @return cantidad de tickets vinculados como duplicados de otro
+     */
+    public long contarDuplicados() {
+        long cantidad = 0;
+        for (int i = 0; i < filas; i++) {
+            if (duplicadosDe[i] != 0) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+}
@@ -0,0 +1,215 @@
+package mesadeayudajuname.service;
+
+import java.util.*;
+
+/**
+ * Autómata de Aho-Corasick que busca muchas palabras clave a la vez en una
+ * sola pasada sobre el texto, sin distinguir mayúsculas.
+ *
+ * Las palabras se agrupan (por ejemplo, un grupo por categoría) y la
+ * búsqueda devuelve una máscara con los grupos encontrados. Una palabra
+ * solo cuenta si aparece completa: el carácter anterior y el siguiente no
+ * pueden ser letras, dígitos ni guion bajo, así que "red" no se encuentra
+ * en "redacción". Las palabras pueden contener espacios, como
+ * "no funciona".
+ *
+ * Las transiciones se guardan en una tabla densa de estados por símbolos,
+ * donde los símbolos son solo los caracteres que aparecen en alguna
+ * palabra; cualquier otro carácter lleva al estado inicial. Con los enlaces
+ * de fallo ya resueltos en la tabla, cada carácter del texto cuesta una
+ * consulta a un arreglo. Las instancias son inmutables y seguras para
+ * hilos.
+ *
+ * @author juanulb
+ */
+public class AutomataPalabrasClave {
+    private static final int MAXIMO_GRUPOS = 64;
+
+    private final String[] palabras;
+    private final int[] grupoPalabra;
+    private final int[] simbolos;        // carácter en minúscula -> símbolo + 1, 0 si no aparece
+    private final int cantidadSimbolos;
+    private final int[] transiciones;    // estado * cantidadSimbolos + símbolo -> estado
+    private final int[][] salidas;       // estado -> palabras que terminan en él
+
+    /**
+     * Construye el autómata.
+     *
+     * @param grupos Palabras clave de cada grupo; el índice de cada arreglo
+     *               es el número de grupo
+     * @throws IllegalArgumentException si hay más de 64 grupos o alguna
+     *                                  palabra está vacía
+     */
+    public AutomataPalabrasClave(List<? extends Collection<String>> grupos) {
+        if (grupos.size() > MAXIMO_GRUPOS) {
+            throw new IllegalArgumentException("Se admiten como máximo " + MAXIMO_GRUPOS + " grupos");
+        }
+
+        List<String> listaPalabras = new ArrayList<>();
+        List<Integer> listaGrupos = new ArrayList<>();
+        for (int grupo = 0; grupo < grupos.size(); grupo++) {
+            for (String palabra : grupos.get(grupo)) {
+                String normalizada = minusculas(palabra.trim());
+                if (normalizada.isEmpty()) {
+                    throw new IllegalArgumentException("Palabra clave vacía en el grupo " + grupo);
+                }
+                listaPalabras.add(normalizada);
+                listaGrupos.add(grupo);
+            }
+        }
+        this.palabras = listaPalabras.toArray(new String[0]);
+        this.grupoPalabra = listaGrupos.stream().mapToInt(Integer::intValue).toArray();
+
+        // Alfabeto: solo los caracteres usados por las palabras
+        this.simbolos = new int[Character.MAX_VALUE + 1];
+        int siguienteSimbolo = 0;
+        for (String palabra : palabras) {
+            for (int i = 0; i < palabra.length(); i++) {
+                char c = palabra.charAt(i);
+                if (simbolos[c] == 0) {
+                    simbolos[c] = ++siguienteSimbolo;
+                }
+            }
+        }
+        this.cantidadSimbolos = Math.max(1, siguienteSimbolo);
+
+        // Trie
+        List<int[]> hijos = new ArrayList<>();
+        List<List<Integer>> terminan = new ArrayList<>();
+        hijos.add(nuevoNodo());
+        terminan.add(new ArrayList<>());
+        for (int p = 0; p < palabras.length; p++) {
+            int estado = 0;
+            for (int i = 0; i < palabras[p].length(); i++) {
+                int simbolo = simbolos[palabras[p].charAt(i)] - 1;
+                if (hijos.get(estado)[simbolo] < 0) {
+                    hijos.get(estado)[simbolo] = hijos.size();
+                    hijos.add(nuevoNodo());
+                    terminan.add(new ArrayList<>());
+                }
+                estado = hijos.get(estado)[simbolo];
+            }
+            terminan.get(estado).add(p);
+        }
+
+        // Enlaces de fallo por anchura, resueltos directamente en la tabla
+        int estados = hijos.size();
+        this.transiciones = new int[estados * cantidadSimbolos];
+        this.salidas = new int[estados][];
+        int[] fallo = new int[estados];
+        int[] cola = new int[estados];
+        int cabeza = 0;
+        int fin = 0;
+
+        salidas[0] = new int[0];
+        for (int s = 0; s < cantidadSimbolos; s++) {
+            int hijo = hijos.get(0)[s];
+            transiciones[s] = Math.max(hijo, 0);
+            if (hijo > 0) {
+                fallo[hijo] = 0;
+                cola[fin++] = hijo;
+            }
+        }
+        while (cabeza < fin) {
+            int estado = cola[cabeza++];
+            List<Integer> propias = terminan.get(estado);
+            int[] heredadas = salidas[fallo[estado]];
+            int[] todas = new int[propias.size() + heredadas.length];
+            for (int i = 0; i < propias.size(); i++) {
+                todas[i] = propias.get(i);
+            }
+            System.arraycopy(heredadas, 0, todas, propias.size(), heredadas.length);
+            salidas[estado] = todas;
+
+            for (int s = 0; s < cantidadSimbolos; s++) {
+                int hijo = hijos.get(estado)[s];
+                if (hijo > 0) {
+                    fallo[hijo] = transiciones[fallo[estado] * cantidadSimbolos + s];
+                    transiciones[estado * cantidadSimbolos + s] = hijo;
+                    cola[fin++] = hijo;
+                } else {
+                    transiciones[estado * cantidadSimbolos + s] = transiciones[fallo[estado] * cantidadSimbolos + s];
+                }
+            }
+        }
+    }
+
+    private int[] nuevoNodo() {
+        int[] nodo = new int[cantidadSimbolos];
+        Arrays.fill(nodo, -1);
+        return nodo;
+    }
+
+    /**
+     * Busca todas las palabras clave en un texto.
+     *
+     * @param texto Texto a recorrer
+     * @param encontradas Lista donde se agregan las palabras encontradas, sin
+     *                    repetir y en el orden en que aparecen; puede ser null
+     * @return máscara con un bit por cada grupo con alguna palabra encontrada
+     */
+    public long buscar(String texto, List<String> encontradas) {
+        return buscar(texto.toCharArray(), texto.length(), encontradas);
+    }
+
+    /**
+     * Busca todas las palabras clave en los primeros caracteres de un
+     * arreglo, que puede ser un búfer reutilizado entre búsquedas.
+     *
+     * @param texto Caracteres a recorrer
+     * @param longitud Cantidad de caracteres válidos al principio del arreglo
+     * @param encontradas Lista donde se agregan las palabras encontradas, sin
+     *                    repetir y en el orden en que aparecen; puede ser null
+     * @return máscara con un bit por cada grupo con alguna palabra encontrada
+     */
+    public long buscar(char[] texto, int longitud, List<String> encontradas) {
+        long grupos = 0;
+        int estado = 0;
+
+        for (int i = 0; i < longitud; i++) {
+            int simbolo = simbolos[Character.toLowerCase(texto[i])];
+            if (simbolo == 0) {
+                estado = 0;
+                continue;
+            }
+            estado = transiciones[estado * cantidadSimbolos + simbolo - 1];
+
+            int[] terminadas = salidas[estado];
+            if (terminadas.length == 0 || (i + 1 < longitud && esParteDePalabra(texto[i + 1]))) {
+                continue;
+            }
+            for (int p : terminadas) {
+                int inicio = i + 1 - palabras[p].length();
+                if (inicio > 0 && esParteDePalabra(texto[inicio - 1])) {
+                    continue;
+                }
+                grupos |= 1L << grupoPalabra[p];
+                if (encontradas != null && !encontradas.contains(palabras[p])) {
+                    encontradas.add(palabras[p]);
+                }
+            }
+        }
+        return grupos;
+    }
+
+    /**
+     * Devuelve cuántas palabras clave reconoce el autómata.
+     *
+     * @return cantidad de palabras
+     */
+    public int getCantidadPalabras() {
+        return palabras.length;
+    }
+
+    private static boolean esParteDePalabra(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static String minusculas(String texto) {
+        char[] caracteres = texto.toCharArray();
+        for (int i = 0; i < caracteres.length; i++) {
+            caracteres[i] = Character.toLowerCase(caracteres[i]);
+        }
+        return new String(caracteres);
+    }
+}
@@ -0,0 +1,302 @@
+package mesadeayudajuname.service;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bus de eventos en proceso para los cambios del tablero.
+ * Cada suscriptor tiene su propio buffer circular acotado y un hilo de
+ * entrega dedicado, de modo que un suscriptor lento nunca frena al
+ * publicador ni a los demás suscriptores.
+ *
+ * Publicar no reserva memoria: los campos del evento se copian a arreglos
+ * primitivos preasignados en cada buffer, y el objeto {@link EventoTicket}
+ * se construye después en el hilo del suscriptor. Si un buffer está lleno
+ * se aplica su {@link PoliticaDesborde} y el publicador continúa.
+ *
+ * @author juanulb
+ */
+public class BusEventos {
+    private static final long EN_ESCRITURA = -1L;
+
+    private volatile Suscripcion[] suscripciones;
+    private long siguienteSecuencia;
+    private int contadorHilos;
+
+    /**
+     * Constructor del bus sin suscriptores.
+     */
+    public BusEventos() {
+        this.suscripciones = new Suscripcion[0];
+        this.siguienteSecuencia = 1;
+        this.contadorHilos = 0;
+    }
+
+    /**
+     * Registra un suscriptor con su propio buffer y hilo de entrega.
+     *
+     * @param suscriptor Receptor de los eventos
+     * @param capacidad Capacidad del buffer (se redondea a potencia de dos)
+     * @param politica Política a aplicar cuando el buffer está lleno
+     * @return Suscripción que permite consultar contadores y cancelarla
+     */
+    public synchronized Suscripcion suscribir(SuscriptorEventos suscriptor, int capacidad, PoliticaDesborde politica) {
+        if (suscriptor == null) {
+            throw new IllegalArgumentException("El suscriptor no puede ser nulo");
+        }
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad del buffer debe ser positiva");
+        }
+
+        Suscripcion suscripcion = new Suscripcion(this, suscriptor, capacidad, politica,
+                                                  "bus-eventos-" + (++contadorHilos));
+        Suscripcion[] nuevas = Arrays.copyOf(suscripciones, suscripciones.length + 1);
+        nuevas[nuevas.length - 1] = suscripcion;
+        suscripciones = nuevas;
+
+        suscripcion.hilo.start();
+        return suscripcion;
+    }
+
+    /**
+     * Publica un evento a todos los suscriptores.
+     * El único bloqueo es el monitor del propio bus, que solo lo toman los
+     * publicadores y durante unas pocas escrituras en memoria.
+     *
+     * @param tipo Tipo de evento
+     * @param ticketId ID del ticket afectado, o 0 si no aplica
+     * @param tecnicoId ID del técnico involucrado, o 0 si no aplica
+     */
+    public synchronized void publicar(TipoEvento tipo, int ticketId, int tecnicoId) {
+        long secuencia = siguienteSecuencia++;
+        long marcaTiempo = System.currentTimeMillis();
+
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.ofrecer(secuencia, tipo.ordinal(), ticketId, tecnicoId, marcaTiempo);
+        }
+    }
+
+    /**
+     * Cancela todas las suscripciones y detiene sus hilos de entrega.
+     */
+    public synchronized void cerrar() {
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.detener();
+        }
+        suscripciones = new Suscripcion[0];
+    }
+
+    /**
+     * Elimina una suscripción de la lista de destinatarios.
+     */
+    private synchronized void quitar(Suscripcion suscripcion) {
+        Suscripcion[] actuales = suscripciones;
+        for (int i = 0; i < actuales.length; i++) {
+            if (actuales[i] == suscripcion) {
+                Suscripcion[] nuevas = new Suscripcion[actuales.length - 1];
+                System.arraycopy(actuales, 0, nuevas, 0, i);
+                System.arraycopy(actuales, i + 1, nuevas, i, actuales.length - i - 1);
+                suscripciones = nuevas;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Suscripción a un bus de eventos: buffer circular de un productor y un
+     * consumidor más el hilo que entrega los eventos al suscriptor.
+     *
+     * Cada posición del buffer lleva un número de secuencia que funciona como
+     * candado optimista: el publicador lo marca como en escritura, copia los
+     * campos y publica la secuencia; el consumidor la lee antes y después de
+     * copiar los campos y descarta la lectura si cambió.
+     */
+    public static final class Suscripcion {
+        private static final TipoEvento[] TIPOS = TipoEvento.values();
+
+        private final BusEventos bus;
+        private final SuscriptorEventos suscriptor;
+        private final PoliticaDesborde politica;
+        private final int capacidad;
+        private final int mascara;
+        private final AtomicLongArray secuenciasRanura;
+        private final long[] secuenciasEvento;
+        private final int[] tipos;
+        private final int[] ticketIds;
+        private final int[] tecnicoIds;
+        private final long[] marcasTiempo;
+        private final Thread hilo;
+
+        private volatile long escritura;
+        private volatile long lectura;
+        private volatile boolean durmiendo;
+        private volatile boolean activa;
+        private final LongAdder descartados;
+        private volatile long entregados;
+
+        private Suscripcion(BusEventos bus, SuscriptorEventos suscriptor, int capacidadSolicitada,
+                            PoliticaDesborde politica, String nombreHilo) {
+            this.bus = bus;
+            this.suscriptor = suscriptor;
+            this.politica = (politica != null) ? politica : PoliticaDesborde.DESCARTAR_NUEVO;
+            this.capacidad = Integer.highestOneBit(Math.max(1, capacidadSolicitada - 1)) << 1;
+            this.mascara = capacidad - 1;
+            this.secuenciasRanura = new AtomicLongArray(capacidad);
+            this.secuenciasEvento = new long[capacidad];
+            this.tipos = new int[capacidad];
+            this.ticketIds = new int[capacidad];
+            this.tecnicoIds = new int[capacidad];
+            this.marcasTiempo = new long[capacidad];
+            this.descartados = new LongAdder();
+            this.activa = true;
+
+            for (int i = 0; i < capacidad; i++) {
+                secuenciasRanura.set(i, EN_ESCRITURA);
+            }
+
+            this.hilo = new Thread(this::entregar, nombreHilo);
+            this.hilo.setDaemon(true);
+        }
+
+        /**
+         * Intenta encolar un evento. Lo invoca solo el publicador del bus.
+         */
+        private void ofrecer(long secuencia, int tipo, int ticketId, int tecnicoId, long marcaTiempo) {
+            long posicion = escritura;
+
+            if (posicion - lectura >= capacidad && politica == PoliticaDesborde.DESCARTAR_NUEVO) {
+                descartados.increment();
+                return;
+            }
+
+            int ranura = (int) (posicion & mascara);
+            secuenciasRanura.set(ranura, EN_ESCRITURA);
+            // La marca debe verse antes que cualquiera de los campos nuevos
+            VarHandle.storeStoreFence();
+            secuenciasEvento[ranura] = secuencia;
+            tipos[ranura] = tipo;
+            ticketIds[ranura] = ticketId;
+            tecnicoIds[ranura] = tecnicoId;
+            marcasTiempo[ranura] = marcaTiempo;
+            secuenciasRanura.set(ranura, posicion);
+            escritura = posicion + 1;
+
+            if (durmiendo) {
+                LockSupport.unpark(hilo);
+            }
+        }
+
+        /**
+         * Bucle del hilo de entrega.
+         */
+        private void entregar() {
+            while (activa) {
+                long posicion = lectura;
+                long disponible = escritura;
+
+                if (posicion == disponible) {
+                    esperar(posicion);
+                    continue;
+                }
+
+                // El publicador sobrescribió eventos no leídos (DESCARTAR_ANTIGUO)
+                if (disponible - posicion > capacidad) {
+                    descartados.add(disponible - capacidad - posicion);
+                    lectura = disponible - capacidad;
+                    continue;
+                }
+
+                int ranura = (int) (posicion & mascara);
+                long antes = secuenciasRanura.get(ranura);
+                if (antes != posicion) {
+                    if (antes == EN_ESCRITURA) {
+                        Thread.onSpinWait();
+                    } else {
+                        descartados.increment();
+                        lectura = posicion + 1;
+                    }
+                    continue;
+                }
+
+                long secuencia = secuenciasEvento[ranura];
+                int tipo = tipos[ranura];
+                int ticketId = ticketIds[ranura];
+                int tecnicoId = tecnicoIds[ranura];
+                long marcaTiempo = marcasTiempo[ranura];
+
+                VarHandle.acquireFence();
+                if (secuenciasRanura.get(ranura) != posicion) {
+                    continue;
+                }
+                lectura = posicion + 1;
+
+                try {
+                    suscriptor.alRecibir(new EventoTicket(secuencia, TIPOS[tipo], ticketId, tecnicoId, marcaTiempo));
+                    entregados++;
+                } catch (RuntimeException e) {
+                    System.err.println("Error en suscriptor de eventos: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Duerme el hilo de entrega hasta que haya eventos nuevos.
+         */
+        private void esperar(long posicion) {
+            durmiendo = true;
+            if (escritura == posicion && activa) {
+                LockSupport.parkNanos(this, 50_000_000L);
+            }
+            durmiendo = false;
+        }
+
+        /**
+         * Detiene el hilo de entrega.
+         */
+        private void detener() {
+            activa = false;
+            LockSupport.unpark(hilo);
+        }
+
+        /**
+         * Cancela la suscripción y detiene su hilo de entrega.
+         */
+        public void cancelar() {
+            bus.quitar(this);
+            detener();
+        }
+
+        /**
+         * Devuelve la cantidad de eventos pendientes de entrega.
+         *
+         * @return eventos en el buffer aún no entregados
+         */
+        public long getPendientes() {
+            return Math.min(capacidad, escritura - lectura);
+        }
+
+        // Getters
+        public int getCapacidad() {
+            return capacidad;
+        }
+
+        public PoliticaDesborde getPolitica() {
+            return politica;
+        }
+
+        public long getDescartados() {
+            return descartados.sum();
+        }
+
+        public long getEntregados() {
+            return entregados;
+        }
+
+        public boolean isActiva() {
+            return activa;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package mesadeayudajuname.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada de resultados de clasificación, segura para hilos.
+ *
+ * La clave es un hash de 64 bits del título y la descripción en minúsculas,
+ * calculado carácter a carácter sin construir cadenas intermedias; como la
+ * clasificación no distingue mayúsculas, dos textos que solo difieren en
+ * ellas comparten resultado. Cada entrada guarda también el texto original
+ * para descartar colisiones del hash.
+ *
+ * Las entradas se reparten en segmentos según el hash y cada segmento es
+ * un {@link LinkedHashMap} en orden de acceso con su propio candado, de
+ * modo que los hilos que clasifican textos distintos rara vez compiten.
+ * Al llenarse un segmento se desaloja su entrada usada hace más tiempo.
+ *
+ * @author juanulb
+ */
+public class CacheClasificacion {
+    private static final int SEGMENTOS = 16;
+
+    /**
+     * Resultado guardado junto con el texto que lo produjo.
+     */
+    private static final class Entrada {
+        private final String titulo;
+        private final String descripcion;
+        private final ResultadoClasificacion resultado;
+
+        private Entrada(String titulo, String descripcion, ResultadoClasificacion resultado) {
+            this.titulo = titulo;
+            this.descripcion = descripcion;
+            this.resultado = resultado;
+        }
+    }
+
+    /**
+     * Segmento LRU de la caché.
+     */
+    private static final class Segmento extends LinkedHashMap<Long, Entrada> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacidad;
+        private final LongAdder desalojos;
+
+        private Segmento(int capacidad, LongAdder desalojos) {
+            super(16, 0.75f, true);
+            this.capacidad = capacidad;
+            this.desalojos = desalojos;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entrada> mayor) {
+            if (size() > capacidad) {
+                desalojos.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final Segmento[] segmentos;
+    private final int capacidad;
+    private final LongAdder aciertos;
+    private final LongAdder fallos;
+    private final LongAdder desalojos;
+
+    /**
+     * Constructor de la caché.
+     *
+     * @param capacidad Cantidad máxima aproximada de resultados guardados
+     */
+    public CacheClasificacion(int capacidad) {
+        if (capacidad < SEGMENTOS) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos " + SEGMENTOS);
+        }
+        this.capacidad = capacidad;
+        this.aciertos = new LongAdder();
+        this.fallos = new LongAdder();
+        this.desalojos = new LongAdder();
+        this.segmentos = new Segmento[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(capacidad / SEGMENTOS, desalojos);
+        }
+    }
+
+    /**
+     * Busca el resultado guardado para un texto.
+     *
+     * @param titulo Título del ticket
+     * @param descripcion Descripción del ticket
+     * @return resultado guardado, o null si no está en la caché
+     */
+    public ResultadoClasificacion obtener(String titulo, String descripcion) {
+        long hash = hash(titulo, descripcion);
+        Segmento segmento = segmento(hash);
+        Entrada entrada;
+        synchronized (segmento) {
+            entrada = segmento.get(hash);
+        }
+
+        if (entrada != null && mismoTexto(entrada.titulo, titulo) && mismoTexto(entrada.descripcion, descripcion)) {
+            aciertos.increment();
+            return entrada.resultado;
+        }
+        fallos.increment();
+        return null;
+    }
+
+    /**
+     * Guarda el resultado de clasificar un texto.
+     *
+     * @param titulo Título del ticket
+     * @param descripcion Descripción del ticket
+     * @param resultado Resultado de la clasificación
+     */
+    public void guardar(String titulo, String descripcion, ResultadoClasificacion resultado) {
+        long hash = hash(titulo, descripcion);
+        Segmento segmento = segmento(hash);
+        synchronized (segmento) {
+            segmento.put(hash, new Entrada(titulo, descripcion, resultado));
+        }
+    }
+
+    /**
+     * Descarta todos los resultados guardados, por ejemplo al cambiar las
+     * palabras clave. Los contadores se conservan.
+     */
+    public void limpiar() {
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                segmento.clear();
+            }
+        }
+    }
+
+    /**
+     * Devuelve la cantidad de resultados guardados.
+     *
+     * @return resultados en la caché
+     */
+    public int getTamano() {
+        int tamano = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                tamano += segmento.size();
+            }
+        }
+        return tamano;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getDesalojos() {
+        return desalojos.sum();
+    }
+
+    private Segmento segmento(long hash) {
+        return segmentos[(int) (hash >>> 60) & (SEGMENTOS - 1)];
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits de ambos textos en minúsculas, con una mezcla
+     * final para repartir bien los bits altos entre segmentos.
+     */
+    private static long hash(String titulo, String descripcion) {
+        long hash = 0xCBF29CE484222325L;
+        hash = acumular(hash, titulo);
+        hash = (hash ^ 0x1F) * 0x100000001B3L;
+        hash = acumular(hash, descripcion);
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long acumular(long hash, String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            hash = (hash ^ Character.toLowerCase(texto.charAt(i))) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static boolean mismoTexto(String guardado, String buscado) {
+        if (guardado.length() != buscado.length()) {
+            return false;
+        }
+        for (int i = 0; i < guardado.length(); i++) {
+            if (Character.toLowerCase(guardado.charAt(i)) != Character.toLowerCase(buscado.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package mesadeayudajuname.service;
+
+/**
+ * Fecha de un ticket por la que se ordena una consulta de los más antiguos.
+ * 
+ * @author juanulb
+ */
+public enum CampoFecha {
+    /**
+     * Fecha de creación
+     */
+    CREACION,
+    
+    /**
+     * Fecha de inicio del trabajo; solo la tienen los tickets iniciados
+     */
+    INICIO,
+    
+    /**
+     * Fecha de cierre; solo la tienen los tickets cerrados
+     */
+    CIERRE
+}
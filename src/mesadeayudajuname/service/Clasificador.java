@@ -1,140 +1,287 @@
 package mesadeayudajuname.service;
 
 import mesadeayudajuname.model.*;
-import java.util.regex.Pattern;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * Clase de utilidad para clasificar automáticamente tickets
  * basándose en palabras clave en el título y descripción.
- * 
+ *
+ * Las palabras clave se leen de {@value #ARCHIVO_DICCIONARIOS} (o se usan
+ * las incorporadas si no existe) y se compilan en un único
+ * {@link AutomataPalabrasClave}, de modo que categoría, prioridad y
+ * palabras encontradas se obtienen recorriendo el texto una sola vez. Los
+ * resultados se guardan en una {@link CacheClasificacion}, así que volver a
+ * clasificar un texto ya visto, como los reenvíos de una integración de
+ * correo, cuesta solo una búsqueda en la caché.
+ *
  * @author juanulb
  */
 public class Clasificador {
     
-    // Patrones para prioridad ALTA
-    private static final Pattern PRIORIDAD_ALTA = Pattern.compile(
-        "\\b(urgente|crítico|crítica|emergencia|emergency|down|caído|parado|" +
-        "no funciona|error crítico|falla crítica|servidor caído)\\b",
-        Pattern.CASE_INSENSITIVE
-    );
-    
-    // Patrones para prioridad MEDIA
-    private static final Pattern PRIORIDAD_MEDIA = Pattern.compile(
-        "\\b(importante|problema|issue|lento|lenta|intermitente|" +
-        "no responde|timeout|delay|retraso)\\b",
-        Pattern.CASE_INSENSITIVE
-    );
-    
-    // Patrones para categorías
-    private static final Pattern CATEGORIA_REDES = Pattern.compile(
-        "\\b(red|redes|network|conexión|internet|wifi|ethernet|" +
-        "router|switch|ip|dns|firewall|vpn)\\b",
-        Pattern.CASE_INSENSITIVE
-    );
-    
-    private static final Pattern CATEGORIA_HARDWARE = Pattern.compile(
-        "\\b(hardware|hw|disco|ram|memoria|cpu|procesador|monitor|" +
-        "pantalla|teclado|mouse|impresora|scanner)\\b",
-        Pattern.CASE_INSENSITIVE
-    );
-    
-    private static final Pattern CATEGORIA_SOFTWARE = Pattern.compile(
-        "\\b(software|sw|aplicación|aplicacion|programa|windows|linux|" +
-        "office|excel|word|outlook|navegador|browser)\\b",
-        Pattern.CASE_INSENSITIVE
-    );
-    
-    private static final Pattern CATEGORIA_SEGURIDAD = Pattern.compile(
-        "\\b(seguridad|security|virus|malware|antivirus|contraseña|" +
-        "password|login|acceso|cuenta|usuario|hack)\\b",
-        Pattern.CASE_INSENSITIVE
-    );
+    // Grupos del autómata: primero las prioridades, luego las categorías
+    // en orden de precedencia
+    private static final int GRUPO_ALTA = 0;
+    private static final int GRUPO_MEDIA = 1;
+    private static final int PRIMER_GRUPO_CATEGORIA = 2;
+    
+    private static final String CATEGORIA_POR_DEFECTO = "General";
+    private static final int CAPACIDAD_CACHE = 8192;
+    private static final int TICKETS_POR_BLOQUE = 512;
     
     /**
-     * Clasifica automáticamente la prioridad de un ticket basándose
-     * en el contenido del título y descripción.
-     * 
+     * Nombre del archivo de diccionarios, buscado en el directorio de datos
+     * junto a los CSV.
+     */
+    public static final String ARCHIVO_DICCIONARIOS = "diccionarios.txt";
+    
+    private static final CacheClasificacion CACHE = new CacheClasificacion(CAPACIDAD_CACHE);
+    
+    // Se reemplaza entero al recargar; quien clasifica lee la referencia una
+    // sola vez y trabaja con ese diccionario aunque cambie mientras tanto
+    private static volatile DiccionarioClasificacion diccionario = diccionarioInicial();
+    
+    /**
+     * Clasifica un ticket recorriendo su título y descripción una sola vez.
+     * La prioridad es ALTA si aparece alguna palabra de urgencia, MEDIA si
+     * aparece alguna de problema y BAJA si no; la categoría es la primera
+     * del diccionario (por defecto Redes, Hardware, Software y Seguridad)
+     * con alguna palabra encontrada, o General.
+     *
      * @param titulo Título del ticket
      * @param descripcion Descripción del ticket
-     * @return Prioridad sugerida
+     * @return categoría, prioridad y palabras clave encontradas
      */
-    public static Prioridad clasificarPrioridad(String titulo, String descripcion) {
-        String contenido = (titulo + " " + descripcion).toLowerCase();
+    public static ResultadoClasificacion clasificar(String titulo, String descripcion) {
+        DiccionarioClasificacion actual = diccionario;
+        ResultadoClasificacion resultado = CACHE.obtener(titulo, descripcion);
+        // Un resultado de un diccionario anterior se descarta
+        if (resultado == null || resultado.getGeneracion() != actual.getGeneracion()) {
+            resultado = clasificarSinCache(actual, titulo, descripcion);
+            CACHE.guardar(titulo, descripcion, resultado);
+        }
+        return resultado;
+    }
+    
+    /**
+     * Clasifica un ticket recorriendo su texto, sin consultar la caché.
+     */
+    private static ResultadoClasificacion clasificarSinCache(DiccionarioClasificacion actual,
+                                                            String titulo, String descripcion) {
+        List<String> encontradas = new ArrayList<>();
+        char[] texto = unirTexto(titulo, descripcion, null);
+        long grupos = actual.getAutomata().buscar(texto, titulo.length() + 1 + descripcion.length(), encontradas);
+        return new ResultadoClasificacion(categoria(actual, grupos), prioridad(grupos), encontradas,
+                                          actual.getGeneracion());
+    }
+    
+    /**
+     * Clasifica muchos tickets a la vez repartiéndolos entre todos los
+     * núcleos. Pensado para reclasificar el tablero completo tras cambiar
+     * los diccionarios: no consulta ni llena la caché, no arma la lista de
+     * palabras encontradas y cada bloque de tickets reutiliza un único búfer
+     * de caracteres, así que solo se asignan los arreglos de resultados que
+     * recibe. Todo el lote se clasifica con el mismo diccionario aunque se
+     * recargue mientras tanto.
+     *
+     * @param titulos Títulos de los tickets
+     * @param descripciones Descripciones de los tickets, en el mismo orden
+     * @param categorias Arreglo donde se escribe la categoría de cada ticket
+     * @param prioridades Arreglo donde se escribe la prioridad de cada ticket
+     * @throws IllegalArgumentException si los tamaños no coinciden
+     */
+    public static void clasificarLote(List<String> titulos, List<String> descripciones,
+                                      String[] categorias, Prioridad[] prioridades) {
+        int cantidad = titulos.size();
+        if (descripciones.size() != cantidad || categorias.length < cantidad || prioridades.length < cantidad) {
+            throw new IllegalArgumentException("Los títulos, descripciones y resultados deben tener el mismo tamaño");
+        }
         
-        if (PRIORIDAD_ALTA.matcher(contenido).find()) {
+        DiccionarioClasificacion actual = diccionario;
+        int bloques = (cantidad + TICKETS_POR_BLOQUE - 1) / TICKETS_POR_BLOQUE;
+        IntStream.range(0, bloques).parallel().forEach(bloque -> {
+            AutomataPalabrasClave automata = actual.getAutomata();
+            char[] texto = null;
+            int fin = Math.min(cantidad, (bloque + 1) * TICKETS_POR_BLOQUE);
+            for (int i = bloque * TICKETS_POR_BLOQUE; i < fin; i++) {
+                String titulo = titulos.get(i);
+                String descripcion = descripciones.get(i);
+                texto = unirTexto(titulo, descripcion, texto);
+                long grupos = automata.buscar(texto, titulo.length() + 1 + descripcion.length(), null);
+                categorias[i] = categoria(actual, grupos);
+                prioridades[i] = prioridad(grupos);
+            }
+        });
+    }
+    
+    /**
+     * Copia "titulo descripcion" en el búfer, o en uno nuevo si no alcanza.
+     */
+    private static char[] unirTexto(String titulo, String descripcion, char[] bufer) {
+        int longitud = titulo.length() + 1 + descripcion.length();
+        if (bufer == null || bufer.length < longitud) {
+            bufer = new char[(bufer == null) ? longitud : Math.max(longitud, bufer.length * 2)];
+        }
+        titulo.getChars(0, titulo.length(), bufer, 0);
+        bufer[titulo.length()] = ' ';
+        descripcion.getChars(0, descripcion.length(), bufer, titulo.length() + 1);
+        return bufer;
+    }
+    
+    private static Prioridad prioridad(long grupos) {
+        if ((grupos & (1L << GRUPO_ALTA)) != 0) {
             return Prioridad.ALTA;
-        } else if (PRIORIDAD_MEDIA.matcher(contenido).find()) {
+        } else if ((grupos & (1L << GRUPO_MEDIA)) != 0) {
             return Prioridad.MEDIA;
-        } else {
-            return Prioridad.BAJA;
         }
+        return Prioridad.BAJA;
+    }
+    
+    private static String categoria(DiccionarioClasificacion actual, long grupos) {
+        long categorias = grupos >>> PRIMER_GRUPO_CATEGORIA;
+        if (categorias != 0) {
+            return actual.getCategoria(Long.numberOfTrailingZeros(categorias));
+        }
+        return CATEGORIA_POR_DEFECTO;
+    }
+    
+    /**
+     * Devuelve el archivo de diccionarios dentro del directorio de datos
+     * ({@link TableroService#directorioDatosPredeterminado()}).
+     * 
+     * @return archivo de diccionarios
+     */
+    public static File archivoDiccionarios() {
+        return new File(TableroService.directorioDatosPredeterminado(), ARCHIVO_DICCIONARIOS);
+    }
+    
+    /**
+     * Carga el archivo de diccionarios si existe; si no existe o no es
+     * válido, usa las palabras clave incorporadas.
+     */
+    private static DiccionarioClasificacion diccionarioInicial() {
+        File archivo = archivoDiccionarios();
+        if (archivo.exists()) {
+            try {
+                return DiccionarioClasificacion.cargar(archivo);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Error al cargar " + archivo + ", se usan las palabras clave incorporadas: "
+                                   + e.getMessage());
+            }
+        }
+        return DiccionarioClasificacion.predeterminado();
+    }
+    
+    /**
+     * Lee, compila y pone en uso un archivo de diccionarios. El reemplazo es
+     * atómico: las clasificaciones en curso terminan con el diccionario
+     * anterior y las siguientes usan el nuevo, sin pausas. Si el archivo no
+     * es válido se conserva el diccionario actual.
+     * 
+     * @param archivo Archivo de diccionarios
+     * @return diccionario puesto en uso
+     * @throws IOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si el archivo no tiene el formato esperado
+     */
+    public static DiccionarioClasificacion recargar(File archivo) throws IOException {
+        DiccionarioClasificacion nuevo = DiccionarioClasificacion.cargar(archivo);
+        diccionario = nuevo;
+        CACHE.limpiar();
+        return nuevo;
+    }
+    
+    /**
+     * Devuelve el diccionario en uso.
+     * 
+     * @return diccionario actual
+     */
+    public static DiccionarioClasificacion getDiccionario() {
+        return diccionario;
+    }
+    
+    /**
+     * Devuelve la caché de resultados, para consultar sus contadores.
+     * 
+     * @return caché de clasificación
+     */
+    public static CacheClasificacion getCache() {
+        return CACHE;
+    }
+    
+    /**
+     * Clasifica automáticamente la prioridad de un ticket basándose
+     * en el contenido del título y descripción.
+     *
+     * @param titulo Título del ticket
+     * @param descripcion Descripción del ticket
+     * @return Prioridad sugerida
+     */
+    public static Prioridad clasificarPrioridad(String titulo, String descripcion) {
+        return clasificar(titulo, descripcion).getPrioridad();
     }
     
     /**
      * Clasifica automáticamente la categoría de un ticket basándose
      * en el contenido del título y descripción.
-     * 
+     *
      * @param titulo Título del ticket
      * @param descripcion Descripción del ticket
      * @return Categoría sugerida
      */
     public static String clasificarCategoria(String titulo, String descripcion) {
-        String contenido = (titulo + " " + descripcion).toLowerCase();
-        
-        if (CATEGORIA_REDES.matcher(contenido).find()) {
-            return "Redes";
-        } else if (CATEGORIA_HARDWARE.matcher(contenido).find()) {
-            return "Hardware";
-        } else if (CATEGORIA_SOFTWARE.matcher(contenido).find()) {
-            return "Software";
-        } else if (CATEGORIA_SEGURIDAD.matcher(contenido).find()) {
-            return "Seguridad";
-        } else {
-            return "General";
-        }
+        return clasificar(titulo, descripcion).getCategoria();
     }
     
     /**
      * Realiza una clasificación completa del ticket.
-     * 
+     *
      * @param titulo Título del ticket
      * @param descripcion Descripción del ticket
      * @return Array con [categoría, prioridad]
      */
     public static Object[] clasificarCompleto(String titulo, String descripcion) {
-        String categoria = clasificarCategoria(titulo, descripcion);
-        Prioridad prioridad = clasificarPrioridad(titulo, descripcion);
-        return new Object[]{categoria, prioridad};
+        ResultadoClasificacion resultado = clasificar(titulo, descripcion);
+        return new Object[]{resultado.getCategoria(), resultado.getPrioridad()};
     }
     
     /**
      * Sugiere palabras clave encontradas en el contenido para ayudar
      * al usuario a entender por qué se clasificó de cierta manera.
-     * 
+     *
      * @param titulo Título del ticket
      * @param descripcion Descripción del ticket
      * @return String con las palabras clave encontradas
      */
     public static String obtenerPalabrasClave(String titulo, String descripcion) {
-        String contenido = (titulo + " " + descripcion).toLowerCase();
+        return describir(clasificar(titulo, descripcion));
+    }
+    
+    /**
+     * Explica una clasificación ya realizada, con el mismo formato que
+     * {@link #obtenerPalabrasClave(String, String)}.
+     *
+     * @param resultado Resultado de {@link #clasificar(String, String)}
+     * @return String con la prioridad y categoría detectadas y sus palabras clave
+     */
+    public static String describir(ResultadoClasificacion resultado) {
         StringBuilder palabrasClave = new StringBuilder();
-        
-        if (PRIORIDAD_ALTA.matcher(contenido).find()) {
-            palabrasClave.append("Prioridad ALTA detectada. ");
-        } else if (PRIORIDAD_MEDIA.matcher(contenido).find()) {
-            palabrasClave.append("Prioridad MEDIA detectada. ");
+    
+        if (resultado.getPrioridad() != Prioridad.BAJA) {
+            palabrasClave.append("Prioridad ").append(resultado.getPrioridad()).append(" detectada. ");
         }
-        
-        if (CATEGORIA_REDES.matcher(contenido).find()) {
-            palabrasClave.append("Categoría REDES detectada. ");
-        } else if (CATEGORIA_HARDWARE.matcher(contenido).find()) {
-            palabrasClave.append("Categoría HARDWARE detectada. ");
-        } else if (CATEGORIA_SOFTWARE.matcher(contenido).find()) {
-            palabrasClave.append("Categoría SOFTWARE detectada. ");
-        } else if (CATEGORIA_SEGURIDAD.matcher(contenido).find()) {
-            palabrasClave.append("Categoría SEGURIDAD detectada. ");
+    
+        if (!resultado.getCategoria().equals(CATEGORIA_POR_DEFECTO)) {
+            palabrasClave.append("Categoría ").append(resultado.getCategoria().toUpperCase())
+                         .append(" detectada. ");
         }
-        
+    
+        if (!resultado.getPalabrasClave().isEmpty()) {
+            palabrasClave.append("Palabras: ").append(String.join(", ", resultado.getPalabrasClave())).append('.');
+        }
+    
         return palabrasClave.toString().trim();
     }
-}
\ No newline at end of file
+}
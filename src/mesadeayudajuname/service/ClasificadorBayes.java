@@ -0,0 +1,316 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.util.Tokenizador;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Clasificador bayesiano ingenuo (multinomial) que aprende la categoría y
+ * la prioridad de los tickets cerrados, cuyos valores ya fueron
+ * confirmados por los técnicos.
+ *
+ * Los términos del título y la descripción se reducen con un hash a
+ * {@value #CUBETAS} posiciones, de modo que el modelo es un conjunto de
+ * arreglos de enteros de tamaño fijo por etiqueta, sin diccionario de
+ * palabras que crezca con el vocabulario. Entrenar con un ticket suma sus
+ * términos a los contadores de su categoría y de su prioridad; clasificar
+ * suma logaritmos de las frecuencias suavizadas, lo que toma unos pocos
+ * microsegundos.
+ *
+ * El modelo recuerda qué tickets ya aprendió, así que entrenar dos veces
+ * con el mismo ticket no tiene efecto. El archivo del modelo lleva la
+ * {@link HuellaTickets} de los tickets con que se entrenó y se descarta si
+ * ya no corresponde a tickets.csv. Los métodos son seguros para hilos.
+ *
+ * @author juanulb
+ */
+public class ClasificadorBayes {
+    private static final int CUBETAS = 1 << 16;
+    private static final int MASCARA = CUBETAS - 1;
+    private static final int FIRMA = 0x4D444242; // "MDBB"
+    private static final int VERSION = 3;
+
+    /**
+     * Contadores de una etiqueta: en cuántos tickets apareció y cuántas
+     * veces apareció cada cubeta de términos.
+     */
+    private static final class Etiqueta {
+        private final int[] frecuencias = new int[CUBETAS];
+        private long terminos;
+        private int documentos;
+    }
+
+    private final List<String> categorias;
+    private final List<Etiqueta> porCategoria;
+    private final Etiqueta[] porPrioridad;
+    private final BitSet aprendidos;
+    private int documentos;
+    private int pendientesDeGuardar;
+
+    /**
+     * Constructor de un modelo vacío.
+     */
+    public ClasificadorBayes() {
+        this.categorias = new ArrayList<>();
+        this.porCategoria = new ArrayList<>();
+        this.porPrioridad = new Etiqueta[Prioridad.values().length];
+        this.aprendidos = new BitSet();
+        limpiar();
+    }
+
+    /**
+     * Aprende la categoría y la prioridad de un ticket cerrado. Los tickets
+     * no cerrados o ya aprendidos se ignoran. De un ticket escalado solo se
+     * aprende la categoría: su prioridad la subió el tiempo de espera, no
+     * el texto, y aprenderla haría que los tickets nuevos parecidos nazcan
+     * ya escalados.
+     *
+     * @param ticket Ticket cerrado
+     * @return true si el ticket se agregó al modelo
+     */
+    public synchronized boolean entrenar(Ticket ticket) {
+        if (ticket.getEstado() != Estado.CERRADO || aprendidos.get(ticket.getId())) {
+            return false;
+        }
+        int[] cubetas = cubetas(ticket.getTitulo(), ticket.getDescripcion());
+
+        sumar(etiquetaCategoria(ticket.getCategoria()), cubetas);
+        if (ticket.getEscalamientos() == 0) {
+            sumar(porPrioridad[ticket.getPrioridad().ordinal()], cubetas);
+        }
+        aprendidos.set(ticket.getId());
+        documentos++;
+        pendientesDeGuardar++;
+        return true;
+    }
+
+    private static void sumar(Etiqueta etiqueta, int[] cubetas) {
+        for (int cubeta : cubetas) {
+            etiqueta.frecuencias[cubeta]++;
+        }
+        etiqueta.terminos += cubetas.length;
+        etiqueta.documentos++;
+    }
+
+    private Etiqueta etiquetaCategoria(String categoria) {
+        for (int i = 0; i < categorias.size(); i++) {
+            if (categorias.get(i).equalsIgnoreCase(categoria)) {
+                return porCategoria.get(i);
+            }
+        }
+        categorias.add(categoria);
+        Etiqueta etiqueta = new Etiqueta();
+        porCategoria.add(etiqueta);
+        return etiqueta;
+    }
+
+    /**
+     * Sugiere categoría y prioridad para un texto. Sin entrenamiento
+     * devuelve General y BAJA.
+     *
+     * @param titulo Título del ticket
+     * @param descripcion Descripción del ticket
+     * @return categoría y prioridad más probables; la lista de palabras
+     *         clave está vacía
+     */
+    public synchronized ResultadoClasificacion clasificar(String titulo, String descripcion) {
+        int[] cubetas = cubetas(titulo, descripcion);
+
+        String categoria = "General";
+        int mejorCategoria = masProbable(porCategoria.toArray(new Etiqueta[0]), cubetas);
+        if (mejorCategoria >= 0) {
+            categoria = categorias.get(mejorCategoria);
+        }
+
+        Prioridad prioridad = Prioridad.BAJA;
+        int mejorPrioridad = masProbable(porPrioridad, cubetas);
+        if (mejorPrioridad >= 0) {
+            prioridad = Prioridad.values()[mejorPrioridad];
+        }
+
+        return new ResultadoClasificacion(categoria, prioridad, new ArrayList<>(), 0);
+    }
+
+    /**
+     * Devuelve la etiqueta con mayor probabilidad a posteriori, con
+     * suavizado de Laplace, o -1 si ninguna tiene ejemplos.
+     */
+    private int masProbable(Etiqueta[] etiquetas, int[] cubetas) {
+        int mejor = -1;
+        double mejorPuntaje = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < etiquetas.length; i++) {
+            Etiqueta etiqueta = etiquetas[i];
+            if (etiqueta.documentos == 0) {
+                continue;
+            }
+            double puntaje = Math.log((double) etiqueta.documentos / documentos);
+            double denominador = Math.log(etiqueta.terminos + CUBETAS);
+            for (int cubeta : cubetas) {
+                puntaje += Math.log(etiqueta.frecuencias[cubeta] + 1) - denominador;
+            }
+            if (puntaje > mejorPuntaje) {
+                mejorPuntaje = puntaje;
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Reduce el texto a las cubetas de sus términos, con repeticiones.
+     */
+    private static int[] cubetas(String titulo, String descripcion) {
+        List<String> terminos = Tokenizador.tokenizar(titulo);
+        terminos.addAll(Tokenizador.tokenizar(descripcion));
+        int[] cubetas = new int[terminos.size()];
+        for (int i = 0; i < cubetas.length; i++) {
+            int hash = terminos.get(i).hashCode() * 0x9E3779B9;
+            cubetas[i] = (hash ^ (hash >>> 16)) & MASCARA;
+        }
+        return cubetas;
+    }
+
+    /**
+     * Vacía el modelo.
+     */
+    public final synchronized void limpiar() {
+        categorias.clear();
+        porCategoria.clear();
+        for (int i = 0; i < porPrioridad.length; i++) {
+            porPrioridad[i] = new Etiqueta();
+        }
+        aprendidos.clear();
+        documentos = 0;
+        pendientesDeGuardar = 0;
+    }
+
+    /**
+     * Devuelve cuántos tickets aprendió el modelo.
+     *
+     * @return tickets aprendidos
+     */
+    public synchronized int getDocumentos() {
+        return documentos;
+    }
+
+    /**
+     * Devuelve cuántos tickets se aprendieron desde el último guardado.
+     *
+     * @return tickets sin guardar
+     */
+    public synchronized int getPendientesDeGuardar() {
+        return pendientesDeGuardar;
+    }
+
+    // Persistencia
+
+    /**
+     * Guarda el modelo en un archivo binario, reemplazando el anterior solo
+     * cuando el nuevo quedó completo.
+     *
+     * @param archivo Archivo de destino
+     * @param huella Huella de los tickets del tablero
+     * @throws IOException si hay error en la escritura
+     */
+    public synchronized void guardar(File archivo, HuellaTickets huella) throws IOException {
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(temporal), 1 << 16))) {
+            salida.writeInt(FIRMA);
+            salida.writeInt(VERSION);
+            salida.writeInt(CUBETAS);
+            huella.escribir(salida);
+            salida.writeInt(documentos);
+
+            salida.writeInt(categorias.size());
+            for (int i = 0; i < categorias.size(); i++) {
+                salida.writeUTF(categorias.get(i));
+                escribir(porCategoria.get(i), salida);
+            }
+            for (Etiqueta etiqueta : porPrioridad) {
+                escribir(etiqueta, salida);
+            }
+
+            long[] palabras = aprendidos.toLongArray();
+            salida.writeInt(palabras.length);
+            for (long palabra : palabras) {
+                salida.writeLong(palabra);
+            }
+        }
+
+        if (!temporal.renameTo(archivo)) {
+            archivo.delete();
+            if (!temporal.renameTo(archivo)) {
+                throw new IOException("No se pudo reemplazar " + archivo);
+            }
+        }
+        pendientesDeGuardar = 0;
+    }
+
+    /**
+     * Reemplaza el modelo por el guardado en un archivo.
+     *
+     * @param archivo Archivo generado con {@link #guardar(File, HuellaTickets)}
+     * @param tickets Tickets cargados del CSV, para comprobar que el
+     *                archivo corresponde a ellos
+     * @return true si se cargó; false si el archivo no existe
+     * @throws IOException si el archivo está dañado, es de otra versión o
+     *                     se guardó con otros tickets
+     */
+    public synchronized boolean cargar(File archivo, Map<Integer, Ticket> tickets) throws IOException {
+        if (!archivo.exists()) {
+            return false;
+        }
+
+        limpiar();
+        try (DataInputStream entrada = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(archivo), 1 << 16))) {
+            if (entrada.readInt() != FIRMA || entrada.readInt() != VERSION || entrada.readInt() != CUBETAS) {
+                throw new IOException("Formato de modelo bayesiano no reconocido");
+            }
+            HuellaTickets huella = HuellaTickets.leer(entrada);
+            if (!huella.vigente(tickets)) {
+                throw new IOException("El modelo bayesiano se entrenó con otros tickets (" + huella + ")");
+            }
+            documentos = entrada.readInt();
+
+            int cantidadCategorias = entrada.readInt();
+            for (int i = 0; i < cantidadCategorias; i++) {
+                categorias.add(entrada.readUTF());
+                Etiqueta etiqueta = new Etiqueta();
+                leer(etiqueta, entrada);
+                porCategoria.add(etiqueta);
+            }
+            for (Etiqueta etiqueta : porPrioridad) {
+                leer(etiqueta, entrada);
+            }
+
+            long[] palabras = new long[entrada.readInt()];
+            for (int i = 0; i < palabras.length; i++) {
+                palabras[i] = entrada.readLong();
+            }
+            aprendidos.or(BitSet.valueOf(palabras));
+        } catch (IOException | RuntimeException e) {
+            limpiar();
+            throw (e instanceof IOException) ? (IOException) e : new IOException("Modelo bayesiano dañado", e);
+        }
+        return true;
+    }
+
+    private static void escribir(Etiqueta etiqueta, DataOutputStream salida) throws IOException {
+        salida.writeInt(etiqueta.documentos);
+        salida.writeLong(etiqueta.terminos);
+        for (int frecuencia : etiqueta.frecuencias) {
+            salida.writeInt(frecuencia);
+        }
+    }
+
+    private static void leer(Etiqueta etiqueta, DataInputStream entrada) throws IOException {
+        etiqueta.documentos = entrada.readInt();
+        etiqueta.terminos = entrada.readLong();
+        for (int i = 0; i < CUBETAS; i++) {
+            etiqueta.frecuencias[i] = entrada.readInt();
+        }
+    }
+}
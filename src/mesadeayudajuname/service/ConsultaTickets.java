@@ -0,0 +1,259 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.util.Tokenizador;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Criterios combinables para buscar tickets con
+ * {@link TableroService#consultar(ConsultaTickets)}.
+ * Todos los criterios son opcionales y se combinan con Y lógico; una
+ * consulta sin criterios devuelve todos los tickets.
+ *
+ * Ejemplo:
+ * <pre>
+ *   new ConsultaTickets().conCategoria("Redes").conEstado(Estado.ABIERTO).conTexto("vpn")
+ * </pre>
+ *
+ * @author juanulb
+ */
+public class ConsultaTickets {
+    private String categoria;
+    private Estado estado;
+    private Prioridad prioridad;
+    private Integer tecnicoId;
+    private LocalDateTime creadoDesde;
+    private LocalDateTime creadoHasta;
+    private LocalDateTime iniciadoDesde;
+    private LocalDateTime iniciadoHasta;
+    private LocalDateTime cerradoDesde;
+    private LocalDateTime cerradoHasta;
+    private String texto;
+    private Set<String> terminos = Collections.emptySet();
+
+    /**
+     * Filtra por categoría, sin distinguir mayúsculas.
+     *
+     * @param categoria Categoría buscada
+     * @return esta consulta
+     */
+    public ConsultaTickets conCategoria(String categoria) {
+        this.categoria = vacioANulo(categoria);
+        return this;
+    }
+
+    /**
+     * Filtra por estado.
+     *
+     * @param estado Estado buscado
+     * @return esta consulta
+     */
+    public ConsultaTickets conEstado(Estado estado) {
+        this.estado = estado;
+        return this;
+    }
+
+    /**
+     * Filtra por prioridad.
+     *
+     * @param prioridad Prioridad buscada
+     * @return esta consulta
+     */
+    public ConsultaTickets conPrioridad(Prioridad prioridad) {
+        this.prioridad = prioridad;
+        return this;
+    }
+
+    /**
+     * Filtra por técnico asignado.
+     *
+     * @param tecnicoId ID del técnico
+     * @return esta consulta
+     */
+    public ConsultaTickets conTecnico(int tecnicoId) {
+        this.tecnicoId = tecnicoId;
+        return this;
+    }
+
+    /**
+     * Filtra por fecha de creación dentro de un rango cerrado.
+     *
+     * @param desde Inicio del rango, o null para no acotar
+     * @param hasta Fin del rango, o null para no acotar
+     * @return esta consulta
+     */
+    public ConsultaTickets creadoEntre(LocalDateTime desde, LocalDateTime hasta) {
+        this.creadoDesde = desde;
+        this.creadoHasta = hasta;
+        return this;
+    }
+
+    /**
+     * Filtra por fecha de inicio del trabajo dentro de un rango cerrado.
+     * Solo coinciden los tickets ya iniciados.
+     *
+     * @param desde Inicio del rango, o null para no acotar
+     * @param hasta Fin del rango, o null para no acotar
+     * @return esta consulta
+     */
+    public ConsultaTickets iniciadoEntre(LocalDateTime desde, LocalDateTime hasta) {
+        this.iniciadoDesde = desde;
+        this.iniciadoHasta = hasta;
+        return this;
+    }
+
+    /**
+     * Filtra por fecha de cierre dentro de un rango cerrado. Solo coinciden
+     * los tickets cerrados.
+     *
+     * @param desde Inicio del rango, o null para no acotar
+     * @param hasta Fin del rango, o null para no acotar
+     * @return esta consulta
+     */
+    public ConsultaTickets cerradoEntre(LocalDateTime desde, LocalDateTime hasta) {
+        this.cerradoDesde = desde;
+        this.cerradoHasta = hasta;
+        return this;
+    }
+
+    /**
+     * Filtra por palabras del título o la descripción: coinciden los
+     * tickets que contienen todas las palabras del texto, sin distinguir
+     * mayúsculas ni acentos y reduciendo plurales, igual que la búsqueda
+     * por relevancia. Si el texto no tiene ninguna palabra indexable (solo
+     * palabras vacías o letras sueltas) se busca como texto contenido.
+     *
+     * @param texto Texto buscado
+     * @return esta consulta
+     */
+    public ConsultaTickets conTexto(String texto) {
+        this.texto = vacioANulo(texto);
+        this.terminos = (this.texto != null)
+            ? new LinkedHashSet<>(Tokenizador.tokenizar(this.texto))
+            : Collections.<String>emptySet();
+        return this;
+    }
+
+    /**
+     * Evalúa todos los criterios sobre un ticket.
+     *
+     * @param ticket Ticket a evaluar
+     * @return true si el ticket cumple la consulta
+     */
+    public boolean coincide(Ticket ticket) {
+        return (categoria == null || ticket.getCategoria().equalsIgnoreCase(categoria))
+            && (estado == null || ticket.getEstado() == estado)
+            && (prioridad == null || ticket.getPrioridad() == prioridad)
+            && (tecnicoId == null || (ticket.getTecnicoAsignado() != null && ticket.getTecnicoAsignado().getId() == tecnicoId))
+            && coincideFechas(ticket)
+            && coincideTexto(ticket);
+    }
+
+    /**
+     * Evalúa solo los rangos de fechas.
+     */
+    boolean coincideFechas(Ticket ticket) {
+        return enRango(ticket.getFechaCreacion(), creadoDesde, creadoHasta)
+            && (!tieneRangoInicio() || (ticket.getFechaInicio() != null
+                                        && enRango(ticket.getFechaInicio(), iniciadoDesde, iniciadoHasta)))
+            && (!tieneRangoCierre() || (ticket.getFechaCierre() != null
+                                        && enRango(ticket.getFechaCierre(), cerradoDesde, cerradoHasta)));
+    }
+
+    /**
+     * Evalúa solo el criterio de texto. El planificador lo resuelve con el
+     * índice de texto completo cuando hay términos; esta evaluación por
+     * ticket queda para {@link #coincide(Ticket)} y para textos sin
+     * términos.
+     */
+    boolean coincideTexto(Ticket ticket) {
+        if (texto == null) {
+            return true;
+        }
+        if (!terminos.isEmpty()) {
+            Set<String> presentes = new HashSet<>(Tokenizador.tokenizar(ticket.getTitulo()));
+            presentes.addAll(Tokenizador.tokenizar(ticket.getDescripcion()));
+            return presentes.containsAll(terminos);
+        }
+        String buscado = texto.toLowerCase();
+        return ticket.getTitulo().toLowerCase().contains(buscado)
+            || ticket.getDescripcion().toLowerCase().contains(buscado);
+    }
+
+    private static boolean enRango(LocalDateTime fecha, LocalDateTime desde, LocalDateTime hasta) {
+        return (desde == null || !fecha.isBefore(desde)) && (hasta == null || !fecha.isAfter(hasta));
+    }
+
+    private static String vacioANulo(String valor) {
+        return (valor == null || valor.trim().isEmpty()) ? null : valor.trim();
+    }
+
+    /**
+     * Indica si el criterio de texto se puede resolver con el índice de
+     * texto completo.
+     */
+    boolean tieneTerminos() {
+        return !terminos.isEmpty();
+    }
+
+    Set<String> getTerminos() {
+        return terminos;
+    }
+
+    boolean tieneRangoCreacion() {
+        return creadoDesde != null || creadoHasta != null;
+    }
+
+    boolean tieneRangoInicio() {
+        return iniciadoDesde != null || iniciadoHasta != null;
+    }
+
+    boolean tieneRangoCierre() {
+        return cerradoDesde != null || cerradoHasta != null;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public Prioridad getPrioridad() {
+        return prioridad;
+    }
+
+    public Integer getTecnicoId() {
+        return tecnicoId;
+    }
+
+    public LocalDateTime getCreadoDesde() {
+        return creadoDesde;
+    }
+
+    public LocalDateTime getCreadoHasta() {
+        return creadoHasta;
+    }
+
+    public LocalDateTime getIniciadoDesde() {
+        return iniciadoDesde;
+    }
+
+    public LocalDateTime getIniciadoHasta() {
+        return iniciadoHasta;
+    }
+
+    public LocalDateTime getCerradoDesde() {
+        return cerradoDesde;
+    }
+
+    public LocalDateTime getCerradoHasta() {
+        return cerradoHasta;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+}
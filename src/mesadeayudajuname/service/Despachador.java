@@ -0,0 +1,211 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import java.util.*;
+
+/**
+ * Motor de despacho automático de tickets.
+ * Mantiene, para cada habilidad, un montículo de mínimos con los técnicos
+ * ordenados por su carga actual (tickets asignados no cerrados), de modo que
+ * elegir al técnico menos cargado para una categoría cuesta O(log n).
+ *
+ * Las entradas del montículo no se actualizan en el lugar: cuando cambia la
+ * carga de un técnico se inserta una entrada nueva y las anteriores quedan
+ * obsoletas, descartándose de forma perezosa al llegar a la cima.
+ *
+ * @author juanulb
+ */
+public class Despachador {
+    private final Map<Integer, PriorityQueue<EntradaCarga>> colasPorSkill;
+    private final Map<Integer, Integer> cargaPorTecnico;
+    private final Map<Integer, Tecnico> tecnicos;
+
+    /**
+     * Entrada inmutable de un montículo: un técnico con la carga que tenía
+     * en el momento de insertarse.
+     */
+    private static final class EntradaCarga {
+        private final Tecnico tecnico;
+        private final int carga;
+
+        private EntradaCarga(Tecnico tecnico, int carga) {
+            this.tecnico = tecnico;
+            this.carga = carga;
+        }
+    }
+
+    private static final Comparator<EntradaCarga> POR_CARGA = (e1, e2) -> {
+        int comparacion = Integer.compare(e1.carga, e2.carga);
+        return comparacion != 0 ? comparacion : Integer.compare(e1.tecnico.getId(), e2.tecnico.getId());
+    };
+
+    /**
+     * Constructor del despachador vacío.
+     */
+    public Despachador() {
+        this.colasPorSkill = new HashMap<>();
+        this.cargaPorTecnico = new HashMap<>();
+        this.tecnicos = new HashMap<>();
+    }
+
+    /**
+     * Reconstruye por completo el estado del despachador a partir de los
+     * técnicos y tickets actuales.
+     *
+     * @param listaTecnicos Técnicos del sistema
+     * @param listaTickets Tickets del sistema
+     */
+    public void reconstruir(List<Tecnico> listaTecnicos, List<Ticket> listaTickets) {
+        colasPorSkill.clear();
+        cargaPorTecnico.clear();
+        tecnicos.clear();
+
+        for (Tecnico tecnico : listaTecnicos) {
+            tecnicos.put(tecnico.getId(), tecnico);
+            cargaPorTecnico.put(tecnico.getId(), 0);
+        }
+
+        for (Ticket ticket : listaTickets) {
+            Tecnico tecnico = ticket.getTecnicoAsignado();
+            if (tecnico != null && ticket.getEstado() != Estado.CERRADO
+                    && cargaPorTecnico.containsKey(tecnico.getId())) {
+                cargaPorTecnico.merge(tecnico.getId(), 1, Integer::sum);
+            }
+        }
+
+        for (Tecnico tecnico : listaTecnicos) {
+            encolar(tecnico);
+        }
+    }
+
+    /**
+     * Registra un técnico nuevo con carga cero.
+     *
+     * @param tecnico Técnico a registrar
+     */
+    public void registrarTecnico(Tecnico tecnico) {
+        tecnicos.put(tecnico.getId(), tecnico);
+        cargaPorTecnico.putIfAbsent(tecnico.getId(), 0);
+        encolar(tecnico);
+    }
+
+    /**
+     * Vuelve a ubicar a un técnico en los montículos después de cambiar sus
+     * habilidades: se quitan sus entradas de todos los montículos y se
+     * inserta una por cada habilidad actual.
+     *
+     * @param tecnico Técnico cuyas habilidades cambiaron
+     */
+    public void actualizarSkills(Tecnico tecnico) {
+        if (!tecnicos.containsKey(tecnico.getId())) {
+            return;
+        }
+
+        for (PriorityQueue<EntradaCarga> cola : colasPorSkill.values()) {
+            cola.removeIf(e -> e.tecnico.getId() == tecnico.getId());
+        }
+        tecnicos.put(tecnico.getId(), tecnico);
+        encolar(tecnico);
+    }
+
+    /**
+     * Incrementa en uno la carga de un técnico.
+     *
+     * @param tecnico Técnico que recibe un ticket
+     */
+    public void incrementarCarga(Tecnico tecnico) {
+        ajustarCarga(tecnico, 1);
+    }
+
+    /**
+     * Decrementa en uno la carga de un técnico.
+     *
+     * @param tecnico Técnico que libera un ticket
+     */
+    public void decrementarCarga(Tecnico tecnico) {
+        ajustarCarga(tecnico, -1);
+    }
+
+    /**
+     * Devuelve la carga actual de un técnico.
+     *
+     * @param tecnicoId ID del técnico
+     * @return número de tickets asignados no cerrados
+     */
+    public int getCarga(int tecnicoId) {
+        return cargaPorTecnico.getOrDefault(tecnicoId, 0);
+    }
+
+    /**
+     * Selecciona el técnico menos cargado que puede atender una categoría.
+     * No modifica la carga; el llamador debe invocar {@link #incrementarCarga}
+     * una vez realizada la asignación.
+     *
+     * @param categoria Categoría del ticket
+     * @return Técnico seleccionado o null si nadie puede atender la categoría
+     */
+    public Tecnico seleccionarTecnico(String categoria) {
+        PriorityQueue<EntradaCarga> cola = colasPorSkill.get(RegistroSkills.buscarId(categoria));
+        if (cola == null) {
+            return null;
+        }
+
+        while (!cola.isEmpty()) {
+            EntradaCarga cima = cola.peek();
+            if (esVigente(cima)) {
+                return cima.tecnico;
+            }
+            cola.poll();
+        }
+        return null;
+    }
+
+    /**
+     * Ajusta la carga de un técnico e inserta su nueva entrada en los montículos.
+     */
+    private void ajustarCarga(Tecnico tecnico, int delta) {
+        if (tecnico == null || !cargaPorTecnico.containsKey(tecnico.getId())) {
+            return;
+        }
+
+        cargaPorTecnico.merge(tecnico.getId(), delta, (actual, d) -> Math.max(0, actual + d));
+        encolar(tecnico);
+    }
+
+    /**
+     * Inserta la entrada actual de un técnico en el montículo de cada una de
+     * sus habilidades, compactando el montículo si acumula demasiadas
+     * entradas obsoletas.
+     */
+    private void encolar(Tecnico tecnico) {
+        EntradaCarga entrada = new EntradaCarga(tecnico, getCarga(tecnico.getId()));
+
+        BitSet mascara = tecnico.getMascaraSkills();
+        for (int skillId = mascara.nextSetBit(0); skillId >= 0; skillId = mascara.nextSetBit(skillId + 1)) {
+            PriorityQueue<EntradaCarga> cola = colasPorSkill.computeIfAbsent(
+                skillId, k -> new PriorityQueue<>(POR_CARGA));
+            cola.add(entrada);
+
+            if (cola.size() > 4 * tecnicos.size() + 16) {
+                compactar(cola);
+            }
+        }
+    }
+
+    /**
+     * Elimina de un montículo las entradas obsoletas y las duplicadas,
+     * dejando una sola entrada vigente por técnico.
+     */
+    private void compactar(PriorityQueue<EntradaCarga> cola) {
+        Set<Integer> vistos = new HashSet<>();
+        cola.removeIf(e -> !esVigente(e) || !vistos.add(e.tecnico.getId()));
+    }
+
+    /**
+     * Indica si una entrada refleja la carga actual de su técnico.
+     */
+    private boolean esVigente(EntradaCarga entrada) {
+        Integer carga = cargaPorTecnico.get(entrada.tecnico.getId());
+        return carga != null && carga == entrada.carga;
+    }
+}
@@ -0,0 +1,245 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.util.Tokenizador;
+import java.util.*;
+
+/**
+ * Detector de tickets casi idénticos basado en firmas MinHash e índice LSH
+ * (hashing sensible a la localidad).
+ *
+ * Cada ticket se reduce al conjunto de términos de su título y descripción
+ * y se resume en una firma de {@value #FUNCIONES} valores MinHash: la
+ * fracción de valores iguales entre dos firmas estima la similitud de
+ * Jaccard entre ambos conjuntos. La firma se divide en {@value #BANDAS}
+ * bandas y cada banda se usa como clave de una tabla hash, de modo que solo
+ * se comparan los tickets que coinciden por completo en al menos una banda.
+ * Con {@value #FILAS} valores por banda, dos tickets con similitud 0,7 son
+ * candidatos con probabilidad cercana a 0,99, y dos con similitud 0,3 con
+ * probabilidad cercana a 0,12; así una búsqueda examina unos pocos tickets
+ * en lugar de todos los abiertos.
+ *
+ * La clase no es segura para hilos.
+ *
+ * @author juanulb
+ */
+public class DetectorDuplicados {
+    private static final int BANDAS = 16;
+    private static final int FILAS = 4;
+    private static final int FUNCIONES = BANDAS * FILAS;
+    private static final double UMBRAL_POR_DEFECTO = 0.6;
+
+    /**
+     * IDs de los tickets cuya banda cae en una misma cubeta.
+     */
+    private static final class Cubeta {
+        private int[] ids = new int[2];
+        private int tamano;
+
+        private void agregar(int id) {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            ids[tamano++] = id;
+        }
+
+        private void quitar(int id) {
+            for (int i = 0; i < tamano; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--tamano];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final double umbral;
+    private final Map<Long, Cubeta> cubetas;
+    private final Map<Integer, int[]> firmas;
+
+    /**
+     * Constructor con el umbral de similitud por defecto (0,6).
+     */
+    public DetectorDuplicados() {
+        this(UMBRAL_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor del detector.
+     *
+     * @param umbral Similitud mínima, entre 0 y 1, para considerar que dos
+     *               tickets son duplicados
+     */
+    public DetectorDuplicados(double umbral) {
+        if (umbral <= 0 || umbral > 1) {
+            throw new IllegalArgumentException("El umbral debe estar entre 0 y 1");
+        }
+        this.umbral = umbral;
+        this.cubetas = new HashMap<>();
+        this.firmas = new HashMap<>();
+    }
+
+    /**
+     * Busca, entre los tickets registrados, el más parecido a un texto.
+     *
+     * @param titulo Título del ticket nuevo
+     * @param descripcion Descripción del ticket nuevo
+     * @return ID del ticket más parecido con similitud estimada mayor o igual
+     *         al umbral, o 0 si no hay ninguno
+     */
+    public int buscarOriginal(String titulo, String descripcion) {
+        int[] firma = calcularFirma(titulo, descripcion);
+        if (firma == null) {
+            return 0;
+        }
+
+        int mejorId = 0;
+        int mejorCoincidencias = (int) Math.ceil(umbral * FUNCIONES) - 1;
+        Set<Integer> examinados = new HashSet<>();
+        for (int banda = 0; banda < BANDAS; banda++) {
+            Cubeta cubeta = cubetas.get(claveBanda(firma, banda));
+            if (cubeta == null) {
+                continue;
+            }
+            for (int i = 0; i < cubeta.tamano; i++) {
+                int id = cubeta.ids[i];
+                if (!examinados.add(id)) {
+                    continue;
+                }
+                int coincidencias = contarCoincidencias(firma, firmas.get(id));
+                if (coincidencias > mejorCoincidencias
+                        || (coincidencias == mejorCoincidencias && mejorId != 0 && id < mejorId)) {
+                    mejorCoincidencias = coincidencias;
+                    mejorId = id;
+                }
+            }
+        }
+        return mejorId;
+    }
+
+    /**
+     * Registra un ticket como posible original de los que se creen después.
+     * Registrar de nuevo un ticket ya registrado no tiene efecto.
+     *
+     * @param ticket Ticket a registrar
+     */
+    public void agregar(Ticket ticket) {
+        if (firmas.containsKey(ticket.getId())) {
+            return;
+        }
+        int[] firma = calcularFirma(ticket.getTitulo(), ticket.getDescripcion());
+        if (firma == null) {
+            return;
+        }
+
+        firmas.put(ticket.getId(), firma);
+        for (int banda = 0; banda < BANDAS; banda++) {
+            cubetas.computeIfAbsent(claveBanda(firma, banda), k -> new Cubeta()).agregar(ticket.getId());
+        }
+    }
+
+    /**
+     * Deja de considerar un ticket como posible original.
+     *
+     * @param ticketId ID del ticket
+     */
+    public void quitar(int ticketId) {
+        int[] firma = firmas.remove(ticketId);
+        if (firma == null) {
+            return;
+        }
+
+        for (int banda = 0; banda < BANDAS; banda++) {
+            long clave = claveBanda(firma, banda);
+            Cubeta cubeta = cubetas.get(clave);
+            if (cubeta != null) {
+                cubeta.quitar(ticketId);
+                if (cubeta.tamano == 0) {
+                    cubetas.remove(clave);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vacía el detector.
+     */
+    public void limpiar() {
+        cubetas.clear();
+        firmas.clear();
+    }
+
+    /**
+     * Devuelve cuántos tickets están registrados.
+     *
+     * @return tickets registrados
+     */
+    public int getTamano() {
+        return firmas.size();
+    }
+
+    public double getUmbral() {
+        return umbral;
+    }
+
+    /**
+     * Calcula la firma MinHash del conjunto de términos de un texto. Las
+     * funciones hash se derivan de dos hash independientes de cada término
+     * como h1 + i * h2, lo que evita calcular {@value #FUNCIONES} hash
+     * completos por término.
+     *
+     * @return firma, o null si el texto no tiene términos
+     */
+    private static int[] calcularFirma(String titulo, String descripcion) {
+        Set<String> terminos = new HashSet<>(Tokenizador.tokenizar(titulo));
+        terminos.addAll(Tokenizador.tokenizar(descripcion));
+        if (terminos.isEmpty()) {
+            return null;
+        }
+
+        int[] firma = new int[FUNCIONES];
+        Arrays.fill(firma, Integer.MAX_VALUE);
+        for (String termino : terminos) {
+            long hash = mezclar(termino.hashCode() * 0x9E3779B97F4A7C15L);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < FUNCIONES; i++) {
+                int valor = (h1 + i * h2) & Integer.MAX_VALUE;
+                if (valor < firma[i]) {
+                    firma[i] = valor;
+                }
+            }
+        }
+        return firma;
+    }
+
+    private static long claveBanda(int[] firma, int banda) {
+        long hash = banda;
+        for (int i = banda * FILAS; i < (banda + 1) * FILAS; i++) {
+            hash = mezclar(hash * 31 + firma[i]);
+        }
+        return hash;
+    }
+
+    private static int contarCoincidencias(int[] firma1, int[] firma2) {
+        int coincidencias = 0;
+        for (int i = 0; i < FUNCIONES; i++) {
+            if (firma1[i] == firma2[i]) {
+                coincidencias++;
+            }
+        }
+        return coincidencias;
+    }
+
+    /**
+     * Función de mezcla final de MurmurHash3 de 64 bits.
+     */
+    private static long mezclar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xFF51AFD7ED558CCDL;
+        valor ^= valor >>> 33;
+        valor *= 0xC4CEB93FE53A87C3L;
+        valor ^= valor >>> 33;
+        return valor;
+    }
+}
@@ -0,0 +1,186 @@
+package mesadeayudajuname.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Palabras clave de prioridad y de categoría ya compiladas en un
+ * {@link AutomataPalabrasClave}. Es inmutable: para cambiar las palabras se
+ * construye un diccionario nuevo y se reemplaza el anterior.
+ *
+ * El archivo de diccionarios tiene una sección por prioridad o categoría,
+ * con las palabras separadas por comas o en líneas distintas; las líneas
+ * que empiezan con # son comentarios:
+ * <pre>
+ *   [ALTA]
+ *   urgente, crítico, no funciona
+ *   [MEDIA]
+ *   lento, intermitente
+ *   [Redes]
+ *   red, wifi, vpn
+ *   [Software]
+ *   office, sharepoint
+ * </pre>
+ * Las secciones ALTA y MEDIA son prioridades; las demás son categorías, y
+ * si un texto tiene palabras de varias se elige la que aparece primero en
+ * el archivo.
+ *
+ * @author juanulb
+ */
+public class DiccionarioClasificacion {
+    private static final String SECCION_ALTA = "ALTA";
+    private static final String SECCION_MEDIA = "MEDIA";
+    private static final int MAXIMO_CATEGORIAS = 62;
+    private static final AtomicInteger GENERACIONES = new AtomicInteger();
+
+    private final AutomataPalabrasClave automata;
+    private final String[] categorias;
+    private final int generacion;
+    private final long nanosegundosCompilacion;
+
+    private DiccionarioClasificacion(List<String> alta, List<String> media,
+                                     LinkedHashMap<String, List<String>> porCategoria) {
+        if (porCategoria.size() > MAXIMO_CATEGORIAS) {
+            throw new IllegalArgumentException("Se admiten como máximo " + MAXIMO_CATEGORIAS + " categorías");
+        }
+
+        long inicio = System.nanoTime();
+        List<List<String>> grupos = new ArrayList<>();
+        grupos.add(alta);
+        grupos.add(media);
+        grupos.addAll(porCategoria.values());
+        this.automata = new AutomataPalabrasClave(grupos);
+        this.categorias = porCategoria.keySet().toArray(new String[0]);
+        this.nanosegundosCompilacion = System.nanoTime() - inicio;
+        this.generacion = GENERACIONES.incrementAndGet();
+    }
+
+    /**
+     * Devuelve el diccionario incorporado, usado cuando no hay archivo.
+     *
+     * @return diccionario con las palabras clave predeterminadas
+     */
+    public static DiccionarioClasificacion predeterminado() {
+        LinkedHashMap<String, List<String>> categorias = new LinkedHashMap<>();
+        categorias.put("Redes", Arrays.asList("red", "redes", "network", "conexión", "internet", "wifi",
+            "ethernet", "router", "switch", "ip", "dns", "firewall", "vpn"));
+        categorias.put("Hardware", Arrays.asList("hardware", "hw", "disco", "ram", "memoria", "cpu",
+            "procesador", "monitor", "pantalla", "teclado", "mouse", "impresora", "scanner"));
+        categorias.put("Software", Arrays.asList("software", "sw", "aplicación", "aplicacion", "programa",
+            "windows", "linux", "office", "excel", "word", "outlook", "navegador", "browser"));
+        categorias.put("Seguridad", Arrays.asList("seguridad", "security", "virus", "malware", "antivirus",
+            "contraseña", "password", "login", "acceso", "cuenta", "usuario", "hack"));
+
+        return new DiccionarioClasificacion(
+            Arrays.asList("urgente", "crítico", "crítica", "emergencia", "emergency", "down", "caído", "parado",
+                          "no funciona", "error crítico", "falla crítica", "servidor caído"),
+            Arrays.asList("importante", "problema", "issue", "lento", "lenta", "intermitente",
+                          "no responde", "timeout", "delay", "retraso"),
+            categorias);
+    }
+
+    /**
+     * Lee y compila un archivo de diccionarios en UTF-8.
+     *
+     * @param archivo Archivo a leer
+     * @return diccionario compilado
+     * @throws IOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si el archivo no tiene el formato esperado
+     */
+    public static DiccionarioClasificacion cargar(File archivo) throws IOException {
+        return parsear(Files.readAllLines(archivo.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Compila las líneas de un archivo de diccionarios.
+     *
+     * @param lineas Líneas del archivo
+     * @return diccionario compilado
+     * @throws IllegalArgumentException si las líneas no tienen el formato esperado
+     */
+    public static DiccionarioClasificacion parsear(List<String> lineas) {
+        List<String> alta = new ArrayList<>();
+        List<String> media = new ArrayList<>();
+        LinkedHashMap<String, List<String>> categorias = new LinkedHashMap<>();
+        List<String> actual = null;
+
+        for (int n = 0; n < lineas.size(); n++) {
+            String linea = lineas.get(n).trim();
+            if (n == 0 && linea.startsWith("\uFEFF")) {
+                linea = linea.substring(1).trim();
+            }
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+
+            if (linea.startsWith("[")) {
+                if (!linea.endsWith("]") || linea.length() < 3) {
+                    throw new IllegalArgumentException("Sección no válida en la línea " + (n + 1) + ": " + linea);
+                }
+                String seccion = linea.substring(1, linea.length() - 1).trim();
+                if (seccion.equalsIgnoreCase(SECCION_ALTA)) {
+                    actual = alta;
+                } else if (seccion.equalsIgnoreCase(SECCION_MEDIA)) {
+                    actual = media;
+                } else {
+                    actual = categorias.computeIfAbsent(seccion, k -> new ArrayList<>());
+                }
+                continue;
+            }
+
+            if (actual == null) {
+                throw new IllegalArgumentException("Palabras fuera de una sección en la línea " + (n + 1));
+            }
+            for (String palabra : linea.split(",")) {
+                if (!palabra.trim().isEmpty()) {
+                    actual.add(palabra.trim());
+                }
+            }
+        }
+
+        if (categorias.isEmpty()) {
+            throw new IllegalArgumentException("El diccionario no define ninguna categoría");
+        }
+        return new DiccionarioClasificacion(alta, media, categorias);
+    }
+
+    AutomataPalabrasClave getAutomata() {
+        return automata;
+    }
+
+    /**
+     * Devuelve el nombre de una categoría por su posición en el archivo.
+     */
+    String getCategoria(int indice) {
+        return categorias[indice];
+    }
+
+    /**
+     * @return categorías en orden de precedencia
+     */
+    public List<String> getCategorias() {
+        return Collections.unmodifiableList(Arrays.asList(categorias));
+    }
+
+    /**
+     * @return número que distingue a este diccionario de los cargados antes
+     */
+    public int getGeneracion() {
+        return generacion;
+    }
+
+    public int getCantidadPalabras() {
+        return automata.getCantidadPalabras();
+    }
+
+    /**
+     * @return milisegundos que tomó compilar el autómata
+     */
+    public double getMilisegundosCompilacion() {
+        return nanosegundosCompilacion / 1e6;
+    }
+}
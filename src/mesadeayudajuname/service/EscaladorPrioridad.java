@@ -0,0 +1,71 @@
+package mesadeayudajuname.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloj del escalamiento de prioridad por antigüedad.
+ * Cada cierto periodo avanza la rueda de temporizadores del tablero mediante
+ * {@link TableroService#procesarEscalamientos()}; el costo de cada avance
+ * depende de los temporizadores vencidos y no de la cantidad de tickets.
+ *
+ * @author juanulb
+ */
+public class EscaladorPrioridad {
+    private static final long PERIODO_POR_DEFECTO_MS = 60_000;
+
+    private final TableroService tableroService;
+    private final long periodoMs;
+    private final ScheduledExecutorService reloj;
+
+    /**
+     * Constructor con el periodo por defecto de un minuto.
+     *
+     * @param tableroService Tablero cuyos tickets se escalan
+     */
+    public EscaladorPrioridad(TableroService tableroService) {
+        this(tableroService, PERIODO_POR_DEFECTO_MS);
+    }
+
+    /**
+     * Constructor del escalador.
+     *
+     * @param tableroService Tablero cuyos tickets se escalan
+     * @param periodoMs Cada cuántos milisegundos se avanza la rueda
+     */
+    public EscaladorPrioridad(TableroService tableroService, long periodoMs) {
+        this.tableroService = tableroService;
+        this.periodoMs = periodoMs;
+        this.reloj = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "escalador-prioridad");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Comienza a escalar tickets en segundo plano. El primer avance es
+     * inmediato para atender los tickets que vencieron con la aplicación
+     * detenida.
+     */
+    public void iniciar() {
+        reloj.scheduleWithFixedDelay(this::avanzar, 0, periodoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el escalamiento.
+     */
+    public void detener() {
+        reloj.shutdown();
+    }
+
+    private void avanzar() {
+        try {
+            tableroService.procesarEscalamientos();
+        } catch (RuntimeException e) {
+            // Un fallo no debe cancelar las ejecuciones siguientes
+            System.err.println("Error al escalar tickets: " + e.getMessage());
+        }
+    }
+}
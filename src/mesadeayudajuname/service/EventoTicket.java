@@ -0,0 +1,62 @@
+package mesadeayudajuname.service;
+
+import java.time.Instant;
+
+/**
+ * Evento de cambio del tablero entregado a los suscriptores del
+ * {@link BusEventos}. Es inmutable y se construye en el hilo del
+ * suscriptor, nunca en el camino de la mutación.
+ * 
+ * @author juanulb
+ */
+public class EventoTicket {
+    private final long secuencia;
+    private final TipoEvento tipo;
+    private final int ticketId;
+    private final int tecnicoId;
+    private final long marcaTiempo;
+    
+    /**
+     * Constructor del evento.
+     * 
+     * @param secuencia Número de secuencia global del evento en el bus
+     * @param tipo Tipo de evento
+     * @param ticketId ID del ticket afectado, o 0 si no aplica
+     * @param tecnicoId ID del técnico involucrado, o 0 si no aplica
+     * @param marcaTiempo Momento de publicación en milisegundos desde la época
+     */
+    public EventoTicket(long secuencia, TipoEvento tipo, int ticketId, int tecnicoId, long marcaTiempo) {
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+        this.ticketId = ticketId;
+        this.tecnicoId = tecnicoId;
+        this.marcaTiempo = marcaTiempo;
+    }
+    
+    // Getters
+    public long getSecuencia() {
+        return secuencia;
+    }
+    
+    public TipoEvento getTipo() {
+        return tipo;
+    }
+    
+    public int getTicketId() {
+        return ticketId;
+    }
+    
+    public int getTecnicoId() {
+        return tecnicoId;
+    }
+    
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Evento{seq=%d, tipo=%s, ticket=%d, tecnico=%d, instante=%s}",
+                           secuencia, tipo, ticketId, tecnicoId, Instant.ofEpochMilli(marcaTiempo));
+    }
+}
@@ -0,0 +1,513 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import java.io.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Historial de solo agregado con todas las transiciones de todos los
+ * tickets: creación, cada asignación o reasignación, inicio, cierre,
+ * escalamiento y reclasificación, con el instante y el técnico asignado en
+ * ese momento.
+ *
+ * Las transiciones no son objetos: se guardan en arreglos primitivos
+ * paralelos compartidos por todos los tickets (ID de ticket, código de
+ * {@link TipoEvento} en un byte, ID de técnico) y cada una ocupa unos 17
+ * bytes. Los instantes se agrupan en bloques de hasta
+ * {@value #TRANSICIONES_POR_BLOQUE} transiciones con un instante base de 64
+ * bits por bloque y diferencias de 32 bits dentro del bloque. Cada
+ * transición apunta a la anterior del mismo ticket, así que el historial de
+ * un ticket se recorre sin mirar las demás, y como los instantes no
+ * decrecen, un rango de fechas se ubica con búsqueda binaria.
+ *
+ * En disco el historial es un archivo al que solo se agregan las
+ * transiciones nuevas, con enteros de longitud variable y el instante como
+ * diferencia respecto de la transición anterior. La cabecera lleva la
+ * {@link HuellaTickets} del tablero en el último guardado, y el archivo se
+ * descarta si ya no corresponde a tickets.csv. La clase no es segura para
+ * hilos.
+ *
+ * @author juanulb
+ */
+public class HistorialTransiciones {
+    private static final int FIRMA = 0x4D444854; // "MDHT"
+    private static final int VERSION = 2;
+    private static final int POSICION_HUELLA = 8;
+    private static final int TRANSICIONES_POR_BLOQUE = 256;
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final TipoEvento[] TIPOS = TipoEvento.values();
+
+    /**
+     * Una transición leída del historial.
+     */
+    public static final class Transicion {
+        private final int ticketId;
+        private final TipoEvento tipo;
+        private final int tecnicoId;
+        private final long instante;
+
+        private Transicion(int ticketId, TipoEvento tipo, int tecnicoId, long instante) {
+            this.ticketId = ticketId;
+            this.tipo = tipo;
+            this.tecnicoId = tecnicoId;
+            this.instante = instante;
+        }
+
+        public int getTicketId() {
+            return ticketId;
+        }
+
+        public TipoEvento getTipo() {
+            return tipo;
+        }
+
+        /**
+         * @return ID del técnico asignado tras la transición, o 0 si no tiene
+         */
+        public int getTecnicoId() {
+            return tecnicoId;
+        }
+
+        /**
+         * @return instante en milisegundos desde la época
+         */
+        public long getInstante() {
+            return instante;
+        }
+
+        public LocalDateTime getFecha() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(instante), ZoneId.systemDefault());
+        }
+    }
+
+    // Una posición por transición
+    private int[] tickets;
+    private byte[] tipos;
+    private int[] tecnicos;
+    private int[] diferencias;       // milisegundos desde la base de su bloque
+    private int[] anteriores;        // transición anterior del mismo ticket, o -1
+    private int cantidad;
+
+    // Una posición por bloque
+    private long[] bases;
+    private int[] iniciosBloque;
+    private int bloques;
+
+    private int[] ultimaPorTicket;   // ID de ticket -> última transición + 1, 0 si no tiene
+    private long ultimoInstante;
+    private int guardadas;           // transiciones ya escritas en archivoGuardado
+    private File archivoGuardado;
+    private HuellaTickets huellaGuardada;
+
+    /**
+     * Constructor de un historial vacío.
+     */
+    public HistorialTransiciones() {
+        limpiar();
+    }
+
+    /**
+     * Vacía el historial.
+     */
+    public final void limpiar() {
+        tickets = new int[CAPACIDAD_INICIAL];
+        tipos = new byte[CAPACIDAD_INICIAL];
+        tecnicos = new int[CAPACIDAD_INICIAL];
+        diferencias = new int[CAPACIDAD_INICIAL];
+        anteriores = new int[CAPACIDAD_INICIAL];
+        cantidad = 0;
+        bases = new long[16];
+        iniciosBloque = new int[16];
+        bloques = 0;
+        ultimaPorTicket = new int[CAPACIDAD_INICIAL];
+        ultimoInstante = Long.MIN_VALUE;
+        guardadas = 0;
+        archivoGuardado = null;
+        huellaGuardada = null;
+    }
+
+    /**
+     * Agrega una transición. Un instante anterior al de la última
+     * transición (por ejemplo, si se atrasa el reloj) se toma igual a este,
+     * para que el historial siga ordenado.
+     *
+     * @param ticketId ID del ticket
+     * @param tipo Tipo de transición
+     * @param tecnicoId ID del técnico asignado tras la transición, o 0
+     * @param instante Instante en milisegundos desde la época
+     */
+    public void registrar(int ticketId, TipoEvento tipo, int tecnicoId, long instante) {
+        instante = Math.max(instante, ultimoInstante);
+        if (cantidad == tickets.length) {
+            crecer();
+        }
+        if (bloques == 0 || cantidad - iniciosBloque[bloques - 1] == TRANSICIONES_POR_BLOQUE
+                || instante - bases[bloques - 1] > Integer.MAX_VALUE) {
+            nuevoBloque(instante);
+        }
+        if (ticketId >= ultimaPorTicket.length) {
+            ultimaPorTicket = Arrays.copyOf(ultimaPorTicket, Math.max(ticketId + 1, ultimaPorTicket.length * 2));
+        }
+
+        tickets[cantidad] = ticketId;
+        tipos[cantidad] = (byte) tipo.ordinal();
+        tecnicos[cantidad] = tecnicoId;
+        diferencias[cantidad] = (int) (instante - bases[bloques - 1]);
+        anteriores[cantidad] = ultimaPorTicket[ticketId] - 1;
+        ultimaPorTicket[ticketId] = cantidad + 1;
+        ultimoInstante = instante;
+        cantidad++;
+    }
+
+    private void crecer() {
+        int capacidad = tickets.length * 2;
+        tickets = Arrays.copyOf(tickets, capacidad);
+        tipos = Arrays.copyOf(tipos, capacidad);
+        tecnicos = Arrays.copyOf(tecnicos, capacidad);
+        diferencias = Arrays.copyOf(diferencias, capacidad);
+        anteriores = Arrays.copyOf(anteriores, capacidad);
+    }
+
+    private void nuevoBloque(long base) {
+        if (bloques == bases.length) {
+            bases = Arrays.copyOf(bases, bloques * 2);
+            iniciosBloque = Arrays.copyOf(iniciosBloque, bloques * 2);
+        }
+        bases[bloques] = base;
+        iniciosBloque[bloques] = cantidad;
+        bloques++;
+    }
+
+    /**
+     * Devuelve el historial de un ticket.
+     *
+     * @param ticketId ID del ticket
+     * @return transiciones del ticket de la más antigua a la más reciente
+     */
+    public List<Transicion> deTicket(int ticketId) {
+        List<Transicion> resultado = new ArrayList<>();
+        if (ticketId <= 0 || ticketId >= ultimaPorTicket.length) {
+            return resultado;
+        }
+        for (int i = ultimaPorTicket[ticketId] - 1; i >= 0; i = anteriores[i]) {
+            resultado.add(transicion(i));
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    /**
+     * Devuelve las transiciones de todos los tickets en un rango de tiempo.
+     *
+     * @param desde Instante inicial en milisegundos, inclusive
+     * @param hasta Instante final en milisegundos, inclusive
+     * @param limite Cantidad máxima de transiciones
+     * @return las primeras transiciones del rango en orden cronológico
+     */
+    public List<Transicion> entre(long desde, long hasta, int limite) {
+        List<Transicion> resultado = new ArrayList<>();
+        for (int i = primeraDesde(desde); i < cantidad && resultado.size() < limite; i++) {
+            if (instante(i) > hasta) {
+                break;
+            }
+            resultado.add(transicion(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca la primera transición con instante mayor o igual al dado:
+     * primero el bloque y luego la posición dentro del bloque.
+     */
+    private int primeraDesde(long desde) {
+        int bajo = 0;
+        int alto = bloques - 1;
+        int bloque = -1;                  // último bloque con base <= desde
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (bases[medio] <= desde) {
+                bloque = medio;
+                bajo = medio + 1;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        if (bloque < 0) {
+            return 0;
+        }
+
+        bajo = iniciosBloque[bloque];
+        alto = (bloque + 1 < bloques) ? iniciosBloque[bloque + 1] : cantidad;
+        long diferencia = desde - bases[bloque];
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (diferencias[medio] < diferencia) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private Transicion transicion(int i) {
+        return new Transicion(tickets[i], TIPOS[tipos[i]], tecnicos[i], instante(i));
+    }
+
+    private long instante(int i) {
+        return bases[bloqueDe(i)] + diferencias[i];
+    }
+
+    private int bloqueDe(int i) {
+        int bajo = 0;
+        int alto = bloques - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (iniciosBloque[medio] <= i) {
+                bajo = medio;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Devuelve la cantidad de transiciones registradas.
+     *
+     * @return transiciones en el historial
+     */
+    public int getTamano() {
+        return cantidad;
+    }
+
+    /**
+     * Escribe todas las transiciones como texto, en orden cronológico y en
+     * grupos de a lo sumo {@code porGrupo}, para incluirlas en una
+     * instantánea del tablero. Cada transición se escribe como
+     * {@code ticket,TIPO,técnico,instante} y se separa de la siguiente con
+     * ';'.
+     *
+     * @param porGrupo Cantidad máxima de transiciones por texto
+     * @param destino Lista donde se agregan los textos
+     */
+    public void formatear(int porGrupo, List<String> destino) {
+        StringBuilder grupo = new StringBuilder();
+        int enGrupo = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (enGrupo > 0) {
+                grupo.append(';');
+            }
+            grupo.append(tickets[i]).append(',').append(TIPOS[tipos[i]].name()).append(',')
+                 .append(tecnicos[i]).append(',').append(instante(i));
+            if (++enGrupo == porGrupo) {
+                destino.add(grupo.toString());
+                grupo.setLength(0);
+                enGrupo = 0;
+            }
+        }
+        if (enGrupo > 0) {
+            destino.add(grupo.toString());
+        }
+    }
+
+    /**
+     * Agrega las transiciones de un texto escrito con
+     * {@link #formatear(int, List)}.
+     *
+     * @param texto Transiciones separadas por ';'
+     * @throws IllegalArgumentException si alguna transición no es válida
+     */
+    public void registrarFormateadas(String texto) {
+        for (String transicion : texto.split(";")) {
+            String[] campos = transicion.split(",");
+            if (campos.length != 4) {
+                throw new IllegalArgumentException("Transición no válida: " + transicion);
+            }
+            registrar(Integer.parseInt(campos[0]), TipoEvento.valueOf(campos[1]),
+                      Integer.parseInt(campos[2]), Long.parseLong(campos[3]));
+        }
+    }
+
+    // Persistencia
+
+    /**
+     * Agrega al archivo las transiciones registradas desde el último
+     * guardado. Si el archivo no existe, o no es el último que se cargó o
+     * guardó, se escribe el historial completo en un archivo temporal que
+     * reemplaza al anterior solo cuando quedó completo. La huella de la
+     * cabecera se actualiza después de agregar las transiciones, de modo
+     * que un corte a mitad de camino deja la huella anterior, que sigue
+     * siendo válida.
+     *
+     * @param archivo Archivo del historial
+     * @param huella Huella de los tickets del tablero
+     * @throws IOException si hay error en la escritura
+     */
+    public void guardar(File archivo, HuellaTickets huella) throws IOException {
+        boolean completo = !archivo.equals(archivoGuardado) || !archivo.exists();
+        if (!completo && guardadas == cantidad && huella.equals(huellaGuardada)) {
+            return;
+        }
+
+        File destino = completo ? new File(archivo.getPath() + ".tmp") : archivo;
+        try (DataOutputStream salida = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(destino, !completo), 1 << 16))) {
+            int desde = completo ? 0 : guardadas;
+            if (completo) {
+                salida.writeInt(FIRMA);
+                salida.writeInt(VERSION);
+                huella.escribir(salida);
+            }
+            long anterior = (desde > 0) ? instante(desde - 1) : 0;
+            for (int i = desde; i < cantidad; i++) {
+                long actual = instante(i);
+                escribirVarLong(salida, tickets[i]);
+                salida.writeByte(tipos[i]);
+                escribirVarLong(salida, tecnicos[i]);
+                escribirVarLong(salida, actual - anterior);
+                anterior = actual;
+            }
+        }
+
+        if (completo && !destino.renameTo(archivo)) {
+            archivo.delete();
+            if (!destino.renameTo(archivo)) {
+                throw new IOException("No se pudo reemplazar " + archivo);
+            }
+        } else if (!completo && !huella.equals(huellaGuardada)) {
+            try (RandomAccessFile cabecera = new RandomAccessFile(archivo, "rw")) {
+                cabecera.seek(POSICION_HUELLA);
+                huella.escribir(cabecera);
+            }
+        }
+        archivoGuardado = archivo;
+        huellaGuardada = huella;
+        guardadas = cantidad;
+    }
+
+    /**
+     * Reemplaza el historial por el guardado en un archivo. Si la última
+     * transición quedó a medio escribir (por ejemplo, por un corte de luz)
+     * se descarta y se recorta el archivo, para que los próximos guardados
+     * se agreguen a continuación de la última transición completa.
+     *
+     * @param archivo Archivo generado con {@link #guardar(File, HuellaTickets)}
+     * @param tickets Tickets cargados del CSV, para comprobar que el
+     *                archivo corresponde a ellos
+     * @return true si se cargó; false si el archivo no existe
+     * @throws IOException si el archivo está dañado, es de otra versión o
+     *                     se guardó con otros tickets
+     */
+    public boolean cargar(File archivo, Map<Integer, Ticket> tickets) throws IOException {
+        if (!archivo.exists()) {
+            return false;
+        }
+
+        limpiar();
+        long completos;
+        try (FlujoContador contador = new FlujoContador(
+                 new BufferedInputStream(new FileInputStream(archivo), 1 << 16));
+             DataInputStream entrada = new DataInputStream(contador)) {
+            if (entrada.readInt() != FIRMA || entrada.readInt() != VERSION) {
+                throw new IOException("Formato de historial no reconocido");
+            }
+            huellaGuardada = HuellaTickets.leer(entrada);
+            if (!huellaGuardada.vigente(tickets)) {
+                throw new IOException("El historial se guardó con otros tickets (" + huellaGuardada + ")");
+            }
+            completos = contador.leidos;
+            long instante = 0;
+            while (true) {
+                int ticketId;
+                int tipo;
+                int tecnicoId;
+                try {
+                    ticketId = (int) leerVarLong(entrada);
+                    tipo = entrada.readUnsignedByte();
+                    tecnicoId = (int) leerVarLong(entrada);
+                    instante += leerVarLong(entrada);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (ticketId <= 0 || tipo >= TIPOS.length) {
+                    throw new IOException("Transición no válida en el historial");
+                }
+                registrar(ticketId, TIPOS[tipo], tecnicoId, instante);
+                completos = contador.leidos;
+            }
+        } catch (IOException e) {
+            limpiar();
+            throw e;
+        }
+
+        if (completos < archivo.length()) {
+            try (RandomAccessFile recorte = new RandomAccessFile(archivo, "rw")) {
+                recorte.setLength(completos);
+            }
+        }
+        archivoGuardado = archivo;
+        guardadas = cantidad;
+        return true;
+    }
+
+    /**
+     * Flujo que cuenta los bytes leídos, para saber dónde termina la última
+     * transición completa.
+     */
+    private static final class FlujoContador extends FilterInputStream {
+        private long leidos;
+
+        private FlujoContador(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                leidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int desplazamiento, int longitud) throws IOException {
+            int n = super.read(destino, desplazamiento, longitud);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Escribe un entero con signo en zigzag y longitud variable.
+     */
+    private static void escribirVarLong(DataOutputStream salida, long valor) throws IOException {
+        long zigzag = (valor << 1) ^ (valor >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            salida.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        salida.writeByte((int) zigzag);
+    }
+
+    private static long leerVarLong(DataInputStream entrada) throws IOException {
+        long zigzag = 0;
+        int desplazamiento = 0;
+        int b;
+        do {
+            if (desplazamiento > 63) {
+                throw new IOException("Entero no válido en el historial");
+            }
+            b = entrada.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
@@ -0,0 +1,96 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import java.io.*;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+/**
+ * Identifica los tickets con los que se guardó un archivo derivado de
+ * tickets.csv (índice de texto, modelo bayesiano o historial): el ID del
+ * último ticket, su fecha de creación y un hash de su título.
+ *
+ * Al cargar el archivo, si ese ticket ya no existe o cambió, el archivo
+ * corresponde a otros tickets (por ejemplo, porque se vació o reemplazó el
+ * CSV y los IDs se volvieron a usar) y hay que reconstruirlo. Un archivo
+ * guardado antes de los últimos tickets sigue siendo válido, porque su
+ * último ticket no cambia.
+ *
+ * @author juanulb
+ */
+public final class HuellaTickets {
+    /**
+     * Huella de un tablero sin tickets, válida con cualquier CSV.
+     */
+    public static final HuellaTickets VACIA = new HuellaTickets(0, 0, 0);
+
+    private final int ticketId;
+    private final long creacion;
+    private final int hashTitulo;
+
+    private HuellaTickets(int ticketId, long creacion, int hashTitulo) {
+        this.ticketId = ticketId;
+        this.creacion = creacion;
+        this.hashTitulo = hashTitulo;
+    }
+
+    /**
+     * Crea la huella a partir del último ticket del tablero. La fecha se
+     * toma en segundos, la precisión con que se guarda en el CSV.
+     *
+     * @param ultimo Ticket con el mayor ID, o null si no hay tickets
+     * @return huella del tablero
+     */
+    public static HuellaTickets de(Ticket ultimo) {
+        if (ultimo == null) {
+            return VACIA;
+        }
+        return new HuellaTickets(ultimo.getId(),
+                                 ultimo.getFechaCreacion().toEpochSecond(ZoneOffset.UTC),
+                                 ultimo.getTitulo().hashCode());
+    }
+
+    /**
+     * Indica si los tickets cargados contienen, sin cambios, el ticket de
+     * esta huella.
+     *
+     * @param tickets Mapa ID -> ticket con los tickets cargados del CSV
+     * @return true si el archivo con esta huella corresponde a los tickets
+     */
+    public boolean vigente(Map<Integer, Ticket> tickets) {
+        if (ticketId == 0) {
+            return true;
+        }
+        Ticket ticket = tickets.get(ticketId);
+        return ticket != null && equals(de(ticket));
+    }
+
+    void escribir(DataOutput salida) throws IOException {
+        salida.writeInt(ticketId);
+        salida.writeLong(creacion);
+        salida.writeInt(hashTitulo);
+    }
+
+    static HuellaTickets leer(DataInput entrada) throws IOException {
+        return new HuellaTickets(entrada.readInt(), entrada.readLong(), entrada.readInt());
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (!(otro instanceof HuellaTickets)) {
+            return false;
+        }
+        HuellaTickets huella = (HuellaTickets) otro;
+        return ticketId == huella.ticketId && creacion == huella.creacion && hashTitulo == huella.hashTitulo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(creacion) * 31 + ticketId;
+    }
+
+    @Override
+    public String toString() {
+        return "ticket " + ticketId;
+    }
+}
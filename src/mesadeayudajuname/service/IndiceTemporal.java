@@ -0,0 +1,199 @@
+package mesadeayudajuname.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Índice ordenado por instante para consultas por rango de fechas.
+ * Guarda pares (instante, ID de ticket) en dos arreglos primitivos
+ * paralelos, ordenados por instante y luego por ID, de modo que contar los
+ * tickets de un rango cuesta O(log n) y recorrerlos O(log n + k).
+ *
+ * Como los tickets se crean, inician y cierran casi siempre en orden
+ * cronológico, agregar al final es el caso habitual y cuesta O(1)
+ * amortizado; una inserción fuera de orden o una eliminación desplaza la
+ * cola del arreglo. La clase no es segura para hilos.
+ *
+ * @author juanulb
+ */
+public class IndiceTemporal {
+    private static final int CAPACIDAD_INICIAL = 64;
+
+    /**
+     * Recibe los tickets de un rango en orden cronológico.
+     */
+    public interface Visitante {
+        /**
+         * @param instante Instante en milisegundos desde la época
+         * @param id ID del ticket
+         * @return false para detener el recorrido
+         */
+        boolean visitar(long instante, int id);
+    }
+
+    private long[] instantes;
+    private int[] ids;
+    private int tamano;
+
+    /**
+     * Constructor de un índice vacío.
+     */
+    public IndiceTemporal() {
+        limpiar();
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    public final void limpiar() {
+        instantes = new long[CAPACIDAD_INICIAL];
+        ids = new int[CAPACIDAD_INICIAL];
+        tamano = 0;
+    }
+
+    /**
+     * Agrega un ticket en la posición que le corresponde.
+     *
+     * @param instante Instante en milisegundos desde la época
+     * @param id ID del ticket
+     */
+    public void agregar(long instante, int id) {
+        if (tamano == instantes.length) {
+            instantes = Arrays.copyOf(instantes, tamano * 2);
+            ids = Arrays.copyOf(ids, tamano * 2);
+        }
+
+        int posicion = tamano;
+        if (tamano > 0 && comparar(instante, id, instantes[tamano - 1], ids[tamano - 1]) < 0) {
+            posicion = buscar(instante, id);
+            System.arraycopy(instantes, posicion, instantes, posicion + 1, tamano - posicion);
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+        }
+
+        instantes[posicion] = instante;
+        ids[posicion] = id;
+        tamano++;
+    }
+
+    /**
+     * Quita un ticket del índice.
+     *
+     * @param instante Instante con el que se agregó
+     * @param id ID del ticket
+     * @return true si estaba en el índice
+     */
+    public boolean quitar(long instante, int id) {
+        int posicion = buscar(instante, id);
+        if (posicion >= tamano || instantes[posicion] != instante || ids[posicion] != id) {
+            return false;
+        }
+        System.arraycopy(instantes, posicion + 1, instantes, posicion, tamano - posicion - 1);
+        System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+        tamano--;
+        return true;
+    }
+
+    /**
+     * Cuenta los tickets con instante dentro de un rango cerrado.
+     *
+     * @param desde Inicio del rango en milisegundos
+     * @param hasta Fin del rango en milisegundos
+     * @return cantidad de tickets en el rango
+     */
+    public int contarEntre(long desde, long hasta) {
+        if (hasta < desde) {
+            return 0;
+        }
+        return posicionHasta(hasta) - posicionDesde(desde);
+    }
+
+    /**
+     * Recorre en orden cronológico los tickets de un rango cerrado.
+     *
+     * @param desde Inicio del rango en milisegundos
+     * @param hasta Fin del rango en milisegundos
+     * @param visitante Receptor de cada ticket
+     */
+    public void recorrerEntre(long desde, long hasta, Visitante visitante) {
+        if (hasta < desde) {
+            return;
+        }
+        for (int i = posicionDesde(desde); i < tamano && instantes[i] <= hasta; i++) {
+            if (!visitante.visitar(instantes[i], ids[i])) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Recorre en orden cronológico inverso los tickets de un rango cerrado.
+     *
+     * @param desde Inicio del rango en milisegundos
+     * @param hasta Fin del rango en milisegundos
+     * @param visitante Receptor de cada ticket
+     */
+    public void recorrerEntreInverso(long desde, long hasta, Visitante visitante) {
+        if (hasta < desde) {
+            return;
+        }
+        int inicio = posicionDesde(desde);
+        for (int i = posicionHasta(hasta) - 1; i >= inicio; i--) {
+            if (!visitante.visitar(instantes[i], ids[i])) {
+                return;
+            }
+        }
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Devuelve la primera posición con instante mayor o igual al indicado.
+     */
+    private int posicionDesde(long instante) {
+        return buscar(instante, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Devuelve la primera posición con instante mayor al indicado.
+     */
+    private int posicionHasta(long instante) {
+        return (instante == Long.MAX_VALUE) ? tamano : buscar(instante + 1, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Búsqueda binaria de la primera posición cuyo par es mayor o igual a
+     * (instante, id).
+     */
+    private int buscar(long instante, int id) {
+        int bajo = 0;
+        int alto = tamano;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (comparar(instantes[medio], ids[medio], instante, id) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static int comparar(long instante1, int id1, long instante2, int id2) {
+        int comparacion = Long.compare(instante1, instante2);
+        return comparacion != 0 ? comparacion : Integer.compare(id1, id2);
+    }
+
+    /**
+     * Convierte una fecha local en milisegundos desde la época usando la
+     * zona horaria del sistema.
+     *
+     * @param fecha Fecha a convertir
+     * @return milisegundos desde la época
+     */
+    public static long aEpoch(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,455 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.util.Tokenizador;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Índice invertido de texto completo sobre el título y la descripción de
+ * los tickets, con resultados ordenados por relevancia BM25.
+ *
+ * Cada término guarda su lista de apariciones comprimida en un arreglo de
+ * bytes: pares (diferencia de ID respecto del anterior, frecuencia) en
+ * enteros de longitud variable, de modo que una aparición típica ocupa dos
+ * bytes. Como los IDs de ticket crecen, agregar un ticket solo escribe al
+ * final de las listas de sus términos.
+ *
+ * Al buscar, los puntajes se acumulan en un arreglo reutilizado indexado
+ * por ID y los mejores resultados se eligen con un montículo acotado, sin
+ * ordenar todos los tickets que coinciden.
+ *
+ * El índice se puede guardar en un archivo binario junto a los CSV; al
+ * cargarlo solo hace falta indexar los tickets creados después del último
+ * guardado. El archivo lleva la {@link HuellaTickets} de los tickets
+ * indexados y se descarta si ya no corresponde a tickets.csv. La clase no es segura para hilos.
+ *
+ * @author juanulb
+ */
+public class IndiceTextoCompleto {
+    private static final int FIRMA = 0x4D444954; // "MDIT"
+    private static final int VERSION = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * Lista de apariciones comprimida de un término.
+     */
+    private static final class Apariciones {
+        private byte[] datos = new byte[8];
+        private int longitud;
+        private int documentos;
+        private int ultimoId;
+
+        private void agregar(int id, int frecuencia) {
+            asegurar(10);
+            longitud = escribirVarInt(datos, longitud, id - ultimoId);
+            longitud = escribirVarInt(datos, longitud, frecuencia);
+            ultimoId = id;
+            documentos++;
+        }
+
+        private void asegurar(int extra) {
+            if (longitud + extra > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, longitud + extra));
+            }
+        }
+    }
+
+    /**
+     * Ticket encontrado por una búsqueda, con su puntaje de relevancia.
+     */
+    public static final class Coincidencia {
+        private final int ticketId;
+        private final double puntaje;
+
+        private Coincidencia(int ticketId, double puntaje) {
+            this.ticketId = ticketId;
+            this.puntaje = puntaje;
+        }
+
+        public int getTicketId() {
+            return ticketId;
+        }
+
+        public double getPuntaje() {
+            return puntaje;
+        }
+    }
+
+    private final Map<String, Apariciones> terminos;
+    private int[] longitudes;
+    private BitSet indexados;
+    private int documentos;
+    private long longitudTotal;
+    private int pendientesDeGuardar;
+
+    // Acumulador de puntajes reutilizado entre búsquedas
+    private double[] puntajes;
+    private int[] tocados;
+
+    /**
+     * Constructor de un índice vacío.
+     */
+    public IndiceTextoCompleto() {
+        this.terminos = new HashMap<>();
+        this.longitudes = new int[64];
+        this.indexados = new BitSet();
+        this.puntajes = new double[0];
+        this.tocados = new int[64];
+    }
+
+    /**
+     * Indexa el título y la descripción de un ticket. Un ticket ya indexado
+     * se ignora, porque su texto no cambia después de creado.
+     *
+     * @param ticket Ticket a indexar
+     */
+    public void agregar(Ticket ticket) {
+        int id = ticket.getId();
+        if (indexados.get(id)) {
+            return;
+        }
+
+        Map<String, Integer> frecuencias = new HashMap<>();
+        int longitud = 0;
+        for (String termino : Tokenizador.tokenizar(ticket.getTitulo())) {
+            frecuencias.merge(termino, 1, Integer::sum);
+            longitud++;
+        }
+        for (String termino : Tokenizador.tokenizar(ticket.getDescripcion())) {
+            frecuencias.merge(termino, 1, Integer::sum);
+            longitud++;
+        }
+
+        for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+            Apariciones apariciones = terminos.computeIfAbsent(entrada.getKey(), k -> new Apariciones());
+            if (id > apariciones.ultimoId) {
+                apariciones.agregar(id, entrada.getValue());
+            } else {
+                insertarFueraDeOrden(apariciones, id, entrada.getValue());
+            }
+        }
+
+        if (id >= longitudes.length) {
+            longitudes = Arrays.copyOf(longitudes, Math.max(id + 1, longitudes.length * 2));
+        }
+        longitudes[id] = longitud;
+        indexados.set(id);
+        documentos++;
+        longitudTotal += longitud;
+        pendientesDeGuardar++;
+    }
+
+    /**
+     * Reescribe una lista para insertar un ID menor que el último, caso que
+     * solo ocurre al recibir tickets de una réplica en otro orden.
+     */
+    private static void insertarFueraDeOrden(Apariciones apariciones, int id, int frecuencia) {
+        int[] ids = new int[apariciones.documentos + 1];
+        int[] frecuencias = new int[apariciones.documentos + 1];
+        int n = decodificar(apariciones, ids, frecuencias);
+
+        apariciones.longitud = 0;
+        apariciones.documentos = 0;
+        apariciones.ultimoId = 0;
+        boolean insertado = false;
+        for (int i = 0; i < n; i++) {
+            if (!insertado && id < ids[i]) {
+                apariciones.agregar(id, frecuencia);
+                insertado = true;
+            }
+            apariciones.agregar(ids[i], frecuencias[i]);
+        }
+        if (!insertado) {
+            apariciones.agregar(id, frecuencia);
+        }
+    }
+
+    private static int decodificar(Apariciones apariciones, int[] ids, int[] frecuencias) {
+        int[] posicion = {0};
+        int id = 0;
+        int n = 0;
+        while (posicion[0] < apariciones.longitud) {
+            id += leerVarInt(apariciones.datos, posicion);
+            ids[n] = id;
+            frecuencias[n] = leerVarInt(apariciones.datos, posicion);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Busca los tickets más relevantes para un texto. Basta con que un
+     * ticket contenga uno de los términos para aparecer; los que contienen
+     * más términos, o términos más raros, puntúan más alto.
+     *
+     * @param consulta Texto a buscar
+     * @param limite Cantidad máxima de resultados
+     * @return coincidencias ordenadas de mayor a menor puntaje
+     */
+    public List<Coincidencia> buscar(String consulta, int limite) {
+        List<Coincidencia> resultado = new ArrayList<>();
+        if (documentos == 0 || limite <= 0) {
+            return resultado;
+        }
+
+        if (puntajes.length < longitudes.length) {
+            puntajes = new double[longitudes.length];
+        }
+        double longitudPromedio = (double) longitudTotal / documentos;
+        int cantidadTocados = 0;
+
+        for (String termino : new LinkedHashSet<>(Tokenizador.tokenizar(consulta))) {
+            Apariciones apariciones = terminos.get(termino);
+            if (apariciones == null) {
+                continue;
+            }
+
+            double idf = Math.log(1 + (documentos - apariciones.documentos + 0.5) / (apariciones.documentos + 0.5));
+            int[] posicion = {0};
+            int id = 0;
+            while (posicion[0] < apariciones.longitud) {
+                id += leerVarInt(apariciones.datos, posicion);
+                int frecuencia = leerVarInt(apariciones.datos, posicion);
+                double normalizacion = K1 * (1 - B + B * longitudes[id] / longitudPromedio);
+
+                if (puntajes[id] == 0) {
+                    if (cantidadTocados == tocados.length) {
+                        tocados = Arrays.copyOf(tocados, tocados.length * 2);
+                    }
+                    tocados[cantidadTocados++] = id;
+                }
+                puntajes[id] += idf * frecuencia * (K1 + 1) / (frecuencia + normalizacion);
+            }
+        }
+
+        // Montículo de mínimos con los mejores "limite" resultados
+        PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(Math.min(limite, Math.max(1, cantidadTocados)),
+            Comparator.comparingDouble(Coincidencia::getPuntaje).thenComparing(c -> -c.getTicketId()));
+        for (int i = 0; i < cantidadTocados; i++) {
+            int id = tocados[i];
+            double puntaje = puntajes[id];
+            puntajes[id] = 0;
+            if (mejores.size() < limite) {
+                mejores.add(new Coincidencia(id, puntaje));
+            } else if (puntaje > mejores.peek().getPuntaje()) {
+                mejores.poll();
+                mejores.add(new Coincidencia(id, puntaje));
+            }
+        }
+
+        while (!mejores.isEmpty()) {
+            resultado.add(mejores.poll());
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    /**
+     * Devuelve los tickets que contienen todos los términos indicados. Se
+     * parte de la lista del término más raro y se interseca con las demás,
+     * de modo que el costo depende de las apariciones de esos términos y no
+     * de la cantidad de tickets.
+     *
+     * @param buscados Términos ya normalizados con {@link Tokenizador}
+     * @return mapa de bits con los IDs que contienen todos los términos;
+     *         vacío si alguno no aparece en ningún ticket
+     */
+    public BitSet conTodos(Collection<String> buscados) {
+        List<Apariciones> listas = new ArrayList<>(buscados.size());
+        for (String termino : buscados) {
+            Apariciones apariciones = terminos.get(termino);
+            if (apariciones == null) {
+                return new BitSet();
+            }
+            listas.add(apariciones);
+        }
+        listas.sort(Comparator.comparingInt(a -> a.documentos));
+
+        BitSet resultado = null;
+        for (Apariciones apariciones : listas) {
+            BitSet ids = new BitSet();
+            int[] posicion = {0};
+            int id = 0;
+            while (posicion[0] < apariciones.longitud) {
+                id += leerVarInt(apariciones.datos, posicion);
+                leerVarInt(apariciones.datos, posicion);
+                ids.set(id);
+            }
+            if (resultado == null) {
+                resultado = ids;
+            } else {
+                resultado.and(ids);
+            }
+            if (resultado.isEmpty()) {
+                break;
+            }
+        }
+        return (resultado != null) ? resultado : new BitSet();
+    }
+
+    /**
+     * Indica si un ticket ya está indexado.
+     *
+     * @param ticketId ID del ticket
+     * @return true si está indexado
+     */
+    public boolean contiene(int ticketId) {
+        return indexados.get(ticketId);
+    }
+
+    public int getDocumentos() {
+        return documentos;
+    }
+
+    public int getTerminos() {
+        return terminos.size();
+    }
+
+    /**
+     * Devuelve cuántos tickets se indexaron desde el último guardado.
+     *
+     * @return tickets sin guardar
+     */
+    public int getPendientesDeGuardar() {
+        return pendientesDeGuardar;
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    public void limpiar() {
+        terminos.clear();
+        longitudes = new int[64];
+        indexados = new BitSet();
+        documentos = 0;
+        longitudTotal = 0;
+        pendientesDeGuardar = 0;
+    }
+
+    // Persistencia
+
+    /**
+     * Guarda el índice en un archivo binario. Se escribe primero en un
+     * archivo temporal y luego se reemplaza el anterior, para no dejar un
+     * índice a medio escribir.
+     *
+     * @param archivo Archivo de destino
+     * @param huella Huella de los tickets indexados
+     * @throws IOException si hay error en la escritura
+     */
+    public void guardar(File archivo, HuellaTickets huella) throws IOException {
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(temporal), 1 << 16))) {
+            salida.writeInt(FIRMA);
+            salida.writeInt(VERSION);
+            huella.escribir(salida);
+            salida.writeInt(documentos);
+            salida.writeLong(longitudTotal);
+
+            for (int id = indexados.nextSetBit(0); id >= 0; id = indexados.nextSetBit(id + 1)) {
+                salida.writeInt(id);
+                salida.writeInt(longitudes[id]);
+            }
+
+            salida.writeInt(terminos.size());
+            for (Map.Entry<String, Apariciones> entrada : terminos.entrySet()) {
+                Apariciones apariciones = entrada.getValue();
+                salida.writeUTF(entrada.getKey());
+                salida.writeInt(apariciones.documentos);
+                salida.writeInt(apariciones.ultimoId);
+                salida.writeInt(apariciones.longitud);
+                salida.write(apariciones.datos, 0, apariciones.longitud);
+            }
+        }
+
+        if (!temporal.renameTo(archivo)) {
+            archivo.delete();
+            if (!temporal.renameTo(archivo)) {
+                throw new IOException("No se pudo reemplazar " + archivo);
+            }
+        }
+        pendientesDeGuardar = 0;
+    }
+
+    /**
+     * Reemplaza el contenido del índice por el de un archivo.
+     *
+     * @param archivo Archivo generado con {@link #guardar(File, HuellaTickets)}
+     * @param tickets Tickets cargados del CSV, para comprobar que el
+     *                archivo corresponde a ellos
+     * @return true si se cargó; false si el archivo no existe
+     * @throws IOException si el archivo está dañado, es de otra versión o
+     *                     se guardó con otros tickets
+     */
+    public boolean cargar(File archivo, Map<Integer, Ticket> tickets) throws IOException {
+        if (!archivo.exists()) {
+            return false;
+        }
+
+        limpiar();
+        try (DataInputStream entrada = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(archivo), 1 << 16))) {
+            if (entrada.readInt() != FIRMA || entrada.readInt() != VERSION) {
+                throw new IOException("Formato de índice de texto no reconocido");
+            }
+            HuellaTickets huella = HuellaTickets.leer(entrada);
+            if (!huella.vigente(tickets)) {
+                throw new IOException("El índice de texto se guardó con otros tickets (" + huella + ")");
+            }
+            documentos = entrada.readInt();
+            longitudTotal = entrada.readLong();
+
+            for (int i = 0; i < documentos; i++) {
+                int id = entrada.readInt();
+                if (id >= longitudes.length) {
+                    longitudes = Arrays.copyOf(longitudes, Math.max(id + 1, longitudes.length * 2));
+                }
+                longitudes[id] = entrada.readInt();
+                indexados.set(id);
+            }
+
+            int cantidadTerminos = entrada.readInt();
+            for (int i = 0; i < cantidadTerminos; i++) {
+                String termino = entrada.readUTF();
+                Apariciones apariciones = new Apariciones();
+                apariciones.documentos = entrada.readInt();
+                apariciones.ultimoId = entrada.readInt();
+                apariciones.longitud = entrada.readInt();
+                apariciones.datos = new byte[Math.max(8, apariciones.longitud)];
+                entrada.readFully(apariciones.datos, 0, apariciones.longitud);
+                terminos.put(termino, apariciones);
+            }
+        } catch (IOException | RuntimeException e) {
+            limpiar();
+            throw (e instanceof IOException) ? (IOException) e : new IOException("Índice de texto dañado", e);
+        }
+        pendientesDeGuardar = 0;
+        return true;
+    }
+
+    // Enteros de longitud variable: 7 bits por byte, el bit alto indica continuación
+
+    private static int escribirVarInt(byte[] destino, int posicion, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            destino[posicion++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        destino[posicion++] = (byte) valor;
+        return posicion;
+    }
+
+    private static int leerVarInt(byte[] origen, int[] posicion) {
+        int valor = 0;
+        int desplazamiento = 0;
+        byte b;
+        do {
+            b = origen[posicion[0]++];
+            valor |= (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return valor;
+    }
+}
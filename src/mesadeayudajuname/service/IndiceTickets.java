@@ -0,0 +1,603 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Índices de mapa de bits sobre los atributos discretos de los tickets
+ * (categoría, estado, prioridad y técnico), índices temporales sobre sus
+ * fechas de creación, inicio y cierre, y planificador de consultas.
+ * Cada valor de un atributo tiene un {@link BitSet} con un bit por ID de
+ * ticket y un contador de bits activos, y cada rango de fechas se cuenta
+ * con dos búsquedas binarias en un {@link IndiceTemporal}, de modo que el
+ * planificador conoce la selectividad de cada índice sin recorrerlo.
+ *
+ * Para resolver una {@link ConsultaTickets} se ordenan los índices
+ * aplicables de menor a mayor cantidad y se parte del más selectivo. Las
+ * palabras buscadas se resuelven con las listas de apariciones del
+ * {@link IndiceTextoCompleto} como un mapa de bits más. Los demás mapas de
+ * bits se intersecan palabra a palabra; los rangos de fechas que no fueron
+ * el punto de partida se evalúan solo sobre los candidatos resultantes.
+ * Únicamente si la consulta no tiene ningún criterio indexado se recorren
+ * todos los tickets.
+ *
+ * El índice recuerda los valores con que indexó cada ticket, por lo que
+ * basta con llamar a {@link #actualizar(Ticket)} después de cada cambio.
+ * La clase no es segura para hilos.
+ *
+ * @author juanulb
+ */
+public class IndiceTickets {
+
+    /**
+     * Lista de tickets con un mismo valor de un atributo.
+     */
+    private static final class ListaBits {
+        private final BitSet bits = new BitSet();
+        private int cantidad;
+
+        private void agregar(int id) {
+            if (!bits.get(id)) {
+                bits.set(id);
+                cantidad++;
+            }
+        }
+
+        private void quitar(int id) {
+            if (bits.get(id)) {
+                bits.clear(id);
+                cantidad--;
+            }
+        }
+    }
+
+    /**
+     * Índice elegido por el planificador para un criterio: un mapa de bits
+     * o un rango de un índice temporal.
+     */
+    private static final class Paso {
+        private final String descripcion;
+        private final ListaBits lista;
+        private final IndiceTemporal temporal;
+        private final long desde;
+        private final long hasta;
+        private final int cantidad;
+
+        private Paso(String descripcion, ListaBits lista) {
+            this.descripcion = descripcion;
+            this.lista = lista;
+            this.temporal = null;
+            this.desde = 0;
+            this.hasta = 0;
+            this.cantidad = lista.cantidad;
+        }
+
+        private Paso(String descripcion, IndiceTemporal temporal, long desde, long hasta) {
+            this.descripcion = descripcion;
+            this.lista = null;
+            this.temporal = temporal;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.cantidad = temporal.contarEntre(desde, hasta);
+        }
+
+        private int cantidad() {
+            return cantidad;
+        }
+
+        /**
+         * Devuelve los IDs del paso como un mapa de bits nuevo.
+         */
+        private BitSet materializar() {
+            if (lista != null) {
+                return (BitSet) lista.bits.clone();
+            }
+            BitSet bits = new BitSet();
+            temporal.recorrerEntre(desde, hasta, (instante, id) -> {
+                bits.set(id);
+                return true;
+            });
+            return bits;
+        }
+    }
+
+    private static final ListaBits VACIA = new ListaBits();
+    private static final int SIN_TECNICO = 0;
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+
+    private final IndiceTextoCompleto indiceTexto;
+    private final Map<String, ListaBits> porCategoria;
+    private final ListaBits[] porEstado;
+    private final ListaBits[] porPrioridad;
+    private final Map<Integer, ListaBits> porTecnico;
+    private final ListaBits todos;
+    private final IndiceTemporal porCreacion;
+    private final IndiceTemporal porInicio;
+    private final IndiceTemporal porCierre;
+
+    // Valores con los que se indexó cada ticket, por ID
+    private String[] categoriaIndexada;
+    private Estado[] estadoIndexado;
+    private Prioridad[] prioridadIndexada;
+    private int[] tecnicoIndexado;
+    private long[] creacionIndexada;
+    private long[] inicioIndexado;
+    private long[] cierreIndexado;
+
+    /**
+     * Constructor de un índice vacío.
+     *
+     * @param indiceTexto Índice de texto completo de los mismos tickets,
+     *                    usado para los criterios de texto
+     */
+    public IndiceTickets(IndiceTextoCompleto indiceTexto) {
+        this.indiceTexto = indiceTexto;
+        this.porCategoria = new HashMap<>();
+        this.porEstado = new ListaBits[Estado.values().length];
+        this.porPrioridad = new ListaBits[Prioridad.values().length];
+        this.porTecnico = new HashMap<>();
+        this.todos = new ListaBits();
+        this.porCreacion = new IndiceTemporal();
+        this.porInicio = new IndiceTemporal();
+        this.porCierre = new IndiceTemporal();
+        limpiar();
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    public final void limpiar() {
+        porCategoria.clear();
+        porTecnico.clear();
+        for (int i = 0; i < porEstado.length; i++) {
+            porEstado[i] = new ListaBits();
+        }
+        for (int i = 0; i < porPrioridad.length; i++) {
+            porPrioridad[i] = new ListaBits();
+        }
+        todos.bits.clear();
+        todos.cantidad = 0;
+        categoriaIndexada = new String[64];
+        estadoIndexado = new Estado[64];
+        prioridadIndexada = new Prioridad[64];
+        tecnicoIndexado = new int[64];
+        creacionIndexada = new long[64];
+        inicioIndexado = new long[64];
+        cierreIndexado = new long[64];
+        porCreacion.limpiar();
+        porInicio.limpiar();
+        porCierre.limpiar();
+    }
+
+    /**
+     * Indexa un ticket nuevo o actualiza los índices de un ticket que cambió.
+     *
+     * @param ticket Ticket a indexar
+     */
+    public void actualizar(Ticket ticket) {
+        int id = ticket.getId();
+        asegurarCapacidad(id);
+
+        String categoria = clave(ticket.getCategoria());
+        Estado estado = ticket.getEstado();
+        Prioridad prioridad = ticket.getPrioridad();
+        int tecnico = (ticket.getTecnicoAsignado() != null) ? ticket.getTecnicoAsignado().getId() : SIN_TECNICO;
+
+        boolean nuevo = !todos.bits.get(id);
+        if (nuevo) {
+            todos.agregar(id);
+        }
+
+        if (nuevo || !categoria.equals(categoriaIndexada[id])) {
+            if (!nuevo) {
+                quitarDe(porCategoria, categoriaIndexada[id], id);
+            }
+            porCategoria.computeIfAbsent(categoria, k -> new ListaBits()).agregar(id);
+            categoriaIndexada[id] = categoria;
+        }
+        if (nuevo || estado != estadoIndexado[id]) {
+            if (!nuevo) {
+                porEstado[estadoIndexado[id].ordinal()].quitar(id);
+            }
+            porEstado[estado.ordinal()].agregar(id);
+            estadoIndexado[id] = estado;
+        }
+        if (nuevo || prioridad != prioridadIndexada[id]) {
+            if (!nuevo) {
+                porPrioridad[prioridadIndexada[id].ordinal()].quitar(id);
+            }
+            porPrioridad[prioridad.ordinal()].agregar(id);
+            prioridadIndexada[id] = prioridad;
+        }
+        if (nuevo || tecnico != tecnicoIndexado[id]) {
+            if (!nuevo) {
+                quitarDe(porTecnico, tecnicoIndexado[id], id);
+            }
+            if (tecnico != SIN_TECNICO) {
+                porTecnico.computeIfAbsent(tecnico, k -> new ListaBits()).agregar(id);
+            }
+            tecnicoIndexado[id] = tecnico;
+        }
+
+        creacionIndexada[id] = actualizarFecha(porCreacion, nuevo ? SIN_FECHA : creacionIndexada[id],
+                                               ticket.getFechaCreacion(), id);
+        inicioIndexado[id] = actualizarFecha(porInicio, nuevo ? SIN_FECHA : inicioIndexado[id],
+                                             ticket.getFechaInicio(), id);
+        cierreIndexado[id] = actualizarFecha(porCierre, nuevo ? SIN_FECHA : cierreIndexado[id],
+                                             ticket.getFechaCierre(), id);
+    }
+
+    /**
+     * Mueve un ticket dentro de un índice temporal si su fecha cambió.
+     *
+     * @return instante con el que quedó indexado, o SIN_FECHA
+     */
+    private static long actualizarFecha(IndiceTemporal indice, long anterior, LocalDateTime fecha, int id) {
+        long actual = (fecha != null) ? IndiceTemporal.aEpoch(fecha) : SIN_FECHA;
+        if (actual != anterior) {
+            if (anterior != SIN_FECHA) {
+                indice.quitar(anterior, id);
+            }
+            if (actual != SIN_FECHA) {
+                indice.agregar(actual, id);
+            }
+        }
+        return actual;
+    }
+
+    private static <K> void quitarDe(Map<K, ListaBits> indice, K clave, int id) {
+        ListaBits lista = indice.get(clave);
+        if (lista != null) {
+            lista.quitar(id);
+            if (lista.cantidad == 0) {
+                indice.remove(clave);
+            }
+        }
+    }
+
+    private void asegurarCapacidad(int id) {
+        if (id < categoriaIndexada.length) {
+            return;
+        }
+        int capacidad = Math.max(id + 1, categoriaIndexada.length * 2);
+        categoriaIndexada = Arrays.copyOf(categoriaIndexada, capacidad);
+        estadoIndexado = Arrays.copyOf(estadoIndexado, capacidad);
+        prioridadIndexada = Arrays.copyOf(prioridadIndexada, capacidad);
+        tecnicoIndexado = Arrays.copyOf(tecnicoIndexado, capacidad);
+        creacionIndexada = Arrays.copyOf(creacionIndexada, capacidad);
+        inicioIndexado = Arrays.copyOf(inicioIndexado, capacidad);
+        cierreIndexado = Arrays.copyOf(cierreIndexado, capacidad);
+    }
+
+    private static String clave(String categoria) {
+        return categoria.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Planificación y ejecución
+
+    /**
+     * Ejecuta una consulta.
+     *
+     * @param consulta Criterios de búsqueda
+     * @param tickets Mapa ID -> ticket con los tickets indexados
+     * @return tickets que cumplen la consulta, ordenados por ID
+     */
+    public List<Ticket> consultar(ConsultaTickets consulta, Map<Integer, Ticket> tickets) {
+        List<Paso> pasos = planificar(consulta);
+        List<Ticket> resultado = new ArrayList<>();
+
+        BitSet candidatos;
+        if (pasos.isEmpty()) {
+            candidatos = todos.bits;
+        } else {
+            if (pasos.get(0).cantidad() == 0) {
+                return resultado;
+            }
+            candidatos = pasos.get(0).materializar();
+            for (int i = 1; i < pasos.size() && !candidatos.isEmpty(); i++) {
+                // Los rangos de fechas que no son el punto de partida se
+                // comprueban por candidato, sin materializarlos
+                if (pasos.get(i).lista != null) {
+                    candidatos.and(pasos.get(i).lista.bits);
+                }
+            }
+        }
+
+        boolean residual = consulta.tieneRangoCreacion() || consulta.tieneRangoInicio()
+            || consulta.tieneRangoCierre() || (consulta.getTexto() != null && !consulta.tieneTerminos());
+        for (int id = candidatos.nextSetBit(0); id >= 0; id = candidatos.nextSetBit(id + 1)) {
+            Ticket ticket = tickets.get(id);
+            if (ticket != null && (!residual || coincideResidual(ticket, consulta))) {
+                resultado.add(ticket);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Devuelve los tickets que cumplen una consulta con la fecha más antigua
+     * en el campo indicado, por ejemplo los 20 ALTA creados hace más tiempo
+     * o los 10 EN_CURSO iniciados hace más tiempo. Los tickets sin esa
+     * fecha se omiten.
+     *
+     * Según la selectividad estimada se elige la estrategia más barata: si
+     * la consulta es amplia se recorre el índice temporal desde el principio
+     * y se corta al reunir el límite; si es selectiva se recorren sus
+     * candidatos conservando los mejores en un montículo acotado. En ambos
+     * casos la memoria extra es proporcional al límite y no se consulta el
+     * reloj ni se crean fechas por ticket.
+     *
+     * @param consulta Criterios de búsqueda
+     * @param campo Fecha por la que se ordena
+     * @param limite Cantidad máxima de resultados
+     * @param tickets Mapa ID -> ticket con los tickets indexados
+     * @return tickets del más antiguo al más reciente
+     */
+    public List<Ticket> masAntiguos(ConsultaTickets consulta, CampoFecha campo, int limite,
+                                    Map<Integer, Ticket> tickets) {
+        List<Ticket> resultado = new ArrayList<>();
+        if (limite <= 0) {
+            return resultado;
+        }
+
+        List<Paso> pasos = planificar(consulta);
+        IndiceTemporal indice = indiceTemporal(campo);
+        long[] fechas = fechasIndexadas(campo);
+        int estimados = pasos.isEmpty() ? todos.cantidad : pasos.get(0).cantidad();
+        if (estimados == 0 || indice.getTamano() == 0) {
+            return resultado;
+        }
+
+        // Recorrer el índice examina del orden de limite * total / estimados
+        // tickets; recorrer los candidatos, estimados * log(limite)
+        long costoRecorrido = (long) limite * indice.getTamano() / estimados;
+        long costoMonticulo = (long) estimados * (32 - Integer.numberOfLeadingZeros(limite));
+
+        if (pasos.isEmpty() || costoRecorrido <= costoMonticulo) {
+            indice.recorrerEntre(Long.MIN_VALUE, Long.MAX_VALUE, (instante, id) -> {
+                Ticket ticket = tickets.get(id);
+                if (ticket != null && cumple(id, ticket, pasos, 0, consulta)) {
+                    resultado.add(ticket);
+                }
+                return resultado.size() < limite;
+            });
+            return resultado;
+        }
+
+        Monticulo mejores = new Monticulo(limite);
+        Paso origen = pasos.get(0);
+        if (origen.lista != null) {
+            BitSet bits = origen.lista.bits;
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                if (fechas[id] != SIN_FECHA && mejores.admite(fechas[id], id)) {
+                    Ticket ticket = tickets.get(id);
+                    if (ticket != null && cumple(id, ticket, pasos, 1, consulta)) {
+                        mejores.agregar(fechas[id], id);
+                    }
+                }
+            }
+        } else {
+            origen.temporal.recorrerEntre(origen.desde, origen.hasta, (instante, id) -> {
+                if (fechas[id] != SIN_FECHA && mejores.admite(fechas[id], id)) {
+                    Ticket ticket = tickets.get(id);
+                    if (ticket != null && cumple(id, ticket, pasos, 1, consulta)) {
+                        mejores.agregar(fechas[id], id);
+                    }
+                }
+                return true;
+            });
+        }
+
+        for (int id : mejores.extraerOrdenados()) {
+            resultado.add(tickets.get(id));
+        }
+        return resultado;
+    }
+
+    /**
+     * Comprueba sobre un ticket los pasos desde el indicado y los filtros
+     * residuales.
+     */
+    private static boolean cumple(int id, Ticket ticket, List<Paso> pasos, int desde, ConsultaTickets consulta) {
+        for (int i = desde; i < pasos.size(); i++) {
+            ListaBits lista = pasos.get(i).lista;
+            if (lista != null && !lista.bits.get(id)) {
+                return false;
+            }
+        }
+        return coincideResidual(ticket, consulta);
+    }
+
+    /**
+     * Evalúa los criterios sin mapa de bits: las fechas exactas y el texto
+     * que no tiene términos indexables.
+     */
+    private static boolean coincideResidual(Ticket ticket, ConsultaTickets consulta) {
+        return consulta.coincideFechas(ticket) && (consulta.tieneTerminos() || consulta.coincideTexto(ticket));
+    }
+
+    private IndiceTemporal indiceTemporal(CampoFecha campo) {
+        switch (campo) {
+            case INICIO:
+                return porInicio;
+            case CIERRE:
+                return porCierre;
+            default:
+                return porCreacion;
+        }
+    }
+
+    private long[] fechasIndexadas(CampoFecha campo) {
+        switch (campo) {
+            case INICIO:
+                return inicioIndexado;
+            case CIERRE:
+                return cierreIndexado;
+            default:
+                return creacionIndexada;
+        }
+    }
+
+    /**
+     * Montículo de máximos de capacidad fija sobre pares (instante, ID) que
+     * conserva los menores, con arreglos primitivos para no crear objetos
+     * por candidato.
+     */
+    private static final class Monticulo {
+        private final long[] instantes;
+        private final int[] ids;
+        private int tamano;
+
+        private Monticulo(int capacidad) {
+            this.instantes = new long[capacidad];
+            this.ids = new int[capacidad];
+        }
+
+        /**
+         * Indica si un par entraría en el montículo, antes de evaluar el
+         * resto de los criterios sobre el ticket.
+         */
+        private boolean admite(long instante, int id) {
+            return tamano < ids.length || mayor(instantes[0], ids[0], instante, id);
+        }
+
+        private void agregar(long instante, int id) {
+            if (tamano < ids.length) {
+                int i = tamano++;
+                while (i > 0) {
+                    int padre = (i - 1) >>> 1;
+                    if (!mayor(instante, id, instantes[padre], ids[padre])) {
+                        break;
+                    }
+                    instantes[i] = instantes[padre];
+                    ids[i] = ids[padre];
+                    i = padre;
+                }
+                instantes[i] = instante;
+                ids[i] = id;
+            } else {
+                hundir(0, instante, id);
+            }
+        }
+
+        private void hundir(int i, long instante, int id) {
+            while (true) {
+                int hijo = 2 * i + 1;
+                if (hijo >= tamano) {
+                    break;
+                }
+                if (hijo + 1 < tamano && mayor(instantes[hijo + 1], ids[hijo + 1], instantes[hijo], ids[hijo])) {
+                    hijo++;
+                }
+                if (!mayor(instantes[hijo], ids[hijo], instante, id)) {
+                    break;
+                }
+                instantes[i] = instantes[hijo];
+                ids[i] = ids[hijo];
+                i = hijo;
+            }
+            instantes[i] = instante;
+            ids[i] = id;
+        }
+
+        /**
+         * Vacía el montículo y devuelve los IDs de menor a mayor instante.
+         */
+        private int[] extraerOrdenados() {
+            int[] ordenados = new int[tamano];
+            while (tamano > 0) {
+                ordenados[tamano - 1] = ids[0];
+                tamano--;
+                if (tamano > 0) {
+                    hundir(0, instantes[tamano], ids[tamano]);
+                }
+            }
+            return ordenados;
+        }
+
+        private static boolean mayor(long instante1, int id1, long instante2, int id2) {
+            return instante1 > instante2 || (instante1 == instante2 && id1 > id2);
+        }
+    }
+
+    /**
+     * Describe el plan que se usaría para una consulta, por ejemplo
+     * {@code "prioridad=ALTA (3) ∩ estado=ABIERTO (10) + filtro texto"}.
+     *
+     * @param consulta Criterios de búsqueda
+     * @return descripción legible del plan
+     */
+    public String explicar(ConsultaTickets consulta) {
+        List<Paso> pasos = planificar(consulta);
+        StringBuilder plan = new StringBuilder();
+
+        if (pasos.isEmpty()) {
+            plan.append("recorrido completo (").append(todos.cantidad).append(')');
+        }
+        for (int i = 0; i < pasos.size(); i++) {
+            Paso paso = pasos.get(i);
+            if (i == 0) {
+                plan.append(paso.descripcion);
+            } else if (paso.lista != null) {
+                plan.append(" ∩ ").append(paso.descripcion);
+            } else {
+                plan.append(" + filtro ").append(paso.descripcion);
+            }
+            plan.append(" (").append(paso.cantidad()).append(')');
+        }
+        if (consulta.getTexto() != null && !consulta.tieneTerminos()) {
+            plan.append(" + filtro texto");
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Elige los índices aplicables a la consulta, del más selectivo al menos.
+     */
+    private List<Paso> planificar(ConsultaTickets consulta) {
+        List<Paso> pasos = new ArrayList<>(4);
+        if (consulta.getCategoria() != null) {
+            pasos.add(new Paso("categoria=" + consulta.getCategoria(),
+                               porCategoria.getOrDefault(clave(consulta.getCategoria()), VACIA)));
+        }
+        if (consulta.getEstado() != null) {
+            pasos.add(new Paso("estado=" + consulta.getEstado(), porEstado[consulta.getEstado().ordinal()]));
+        }
+        if (consulta.getPrioridad() != null) {
+            pasos.add(new Paso("prioridad=" + consulta.getPrioridad(), porPrioridad[consulta.getPrioridad().ordinal()]));
+        }
+        if (consulta.getTecnicoId() != null) {
+            pasos.add(new Paso("tecnico=" + consulta.getTecnicoId(),
+                               porTecnico.getOrDefault(consulta.getTecnicoId(), VACIA)));
+        }
+        if (consulta.tieneTerminos()) {
+            ListaBits conTexto = new ListaBits();
+            conTexto.bits.or(indiceTexto.conTodos(consulta.getTerminos()));
+            conTexto.cantidad = conTexto.bits.cardinality();
+            pasos.add(new Paso("texto=" + String.join(" ", consulta.getTerminos()), conTexto));
+        }
+        if (consulta.tieneRangoCreacion()) {
+            pasos.add(rango("creación", porCreacion, consulta.getCreadoDesde(), consulta.getCreadoHasta()));
+        }
+        if (consulta.tieneRangoInicio()) {
+            pasos.add(rango("inicio", porInicio, consulta.getIniciadoDesde(), consulta.getIniciadoHasta()));
+        }
+        if (consulta.tieneRangoCierre()) {
+            pasos.add(rango("cierre", porCierre, consulta.getCerradoDesde(), consulta.getCerradoHasta()));
+        }
+        pasos.sort(Comparator.comparingInt(Paso::cantidad));
+        return pasos;
+    }
+
+    /**
+     * Crea el paso de un rango de fechas. El rango se amplía al milisegundo
+     * y la comparación exacta se hace después sobre cada candidato.
+     */
+    private static Paso rango(String nombre, IndiceTemporal indice, LocalDateTime desde, LocalDateTime hasta) {
+        long inicio = (desde != null) ? IndiceTemporal.aEpoch(desde) : Long.MIN_VALUE;
+        long fin = (hasta != null) ? IndiceTemporal.aEpoch(hasta) : Long.MAX_VALUE;
+        return new Paso(nombre + "=[" + (desde != null ? desde : "") + ", " + (hasta != null ? hasta : "") + "]",
+                        indice, inicio, fin);
+    }
+}
@@ -0,0 +1,316 @@
+package mesadeayudajuname.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro de mutaciones (journal) del tablero.
+ * Cada mutación se guarda como una línea de texto con el formato
+ * {@code secuencia;milisegundos;TIPO;contenido}, donde TIPO es un
+ * {@link TipoEvento} y el contenido es la línea CSV del ticket o técnico tal
+ * como quedó después del cambio. Aplicar las líneas en orden reconstruye el
+ * estado del tablero, lo que permite replicarlo en otro proceso.
+ *
+ * Los saltos de línea y las barras invertidas del contenido se escapan para
+ * que cada registro ocupe exactamente una línea.
+ *
+ * En memoria solo se conservan los registros que algún lector todavía puede
+ * pedir. Cada lector (un seguidor de replicación, la copia en disco) se
+ * registra con {@link #registrarLector} e informa con
+ * {@link #avanzarLector} hasta dónde leyó; lo anterior al lector más
+ * atrasado se descarta. Sin lectores no se conserva nada, porque un lector
+ * nuevo empieza siempre desde una instantánea. Un lector descartable que se
+ * atrasa más de {@value #MAXIMO_ATRASO} registros se da de baja y su próxima
+ * lectura falla, para que un seguidor bloqueado no retenga memoria sin
+ * límite.
+ *
+ * @author juanulb
+ */
+public class Journal {
+    private static final String SEPARADOR = ";";
+    private static final int MAXIMO_ATRASO = 1_000_000;
+    private static final int MINIMO_RECORTE = 1024;
+
+    private final List<String> registros;
+    private final Map<Integer, Long> lectores;
+    private final Map<Integer, Boolean> descartables;
+    private final ReentrantLock candado;
+    private final Condition hayRegistros;
+    private long descartados;
+    private int siguienteLector;
+
+    /**
+     * Constructor de un journal vacío.
+     */
+    public Journal() {
+        this.registros = new ArrayList<>();
+        this.lectores = new HashMap<>();
+        this.descartables = new HashMap<>();
+        this.candado = new ReentrantLock();
+        this.hayRegistros = candado.newCondition();
+        this.descartados = 0;
+        this.siguienteLector = 1;
+    }
+
+    /**
+     * Agrega una mutación al final del journal.
+     *
+     * @param tipo Tipo de mutación
+     * @param contenido Línea CSV del ticket o técnico resultante
+     * @return número de secuencia asignado (el primero es 1)
+     */
+    public long agregar(TipoEvento tipo, String contenido) {
+        candado.lock();
+        try {
+            long secuencia = descartados + registros.size() + 1L;
+            registros.add(formatear(secuencia, System.currentTimeMillis(), tipo, contenido));
+            hayRegistros.signalAll();
+            recortar();
+            return secuencia;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Devuelve la secuencia del último registro.
+     *
+     * @return última secuencia, o 0 si el journal está vacío
+     */
+    public long getUltimaSecuencia() {
+        candado.lock();
+        try {
+            return descartados + registros.size();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Registra un lector que leerá los registros posteriores a una
+     * secuencia; esos registros se conservan hasta que el lector avance o se
+     * quite.
+     *
+     * @param desde Última secuencia que el lector ya tiene; debe ser como
+     *              mínimo la última secuencia actual para no depender de
+     *              registros ya descartados
+     * @param descartable true si el lector puede darse de baja cuando se
+     *                    atrasa demasiado, porque sabe recuperarse con una
+     *                    instantánea
+     * @return identificador del lector
+     * @throws IllegalStateException si los registros posteriores a
+     *                               {@code desde} ya no están
+     */
+    public int registrarLector(long desde, boolean descartable) {
+        candado.lock();
+        try {
+            if (desde < descartados) {
+                throw new IllegalStateException("Los registros posteriores a " + desde + " ya se descartaron");
+            }
+            int lector = siguienteLector++;
+            lectores.put(lector, desde);
+            descartables.put(lector, descartable);
+            return lector;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Informa que un lector ya procesó los registros hasta una secuencia.
+     *
+     * @param lector Identificador del lector
+     * @param secuencia Última secuencia procesada
+     * @throws IllegalStateException si el lector se dio de baja por atraso
+     */
+    public void avanzarLector(int lector, long secuencia) {
+        candado.lock();
+        try {
+            Long actual = lectores.get(lector);
+            if (actual == null) {
+                throw new IllegalStateException("El lector " + lector + " se dio de baja por atraso");
+            }
+            if (secuencia > actual) {
+                lectores.put(lector, secuencia);
+                recortar();
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Quita un lector; los registros que solo él necesitaba se descartan.
+     *
+     * @param lector Identificador del lector
+     */
+    public void quitarLector(int lector) {
+        candado.lock();
+        try {
+            lectores.remove(lector);
+            descartables.remove(lector);
+            recortar();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Descarta los registros que ningún lector puede pedir. Se recorta de a
+     * bloques para que quitar el principio de la lista no cueste en cada
+     * registro.
+     */
+    private void recortar() {
+        long ultima = descartados + registros.size();
+        long minimo = ultima;
+        for (Map.Entry<Integer, Long> lector : new ArrayList<>(lectores.entrySet())) {
+            if (ultima - lector.getValue() > MAXIMO_ATRASO && descartables.get(lector.getKey())) {
+                lectores.remove(lector.getKey());
+                descartables.remove(lector.getKey());
+                System.err.println("Journal: lector " + lector.getKey() + " dado de baja por atraso");
+            } else {
+                minimo = Math.min(minimo, lector.getValue());
+            }
+        }
+
+        int sobrantes = (int) (minimo - descartados);
+        if (sobrantes >= MINIMO_RECORTE && sobrantes >= registros.size() / 2) {
+            registros.subList(0, sobrantes).clear();
+            descartados = minimo;
+        }
+    }
+
+    /**
+     * Lee los registros posteriores a una secuencia, esperando a que haya
+     * alguno si todavía no existen.
+     *
+     * @param desde Secuencia a partir de la cual leer (exclusiva)
+     * @param maximo Cantidad máxima de registros a devolver
+     * @param esperaMs Tiempo máximo de espera en milisegundos
+     * @return registros leídos, vacío si se agotó la espera
+     * @throws InterruptedException si se interrumpe la espera
+     * @throws IllegalStateException si los registros pedidos ya se
+     *                               descartaron
+     */
+    public List<String> leerDesde(long desde, int maximo, long esperaMs) throws InterruptedException {
+        candado.lock();
+        try {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+            while (descartados + registros.size() <= desde) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    return new ArrayList<>();
+                }
+                hayRegistros.awaitNanos(restante);
+            }
+            if (desde < descartados) {
+                throw new IllegalStateException("Los registros posteriores a " + desde + " ya se descartaron");
+            }
+
+            int inicio = (int) (desde - descartados);
+            int fin = (int) Math.min(registros.size(), desde - descartados + maximo);
+            return new ArrayList<>(registros.subList(inicio, fin));
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    // Lectura y escritura de registros
+
+    /**
+     * Construye la línea de un registro.
+     *
+     * @param secuencia Número de secuencia
+     * @param marcaTiempo Instante en milisegundos desde la época
+     * @param tipo Tipo de mutación
+     * @param contenido Línea CSV del ticket o técnico
+     * @return línea del journal
+     */
+    public static String formatear(long secuencia, long marcaTiempo, TipoEvento tipo, String contenido) {
+        return secuencia + SEPARADOR + marcaTiempo + SEPARADOR + tipo.name() + SEPARADOR + escapar(contenido);
+    }
+
+    /**
+     * Obtiene la secuencia de un registro.
+     *
+     * @param registro Línea del journal
+     * @return número de secuencia
+     */
+    public static long secuencia(String registro) {
+        return Long.parseLong(campo(registro, 0));
+    }
+
+    /**
+     * Obtiene el instante de un registro.
+     *
+     * @param registro Línea del journal
+     * @return milisegundos desde la época
+     */
+    public static long marcaTiempo(String registro) {
+        return Long.parseLong(campo(registro, 1));
+    }
+
+    /**
+     * Obtiene el tipo de mutación de un registro.
+     *
+     * @param registro Línea del journal
+     * @return tipo de mutación
+     */
+    public static TipoEvento tipo(String registro) {
+        return TipoEvento.valueOf(campo(registro, 2));
+    }
+
+    /**
+     * Obtiene la línea CSV contenida en un registro, ya desescapada.
+     *
+     * @param registro Línea del journal
+     * @return línea CSV del ticket o técnico
+     */
+    public static String contenido(String registro) {
+        int posicion = -1;
+        for (int i = 0; i < 3; i++) {
+            posicion = registro.indexOf(SEPARADOR, posicion + 1);
+            if (posicion < 0) {
+                throw new IllegalArgumentException("Registro de journal incompleto: " + registro);
+            }
+        }
+        return desescapar(registro.substring(posicion + 1));
+    }
+
+    private static String campo(String registro, int indice) {
+        String[] partes = registro.split(SEPARADOR, 4);
+        if (partes.length < 4) {
+            throw new IllegalArgumentException("Registro de journal incompleto: " + registro);
+        }
+        return partes[indice];
+    }
+
+    private static String escapar(String texto) {
+        if (texto.indexOf('\\') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return texto.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String desescapar(String texto) {
+        if (texto.indexOf('\\') < 0) {
+            return texto;
+        }
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '\\' && i + 1 < texto.length()) {
+                char siguiente = texto.charAt(++i);
+                sb.append(siguiente == 'n' ? '\n' : siguiente == 'r' ? '\r' : siguiente);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,426 @@
+package mesadeayudajuname.service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Copia en disco del {@link Journal} con puntos de control periódicos, para
+ * reconstruir el tablero tal como estaba en cualquier instante pasado.
+ *
+ * Los registros se agregan a un archivo de texto, uno por línea, en el orden
+ * en que ocurrieron. Cada {@value #REGISTROS_POR_PUNTO_CONTROL} registros se
+ * guarda un punto de control: una instantánea completa del tablero en
+ * formato de journal, comprimida, cuyo nombre indica su instante y la
+ * posición del archivo de registros hasta la que llega. Para reconstruir un
+ * instante basta cargar el último punto de control anterior y aplicar como
+ * mucho los registros que le siguen hasta el próximo, así que el tiempo de
+ * la consulta no crece con la antigüedad del journal.
+ *
+ * Solo se conservan los puntos de control necesarios para reconstruir los
+ * instantes del período de retención, y cuando los registros anteriores al
+ * primero de ellos ocupan la mitad del archivo, el archivo se reescribe sin
+ * ellos. Las posiciones son lógicas: el archivo compactado empieza con la
+ * línea {@code #base=<posición>}, de modo que los nombres de los puntos de
+ * control no cambian.
+ *
+ * Los métodos son seguros para hilos; escribir un punto de control, podar y
+ * leer los archivos para reconstruir no bloquean la escritura de registros.
+ *
+ * @author juanulb
+ */
+public class JournalPersistente {
+    private static final int REGISTROS_POR_PUNTO_CONTROL = 5000;
+    private static final String PREFIJO_PUNTO = "punto_";
+    private static final String SUFIJO_PUNTO = ".log.gz";
+    private static final String PREFIJO_BASE = "#base=";
+    private static final long MINIMO_COMPACTACION = 1 << 20;
+
+    /**
+     * Punto de control guardado.
+     */
+    public static final class PuntoControl {
+        private final long marcaTiempo;
+        private final long desplazamiento;
+        private final File archivo;
+
+        private PuntoControl(long marcaTiempo, long desplazamiento, File archivo) {
+            this.marcaTiempo = marcaTiempo;
+            this.desplazamiento = desplazamiento;
+            this.archivo = archivo;
+        }
+
+        /**
+         * @return instante de la instantánea en milisegundos desde la época
+         */
+        public long getMarcaTiempo() {
+            return marcaTiempo;
+        }
+    }
+
+    private final File archivo;
+    private final File directorioPuntos;
+    private final long retencion;
+    private final List<PuntoControl> puntos;
+    private long registrosDesdePunto;
+    private long base;          // posición lógica del primer registro del archivo
+    private int cabecera;       // bytes de la línea #base, o 0 si no la tiene
+
+    /**
+     * Abre el journal guardado, o lo crea vacío. Se descartan los puntos de
+     * control que llegan más allá del final del archivo de registros, como
+     * los de un journal borrado a mano, y los anteriores a su compactación.
+     *
+     * @param archivo Archivo de registros
+     * @param directorioPuntos Directorio de los puntos de control
+     * @param retencion Milisegundos hacia atrás que se deben poder
+     *                  reconstruir
+     * @throws IOException si no se puede crear el directorio o leer el
+     *                     archivo de registros
+     */
+    public JournalPersistente(File archivo, File directorioPuntos, long retencion) throws IOException {
+        this.archivo = archivo;
+        this.directorioPuntos = directorioPuntos;
+        this.retencion = retencion;
+        this.puntos = new ArrayList<>();
+        if (!directorioPuntos.isDirectory() && !directorioPuntos.mkdirs()) {
+            throw new IOException("No se pudo crear " + directorioPuntos);
+        }
+        if (archivo.exists()) {
+            try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r")) {
+                long[] cabeceraLeida = leerCabecera(entrada);
+                base = cabeceraLeida[0];
+                cabecera = (int) cabeceraLeida[1];
+            }
+        }
+
+        long longitud = getLongitud();
+        File[] archivos = directorioPuntos.listFiles();
+        for (File candidato : (archivos != null) ? archivos : new File[0]) {
+            PuntoControl punto = parsearNombre(candidato);
+            if (punto != null && punto.desplazamiento >= base && punto.desplazamiento <= longitud) {
+                puntos.add(punto);
+            } else if (punto != null) {
+                System.err.println("Punto de control descartado: " + candidato.getName());
+            }
+        }
+        puntos.sort(Comparator.comparingLong((PuntoControl p) -> p.marcaTiempo)
+                              .thenComparingLong(p -> p.desplazamiento));
+
+        // Sin puntos de control no hay desde dónde reconstruir; con ellos,
+        // solo hace falta otro si los registros que le siguen ya son muchos
+        this.registrosDesdePunto = puntos.isEmpty()
+            ? REGISTROS_POR_PUNTO_CONTROL
+            : contarRegistros(puntos.get(puntos.size() - 1).desplazamiento);
+    }
+
+    private static PuntoControl parsearNombre(File candidato) {
+        String nombre = candidato.getName();
+        if (!nombre.startsWith(PREFIJO_PUNTO) || !nombre.endsWith(SUFIJO_PUNTO)) {
+            return null;
+        }
+        String[] partes = nombre.substring(PREFIJO_PUNTO.length(), nombre.length() - SUFIJO_PUNTO.length())
+                                .split("_");
+        try {
+            return new PuntoControl(Long.parseLong(partes[0]), Long.parseLong(partes[1]), candidato);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lee la línea #base del principio del archivo.
+     *
+     * @return posición lógica del primer registro y bytes de la cabecera;
+     *         {0, 0} si el archivo no está compactado
+     */
+    private static long[] leerCabecera(RandomAccessFile entrada) throws IOException {
+        entrada.seek(0);
+        if (entrada.length() == 0 || entrada.read() != '#') {
+            return new long[] {0, 0};
+        }
+        entrada.seek(0);
+        String linea = entrada.readLine();
+        if (linea == null || !linea.startsWith(PREFIJO_BASE)) {
+            throw new IOException("Cabecera de journal no válida: " + linea);
+        }
+        try {
+            return new long[] {Long.parseLong(linea.substring(PREFIJO_BASE.length())), entrada.getFilePointer()};
+        } catch (NumberFormatException e) {
+            throw new IOException("Cabecera de journal no válida: " + linea, e);
+        }
+    }
+
+    /**
+     * Cuenta los registros escritos desde una posición lógica.
+     */
+    private long contarRegistros(long desde) throws IOException {
+        long registros = 0;
+        try (InputStream entrada = new BufferedInputStream(new FileInputStream(archivo), 1 << 16)) {
+            entrada.skipNBytes(desde - base + cabecera);
+            int b;
+            while ((b = entrada.read()) >= 0) {
+                if (b == '\n') {
+                    registros++;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            return 0;
+        }
+        return registros;
+    }
+
+    /**
+     * Agrega registros al final del archivo.
+     *
+     * @param registros Líneas de journal en orden
+     * @throws IOException si hay error en la escritura
+     */
+    public synchronized void agregar(List<String> registros) throws IOException {
+        if (registros.isEmpty()) {
+            return;
+        }
+        try (Writer salida = new BufferedWriter(new OutputStreamWriter(
+                 new FileOutputStream(archivo, true), StandardCharsets.UTF_8), 1 << 16)) {
+            for (String registro : registros) {
+                salida.write(registro);
+                salida.write('\n');
+            }
+        }
+        registrosDesdePunto += registros.size();
+    }
+
+    /**
+     * Indica si se acumularon suficientes registros desde el último punto de
+     * control como para guardar otro.
+     *
+     * @return true si conviene llamar a {@link #guardarPuntoControl}
+     */
+    public synchronized boolean necesitaPuntoControl() {
+        return registrosDesdePunto >= REGISTROS_POR_PUNTO_CONTROL;
+    }
+
+    /**
+     * Guarda un punto de control. La instantánea se comprime y escribe sin
+     * bloquear el journal; solo el alta del punto lo bloquea.
+     *
+     * @param instantanea Instantánea del tablero en formato de journal
+     * @param marcaTiempo Instante de la instantánea en milisegundos
+     * @param desplazamiento Posición lógica del archivo de registros hasta la
+     *                       que llega la instantánea, obtenida con
+     *                       {@link #getLongitud()}
+     * @param registros Registros escritos desde el punto de control anterior
+     *                  que incluye la instantánea
+     * @throws IOException si hay error en la escritura
+     */
+    public void guardarPuntoControl(List<String> instantanea, long marcaTiempo, long desplazamiento,
+                                    long registros) throws IOException {
+        File destino = new File(directorioPuntos, PREFIJO_PUNTO + marcaTiempo + "_" + desplazamiento + SUFIJO_PUNTO);
+        File temporal = new File(destino.getPath() + ".tmp");
+        try (Writer salida = new BufferedWriter(new OutputStreamWriter(
+                 new GZIPOutputStream(new FileOutputStream(temporal), 1 << 16), StandardCharsets.UTF_8))) {
+            for (String registro : instantanea) {
+                salida.write(registro);
+                salida.write('\n');
+            }
+        }
+        if (!temporal.renameTo(destino)) {
+            temporal.delete();
+            throw new IOException("No se pudo crear " + destino);
+        }
+
+        synchronized (this) {
+            puntos.add(new PuntoControl(marcaTiempo, desplazamiento, destino));
+            puntos.sort(Comparator.comparingLong((PuntoControl p) -> p.marcaTiempo)
+                                  .thenComparingLong(p -> p.desplazamiento));
+            registrosDesdePunto = Math.max(0, registrosDesdePunto - registros);
+        }
+    }
+
+    /**
+     * Borra los puntos de control que ya no hacen falta para reconstruir el
+     * período de retención: se conserva el último anterior a su inicio y
+     * todos los posteriores. Si los registros anteriores al primer punto
+     * conservado ocupan al menos la mitad del archivo, se compacta.
+     *
+     * @param ahora Instante actual en milisegundos
+     * @throws IOException si no se puede compactar el archivo
+     */
+    public void podar(long ahora) throws IOException {
+        long desde;
+        long longitud;
+        long baseActual;
+        int cabeceraActual;
+        synchronized (this) {
+            int primero = 0;
+            for (int i = 0; i < puntos.size(); i++) {
+                if (puntos.get(i).marcaTiempo <= ahora - retencion) {
+                    primero = i;
+                }
+            }
+            for (PuntoControl viejo : puntos.subList(0, primero)) {
+                if (!viejo.archivo.delete()) {
+                    System.err.println("No se pudo borrar el punto de control " + viejo.archivo.getName());
+                }
+            }
+            puntos.subList(0, primero).clear();
+            if (puntos.isEmpty()) {
+                return;
+            }
+            desde = puntos.get(0).desplazamiento;
+            longitud = getLongitud();
+            baseActual = base;
+            cabeceraActual = cabecera;
+        }
+        long sobrantes = desde - baseActual;
+        if (sobrantes >= MINIMO_COMPACTACION && sobrantes >= (longitud - baseActual) / 2) {
+            compactar(desde, longitud, baseActual, cabeceraActual);
+        }
+    }
+
+    /**
+     * Reescribe el archivo de registros a partir de una posición lógica. La
+     * mayor parte se copia sin bloquear el journal; solo los registros
+     * agregados mientras tanto y el reemplazo del archivo lo bloquean.
+     */
+    private void compactar(long desde, long hasta, long baseActual, int cabeceraActual) throws IOException {
+        byte[] nuevaCabecera = (PREFIJO_BASE + desde + "\n").getBytes(StandardCharsets.UTF_8);
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try {
+            try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r");
+                 OutputStream salida = new BufferedOutputStream(new FileOutputStream(temporal), 1 << 16)) {
+                salida.write(nuevaCabecera);
+                copiar(entrada, desde - baseActual + cabeceraActual, hasta - desde, salida);
+            }
+
+            synchronized (this) {
+                try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r");
+                     OutputStream salida = new BufferedOutputStream(new FileOutputStream(temporal, true), 1 << 16)) {
+                    copiar(entrada, hasta - base + cabecera, getLongitud() - hasta, salida);
+                }
+                if (!temporal.renameTo(archivo)) {
+                    archivo.delete();
+                    if (!temporal.renameTo(archivo)) {
+                        throw new IOException("No se pudo reemplazar " + archivo);
+                    }
+                }
+                base = desde;
+                cabecera = nuevaCabecera.length;
+            }
+        } finally {
+            temporal.delete();
+        }
+    }
+
+    private static void copiar(RandomAccessFile entrada, long posicion, long bytes, OutputStream salida)
+            throws IOException {
+        byte[] bloque = new byte[1 << 16];
+        entrada.seek(posicion);
+        while (bytes > 0) {
+            int leidos = entrada.read(bloque, 0, (int) Math.min(bloque.length, bytes));
+            if (leidos < 0) {
+                throw new EOFException("El journal terminó antes de lo esperado");
+            }
+            salida.write(bloque, 0, leidos);
+            bytes -= leidos;
+        }
+    }
+
+    /**
+     * Devuelve la longitud lógica actual del archivo de registros, que
+     * limita la lectura de una reconstrucción a los registros completos.
+     *
+     * @return bytes escritos desde el primer registro, incluidos los que
+     *         ya se descartaron al compactar
+     */
+    public final synchronized long getLongitud() {
+        return base + Math.max(0, archivo.length() - cabecera);
+    }
+
+    /**
+     * @return cantidad de puntos de control guardados
+     */
+    public synchronized int getPuntosControl() {
+        return puntos.size();
+    }
+
+    /**
+     * Devuelve el punto de control más reciente.
+     *
+     * @return punto de control, o null si no hay ninguno
+     */
+    public synchronized PuntoControl ultimoPuntoControl() {
+        return puntos.isEmpty() ? null : puntos.get(puntos.size() - 1);
+    }
+
+    /**
+     * Busca el último punto de control no posterior a un instante.
+     *
+     * @param marcaTiempo Instante en milisegundos desde la época
+     * @return punto de control, o null si todos son posteriores
+     */
+    public synchronized PuntoControl puntoControlAnterior(long marcaTiempo) {
+        PuntoControl anterior = null;
+        for (int i = puntos.size() - 1; i >= 0 && anterior == null; i--) {
+            if (puntos.get(i).marcaTiempo <= marcaTiempo) {
+                anterior = puntos.get(i);
+            }
+        }
+        return anterior;
+    }
+
+    /**
+     * Lee la instantánea de un punto de control.
+     *
+     * @param punto Punto de control
+     * @return registros de la instantánea
+     * @throws IOException si hay error en la lectura o el punto ya se borró
+     */
+    public List<String> leerPuntoControl(PuntoControl punto) throws IOException {
+        List<String> registros = new ArrayList<>();
+        try (BufferedReader entrada = new BufferedReader(new InputStreamReader(
+                 new GZIPInputStream(new FileInputStream(punto.archivo), 1 << 16), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                registros.add(linea);
+            }
+        }
+        return registros;
+    }
+
+    /**
+     * Lee los registros escritos después de un punto de control, hasta una
+     * longitud del archivo obtenida con {@link #getLongitud()}. La cabecera
+     * se lee del mismo archivo abierto, así que una compactación simultánea
+     * no desplaza la lectura.
+     *
+     * @param punto Punto de control
+     * @param limite Posición lógica del archivo hasta la que leer
+     * @return registros en orden
+     * @throws IOException si hay error en la lectura o esos registros ya se
+     *                     descartaron al compactar
+     */
+    public List<String> leerDesde(PuntoControl punto, long limite) throws IOException {
+        byte[] cola = new byte[(int) Math.max(0, limite - punto.desplazamiento)];
+        try (RandomAccessFile entrada = new RandomAccessFile(archivo, "r")) {
+            long[] cabeceraLeida = leerCabecera(entrada);
+            if (punto.desplazamiento < cabeceraLeida[0]) {
+                throw new IOException("Los registros posteriores a ese punto de control ya se descartaron");
+            }
+            entrada.seek(punto.desplazamiento - cabeceraLeida[0] + cabeceraLeida[1]);
+            entrada.readFully(cola);
+        }
+
+        List<String> registros = new ArrayList<>();
+        int inicio = 0;
+        for (int i = 0; i < cola.length; i++) {
+            if (cola[i] == '\n') {
+                registros.add(new String(cola, inicio, i - inicio, StandardCharsets.UTF_8));
+                inicio = i + 1;
+            }
+        }
+        return registros;
+    }
+}
@@ -0,0 +1,138 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.Prioridad;
+
+/**
+ * Representa una operación individual dentro de un lote ejecutado con
+ * {@link TableroService#ejecutarLote(java.util.List)}.
+ * Las instancias se crean mediante los métodos de fábrica de cada tipo.
+ * 
+ * @author juanulb
+ */
+public class OperacionLote {
+    
+    /**
+     * Tipos de operación soportados en un lote.
+     */
+    public enum Tipo {
+        CREAR,
+        ASIGNAR,
+        INICIAR,
+        CERRAR
+    }
+    
+    private final Tipo tipo;
+    private final int ticketId;
+    private final int tecnicoId;
+    private final String titulo;
+    private final String descripcion;
+    private final String categoria;
+    private final Prioridad prioridad;
+    
+    private OperacionLote(Tipo tipo, int ticketId, int tecnicoId, String titulo,
+                          String descripcion, String categoria, Prioridad prioridad) {
+        this.tipo = tipo;
+        this.ticketId = ticketId;
+        this.tecnicoId = tecnicoId;
+        this.titulo = titulo;
+        this.descripcion = descripcion;
+        this.categoria = categoria;
+        this.prioridad = prioridad;
+    }
+    
+    /**
+     * Operación de creación de ticket.
+     * 
+     * @param titulo Título del ticket
+     * @param descripcion Descripción del ticket
+     * @param categoria Categoría, o null para usar clasificación automática
+     * @param prioridad Prioridad, ignorada si se usa clasificación automática
+     * @return operación de creación
+     */
+    public static OperacionLote crear(String titulo, String descripcion, String categoria, Prioridad prioridad) {
+        return new OperacionLote(Tipo.CREAR, 0, 0, titulo, descripcion, categoria,
+                                 prioridad != null ? prioridad : Prioridad.BAJA);
+    }
+    
+    /**
+     * Operación de creación de ticket con clasificación automática.
+     * 
+     * @param titulo Título del ticket
+     * @param descripcion Descripción del ticket
+     * @return operación de creación
+     */
+    public static OperacionLote crearConClasificacion(String titulo, String descripcion) {
+        return crear(titulo, descripcion, null, null);
+    }
+    
+    /**
+     * Operación de asignación de un ticket a un técnico.
+     * 
+     * @param ticketId ID del ticket
+     * @param tecnicoId ID del técnico
+     * @return operación de asignación
+     */
+    public static OperacionLote asignar(int ticketId, int tecnicoId) {
+        return new OperacionLote(Tipo.ASIGNAR, ticketId, tecnicoId, null, null, null, null);
+    }
+    
+    /**
+     * Operación de inicio de trabajo en un ticket.
+     * 
+     * @param ticketId ID del ticket
+     * @return operación de inicio
+     */
+    public static OperacionLote iniciar(int ticketId) {
+        return new OperacionLote(Tipo.INICIAR, ticketId, 0, null, null, null, null);
+    }
+    
+    /**
+     * Operación de cierre de un ticket.
+     * 
+     * @param ticketId ID del ticket
+     * @return operación de cierre
+     */
+    public static OperacionLote cerrar(int ticketId) {
+        return new OperacionLote(Tipo.CERRAR, ticketId, 0, null, null, null, null);
+    }
+    
+    // Getters
+    public Tipo getTipo() {
+        return tipo;
+    }
+    
+    public int getTicketId() {
+        return ticketId;
+    }
+    
+    public int getTecnicoId() {
+        return tecnicoId;
+    }
+    
+    public String getTitulo() {
+        return titulo;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    public String getCategoria() {
+        return categoria;
+    }
+    
+    public Prioridad getPrioridad() {
+        return prioridad;
+    }
+    
+    @Override
+    public String toString() {
+        if (tipo == Tipo.CREAR) {
+            return String.format("%s '%s'", tipo, titulo);
+        }
+        if (tipo == Tipo.ASIGNAR) {
+            return String.format("%s #%d -> técnico #%d", tipo, ticketId, tecnicoId);
+        }
+        return String.format("%s #%d", tipo, ticketId);
+    }
+}
@@ -0,0 +1,19 @@
+package mesadeayudajuname.service;
+
+/**
+ * Política aplicada cuando el buffer de un suscriptor del
+ * {@link BusEventos} está lleno. Ninguna de ellas bloquea al publicador.
+ * 
+ * @author juanulb
+ */
+public enum PoliticaDesborde {
+    /**
+     * Se descarta el evento nuevo; el suscriptor conserva los más antiguos
+     */
+    DESCARTAR_NUEVO,
+    
+    /**
+     * Se sobrescribe el evento más antiguo aún no entregado
+     */
+    DESCARTAR_ANTIGUO
+}
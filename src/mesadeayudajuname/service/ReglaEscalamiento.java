@@ -0,0 +1,89 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regla de escalamiento de prioridad por antigüedad: un ticket pendiente
+ * que lleva cierto tiempo con una prioridad sube a la siguiente.
+ *
+ * @author juanulb
+ */
+public class ReglaEscalamiento {
+    private final Prioridad desde;
+    private final Prioridad hacia;
+    private final Duration espera;
+    private final boolean soloSinAsignar;
+
+    /**
+     * Constructor de una regla.
+     *
+     * @param desde Prioridad a la que se aplica la regla
+     * @param hacia Prioridad a la que se eleva el ticket
+     * @param espera Tiempo con la prioridad actual antes de escalar
+     * @param soloSinAsignar true si solo se escalan tickets sin técnico asignado
+     * @throws IllegalArgumentException si la regla no eleva la prioridad o la espera no es positiva
+     */
+    public ReglaEscalamiento(Prioridad desde, Prioridad hacia, Duration espera, boolean soloSinAsignar) {
+        if (desde == null || hacia == null || hacia.getValor() <= desde.getValor()) {
+            throw new IllegalArgumentException("La regla debe elevar la prioridad: " + desde + " -> " + hacia);
+        }
+        if (espera == null || espera.isNegative() || espera.isZero()) {
+            throw new IllegalArgumentException("La espera de la regla debe ser positiva");
+        }
+        this.desde = desde;
+        this.hacia = hacia;
+        this.espera = espera;
+        this.soloSinAsignar = soloSinAsignar;
+    }
+
+    /**
+     * Reglas predeterminadas: BAJA -> MEDIA tras 24 horas y MEDIA -> ALTA
+     * tras 8 horas, ambas solo para tickets sin técnico asignado.
+     *
+     * @return lista de reglas
+     */
+    public static List<ReglaEscalamiento> predeterminadas() {
+        List<ReglaEscalamiento> reglas = new ArrayList<>();
+        reglas.add(new ReglaEscalamiento(Prioridad.BAJA, Prioridad.MEDIA, Duration.ofHours(24), true));
+        reglas.add(new ReglaEscalamiento(Prioridad.MEDIA, Prioridad.ALTA, Duration.ofHours(8), true));
+        return reglas;
+    }
+
+    /**
+     * Indica si la regla se aplica a un ticket en su estado actual, sin
+     * considerar el tiempo transcurrido.
+     *
+     * @param ticket Ticket a evaluar
+     * @return true si el ticket es candidato a esta regla
+     */
+    public boolean aplicaA(Ticket ticket) {
+        return ticket.getPrioridad() == desde
+            && ticket.getEstado() != Estado.CERRADO
+            && (!soloSinAsignar || ticket.getTecnicoAsignado() == null);
+    }
+
+    public Prioridad getDesde() {
+        return desde;
+    }
+
+    public Prioridad getHacia() {
+        return hacia;
+    }
+
+    public Duration getEspera() {
+        return espera;
+    }
+
+    public boolean isSoloSinAsignar() {
+        return soloSinAsignar;
+    }
+
+    @Override
+    public String toString() {
+        return desde + " -> " + hacia + " tras " + espera.toMinutes() + " min"
+            + (soloSinAsignar ? " sin asignar" : "");
+    }
+}
@@ -0,0 +1,161 @@
+package mesadeayudajuname.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lado líder de la replicación del tablero.
+ * Acepta conexiones TCP de procesos seguidores y a cada uno le envía una
+ * instantánea del tablero seguida de los registros del {@link Journal}
+ * posteriores a ella, a medida que se producen.
+ *
+ * Protocolo (texto UTF-8, un mensaje por línea):
+ * <pre>
+ *   INSTANTANEA &lt;secuencia&gt;
+ *   &lt;registro de journal&gt; ...
+ *   FIN_INSTANTANEA
+ *   &lt;registro de journal&gt; ...      (cambios en vivo)
+ *   LATIDO                       (cada segundo sin cambios)
+ * </pre>
+ * Un seguidor que se atrasa demasiado se desconecta; al reconectarse recibe
+ * una instantánea nueva.
+ *
+ * @author juanulb
+ */
+public class ReplicacionLider {
+    static final String INSTANTANEA = "INSTANTANEA";
+    static final String FIN_INSTANTANEA = "FIN_INSTANTANEA";
+    static final String LATIDO = "LATIDO";
+
+    private static final int LOTE_MAXIMO = 1024;
+    private static final long ESPERA_LATIDO_MS = 1000;
+
+    private final TableroService tableroService;
+    private final ServerSocket servidor;
+    private final Thread hiloAceptacion;
+    private volatile boolean activo;
+
+    /**
+     * Constructor del líder.
+     *
+     * @param tableroService Tablero a replicar
+     * @param puerto Puerto TCP en el que aceptar seguidores
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public ReplicacionLider(TableroService tableroService, int puerto) throws IOException {
+        this.tableroService = tableroService;
+        this.servidor = new ServerSocket(puerto);
+        this.hiloAceptacion = new Thread(this::aceptar, "replicacion-lider");
+        this.hiloAceptacion.setDaemon(true);
+    }
+
+    /**
+     * Comienza a aceptar seguidores.
+     */
+    public void iniciar() {
+        activo = true;
+        hiloAceptacion.start();
+        System.out.println("Replicación: líder escuchando en el puerto " + getPuerto());
+    }
+
+    /**
+     * Deja de aceptar seguidores y cierra el puerto.
+     */
+    public void detener() {
+        activo = false;
+        try {
+            servidor.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar el puerto de replicación: " + e.getMessage());
+        }
+    }
+
+    public int getPuerto() {
+        return servidor.getLocalPort();
+    }
+
+    /**
+     * Bucle de aceptación: cada seguidor se atiende en su propio hilo virtual.
+     */
+    private void aceptar() {
+        while (activo) {
+            try {
+                Socket socket = servidor.accept();
+                Thread.ofVirtual().name("replicacion-" + socket.getRemoteSocketAddress()).start(() -> atender(socket));
+            } catch (IOException e) {
+                if (activo) {
+                    System.err.println("Error al aceptar seguidor: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Envía la instantánea y luego los cambios a un seguidor hasta que se desconecta.
+     */
+    private void atender(Socket socket) {
+        String remoto = String.valueOf(socket.getRemoteSocketAddress());
+        System.out.println("Replicación: seguidor conectado desde " + remoto);
+
+        // El lector se registra antes de la instantánea, que corresponde a
+        // una secuencia igual o posterior, para que nada de lo que sigue se
+        // descarte mientras se envía
+        Journal journal = tableroService.getJournal();
+        int lector = journal.registrarLector(journal.getUltimaSecuencia(), true);
+
+        try (Socket s = socket;
+             BufferedWriter salida = new BufferedWriter(
+                 new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+
+            List<String> instantanea = new ArrayList<>();
+            long enviado = tableroService.escribirInstantanea(instantanea);
+            journal.avanzarLector(lector, enviado);
+
+            escribirLinea(salida, INSTANTANEA + " " + enviado);
+            for (String registro : instantanea) {
+                escribirLinea(salida, registro);
+            }
+            escribirLinea(salida, FIN_INSTANTANEA);
+            salida.flush();
+
+            while (activo) {
+                List<String> registros = journal.leerDesde(enviado, LOTE_MAXIMO, ESPERA_LATIDO_MS);
+                if (registros.isEmpty()) {
+                    escribirLinea(salida, LATIDO);
+                } else {
+                    for (String registro : registros) {
+                        escribirLinea(salida, registro);
+                    }
+                    enviado += registros.size();
+                }
+                salida.flush();
+                journal.avanzarLector(lector, enviado);
+            }
+        } catch (SocketException e) {
+            // El seguidor cerró la conexión
+        } catch (IOException e) {
+            System.err.println("Replicación: error con el seguidor " + remoto + ": " + e.getMessage());
+        } catch (IllegalStateException e) {
+            System.err.println("Replicación: seguidor " + remoto + " demasiado atrasado: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            journal.quitarLector(lector);
+        }
+
+        System.out.println("Replicación: seguidor desconectado " + remoto);
+    }
+
+    private static void escribirLinea(BufferedWriter salida, String linea) throws IOException {
+        salida.write(linea);
+        salida.write('\n');
+    }
+}
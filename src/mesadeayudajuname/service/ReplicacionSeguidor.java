@@ -0,0 +1,175 @@
+package mesadeayudajuname.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lado seguidor de la replicación del tablero.
+ * Mantiene un {@link TableroService} en memoria y de solo lectura que
+ * refleja al de un {@link ReplicacionLider}: recibe su instantánea y aplica
+ * cada registro del journal a medida que llega. Puede atender consultas de
+ * solo lectura mientras replica y, si el líder cae, ser promovido a tablero
+ * principal sin recargar los CSV.
+ *
+ * Si la conexión se pierde, el seguidor reintenta cada segundo y, al
+ * reconectarse, vuelve a cargar una instantánea completa.
+ *
+ * @author juanulb
+ */
+public class ReplicacionSeguidor {
+    private static final long ESPERA_REINTENTO_MS = 1000;
+    private static final int TIEMPO_SIN_DATOS_MS = 5000;
+
+    private final String host;
+    private final int puerto;
+    private final TableroService tableroService;
+    private final Thread hilo;
+    private volatile boolean activo;
+    private volatile Socket socket;
+    private volatile long ultimaSecuencia;
+
+    /**
+     * Constructor del seguidor.
+     *
+     * @param host Host del líder
+     * @param puerto Puerto de replicación del líder
+     */
+    public ReplicacionSeguidor(String host, int puerto) {
+        this.host = host;
+        this.puerto = puerto;
+        this.tableroService = new TableroService(false);
+        this.tableroService.setSoloLectura(true);
+        this.hilo = new Thread(this::replicar, "replicacion-seguidor");
+        this.hilo.setDaemon(true);
+    }
+
+    /**
+     * Comienza a replicar en segundo plano.
+     */
+    public void iniciar() {
+        activo = true;
+        hilo.start();
+    }
+
+    /**
+     * Detiene la replicación y convierte la réplica en el tablero principal.
+     * El directorio de datos se reserva antes de detener la replicación: si
+     * otro proceso lo usa, la réplica sigue replicando.
+     *
+     * @return el tablero promovido, ya con escritura y persistencia habilitadas
+     * @throws IllegalStateException si otro proceso usa el directorio de datos
+     */
+    public TableroService promover() {
+        tableroService.bloquearDirectorioDatos();
+        detener();
+        try {
+            hilo.join(ESPERA_REINTENTO_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tableroService.promover();
+        System.out.println("Replicación: réplica promovida a tablero principal (secuencia " + ultimaSecuencia + ")");
+        return tableroService;
+    }
+
+    /**
+     * Detiene la replicación sin promover la réplica.
+     */
+    public void detener() {
+        activo = false;
+        Socket actual = socket;
+        if (actual != null) {
+            try {
+                actual.close();
+            } catch (IOException e) {
+                // Ya estaba cerrado
+            }
+        }
+    }
+
+    /**
+     * Devuelve el tablero replicado.
+     *
+     * @return tablero en memoria del seguidor
+     */
+    public TableroService getTableroService() {
+        return tableroService;
+    }
+
+    /**
+     * Devuelve la última secuencia del journal del líder aplicada.
+     *
+     * @return secuencia aplicada
+     */
+    public long getUltimaSecuencia() {
+        return ultimaSecuencia;
+    }
+
+    /**
+     * Bucle de replicación con reconexión automática.
+     */
+    private void replicar() {
+        while (activo) {
+            try (Socket s = new Socket()) {
+                s.connect(new InetSocketAddress(host, puerto), TIEMPO_SIN_DATOS_MS);
+                s.setSoTimeout(TIEMPO_SIN_DATOS_MS);
+                socket = s;
+                recibir(new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)));
+            } catch (IOException | RuntimeException e) {
+                if (activo) {
+                    System.err.println("Replicación: conexión con el líder perdida: " + e.getMessage());
+                }
+            } finally {
+                socket = null;
+            }
+
+            if (activo) {
+                try {
+                    Thread.sleep(ESPERA_REINTENTO_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee la instantánea y luego aplica los registros hasta que se cierra la conexión.
+     */
+    private void recibir(BufferedReader entrada) throws IOException {
+        String cabecera = entrada.readLine();
+        if (cabecera == null || !cabecera.startsWith(ReplicacionLider.INSTANTANEA + " ")) {
+            throw new IOException("Cabecera de replicación no válida: " + cabecera);
+        }
+        long secuenciaInstantanea = Long.parseLong(cabecera.substring(ReplicacionLider.INSTANTANEA.length() + 1).trim());
+
+        List<String> instantanea = new ArrayList<>();
+        String linea;
+        while ((linea = entrada.readLine()) != null && !linea.equals(ReplicacionLider.FIN_INSTANTANEA)) {
+            instantanea.add(linea);
+        }
+        if (linea == null) {
+            throw new IOException("Instantánea incompleta");
+        }
+
+        tableroService.cargarInstantanea(instantanea);
+        ultimaSecuencia = secuenciaInstantanea;
+        System.out.println("Replicación: instantánea cargada (" + instantanea.size()
+                           + " registros, secuencia " + secuenciaInstantanea + ")");
+
+        while (activo && (linea = entrada.readLine()) != null) {
+            if (linea.equals(ReplicacionLider.LATIDO)) {
+                continue;
+            }
+            tableroService.aplicarRegistro(linea);
+            ultimaSecuencia = Journal.secuencia(linea);
+        }
+    }
+}
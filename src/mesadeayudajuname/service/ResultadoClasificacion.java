@@ -0,0 +1,53 @@
+package mesadeayudajuname.service;
+
+import mesadeayudajuname.model.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de clasificar un ticket: categoría y prioridad sugeridas y las
+ * palabras clave que las determinaron.
+ * 
+ * @author juanulb
+ */
+public class ResultadoClasificacion {
+    private final String categoria;
+    private final Prioridad prioridad;
+    private final List<String> palabrasClave;
+    private final int generacion;
+    
+    ResultadoClasificacion(String categoria, Prioridad prioridad, List<String> palabrasClave, int generacion) {
+        this.categoria = categoria;
+        this.prioridad = prioridad;
+        this.palabrasClave = Collections.unmodifiableList(palabrasClave);
+        this.generacion = generacion;
+    }
+    
+    // Getters
+    public String getCategoria() {
+        return categoria;
+    }
+    
+    public Prioridad getPrioridad() {
+        return prioridad;
+    }
+    
+    /**
+     * @return palabras clave encontradas, en el orden en que aparecen
+     */
+    public List<String> getPalabrasClave() {
+        return palabrasClave;
+    }
+    
+    /**
+     * @return generación del diccionario con que se obtuvo el resultado
+     */
+    int getGeneracion() {
+        return generacion;
+    }
+    
+    @Override
+    public String toString() {
+        return categoria + " / " + prioridad + " " + palabrasClave;
+    }
+}
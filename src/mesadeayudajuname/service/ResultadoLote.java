@@ -0,0 +1,75 @@
+package mesadeayudajuname.service;
+
+/**
+ * Resultado de una operación individual de un lote.
+ * 
+ * @author juanulb
+ */
+public class ResultadoLote {
+    private final int indice;
+    private final OperacionLote operacion;
+    private final boolean exitoso;
+    private final int ticketId;
+    private final String mensaje;
+    
+    private ResultadoLote(int indice, OperacionLote operacion, boolean exitoso, int ticketId, String mensaje) {
+        this.indice = indice;
+        this.operacion = operacion;
+        this.exitoso = exitoso;
+        this.ticketId = ticketId;
+        this.mensaje = mensaje;
+    }
+    
+    /**
+     * Crea un resultado exitoso.
+     * 
+     * @param indice Posición de la operación en el lote
+     * @param operacion Operación ejecutada
+     * @param ticketId ID del ticket afectado o creado
+     * @return resultado exitoso
+     */
+    static ResultadoLote exitoso(int indice, OperacionLote operacion, int ticketId) {
+        return new ResultadoLote(indice, operacion, true, ticketId, null);
+    }
+    
+    /**
+     * Crea un resultado fallido.
+     * 
+     * @param indice Posición de la operación en el lote
+     * @param operacion Operación que falló
+     * @param mensaje Motivo del fallo
+     * @return resultado fallido
+     */
+    static ResultadoLote fallido(int indice, OperacionLote operacion, String mensaje) {
+        int ticketId = (operacion != null) ? operacion.getTicketId() : 0;
+        return new ResultadoLote(indice, operacion, false, ticketId, mensaje);
+    }
+    
+    // Getters
+    public int getIndice() {
+        return indice;
+    }
+    
+    public OperacionLote getOperacion() {
+        return operacion;
+    }
+    
+    public boolean isExitoso() {
+        return exitoso;
+    }
+    
+    public int getTicketId() {
+        return ticketId;
+    }
+    
+    public String getMensaje() {
+        return mensaje;
+    }
+    
+    @Override
+    public String toString() {
+        return exitoso
+            ? String.format("[%d] OK %s (ticket #%d)", indice, operacion, ticketId)
+            : String.format("[%d] ERROR %s: %s", indice, operacion, mensaje);
+    }
+}
@@ -0,0 +1,167 @@
+package mesadeayudajuname.service;
+
+import java.util.Arrays;
+
+/**
+ * Rueda de temporizadores con dispersión (hashed timing wheel).
+ * El tiempo se divide en ticks de duración fija y cada temporizador se
+ * guarda en la ranura {@code tick % ranuras} de su vencimiento. Programar un
+ * temporizador cuesta O(1) y avanzar el reloj solo recorre las ranuras de
+ * los ticks transcurridos, en lugar de revisar todos los tickets.
+ *
+ * Los vencimientos más lejanos que una vuelta completa comparten ranura con
+ * otros más cercanos; al recorrer una ranura solo se disparan los que ya
+ * vencieron y el resto queda para una vuelta posterior.
+ *
+ * Cada ranura guarda sus temporizadores en arreglos primitivos paralelos.
+ * No hay cancelación: quien programa debe ignorar los disparos que ya no
+ * correspondan. La clase no es segura para hilos.
+ *
+ * @author juanulb
+ */
+public class RuedaTemporizadores {
+    private static final int CAPACIDAD_INICIAL_RANURA = 4;
+
+    /**
+     * Recibe los temporizadores vencidos.
+     */
+    public interface AlVencer {
+        /**
+         * @param id Identificador con el que se programó el temporizador
+         * @param vencimiento Instante de vencimiento en milisegundos
+         */
+        void vencido(int id, long vencimiento);
+    }
+
+    private final long duracionTick;
+    private final int[][] ids;
+    private final long[][] vencimientos;
+    private final int[] tamanos;
+    private long tickActual;
+    private int pendientes;
+
+    /**
+     * Constructor de la rueda.
+     *
+     * @param duracionTick Duración de un tick en milisegundos
+     * @param ranuras Cantidad de ranuras de la rueda
+     * @param ahora Instante inicial en milisegundos
+     */
+    public RuedaTemporizadores(long duracionTick, int ranuras, long ahora) {
+        if (duracionTick <= 0 || ranuras <= 0) {
+            throw new IllegalArgumentException("La duración del tick y la cantidad de ranuras deben ser positivas");
+        }
+        this.duracionTick = duracionTick;
+        this.ids = new int[ranuras][];
+        this.vencimientos = new long[ranuras][];
+        this.tamanos = new int[ranuras];
+        this.tickActual = ahora / duracionTick;
+        this.pendientes = 0;
+    }
+
+    /**
+     * Programa un temporizador. Si el vencimiento ya pasó, se dispara en el
+     * próximo avance del reloj.
+     *
+     * @param id Identificador a entregar al vencer
+     * @param vencimiento Instante de vencimiento en milisegundos
+     */
+    public void programar(int id, long vencimiento) {
+        long tick = Math.max(vencimiento / duracionTick, tickActual);
+        int ranura = (int) (tick % ids.length);
+
+        int tamano = tamanos[ranura];
+        if (ids[ranura] == null) {
+            ids[ranura] = new int[CAPACIDAD_INICIAL_RANURA];
+            vencimientos[ranura] = new long[CAPACIDAD_INICIAL_RANURA];
+        } else if (tamano == ids[ranura].length) {
+            ids[ranura] = Arrays.copyOf(ids[ranura], tamano * 2);
+            vencimientos[ranura] = Arrays.copyOf(vencimientos[ranura], tamano * 2);
+        }
+
+        ids[ranura][tamano] = id;
+        vencimientos[ranura][tamano] = vencimiento;
+        tamanos[ranura] = tamano + 1;
+        pendientes++;
+    }
+
+    /**
+     * Avanza el reloj hasta un instante y dispara los temporizadores vencidos.
+     *
+     * @param ahora Instante actual en milisegundos
+     * @param alVencer Receptor de los temporizadores vencidos
+     * @return cantidad de temporizadores disparados
+     */
+    public int avanzar(long ahora, AlVencer alVencer) {
+        long objetivo = ahora / duracionTick;
+        int disparados = 0;
+
+        if (objetivo - tickActual >= ids.length) {
+            // Pasó más de una vuelta: basta con recorrer cada ranura una vez
+            for (int ranura = 0; ranura < ids.length; ranura++) {
+                disparados += vaciar(ranura, ahora, alVencer);
+            }
+            tickActual = objetivo;
+            return disparados;
+        }
+
+        while (tickActual < objetivo) {
+            disparados += vaciar((int) (tickActual % ids.length), ahora, alVencer);
+            tickActual++;
+        }
+        // El tick en curso puede tener temporizadores ya vencidos
+        disparados += vaciar((int) (objetivo % ids.length), ahora, alVencer);
+        return disparados;
+    }
+
+    /**
+     * Dispara los temporizadores vencidos de una ranura y compacta el resto.
+     */
+    private int vaciar(int ranura, long ahora, AlVencer alVencer) {
+        int tamano = tamanos[ranura];
+        if (tamano == 0) {
+            return 0;
+        }
+
+        int[] idsRanura = ids[ranura];
+        long[] vencimientosRanura = vencimientos[ranura];
+        int conservados = 0;
+        int disparados = 0;
+
+        // Primero se compacta la ranura y luego se notifica, porque el
+        // receptor puede programar temporizadores nuevos en esta misma ranura
+        int[] idsVencidos = null;
+        long[] vencimientosVencidos = null;
+        for (int i = 0; i < tamano; i++) {
+            if (vencimientosRanura[i] <= ahora) {
+                if (idsVencidos == null) {
+                    idsVencidos = new int[tamano - i];
+                    vencimientosVencidos = new long[tamano - i];
+                }
+                idsVencidos[disparados] = idsRanura[i];
+                vencimientosVencidos[disparados] = vencimientosRanura[i];
+                disparados++;
+            } else {
+                idsRanura[conservados] = idsRanura[i];
+                vencimientosRanura[conservados] = vencimientosRanura[i];
+                conservados++;
+            }
+        }
+
+        tamanos[ranura] = conservados;
+        pendientes -= disparados;
+        for (int i = 0; i < disparados; i++) {
+            alVencer.vencido(idsVencidos[i], vencimientosVencidos[i]);
+        }
+        return disparados;
+    }
+
+    /**
+     * Devuelve la cantidad de temporizadores programados que aún no vencieron.
+     *
+     * @return temporizadores pendientes
+     */
+    public int getPendientes() {
+        return pendientes;
+    }
+}
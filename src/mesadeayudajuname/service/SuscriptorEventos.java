@@ -0,0 +1,19 @@
+package mesadeayudajuname.service;
+
+/**
+ * Receptor de eventos del {@link BusEventos}.
+ * Cada suscriptor se invoca siempre desde su propio hilo de entrega, en el
+ * mismo orden en que se publicaron los eventos.
+ * 
+ * @author juanulb
+ */
+@FunctionalInterface
+public interface SuscriptorEventos {
+    
+    /**
+     * Procesa un evento del tablero.
+     * 
+     * @param evento Evento recibido
+     */
+    void alRecibir(EventoTicket evento);
+}
@@ -2,36 +2,232 @@ package mesadeayudajuname.service;
 
 import mesadeayudajuname.model.*;
 import mesadeayudajuname.util.CSVRepository;
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Servicio principal para la gestión de la mesa de ayuda.
  * Centraliza toda la lógica de negocio del sistema.
+ * Los métodos públicos están sincronizados, de modo que cada operación
+ * (incluido un lote completo) se ejecuta en una única sección crítica.
+ * Los archivos se guardan en el directorio de datos, que por defecto es el
+ * de trabajo y se cambia con la propiedad del sistema
+ * {@value #PROPIEDAD_DIRECTORIO_DATOS}. Un tablero persistente bloquea su
+ * directorio, así que dos procesos no pueden escribir los mismos archivos.
  * 
  * @author juanulb
  */
 public class TableroService {
     private List<Ticket> tickets;
+    private Map<Integer, Ticket> mapaTickets;
     private List<Tecnico> tecnicos;
     private Map<Integer, Tecnico> mapaTecnicos;
+    private Map<Integer, List<Tecnico>> tecnicosPorSkill;
     private CSVRepository repository;
+    private File directorio;
+    private FileLock bloqueoDirectorio;
+    private Despachador despachador;
+    private BusEventos busEventos;
+    private Journal journal;
+    private JournalPersistente journalPersistente;
+    private int lectorJournal;
+    private Thread hiloPuntoControl;
+    private long journalGuardado;
+    private Map<Prioridad, NavigableMap<Integer, Ticket>> pendientes;
+    private Map<Prioridad, ReglaEscalamiento> reglasEscalamiento;
+    private RuedaTemporizadores ruedaEscalamientos;
+    private IndiceTickets indiceTickets;
+    private IndiceTextoCompleto indiceTexto;
+    private DetectorDuplicados detectorDuplicados;
+    private ClasificadorBayes clasificadorBayes;
+    private AlmacenColumnar almacenColumnar;
+    private HistorialTransiciones historial;
+    private boolean persistente;
+    private boolean soloLectura;
+    private boolean despachoAutomatico;
+    private boolean textoFueraDelHeap;
+    private boolean historico;
+    private boolean indiceTextoIncompleto;
+    private TableroService estadoPasado;
+    private long instanteEstadoPasado;
     private int siguienteIdTicket;
     private int siguienteIdTecnico;
     
+    /**
+     * Propiedad del sistema con el directorio de datos.
+     */
+    public static final String PROPIEDAD_DIRECTORIO_DATOS = "mesadeayuda.directorioDatos";
+    
+    /**
+     * Propiedad del sistema con los días hacia atrás que se pueden
+     * reconstruir con {@link #estadoEn(LocalDateTime)}.
+     */
+    public static final String PROPIEDAD_DIAS_JOURNAL = "mesadeayuda.diasJournal";
+    
+    /**
+     * Propiedad del sistema que, en {@code true}, calcula las métricas sobre
+     * un {@link AlmacenColumnar}. Es una copia adicional de los campos de
+     * cada ticket, así que usa más memoria a cambio de métricas más rápidas
+     * con muchos tickets.
+     */
+    public static final String PROPIEDAD_METRICAS_COLUMNARES = "mesadeayuda.metricasColumnares";
+    
+    private static final long TICK_ESCALAMIENTO_MS = 60_000;
+    private static final int RANURAS_ESCALAMIENTO = 1024;
+    private static final String ARCHIVO_INDICE_TEXTO = "indice_texto.dat";
+    private static final int TICKETS_POR_GUARDADO_INDICE = 1024;
+    private static final String ARCHIVO_MODELO_BAYES = "modelo_bayes.dat";
+    private static final int TICKETS_POR_GUARDADO_MODELO = 256;
+    private static final int TRANSICIONES_POR_REGISTRO = 1000;
+    private static final String ARCHIVO_HISTORIAL = "historial.dat";
+    private static final String ARCHIVO_JOURNAL = "journal.log";
+    private static final String DIRECTORIO_PUNTOS_CONTROL = "puntos_control";
+    private static final int DIAS_JOURNAL_PREDETERMINADOS = 30;
+    private static final String ARCHIVO_BLOQUEO = ".bloqueo";
+    
     /**
      * Constructor del servicio del tablero.
+     * Carga los datos desde los archivos CSV y los guarda tras cada cambio.
      */
     public TableroService() {
+        this(true);
+    }
+    
+    /**
+     * Constructor del servicio del tablero sobre el directorio de datos
+     * predeterminado.
+     * 
+     * @param persistente true para cargar y guardar los datos en CSV; false
+     *                    para un tablero solo en memoria, como el de una réplica
+     * @throws IllegalStateException si el tablero es persistente y otro
+     *                               proceso usa el directorio de datos
+     */
+    public TableroService(boolean persistente) {
+        this(persistente, directorioDatosPredeterminado());
+    }
+    
+    /**
+     * Constructor del servicio del tablero.
+     * 
+     * @param persistente true para cargar y guardar los datos en CSV; false
+     *                    para un tablero solo en memoria, como el de una réplica
+     * @param directorio Directorio de datos; un tablero en memoria lo usa si
+     *                   se lo promueve
+     * @throws IllegalStateException si el tablero es persistente y otro
+     *                               proceso usa el directorio de datos
+     */
+    public TableroService(boolean persistente, File directorio) {
         this.tickets = new ArrayList<>();
+        this.mapaTickets = new HashMap<>();
         this.tecnicos = new ArrayList<>();
         this.mapaTecnicos = new HashMap<>();
-        this.repository = new CSVRepository();
+        this.tecnicosPorSkill = new HashMap<>();
+        this.directorio = directorio;
+        this.repository = new CSVRepository(directorio);
+        this.despachador = new Despachador();
+        this.busEventos = new BusEventos();
+        this.journal = new Journal();
+        this.pendientes = new EnumMap<>(Prioridad.class);
+        for (Prioridad prioridad : Prioridad.values()) {
+            pendientes.put(prioridad, new TreeMap<>());
+        }
+        this.indiceTexto = new IndiceTextoCompleto();
+        this.indiceTickets = new IndiceTickets(indiceTexto);
+        this.detectorDuplicados = new DetectorDuplicados();
+        this.clasificadorBayes = new ClasificadorBayes();
+        this.almacenColumnar = Boolean.getBoolean(PROPIEDAD_METRICAS_COLUMNARES) ? new AlmacenColumnar() : null;
+        this.historial = new HistorialTransiciones();
+        this.reglasEscalamiento = new EnumMap<>(Prioridad.class);
+        for (ReglaEscalamiento regla : ReglaEscalamiento.predeterminadas()) {
+            reglasEscalamiento.put(regla.getDesde(), regla);
+        }
+        this.persistente = persistente;
+        this.soloLectura = false;
+        this.despachoAutomatico = false;
+        this.textoFueraDelHeap = true;
         this.siguienteIdTicket = 1;
         this.siguienteIdTecnico = 1;
         
-        cargarDatos();
+        if (persistente) {
+            bloquearDirectorio();
+            cargarDatos();
+            cargarIndiceTexto();
+            cargarModeloBayes();
+            cargarHistorial();
+        }
+        reconstruirIndices();
+        sincronizarIndiceTexto();
+        entrenarClasificadorBayes();
+        if (persistente) {
+            abrirJournalPersistente();
+        }
+    }
+    
+    /**
+     * Devuelve el directorio de datos indicado por la propiedad
+     * {@value #PROPIEDAD_DIRECTORIO_DATOS}, o el de trabajo si no está.
+     * 
+     * @return directorio de datos
+     */
+    public static File directorioDatosPredeterminado() {
+        String directorio = System.getProperty(PROPIEDAD_DIRECTORIO_DATOS);
+        return new File((directorio != null && !directorio.trim().isEmpty()) ? directorio.trim() : ".");
+    }
+    
+    /**
+     * Reserva el directorio de datos para este tablero, creándolo si no
+     * existe. La reserva dura hasta que termina el proceso.
+     * 
+     * @throws IllegalStateException si otro tablero ya lo reservó
+     */
+    public synchronized void bloquearDirectorioDatos() {
+        bloquearDirectorio();
+    }
+    
+    private void bloquearDirectorio() {
+        if (bloqueoDirectorio != null) {
+            return;
+        }
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IllegalStateException("No se pudo crear el directorio de datos " + directorio);
+        }
+        
+        FileChannel canal = null;
+        try {
+            canal = FileChannel.open(archivo(ARCHIVO_BLOQUEO).toPath(),
+                                     StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            bloqueoDirectorio = canal.tryLock();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo bloquear el directorio de datos: " + e.getMessage(), e);
+        } catch (OverlappingFileLockException e) {
+            bloqueoDirectorio = null;
+        }
+        if (bloqueoDirectorio == null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // El canal no llegó a usarse
+            }
+            throw new IllegalStateException("El directorio de datos " + directorio.getAbsoluteFile().toPath().normalize()
+                                            + " está en uso por otro proceso");
+        }
+    }
+    
+    /**
+     * Devuelve un archivo del directorio de datos.
+     */
+    private File archivo(String nombre) {
+        return new File(directorio, nombre);
     }
     
     /**
@@ -53,6 +249,9 @@ public class TableroService {
             
             // Luego cargar tickets
             this.tickets = repository.cargarTickets(mapaTecnicos);
+            for (Ticket ticket : tickets) {
+                mapaTickets.put(ticket.getId(), ticket);
+            }
             
             // Actualizar siguiente ID de ticket
             if (!tickets.isEmpty()) {
@@ -65,28 +264,294 @@ public class TableroService {
         } catch (IOException e) {
             System.err.println("Error al cargar datos: " + e.getMessage());
         }
+        
+        despachador.reconstruir(tecnicos, tickets);
     }
     
     /**
-     * Actualiza el mapa de técnicos para búsquedas rápidas.
+     * Actualiza el mapa de técnicos y el índice invertido habilidad -> técnicos
+     * para búsquedas rápidas.
      */
     private void actualizarMapaTecnicos() {
         mapaTecnicos.clear();
+        tecnicosPorSkill.clear();
         for (Tecnico tecnico : tecnicos) {
             mapaTecnicos.put(tecnico.getId(), tecnico);
+            indexarSkills(tecnico);
+        }
+    }
+    
+    /**
+     * Agrega un técnico al índice invertido de habilidades.
+     */
+    private void indexarSkills(Tecnico tecnico) {
+        BitSet mascara = tecnico.getMascaraSkills();
+        for (int skillId = mascara.nextSetBit(0); skillId >= 0; skillId = mascara.nextSetBit(skillId + 1)) {
+            tecnicosPorSkill.computeIfAbsent(skillId, k -> new ArrayList<>()).add(tecnico);
         }
     }
     
+    /**
+     * Quita a un técnico del índice invertido de habilidades y lo vuelve a
+     * agregar con sus habilidades actuales, también en el despachador.
+     */
+    private void reindexarSkills(Tecnico tecnico) {
+        Iterator<List<Tecnico>> listas = tecnicosPorSkill.values().iterator();
+        while (listas.hasNext()) {
+            List<Tecnico> lista = listas.next();
+            lista.removeIf(t -> t.getId() == tecnico.getId());
+            if (lista.isEmpty()) {
+                listas.remove();
+            }
+        }
+        indexarSkills(tecnico);
+        despachador.actualizarSkills(tecnico);
+    }
+    
     /**
      * Guarda todos los datos en archivos CSV.
      */
-    public void guardarDatos() {
+    public synchronized void guardarDatos() {
+        if (!persistente) {
+            return;
+        }
         try {
             repository.guardarTickets(tickets);
             repository.guardarTecnicos(tecnicos);
         } catch (IOException e) {
             System.err.println("Error al guardar datos: " + e.getMessage());
         }
+        try {
+            historial.guardar(archivo(ARCHIVO_HISTORIAL), huellaTickets());
+        } catch (IOException e) {
+            System.err.println("Error al guardar el historial: " + e.getMessage());
+        }
+        guardarJournal();
+        if (indiceTexto.getPendientesDeGuardar() >= TICKETS_POR_GUARDADO_INDICE
+                || clasificadorBayes.getPendientesDeGuardar() >= TICKETS_POR_GUARDADO_MODELO) {
+            guardarIndices();
+        }
+    }
+    
+    /**
+     * Guarda el índice de texto completo y el modelo bayesiano si tienen
+     * tickets sin guardar. Conviene llamarlo al cerrar la aplicación, para
+     * que el próximo arranque no tenga que procesar los tickets más
+     * recientes.
+     */
+    public synchronized void guardarIndices() {
+        if (!persistente) {
+            return;
+        }
+        if (indiceTexto.getPendientesDeGuardar() > 0) {
+            try {
+                indiceTexto.guardar(archivo(ARCHIVO_INDICE_TEXTO), huellaTickets());
+            } catch (IOException e) {
+                System.err.println("Error al guardar el índice de texto: " + e.getMessage());
+            }
+        }
+        if (clasificadorBayes.getPendientesDeGuardar() > 0) {
+            try {
+                clasificadorBayes.guardar(archivo(ARCHIVO_MODELO_BAYES), huellaTickets());
+            } catch (IOException e) {
+                System.err.println("Error al guardar el modelo bayesiano: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Devuelve la huella de los tickets actuales, que se guarda con el
+     * índice de texto, el modelo bayesiano y el historial para descartarlos
+     * si al arrancar tickets.csv ya no es el mismo.
+     */
+    private HuellaTickets huellaTickets() {
+        for (int id = siguienteIdTicket - 1; id > 0; id--) {
+            Ticket ultimo = mapaTickets.get(id);
+            if (ultimo != null) {
+                return HuellaTickets.de(ultimo);
+            }
+        }
+        return HuellaTickets.VACIA;
+    }
+    
+    /**
+     * Carga el índice de texto completo guardado. Si el archivo está dañado
+     * o se guardó con otros tickets se descarta y el índice se reconstruye
+     * desde los tickets.
+     */
+    private void cargarIndiceTexto() {
+        try {
+            indiceTexto.cargar(archivo(ARCHIVO_INDICE_TEXTO), mapaTickets);
+        } catch (IOException e) {
+            System.err.println("Índice de texto descartado: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Indexa los tickets que todavía no están en el índice de texto, como
+     * los creados después del último guardado del índice. El título y la
+     * descripción no cambian, así que los ya indexados siguen vigentes.
+     */
+    private void sincronizarIndiceTexto() {
+        for (Ticket ticket : tickets) {
+            indiceTexto.agregar(ticket);
+        }
+    }
+    
+    /**
+     * Carga el modelo bayesiano guardado. Si el archivo está dañado o se
+     * entrenó con otros tickets se descarta y el modelo se vuelve a entrenar
+     * con los tickets cerrados.
+     */
+    private void cargarModeloBayes() {
+        try {
+            clasificadorBayes.cargar(archivo(ARCHIVO_MODELO_BAYES), mapaTickets);
+        } catch (IOException e) {
+            System.err.println("Modelo bayesiano descartado: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Carga el historial de transiciones guardado. Si el archivo está dañado
+     * o se guardó con otros tickets se descarta y el historial sigue solo
+     * con las transiciones nuevas.
+     */
+    private void cargarHistorial() {
+        try {
+            historial.cargar(archivo(ARCHIVO_HISTORIAL), mapaTickets);
+        } catch (IOException e) {
+            System.err.println("Historial de transiciones descartado: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Abre la copia en disco del journal a partir de la mutación actual y,
+     * si no hay puntos de control o los registros posteriores al último ya
+     * alcanzan para otro, lo guarda.
+     */
+    private void abrirJournalPersistente() {
+        long retencion = Long.getLong(PROPIEDAD_DIAS_JOURNAL, DIAS_JOURNAL_PREDETERMINADOS) * 86_400_000L;
+        try {
+            journalPersistente = new JournalPersistente(archivo(ARCHIVO_JOURNAL),
+                                                        archivo(DIRECTORIO_PUNTOS_CONTROL), retencion);
+        } catch (IOException e) {
+            System.err.println("Error al abrir el journal: " + e.getMessage());
+            return;
+        }
+        journalGuardado = journal.getUltimaSecuencia();
+        lectorJournal = journal.registrarLector(journalGuardado, false);
+        guardarJournal();
+    }
+    
+    /**
+     * Agrega al journal en disco los registros nuevos y, cuando se
+     * acumularon suficientes, inicia un punto de control.
+     */
+    private void guardarJournal() {
+        if (journalPersistente == null) {
+            return;
+        }
+        try {
+            List<String> registros = journal.leerDesde(journalGuardado, Integer.MAX_VALUE, 0);
+            journalPersistente.agregar(registros);
+            journalGuardado += registros.size();
+            journal.avanzarLector(lectorJournal, journalGuardado);
+            if (journalPersistente.necesitaPuntoControl()) {
+                iniciarPuntoControl();
+            }
+        } catch (IOException e) {
+            System.err.println("Error al guardar el journal: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Inicia un punto de control si no hay otro en curso. El primero se toma
+     * del tablero actual, porque no hay desde dónde reconstruirlo; los
+     * siguientes se construyen en un hilo aparte a partir del anterior y de
+     * los registros en disco, sin bloquear el tablero.
+     */
+    private void iniciarPuntoControl() throws IOException {
+        if (hiloPuntoControl != null && hiloPuntoControl.isAlive()) {
+            return;
+        }
+        JournalPersistente archivoJournal = journalPersistente;
+        JournalPersistente.PuntoControl anterior = archivoJournal.ultimoPuntoControl();
+        if (anterior == null) {
+            List<String> instantanea = new ArrayList<>();
+            escribirInstantanea(instantanea, false);
+            archivoJournal.guardarPuntoControl(instantanea, System.currentTimeMillis(),
+                                               archivoJournal.getLongitud(), Long.MAX_VALUE);
+            return;
+        }
+        
+        long limite = archivoJournal.getLongitud();
+        File directorioDatos = directorio;
+        hiloPuntoControl = new Thread(() -> construirPuntoControl(archivoJournal, anterior, limite, directorioDatos),
+                                      "punto-control");
+        hiloPuntoControl.setDaemon(true);
+        hiloPuntoControl.start();
+    }
+    
+    /**
+     * Reconstruye en un tablero aparte el estado al final de los registros
+     * escritos hasta {@code limite}, guarda su instantánea como punto de
+     * control y poda los puntos y registros que ya no hacen falta.
+     */
+    private static void construirPuntoControl(JournalPersistente archivoJournal,
+                                              JournalPersistente.PuntoControl anterior,
+                                              long limite, File directorioDatos) {
+        try {
+            List<String> registros = archivoJournal.leerDesde(anterior, limite);
+            if (registros.isEmpty()) {
+                return;
+            }
+            TableroService reconstruido = tableroHistorico(directorioDatos);
+            reconstruido.cargarInstantanea(archivoJournal.leerPuntoControl(anterior));
+            long marcaTiempo = anterior.getMarcaTiempo();
+            for (String registro : registros) {
+                reconstruido.aplicarRegistro(registro);
+                marcaTiempo = Math.max(marcaTiempo, Journal.marcaTiempo(registro));
+            }
+            
+            List<String> instantanea = new ArrayList<>();
+            reconstruido.escribirInstantanea(instantanea, false);
+            archivoJournal.guardarPuntoControl(instantanea, marcaTiempo, limite, registros.size());
+            archivoJournal.podar(System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error al guardar el punto de control: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Espera a que termine el punto de control en curso, si lo hay. Conviene
+     * llamarlo al cerrar la aplicación, después de {@link #guardarDatos()},
+     * para que un proceso corto como el modo de comandos no lo abandone a
+     * medio construir.
+     */
+    public void esperarPuntoControl() {
+        Thread pendiente;
+        synchronized (this) {
+            pendiente = hiloPuntoControl;
+        }
+        if (pendiente != null) {
+            try {
+                pendiente.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Entrena el modelo bayesiano con los tickets cerrados que todavía no
+     * aprendió, como los cerrados después del último guardado del modelo.
+     */
+    private void entrenarClasificadorBayes() {
+        for (Ticket ticket : tickets) {
+            clasificadorBayes.entrenar(ticket);
+        }
     }
     
     /**
@@ -98,14 +563,11 @@ public class TableroService {
      * @param prioridad Prioridad del ticket
      * @return ID del ticket creado
      */
-    public int crearTicket(String titulo, String descripcion, String categoria, Prioridad prioridad) {
-        validarDatosTicket(titulo, descripcion, categoria);
-        
-        Ticket nuevoTicket = new Ticket(siguienteIdTicket++, titulo, descripcion, categoria, prioridad);
-        tickets.add(nuevoTicket);
+    public synchronized int crearTicket(String titulo, String descripcion, String categoria, Prioridad prioridad) {
+        verificarEscritura();
+        int ticketId = crearTicketSinGuardar(titulo, descripcion, categoria, prioridad, false);
         guardarDatos();
-        
-        return nuevoTicket.getId();
+        return ticketId;
     }
     
     /**
@@ -115,14 +577,11 @@ public class TableroService {
      * @param descripcion Descripción del ticket
      * @return ID del ticket creado
      */
-    public int crearTicketConClasificacion(String titulo, String descripcion) {
-        validarDatosTicket(titulo, descripcion, null);
-        
-        Object[] clasificacion = Clasificador.clasificarCompleto(titulo, descripcion);
-        String categoria = (String) clasificacion[0];
-        Prioridad prioridad = (Prioridad) clasificacion[1];
-        
-        return crearTicket(titulo, descripcion, categoria, prioridad);
+    public synchronized int crearTicketConClasificacion(String titulo, String descripcion) {
+        verificarEscritura();
+        int ticketId = crearTicketConClasificacionSinGuardar(titulo, descripcion);
+        guardarDatos();
+        return ticketId;
     }
     
     /**
@@ -133,18 +592,9 @@ public class TableroService {
      * @throws IllegalArgumentException si el ticket o técnico no existen
      * @throws IllegalStateException si el ticket no se puede asignar
      */
-    public void asignarTicket(int ticketId, int tecnicoId) {
-        Ticket ticket = buscarTicketPorId(ticketId);
-        if (ticket == null) {
-            throw new IllegalArgumentException("Ticket con ID " + ticketId + " no encontrado");
-        }
-        
-        Tecnico tecnico = mapaTecnicos.get(tecnicoId);
-        if (tecnico == null) {
-            throw new IllegalArgumentException("Técnico con ID " + tecnicoId + " no encontrado");
-        }
-        
-        ticket.asignar(tecnico);
+    public synchronized void asignarTicket(int ticketId, int tecnicoId) {
+        verificarEscritura();
+        asignarTicketSinGuardar(ticketId, tecnicoId);
         guardarDatos();
     }
     
@@ -155,13 +605,9 @@ public class TableroService {
      * @throws IllegalArgumentException si el ticket no existe
      * @throws IllegalStateException si el ticket no se puede iniciar
      */
-    public void iniciarTicket(int ticketId) {
-        Ticket ticket = buscarTicketPorId(ticketId);
-        if (ticket == null) {
-            throw new IllegalArgumentException("Ticket con ID " + ticketId + " no encontrado");
-        }
-        
-        ticket.iniciar();
+    public synchronized void iniciarTicket(int ticketId) {
+        verificarEscritura();
+        iniciarTicketSinGuardar(ticketId);
         guardarDatos();
     }
     
@@ -172,111 +618,898 @@ public class TableroService {
      * @throws IllegalArgumentException si el ticket no existe
      * @throws IllegalStateException si el ticket no se puede cerrar
      */
-    public void cerrarTicket(int ticketId) {
-        Ticket ticket = buscarTicketPorId(ticketId);
-        if (ticket == null) {
-            throw new IllegalArgumentException("Ticket con ID " + ticketId + " no encontrado");
-        }
-        
-        ticket.cerrar();
+    public synchronized void cerrarTicket(int ticketId) {
+        verificarEscritura();
+        cerrarTicketSinGuardar(ticketId);
         guardarDatos();
     }
     
     /**
-     * Devuelve una lista de tickets pendientes ordenados por prioridad.
+     * Ejecuta un lote de operaciones dentro de una única sección crítica y
+     * guarda los datos una sola vez al final.
+     * Primero se validan todas las operaciones en conjunto; las que no
+     * superan la validación se reportan como fallidas y no se aplican.
+     * Las demás se aplican en orden, y el fallo de una no detiene el resto.
      * 
-     * @return Lista de tickets ordenados por prioridad (ALTA -> BAJA)
+     * @param operaciones Lista de operaciones a ejecutar
+     * @return Lista de resultados, uno por operación y en el mismo orden
      */
-    public List<Ticket> pendientesPorPrioridad() {
-        return tickets.stream()
-            .filter(t -> t.getEstado() != Estado.CERRADO)
-            .sorted((t1, t2) -> Integer.compare(t2.getPrioridad().getValor(), t1.getPrioridad().getValor()))
-            .collect(Collectors.toList());
+    public synchronized List<ResultadoLote> ejecutarLote(List<OperacionLote> operaciones) {
+        return ejecutarLote(operaciones, true);
     }
     
     /**
-     * Busca tickets por categoría.
+     * Ejecuta un lote de operaciones dentro de una única sección crítica,
+     * como {@link #ejecutarLote(List)}, pero permite postergar el guardado
+     * para quien ejecuta varios lotes seguidos y llama a
+     * {@link #guardarDatos()} una sola vez al terminar.
      * 
-     * @param categoria Categoría a buscar
-     * @return Lista de tickets de la categoría especificada
+     * @param operaciones Lista de operaciones a ejecutar
+     * @param guardar true para guardar los datos si hubo cambios
+     * @return Lista de resultados, uno por operación y en el mismo orden
      */
-    public List<Ticket> buscarPorCategoria(String categoria) {
-        return tickets.stream()
-            .filter(t -> t.getCategoria().equalsIgnoreCase(categoria))
-            .collect(Collectors.toList());
+    public synchronized List<ResultadoLote> ejecutarLote(List<OperacionLote> operaciones, boolean guardar) {
+        verificarEscritura();
+        List<ResultadoLote> resultados = new ArrayList<>(operaciones.size());
+        boolean hayCambios = false;
+        
+        String[] errores = validarLote(operaciones);
+        
+        for (int i = 0; i < operaciones.size(); i++) {
+            OperacionLote operacion = operaciones.get(i);
+            if (errores[i] != null) {
+                resultados.add(ResultadoLote.fallido(i, operacion, errores[i]));
+                continue;
+            }
+            
+            try {
+                int ticketId = aplicarOperacion(operacion);
+                resultados.add(ResultadoLote.exitoso(i, operacion, ticketId));
+                hayCambios = true;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                resultados.add(ResultadoLote.fallido(i, operacion, e.getMessage()));
+            }
+        }
+        
+        if (hayCambios && guardar) {
+            guardarDatos();
+        }
+        return resultados;
     }
     
     /**
-     * Busca tickets por estado.
+     * Valida en conjunto las operaciones de un lote antes de aplicarlas:
+     * datos requeridos, existencia de tickets y técnicos referenciados e
+     * inicios o cierres repetidos sobre el mismo ticket. Los tickets que
+     * crean las operaciones anteriores del mismo lote cuentan como
+     * existentes: los IDs se asignan en orden, así que se conocen de antemano.
      * 
-     * @param estado Estado a buscar
-     * @return Lista de tickets con el estado especificado
+     * @return arreglo con el mensaje de error de cada operación, o null si es válida
      */
-    public List<Ticket> buscarPorEstado(Estado estado) {
-        return tickets.stream()
-            .filter(t -> t.getEstado() == estado)
-            .collect(Collectors.toList());
+    private String[] validarLote(List<OperacionLote> operaciones) {
+        String[] errores = new String[operaciones.size()];
+        Set<String> vistas = new HashSet<>();
+        Set<Integer> creados = new HashSet<>();
+        int proximoId = siguienteIdTicket;
+        
+        for (int i = 0; i < operaciones.size(); i++) {
+            OperacionLote operacion = operaciones.get(i);
+            
+            if (operacion == null) {
+                errores[i] = "Operación nula";
+                continue;
+            }
+            
+            switch (operacion.getTipo()) {
+                case CREAR:
+                    try {
+                        validarDatosTicket(operacion.getTitulo(), operacion.getDescripcion(), operacion.getCategoria());
+                        creados.add(proximoId++);
+                    } catch (IllegalArgumentException e) {
+                        errores[i] = e.getMessage();
+                    }
+                    break;
+                case ASIGNAR:
+                    if (!existeEnLote(operacion.getTicketId(), creados)) {
+                        errores[i] = "Ticket con ID " + operacion.getTicketId() + " no encontrado";
+                    } else if (!mapaTecnicos.containsKey(operacion.getTecnicoId())) {
+                        errores[i] = "Técnico con ID " + operacion.getTecnicoId() + " no encontrado";
+                    }
+                    break;
+                case INICIAR:
+                case CERRAR:
+                    if (!existeEnLote(operacion.getTicketId(), creados)) {
+                        errores[i] = "Ticket con ID " + operacion.getTicketId() + " no encontrado";
+                    } else if (!vistas.add(operacion.getTipo() + ":" + operacion.getTicketId())) {
+                        errores[i] = "Operación " + operacion.getTipo() + " repetida para el ticket " + operacion.getTicketId();
+                    }
+                    break;
+            }
+        }
+        
+        return errores;
+    }
+    
+    private boolean existeEnLote(int ticketId, Set<Integer> creados) {
+        return mapaTickets.containsKey(ticketId) || creados.contains(ticketId);
     }
     
     /**
-     * Busca tickets asignados a un técnico específico.
+     * Aplica una operación de lote sin persistir.
      * 
-     * @param tecnicoId ID del técnico
-     * @return Lista de tickets asignados al técnico
+     * @return ID del ticket afectado o creado
      */
-    public List<Ticket> buscarPorTecnico(int tecnicoId) {
-        return tickets.stream()
-            .filter(t -> t.getTecnicoAsignado() != null && t.getTecnicoAsignado().getId() == tecnicoId)
-            .collect(Collectors.toList());
+    private int aplicarOperacion(OperacionLote operacion) {
+        switch (operacion.getTipo()) {
+            case CREAR:
+                if (operacion.getCategoria() == null || operacion.getCategoria().trim().isEmpty()) {
+                    return crearTicketConClasificacionSinGuardar(operacion.getTitulo(), operacion.getDescripcion());
+                }
+                return crearTicketSinGuardar(operacion.getTitulo(), operacion.getDescripcion(),
+                                             operacion.getCategoria(), operacion.getPrioridad(), false);
+            case ASIGNAR:
+                asignarTicketSinGuardar(operacion.getTicketId(), operacion.getTecnicoId());
+                return operacion.getTicketId();
+            case INICIAR:
+                iniciarTicketSinGuardar(operacion.getTicketId());
+                return operacion.getTicketId();
+            case CERRAR:
+                cerrarTicketSinGuardar(operacion.getTicketId());
+                return operacion.getTicketId();
+            default:
+                throw new IllegalArgumentException("Tipo de operación no soportado: " + operacion.getTipo());
+        }
     }
     
     /**
-     * Calcula métricas del sistema.
+     * Crea un ticket sin persistir.
      * 
-     * @return Mapa con las métricas calculadas
+     * @param automatica true si la categoría y la prioridad las eligió el
+     *                   clasificador
+     * @return ID del ticket creado
      */
-    public Map<String, Object> calcularMetricas() {
-        Map<String, Object> metricas = new HashMap<>();
+    private int crearTicketSinGuardar(String titulo, String descripcion, String categoria, Prioridad prioridad,
+                                      boolean automatica) {
+        validarDatosTicket(titulo, descripcion, categoria);
         
-        int totalTickets = tickets.size();
-        if (totalTickets == 0) {
-            metricas.put("totalTickets", 0);
-            metricas.put("porcentajeCerrados", 0.0);
-            metricas.put("tiempoPromedioResolucion", 0.0);
-            return metricas;
+        int ticketOriginalId = detectorDuplicados.buscarOriginal(titulo, descripcion);
+        Ticket nuevoTicket = new Ticket(siguienteIdTicket++, titulo, descripcion, categoria, prioridad);
+        if (ticketOriginalId > 0) {
+            nuevoTicket.marcarDuplicadoDe(ticketOriginalId);
         }
+        if (automatica) {
+            nuevoTicket.marcarClasificacionAutomatica();
+        }
+        tickets.add(nuevoTicket);
+        mapaTickets.put(nuevoTicket.getId(), nuevoTicket);
+        indexarPendiente(nuevoTicket);
+        programarEscalamiento(nuevoTicket);
+        indiceTexto.agregar(nuevoTicket);
+        registrarCambio(TipoEvento.TICKET_CREADO, nuevoTicket);
         
-        // Tickets cerrados
-        List<Ticket> ticketsCerrados = tickets.stream()
-            .filter(t -> t.getEstado() == Estado.CERRADO)
-            .collect(Collectors.toList());
-        
-        int ticketsCerradosCount = ticketsCerrados.size();
-        double porcentajeCerrados = (ticketsCerradosCount * 100.0) / totalTickets;
-        
-        // Tiempo promedio de resolución
-        double tiempoPromedio = ticketsCerrados.stream()
-            .mapToLong(Ticket::calcularDuracionResolucion)
-            .filter(duracion -> duracion > 0)
-            .average()
-            .orElse(0.0);
-        
-        // Tickets por estado
-        Map<Estado, Long> ticketsPorEstado = tickets.stream()
-            .collect(Collectors.groupingBy(Ticket::getEstado, Collectors.counting()));
-        
-        // Tickets por prioridad
-        Map<Prioridad, Long> ticketsPorPrioridad = tickets.stream()
-            .collect(Collectors.groupingBy(Ticket::getPrioridad, Collectors.counting()));
-        
-        metricas.put("totalTickets", totalTickets);
-        metricas.put("ticketsCerrados", ticketsCerradosCount);
-        metricas.put("porcentajeCerrados", porcentajeCerrados);
-        metricas.put("tiempoPromedioResolucion", tiempoPromedio);
-        metricas.put("ticketsPorEstado", ticketsPorEstado);
-        metricas.put("ticketsPorPrioridad", ticketsPorPrioridad);
+        if (despachoAutomatico) {
+            despacharSinGuardar(nuevoTicket);
+        }
         
-        return metricas;
+        return nuevoTicket.getId();
+    }
+    
+    /**
+     * Crea un ticket con clasificación automática sin persistir.
+     * 
+     * @return ID del ticket creado
+     */
+    private int crearTicketConClasificacionSinGuardar(String titulo, String descripcion) {
+        validarDatosTicket(titulo, descripcion, null);
+        
+        ResultadoClasificacion clasificacion = Clasificador.clasificar(titulo, descripcion);
+        return crearTicketSinGuardar(titulo, descripcion, clasificacion.getCategoria(), clasificacion.getPrioridad(),
+                                     true);
+    }
+    
+    /**
+     * Asigna un ticket a un técnico sin persistir.
+     */
+    private void asignarTicketSinGuardar(int ticketId, int tecnicoId) {
+        Ticket ticket = obtenerTicket(ticketId);
+        Tecnico tecnico = obtenerTecnico(tecnicoId);
+        
+        asignarSinGuardar(ticket, tecnico);
+    }
+    
+    /**
+     * Inicia un ticket sin persistir.
+     */
+    private void iniciarTicketSinGuardar(int ticketId) {
+        Ticket ticket = obtenerTicket(ticketId);
+        ticket.iniciar();
+        registrarCambio(TipoEvento.TICKET_INICIADO, ticket);
+    }
+    
+    /**
+     * Cierra un ticket sin persistir.
+     */
+    private void cerrarTicketSinGuardar(int ticketId) {
+        Ticket ticket = obtenerTicket(ticketId);
+        ticket.cerrar();
+        desindexarPendiente(ticket);
+        despachador.decrementarCarga(ticket.getTecnicoAsignado());
+        registrarCambio(TipoEvento.TICKET_CERRADO, ticket);
+    }
+    
+    /**
+     * Obtiene un ticket existente.
+     * 
+     * @throws IllegalArgumentException si el ticket no existe
+     */
+    private Ticket obtenerTicket(int ticketId) {
+        Ticket ticket = mapaTickets.get(ticketId);
+        if (ticket == null) {
+            throw new IllegalArgumentException("Ticket con ID " + ticketId + " no encontrado");
+        }
+        return ticket;
+    }
+    
+    /**
+     * Asigna automáticamente un ticket al técnico menos cargado que puede
+     * atender su categoría.
+     * 
+     * @param ticketId ID del ticket
+     * @return ID del técnico asignado, o -1 si ningún técnico puede atenderlo
+     * @throws IllegalArgumentException si el ticket no existe
+     * @throws IllegalStateException si el ticket no está abierto o ya tiene técnico
+     */
+    public synchronized int despacharTicket(int ticketId) {
+        verificarEscritura();
+        Ticket ticket = obtenerTicket(ticketId);
+        if (ticket.getEstado() != Estado.ABIERTO || ticket.getTecnicoAsignado() != null) {
+            throw new IllegalStateException("Solo se pueden despachar tickets abiertos sin técnico asignado");
+        }
+        
+        int tecnicoId = despacharSinGuardar(ticket);
+        if (tecnicoId != -1) {
+            guardarDatos();
+        }
+        return tecnicoId;
+    }
+    
+    /**
+     * Despacha en una sola pasada todos los tickets abiertos sin técnico,
+     * atendiendo primero los de mayor prioridad y, dentro de la misma
+     * prioridad, los más antiguos. Los datos se guardan una única vez.
+     * 
+     * @return Mapa ordenado ID de ticket -> ID de técnico con las asignaciones realizadas
+     */
+    public synchronized Map<Integer, Integer> despacharPendientes() {
+        verificarEscritura();
+        List<Ticket> sinAsignar = tickets.stream()
+            .filter(t -> t.getEstado() == Estado.ABIERTO && t.getTecnicoAsignado() == null)
+            .sorted(Comparator.comparing((Ticket t) -> t.getPrioridad().getValor()).reversed()
+                .thenComparing(Ticket::getFechaCreacion)
+                .thenComparing(Ticket::getId))
+            .collect(Collectors.toList());
+        
+        Map<Integer, Integer> asignaciones = new LinkedHashMap<>();
+        for (Ticket ticket : sinAsignar) {
+            int tecnicoId = despacharSinGuardar(ticket);
+            if (tecnicoId != -1) {
+                asignaciones.put(ticket.getId(), tecnicoId);
+            }
+        }
+        
+        if (!asignaciones.isEmpty()) {
+            guardarDatos();
+        }
+        return asignaciones;
+    }
+    
+    /**
+     * Activa o desactiva el despacho automático de los tickets nuevos.
+     * 
+     * @param despachoAutomatico true para asignar cada ticket nuevo al crearlo
+     */
+    public synchronized void setDespachoAutomatico(boolean despachoAutomatico) {
+        this.despachoAutomatico = despachoAutomatico;
+    }
+    
+    public synchronized boolean isDespachoAutomatico() {
+        return despachoAutomatico;
+    }
+    
+    /**
+     * Devuelve la carga actual de un técnico.
+     * 
+     * @param tecnicoId ID del técnico
+     * @return número de tickets asignados no cerrados
+     */
+    public synchronized int getCargaTecnico(int tecnicoId) {
+        return despachador.getCarga(tecnicoId);
+    }
+    
+    /**
+     * Asigna un ticket actualizando la carga de los técnicos, sin persistir.
+     */
+    private void asignarSinGuardar(Ticket ticket, Tecnico tecnico) {
+        Tecnico anterior = ticket.getTecnicoAsignado();
+        Estado estadoAnterior = ticket.getEstado();
+        ticket.asignar(tecnico);
+        
+        if (anterior != tecnico) {
+            despachador.decrementarCarga(anterior);
+            despachador.incrementarCarga(tecnico);
+        }
+        
+        registrarCambio(TipoEvento.TICKET_ASIGNADO, ticket);
+        if (estadoAnterior != ticket.getEstado()) {
+            registrarCambio(TipoEvento.TICKET_INICIADO, ticket);
+        }
+    }
+    
+    /**
+     * Lleva el texto de un ticket al almacén fuera del heap si hay uno
+     * activo, actualiza sus índices de búsqueda, entrena el modelo bayesiano
+     * si el ticket quedó cerrado, registra el cambio en el historial de
+     * transiciones y en el journal y lo publica en el bus.
+     */
+    private void registrarCambio(TipoEvento tipo, Ticket ticket) {
+        moverTexto(ticket);
+        actualizarIndices(ticket);
+        clasificadorBayes.entrenar(ticket);
+        historial.registrar(ticket.getId(), tipo, idTecnico(ticket), System.currentTimeMillis());
+        journal.agregar(tipo, repository.formatearTicket(ticket));
+        busEventos.publicar(tipo, ticket.getId(), idTecnico(ticket));
+    }
+    
+    /**
+     * Lleva el texto de un ticket al almacén fuera del heap si hay uno
+     * activo. Los tableros temporales de {@link #estadoEn} no lo usan,
+     * porque el almacén no libera lo que se le agrega.
+     */
+    private void moverTexto(Ticket ticket) {
+        if (textoFueraDelHeap) {
+            ticket.moverTextoFueraDelHeap();
+        }
+    }
+    
+    /**
+     * Registra un técnico nuevo, o el nuevo estado de uno existente, en el
+     * journal y lo publica en el bus.
+     */
+    private void registrarTecnico(Tecnico tecnico) {
+        journal.agregar(TipoEvento.TECNICO_AGREGADO, repository.formatearTecnico(tecnico));
+        busEventos.publicar(TipoEvento.TECNICO_AGREGADO, 0, tecnico.getId());
+    }
+    
+    /**
+     * Devuelve el ID del técnico asignado a un ticket, o 0 si no tiene.
+     */
+    private static int idTecnico(Ticket ticket) {
+        return (ticket.getTecnicoAsignado() != null) ? ticket.getTecnicoAsignado().getId() : 0;
+    }
+    
+    /**
+     * Impide las mutaciones cuando el tablero es una réplica de solo lectura.
+     * 
+     * @throws IllegalStateException si el tablero es de solo lectura
+     */
+    private void verificarEscritura() {
+        if (soloLectura) {
+            throw new IllegalStateException("El tablero es una réplica de solo lectura");
+        }
+    }
+    
+    /**
+     * Asigna un ticket al técnico menos cargado, sin persistir.
+     * 
+     * @return ID del técnico asignado, o -1 si no hay técnico disponible
+     */
+    private int despacharSinGuardar(Ticket ticket) {
+        Tecnico tecnico = despachador.seleccionarTecnico(ticket.getCategoria());
+        if (tecnico == null) {
+            return -1;
+        }
+        
+        asignarSinGuardar(ticket, tecnico);
+        return tecnico.getId();
+    }
+    
+    /**
+     * Devuelve una lista de tickets pendientes ordenados por prioridad.
+     * 
+     * @return Lista de tickets ordenados por prioridad (ALTA -> BAJA)
+     */
+    public synchronized List<Ticket> pendientesPorPrioridad() {
+        List<Ticket> resultado = new ArrayList<>();
+        resultado.addAll(pendientes.get(Prioridad.ALTA).values());
+        resultado.addAll(pendientes.get(Prioridad.MEDIA).values());
+        resultado.addAll(pendientes.get(Prioridad.BAJA).values());
+        return resultado;
+    }
+    
+    /**
+     * Devuelve los tickets pendientes creados hace más tiempo. Como los IDs
+     * se asignan en orden de creación, basta con tomar los primeros de las
+     * listas de pendientes, sin ordenar ni calcular antigüedades.
+     * 
+     * @param prioridad Prioridad de los tickets, o null para cualquiera
+     * @param limite Cantidad máxima de resultados
+     * @return Lista de tickets del más antiguo al más reciente
+     */
+    public synchronized List<Ticket> pendientesMasAntiguos(Prioridad prioridad, int limite) {
+        List<Ticket> resultado = new ArrayList<>(Math.max(0, Math.min(limite, 1024)));
+        if (prioridad != null) {
+            for (Ticket ticket : pendientes.get(prioridad).values()) {
+                if (resultado.size() >= limite) {
+                    break;
+                }
+                resultado.add(ticket);
+            }
+            return resultado;
+        }
+        
+        // Mezcla ordenada por ID de las tres listas de pendientes
+        List<Iterator<Ticket>> iteradores = new ArrayList<>();
+        Ticket[] siguientes = new Ticket[Prioridad.values().length];
+        for (Prioridad p : Prioridad.values()) {
+            Iterator<Ticket> iterador = pendientes.get(p).values().iterator();
+            iteradores.add(iterador);
+            siguientes[iteradores.size() - 1] = iterador.hasNext() ? iterador.next() : null;
+        }
+        while (resultado.size() < limite) {
+            int menor = -1;
+            for (int i = 0; i < siguientes.length; i++) {
+                if (siguientes[i] != null && (menor < 0 || siguientes[i].getId() < siguientes[menor].getId())) {
+                    menor = i;
+                }
+            }
+            if (menor < 0) {
+                break;
+            }
+            resultado.add(siguientes[menor]);
+            siguientes[menor] = iteradores.get(menor).hasNext() ? iteradores.get(menor).next() : null;
+        }
+        return resultado;
+    }
+    
+    /**
+     * Devuelve los tickets en curso de un técnico que llevan más tiempo
+     * iniciados.
+     * 
+     * @param tecnicoId ID del técnico
+     * @param limite Cantidad máxima de resultados
+     * @return Lista de tickets del iniciado hace más tiempo al más reciente
+     */
+    public synchronized List<Ticket> enCursoMasLargos(int tecnicoId, int limite) {
+        return masAntiguos(new ConsultaTickets().conEstado(Estado.EN_CURSO).conTecnico(tecnicoId),
+                           CampoFecha.INICIO, limite);
+    }
+    
+    /**
+     * Devuelve, para cada técnico con trabajo en curso, sus tickets en curso
+     * que llevan más tiempo iniciados.
+     * 
+     * @param limite Cantidad máxima de tickets por técnico
+     * @return Mapa ID de técnico -> tickets, sin técnicos sin trabajo en curso
+     */
+    public synchronized Map<Integer, List<Ticket>> enCursoMasLargosPorTecnico(int limite) {
+        Map<Integer, List<Ticket>> resultado = new LinkedHashMap<>();
+        for (Tecnico tecnico : tecnicos) {
+            List<Ticket> enCurso = enCursoMasLargos(tecnico.getId(), limite);
+            if (!enCurso.isEmpty()) {
+                resultado.put(tecnico.getId(), enCurso);
+            }
+        }
+        return resultado;
+    }
+    
+    /**
+     * Devuelve los tickets que cumplen una consulta con la fecha más antigua
+     * en el campo indicado. El costo es proporcional al límite o a los
+     * candidatos de la consulta, nunca a ordenar todos los tickets.
+     * 
+     * @param consulta Criterios de búsqueda
+     * @param campo Fecha por la que se ordena
+     * @param limite Cantidad máxima de resultados
+     * @return Lista de tickets del más antiguo al más reciente
+     */
+    public synchronized List<Ticket> masAntiguos(ConsultaTickets consulta, CampoFecha campo, int limite) {
+        if (consulta.getTexto() != null) {
+            completarIndiceTexto();
+        }
+        return indiceTickets.masAntiguos(consulta, campo, limite, mapaTickets);
+    }
+    
+    /**
+     * Busca tickets por categoría.
+     * 
+     * @param categoria Categoría a buscar
+     * @return Lista de tickets de la categoría especificada
+     */
+    public synchronized List<Ticket> buscarPorCategoria(String categoria) {
+        return consultar(new ConsultaTickets().conCategoria(categoria));
+    }
+    
+    /**
+     * Busca tickets por estado.
+     * 
+     * @param estado Estado a buscar
+     * @return Lista de tickets con el estado especificado
+     */
+    public synchronized List<Ticket> buscarPorEstado(Estado estado) {
+        return consultar(new ConsultaTickets().conEstado(estado));
+    }
+    
+    /**
+     * Busca tickets asignados a un técnico específico.
+     * 
+     * @param tecnicoId ID del técnico
+     * @return Lista de tickets asignados al técnico
+     */
+    public synchronized List<Ticket> buscarPorTecnico(int tecnicoId) {
+        return consultar(new ConsultaTickets().conTecnico(tecnicoId));
+    }
+    
+    /**
+     * Busca tickets que cumplen varios criterios a la vez. Se parte del
+     * índice más selectivo y se interseca con los demás; los criterios sin
+     * índice se evalúan solo sobre los candidatos.
+     * 
+     * @param consulta Criterios de búsqueda
+     * @return Lista de tickets que cumplen la consulta, ordenados por ID
+     */
+    public synchronized List<Ticket> consultar(ConsultaTickets consulta) {
+        if (consulta.getTexto() != null) {
+            completarIndiceTexto();
+        }
+        return indiceTickets.consultar(consulta, mapaTickets);
+    }
+    
+    /**
+     * Describe cómo se resolvería una consulta: índices usados, en qué
+     * orden y con cuántos tickets cada uno, y filtros residuales.
+     * 
+     * @param consulta Criterios de búsqueda
+     * @return descripción del plan
+     */
+    public synchronized String explicarConsulta(ConsultaTickets consulta) {
+        if (consulta.getTexto() != null) {
+            completarIndiceTexto();
+        }
+        return indiceTickets.explicar(consulta);
+    }
+    
+    /**
+     * Busca tickets por relevancia en el título y la descripción. No
+     * distingue mayúsculas ni acentos y reduce plurales, de modo que
+     * "impresoras" encuentra "Impresora atascada".
+     * 
+     * @param texto Palabras a buscar
+     * @param limite Cantidad máxima de resultados
+     * @return Lista de tickets del más al menos relevante
+     */
+    public synchronized List<Ticket> buscarTexto(String texto, int limite) {
+        completarIndiceTexto();
+        List<Ticket> resultado = new ArrayList<>();
+        for (IndiceTextoCompleto.Coincidencia coincidencia : indiceTexto.buscar(texto, limite)) {
+            Ticket ticket = mapaTickets.get(coincidencia.getTicketId());
+            if (ticket != null) {
+                resultado.add(ticket);
+            }
+        }
+        return resultado;
+    }
+    
+    /**
+     * Devuelve las transiciones de un ticket: creación, asignaciones,
+     * inicio, cierre, escalamientos y reclasificaciones.
+     * 
+     * @param ticketId ID del ticket
+     * @return transiciones de la más antigua a la más reciente; vacía si el
+     *         ticket no existe o es anterior al historial
+     */
+    public synchronized List<HistorialTransiciones.Transicion> historialTicket(int ticketId) {
+        return historial.deTicket(ticketId);
+    }
+    
+    /**
+     * Devuelve las transiciones de todos los tickets en un rango de fechas.
+     * 
+     * @param desde Fecha inicial, inclusive
+     * @param hasta Fecha final, inclusive
+     * @param limite Cantidad máxima de transiciones
+     * @return las primeras transiciones del rango en orden cronológico
+     */
+    public synchronized List<HistorialTransiciones.Transicion> transicionesEntre(LocalDateTime desde,
+                                                                              LocalDateTime hasta, int limite) {
+        ZoneId zona = ZoneId.systemDefault();
+        return historial.entre(desde.atZone(zona).toInstant().toEpochMilli(),
+                               hasta.atZone(zona).toInstant().toEpochMilli(), limite);
+    }
+    
+    /**
+     * Reconstruye el tablero tal como estaba en un instante pasado, para
+     * consultar por ejemplo sus pendientes, sus tickets por estado o sus
+     * métricas. Se parte del último punto de control anterior al instante y
+     * se aplican los registros del journal en disco hasta ese instante, así
+     * que el costo no depende de la antigüedad del instante. El tablero no se
+     * bloquea durante la reconstrucción. El último instante pasado
+     * reconstruido se conserva, de modo que varias consultas sobre el mismo
+     * instante lo reconstruyen una sola vez.
+     * 
+     * @param instante Instante a reconstruir
+     * @return tablero en memoria y de solo lectura con el estado de ese
+     *         instante
+     * @throws IllegalStateException si el tablero no guarda su journal
+     * @throws IllegalArgumentException si el instante es anterior al primer
+     *                                  punto de control
+     * @throws IOException si no se puede leer el journal
+     */
+    public TableroService estadoEn(LocalDateTime instante) throws IOException {
+        long marcaTiempo = instante.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        JournalPersistente archivo;
+        JournalPersistente.PuntoControl punto;
+        long limite;
+        long ahora;
+        synchronized (this) {
+            if (journalPersistente == null) {
+                throw new IllegalStateException("El tablero no guarda su journal en disco");
+            }
+            if (estadoPasado != null && instanteEstadoPasado == marcaTiempo) {
+                return estadoPasado;
+            }
+            guardarJournal();
+            archivo = journalPersistente;
+            punto = archivo.puntoControlAnterior(marcaTiempo);
+            limite = archivo.getLongitud();
+            ahora = System.currentTimeMillis();
+        }
+        if (punto == null) {
+            throw new IllegalArgumentException("No hay datos guardados anteriores a " + instante);
+        }
+        
+        TableroService pasado = tableroHistorico(directorio);
+        pasado.cargarInstantanea(archivo.leerPuntoControl(punto));
+        for (String registro : archivo.leerDesde(punto, limite)) {
+            if (Journal.marcaTiempo(registro) > marcaTiempo) {
+                break;
+            }
+            pasado.aplicarRegistro(registro);
+        }
+        pasado.setSoloLectura(true);
+        
+        // Los registros que se escriban desde ahora tendrán marcas posteriores
+        // al instante, así que el estado reconstruido ya no puede cambiar
+        if (marcaTiempo < ahora) {
+            synchronized (this) {
+                estadoPasado = pasado;
+                instanteEstadoPasado = marcaTiempo;
+            }
+        }
+        return pasado;
+    }
+    
+    /**
+     * Crea un tablero en memoria para reconstruir un estado guardado. Como
+     * solo se consulta, no programa escalamientos, no entrena el clasificador
+     * bayesiano ni mantiene el detector de duplicados, y su índice de texto
+     * se arma recién con la primera búsqueda que lo necesita.
+     */
+    private static TableroService tableroHistorico(File directorio) {
+        TableroService tablero = new TableroService(false, directorio);
+        tablero.historico = true;
+        tablero.textoFueraDelHeap = false;
+        return tablero;
+    }
+    
+    /**
+     * Indexa el texto de los tickets que un tablero histórico cargó sin
+     * indexar.
+     */
+    private void completarIndiceTexto() {
+        if (indiceTextoIncompleto) {
+            sincronizarIndiceTexto();
+            indiceTextoIncompleto = false;
+        }
+    }
+    
+    /**
+     * Vuelve a clasificar los tickets abiertos con los diccionarios actuales,
+     * por ejemplo después de editarlos. Solo se reclasifican los tickets
+     * creados con clasificación automática: la categoría y la prioridad que
+     * eligió una persona se respetan. Los textos se clasifican en paralelo
+     * con {@link Clasificador#clasificarLote}; cada ticket cuya categoría o
+     * prioridad cambió se mueve de lista de pendientes y se publica como
+     * TICKET_RECLASIFICADO. Un ticket ya escalado por antigüedad no baja de
+     * la prioridad que alcanzó.
+     * 
+     * @return cantidad de tickets que cambiaron
+     */
+    public synchronized int reclasificarPendientes() {
+        verificarEscritura();
+        List<Ticket> abiertos = new ArrayList<>();
+        List<String> titulos = new ArrayList<>();
+        List<String> descripciones = new ArrayList<>();
+        for (NavigableMap<Integer, Ticket> porId : pendientes.values()) {
+            for (Ticket ticket : porId.values()) {
+                if (ticket.getEstado() == Estado.ABIERTO && ticket.esClasificacionAutomatica()) {
+                    abiertos.add(ticket);
+                    titulos.add(ticket.getTitulo());
+                    descripciones.add(ticket.getDescripcion());
+                }
+            }
+        }
+        
+        String[] categorias = new String[abiertos.size()];
+        Prioridad[] prioridades = new Prioridad[abiertos.size()];
+        Clasificador.clasificarLote(titulos, descripciones, categorias, prioridades);
+        
+        int cambiados = 0;
+        for (int i = 0; i < abiertos.size(); i++) {
+            Ticket ticket = abiertos.get(i);
+            Prioridad prioridad = prioridades[i];
+            if (ticket.getEscalamientos() > 0 && prioridad.getValor() < ticket.getPrioridad().getValor()) {
+                prioridad = ticket.getPrioridad();
+            }
+            if (categorias[i].equals(ticket.getCategoria()) && prioridad == ticket.getPrioridad()) {
+                continue;
+            }
+            
+            desindexarPendiente(ticket);
+            ticket.setCategoria(categorias[i]);
+            ticket.setPrioridad(prioridad);
+            indexarPendiente(ticket);
+            programarEscalamiento(ticket);
+            registrarCambio(TipoEvento.TICKET_RECLASIFICADO, ticket);
+            cambiados++;
+        }
+        
+        if (cambiados > 0) {
+            guardarDatos();
+        }
+        return cambiados;
+    }
+    
+    /**
+     * Sugiere categoría y prioridad con el modelo bayesiano entrenado con
+     * los tickets cerrados, como alternativa a las palabras clave de
+     * {@link Clasificador}.
+     * 
+     * @param titulo Título del ticket
+     * @param descripcion Descripción del ticket
+     * @return categoría y prioridad sugeridas, o null si el modelo todavía
+     *         no aprendió ningún ticket
+     */
+    public ResultadoClasificacion clasificarConBayes(String titulo, String descripcion) {
+        if (clasificadorBayes.getDocumentos() == 0) {
+            return null;
+        }
+        return clasificadorBayes.clasificar(titulo, descripcion);
+    }
+    
+    /**
+     * Calcula métricas del sistema. Con
+     * {@value #PROPIEDAD_METRICAS_COLUMNARES} activada se calculan sobre el
+     * almacén por columnas; si no, recorriendo los tickets. Ambos caminos
+     * dan los mismos valores.
+     * 
+     * @return Mapa con las métricas calculadas
+     */
+    public synchronized Map<String, Object> calcularMetricas() {
+        Map<String, Object> metricas = new HashMap<>();
+        
+        int totalTickets = tickets.size();
+        if (totalTickets == 0) {
+            metricas.put("totalTickets", 0);
+            metricas.put("porcentajeCerrados", 0.0);
+            metricas.put("tiempoPromedioResolucion", 0.0);
+            return metricas;
+        }
+        
+        metricas.put("totalTickets", totalTickets);
+        if (almacenColumnar != null) {
+            agregarMetricasColumnares(metricas, totalTickets);
+        } else {
+            agregarMetricasTickets(metricas, totalTickets);
+        }
+        metricas.put("cacheClasificacionAciertos", Clasificador.getCache().getAciertos());
+        metricas.put("cacheClasificacionFallos", Clasificador.getCache().getFallos());
+        metricas.put("diccionarioCompilacionMs", Clasificador.getDiccionario().getMilisegundosCompilacion());
+        if (!historico) {
+            metricas.put("modeloBayesTickets", clasificadorBayes.getDocumentos());
+        }
+        metricas.put("historialTransiciones", historial.getTamano());
+        if (journalPersistente != null) {
+            metricas.put("journalPuntosControl", journalPersistente.getPuntosControl());
+        }
+        if (AlmacenTexto.getActivo() != null) {
+            metricas.put("textoFueraDelHeapBytes", AlmacenTexto.getActivo().getBytesUsados());
+        }
+        
+        return metricas;
+    }
+    
+    /**
+     * Agrega las métricas de los tickets recorriendo los objetos.
+     */
+    private void agregarMetricasTickets(Map<String, Object> metricas, int totalTickets) {
+        // Tickets cerrados
+        List<Ticket> ticketsCerrados = tickets.stream()
+            .filter(t -> t.getEstado() == Estado.CERRADO)
+            .collect(Collectors.toList());
+        
+        int ticketsCerradosCount = ticketsCerrados.size();
+        double porcentajeCerrados = (ticketsCerradosCount * 100.0) / totalTickets;
+        
+        // Tiempo promedio de resolución
+        double tiempoPromedio = ticketsCerrados.stream()
+            .mapToLong(Ticket::calcularDuracionResolucion)
+            .filter(duracion -> duracion > 0)
+            .average()
+            .orElse(0.0);
+        
+        // Espera promedio hasta el inicio
+        double esperaPromedio = tickets.stream()
+            .filter(t -> t.getFechaInicio() != null)
+            .mapToLong(t -> Duration.between(t.getFechaCreacion(), t.getFechaInicio()).toMinutes())
+            .average()
+            .orElse(0.0);
+        
+        metricas.put("ticketsCerrados", ticketsCerradosCount);
+        metricas.put("porcentajeCerrados", porcentajeCerrados);
+        metricas.put("tiempoPromedioResolucion", tiempoPromedio);
+        metricas.put("tiempoPromedioEspera", esperaPromedio);
+        metricas.put("ticketsPorEstado", tickets.stream()
+            .collect(Collectors.groupingBy(Ticket::getEstado, Collectors.counting())));
+        metricas.put("ticketsPorPrioridad", tickets.stream()
+            .collect(Collectors.groupingBy(Ticket::getPrioridad, Collectors.counting())));
+        metricas.put("ticketsPorCategoria", tickets.stream()
+            .collect(Collectors.groupingBy(Ticket::getCategoria, LinkedHashMap::new, Collectors.counting())));
+        metricas.put("ticketsEnCursoPorTecnico", tickets.stream()
+            .filter(t -> t.getEstado() == Estado.EN_CURSO && t.getTecnicoAsignado() != null)
+            .collect(Collectors.groupingBy(t -> t.getTecnicoAsignado().getId(), TreeMap::new, Collectors.counting())));
+        metricas.put("escalamientos", tickets.stream().mapToInt(Ticket::getEscalamientos).sum());
+        metricas.put("ticketsEscalados", tickets.stream().filter(t -> t.getEscalamientos() > 0).count());
+        metricas.put("ticketsDuplicados", tickets.stream().filter(Ticket::esDuplicado).count());
+    }
+    
+    /**
+     * Agrega las métricas de los tickets con bucles sobre las columnas del
+     * almacén, sin recorrer los objetos Ticket.
+     */
+    private void agregarMetricasColumnares(Map<String, Object> metricas, int totalTickets) {
+        long[] porEstado = almacenColumnar.contarPorEstado();
+        long[] porPrioridad = almacenColumnar.contarPorPrioridad();
+        
+        int ticketsCerradosCount = (int) porEstado[Estado.CERRADO.ordinal()];
+        double porcentajeCerrados = (ticketsCerradosCount * 100.0) / totalTickets;
+        
+        // Tickets por estado
+        Map<Estado, Long> ticketsPorEstado = new HashMap<>();
+        for (Estado estado : Estado.values()) {
+            if (porEstado[estado.ordinal()] > 0) {
+                ticketsPorEstado.put(estado, porEstado[estado.ordinal()]);
+            }
+        }
+        
+        // Tickets por prioridad
+        Map<Prioridad, Long> ticketsPorPrioridad = new HashMap<>();
+        for (Prioridad prioridad : Prioridad.values()) {
+            if (porPrioridad[prioridad.ordinal()] > 0) {
+                ticketsPorPrioridad.put(prioridad, porPrioridad[prioridad.ordinal()]);
+            }
+        }
+        
+        metricas.put("ticketsCerrados", ticketsCerradosCount);
+        metricas.put("porcentajeCerrados", porcentajeCerrados);
+        metricas.put("tiempoPromedioResolucion", almacenColumnar.promedioMinutosResolucion());
+        metricas.put("tiempoPromedioEspera", almacenColumnar.promedioMinutosEspera());
+        metricas.put("ticketsPorEstado", ticketsPorEstado);
+        metricas.put("ticketsPorPrioridad", ticketsPorPrioridad);
+        metricas.put("ticketsPorCategoria", almacenColumnar.contarPorCategoria());
+        metricas.put("ticketsEnCursoPorTecnico", almacenColumnar.contarPorTecnico(Estado.EN_CURSO));
+        metricas.put("escalamientos", (int) almacenColumnar.sumarEscalamientos());
+        metricas.put("ticketsEscalados", almacenColumnar.contarEscalados());
+        metricas.put("ticketsDuplicados", almacenColumnar.contarDuplicados());
     }
     
     /**
@@ -286,7 +1519,8 @@ public class TableroService {
      * @param skills Lista de habilidades
      * @return ID del técnico creado
      */
-    public int agregarTecnico(String nombre, List<String> skills) {
+    public synchronized int agregarTecnico(String nombre, List<String> skills) {
+        verificarEscritura();
         if (nombre == null || nombre.trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre del técnico no puede estar vacío");
         }
@@ -294,36 +1528,486 @@ public class TableroService {
         Tecnico nuevoTecnico = new Tecnico(siguienteIdTecnico++, nombre.trim(), skills);
         tecnicos.add(nuevoTecnico);
         mapaTecnicos.put(nuevoTecnico.getId(), nuevoTecnico);
+        indexarSkills(nuevoTecnico);
+        despachador.registrarTecnico(nuevoTecnico);
+        registrarTecnico(nuevoTecnico);
         guardarDatos();
         
         return nuevoTecnico.getId();
     }
     
+    /**
+     * Agrega una habilidad a un técnico.
+     * 
+     * @param tecnicoId ID del técnico
+     * @param skill Habilidad a agregar
+     * @throws IllegalArgumentException si el técnico no existe
+     */
+    public synchronized void agregarSkillTecnico(int tecnicoId, String skill) {
+        verificarEscritura();
+        Tecnico tecnico = obtenerTecnico(tecnicoId);
+        tecnico.agregarSkill(skill);
+        cambiarSkillsSinGuardar(tecnico);
+        guardarDatos();
+    }
+    
+    /**
+     * Quita una habilidad a un técnico. Los tickets que ya tiene asignados
+     * no cambian; solo deja de recibir tickets nuevos de esa categoría.
+     * 
+     * @param tecnicoId ID del técnico
+     * @param skill Habilidad a quitar, sin distinguir mayúsculas
+     * @throws IllegalArgumentException si el técnico no existe
+     */
+    public synchronized void removerSkillTecnico(int tecnicoId, String skill) {
+        verificarEscritura();
+        Tecnico tecnico = obtenerTecnico(tecnicoId);
+        tecnico.removerSkill(skill);
+        cambiarSkillsSinGuardar(tecnico);
+        guardarDatos();
+    }
+    
+    /**
+     * Reemplaza todas las habilidades de un técnico.
+     * 
+     * @param tecnicoId ID del técnico
+     * @param skills Nuevas habilidades
+     * @throws IllegalArgumentException si el técnico no existe
+     */
+    public synchronized void setSkillsTecnico(int tecnicoId, List<String> skills) {
+        verificarEscritura();
+        Tecnico tecnico = obtenerTecnico(tecnicoId);
+        tecnico.setSkills(skills);
+        cambiarSkillsSinGuardar(tecnico);
+        guardarDatos();
+    }
+    
+    /**
+     * Reindexa un técnico cuyas habilidades cambiaron y registra su nuevo
+     * estado en el journal, sin persistir.
+     */
+    private void cambiarSkillsSinGuardar(Tecnico tecnico) {
+        reindexarSkills(tecnico);
+        registrarTecnico(tecnico);
+    }
+    
+    /**
+     * Obtiene un técnico existente.
+     * 
+     * @throws IllegalArgumentException si el técnico no existe
+     */
+    private Tecnico obtenerTecnico(int tecnicoId) {
+        Tecnico tecnico = mapaTecnicos.get(tecnicoId);
+        if (tecnico == null) {
+            throw new IllegalArgumentException("Técnico con ID " + tecnicoId + " no encontrado");
+        }
+        return tecnico;
+    }
+    
     /**
      * Busca técnicos que pueden atender una categoría específica.
      * 
      * @param categoria Categoría a verificar
      * @return Lista de técnicos que pueden atender la categoría
      */
-    public List<Tecnico> buscarTecnicosPorCategoria(String categoria) {
-        return tecnicos.stream()
-            .filter(t -> t.puedeAtender(categoria))
-            .collect(Collectors.toList());
+    public synchronized List<Tecnico> buscarTecnicosPorCategoria(String categoria) {
+        List<Tecnico> candidatos = tecnicosPorSkill.get(RegistroSkills.buscarId(categoria));
+        return (candidatos != null) ? new ArrayList<>(candidatos) : new ArrayList<>();
+    }
+    
+    // Escalamiento por antigüedad
+    
+    /**
+     * Reemplaza las reglas de escalamiento y reprograma los temporizadores
+     * de todos los tickets pendientes.
+     * 
+     * @param reglas Reglas a aplicar; como máximo una por prioridad de origen
+     * @throws IllegalArgumentException si hay dos reglas para la misma prioridad
+     */
+    public synchronized void setReglasEscalamiento(List<ReglaEscalamiento> reglas) {
+        Map<Prioridad, ReglaEscalamiento> nuevas = new EnumMap<>(Prioridad.class);
+        for (ReglaEscalamiento regla : reglas) {
+            if (nuevas.put(regla.getDesde(), regla) != null) {
+                throw new IllegalArgumentException("Hay más de una regla para la prioridad " + regla.getDesde());
+            }
+        }
+        this.reglasEscalamiento = nuevas;
+        reconstruirIndices();
+    }
+    
+    public synchronized List<ReglaEscalamiento> getReglasEscalamiento() {
+        return new ArrayList<>(reglasEscalamiento.values());
+    }
+    
+    /**
+     * Escala los tickets cuyos temporizadores vencieron. Solo recorre las
+     * ranuras de la rueda correspondientes al tiempo transcurrido desde la
+     * llamada anterior; cada ticket escalado se mueve de lista de pendientes,
+     * se publica como TICKET_ESCALADO y, si corresponde, se le programa el
+     * siguiente escalamiento. Las réplicas de solo lectura no escalan: reciben
+     * los escalamientos del líder.
+     * 
+     * @return cantidad de tickets escalados
+     */
+    public synchronized int procesarEscalamientos() {
+        if (soloLectura) {
+            return 0;
+        }
+        
+        long ahora = System.currentTimeMillis();
+        int[] escalados = new int[1];
+        ruedaEscalamientos.avanzar(ahora, (ticketId, vencimiento) -> {
+            Ticket ticket = mapaTickets.get(ticketId);
+            if (ticket != null && escalarSinGuardar(ticket, ahora)) {
+                escalados[0]++;
+            }
+        });
+        
+        if (escalados[0] > 0) {
+            guardarDatos();
+        }
+        return escalados[0];
+    }
+    
+    /**
+     * Escala un ticket si su regla sigue aplicando y ya cumplió la espera.
+     * Los temporizadores obsoletos (ticket asignado, cerrado o ya escalado)
+     * se descartan aquí.
+     * 
+     * @return true si el ticket se escaló
+     */
+    private boolean escalarSinGuardar(Ticket ticket, long ahora) {
+        ReglaEscalamiento regla = reglasEscalamiento.get(ticket.getPrioridad());
+        if (regla == null || !regla.aplicaA(ticket) || vencimientoEscalamiento(ticket, regla) > ahora) {
+            return false;
+        }
+        
+        desindexarPendiente(ticket);
+        ticket.escalar(regla.getHacia());
+        indexarPendiente(ticket);
+        programarEscalamiento(ticket);
+        registrarCambio(TipoEvento.TICKET_ESCALADO, ticket);
+        return true;
+    }
+    
+    /**
+     * Programa el próximo escalamiento de un ticket, si alguna regla aplica.
+     */
+    private void programarEscalamiento(Ticket ticket) {
+        if (historico) {
+            return;
+        }
+        ReglaEscalamiento regla = reglasEscalamiento.get(ticket.getPrioridad());
+        if (regla != null && regla.aplicaA(ticket)) {
+            ruedaEscalamientos.programar(ticket.getId(), vencimientoEscalamiento(ticket, regla));
+        }
+    }
+    
+    private static long vencimientoEscalamiento(Ticket ticket, ReglaEscalamiento regla) {
+        long desde = ticket.getFechaPrioridadActual().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return desde + regla.getEspera().toMillis();
+    }
+    
+    /**
+     * Reconstruye las listas de pendientes por prioridad, la rueda de
+     * escalamientos, los índices de búsqueda y el detector de duplicados a
+     * partir de todos los tickets.
+     */
+    private void reconstruirIndices() {
+        ruedaEscalamientos = new RuedaTemporizadores(TICK_ESCALAMIENTO_MS, RANURAS_ESCALAMIENTO,
+                                                     System.currentTimeMillis());
+        for (NavigableMap<Integer, Ticket> lista : pendientes.values()) {
+            lista.clear();
+        }
+        indiceTickets.limpiar();
+        if (almacenColumnar != null) {
+            almacenColumnar.limpiar();
+        }
+        detectorDuplicados.limpiar();
+        for (Ticket ticket : tickets) {
+            moverTexto(ticket);
+            indexarPendiente(ticket);
+            programarEscalamiento(ticket);
+            actualizarIndices(ticket);
+        }
+    }
+    
+    /**
+     * Actualiza las estructuras derivadas de los campos de un ticket: el
+     * índice de consultas, el almacén por columnas si está activo y, salvo
+     * en un tablero histórico, el detector de duplicados.
+     */
+    private void actualizarIndices(Ticket ticket) {
+        indiceTickets.actualizar(ticket);
+        if (almacenColumnar != null) {
+            almacenColumnar.actualizar(ticket);
+        }
+        if (!historico) {
+            actualizarDetectorDuplicados(ticket);
+        }
+    }
+    
+    /**
+     * Mantiene en el detector de duplicados solo los tickets que pueden ser
+     * originales: los no cerrados que no son a su vez duplicados. Así cada
+     * duplicado se vincula al primer ticket que reportó el problema.
+     */
+    private void actualizarDetectorDuplicados(Ticket ticket) {
+        if (ticket.getEstado() != Estado.CERRADO && !ticket.esDuplicado()) {
+            detectorDuplicados.agregar(ticket);
+        } else {
+            detectorDuplicados.quitar(ticket.getId());
+        }
+    }
+    
+    /**
+     * Agrega un ticket no cerrado a la lista de pendientes de su prioridad.
+     */
+    private void indexarPendiente(Ticket ticket) {
+        if (ticket.getEstado() != Estado.CERRADO) {
+            pendientes.get(ticket.getPrioridad()).put(ticket.getId(), ticket);
+        }
+    }
+    
+    /**
+     * Quita un ticket de la lista de pendientes de su prioridad actual.
+     * Debe llamarse antes de cambiar la prioridad o cerrar el ticket.
+     */
+    private void desindexarPendiente(Ticket ticket) {
+        pendientes.get(ticket.getPrioridad()).remove(ticket.getId());
+    }
+    
+    // Replicación
+    
+    /**
+     * Escribe una instantánea completa del tablero en formato de journal:
+     * un registro TECNICO_AGREGADO por técnico, uno TICKET_CREADO por
+     * ticket, cada uno con el estado completo, y registros HISTORIAL con
+     * todas las transiciones en orden cronológico. La instantánea y la
+     * secuencia devuelta se obtienen en la misma sección crítica, de modo
+     * que aplicar la instantánea y luego los registros posteriores a esa
+     * secuencia reproduce exactamente este tablero y su historial.
+     * 
+     * @param destino Lista donde se agregan los registros
+     * @return secuencia del journal a la que corresponde la instantánea
+     */
+    public synchronized long escribirInstantanea(List<String> destino) {
+        return escribirInstantanea(destino, true);
+    }
+    
+    /**
+     * Escribe una instantánea, con o sin el historial. Los puntos de control
+     * no lo incluyen porque el historial ya se guarda en su propio archivo.
+     */
+    private long escribirInstantanea(List<String> destino, boolean conHistorial) {
+        long ahora = System.currentTimeMillis();
+        for (Tecnico tecnico : tecnicos) {
+            destino.add(Journal.formatear(0, ahora, TipoEvento.TECNICO_AGREGADO, repository.formatearTecnico(tecnico)));
+        }
+        for (Ticket ticket : tickets) {
+            destino.add(Journal.formatear(0, ahora, TipoEvento.TICKET_CREADO, repository.formatearTicket(ticket)));
+        }
+        if (conHistorial) {
+            List<String> transiciones = new ArrayList<>();
+            historial.formatear(TRANSICIONES_POR_REGISTRO, transiciones);
+            for (String grupo : transiciones) {
+                destino.add(Journal.formatear(0, ahora, TipoEvento.HISTORIAL, grupo));
+            }
+        }
+        return journal.getUltimaSecuencia();
+    }
+    
+    /**
+     * Reemplaza todo el estado del tablero, incluido el historial de
+     * transiciones, por una instantánea generada con
+     * {@link #escribirInstantanea(List)}.
+     * 
+     * @param registros Registros de la instantánea
+     */
+    public synchronized void cargarInstantanea(List<String> registros) {
+        tickets.clear();
+        mapaTickets.clear();
+        tecnicos.clear();
+        mapaTecnicos.clear();
+        tecnicosPorSkill.clear();
+        siguienteIdTicket = 1;
+        siguienteIdTecnico = 1;
+        indiceTexto.limpiar();
+        clasificadorBayes.limpiar();
+        historial.limpiar();
+        
+        for (String registro : registros) {
+            if (Journal.tipo(registro) == TipoEvento.HISTORIAL) {
+                historial.registrarFormateadas(Journal.contenido(registro));
+            } else {
+                aplicarSinPublicar(registro);
+            }
+        }
+        despachador.reconstruir(tecnicos, tickets);
+        reconstruirIndices();
+    }
+    
+    /**
+     * Aplica un registro de journal recibido de otro tablero, lo agrega al
+     * historial de transiciones con el instante del tablero de origen y
+     * publica el evento correspondiente en el bus local.
+     * 
+     * @param registro Línea de journal
+     * @throws IllegalArgumentException si el registro no es válido
+     */
+    public synchronized void aplicarRegistro(String registro) {
+        TipoEvento tipo = Journal.tipo(registro);
+        Object afectado = aplicarSinPublicar(registro);
+        
+        if (afectado instanceof Ticket) {
+            Ticket ticket = (Ticket) afectado;
+            historial.registrar(ticket.getId(), tipo, idTecnico(ticket), Journal.marcaTiempo(registro));
+            busEventos.publicar(tipo, ticket.getId(), idTecnico(ticket));
+        } else if (afectado instanceof Tecnico) {
+            busEventos.publicar(tipo, 0, ((Tecnico) afectado).getId());
+        }
+    }
+    
+    /**
+     * Inserta o reemplaza el ticket o técnico contenido en un registro,
+     * manteniendo índices y cargas de trabajo.
+     * 
+     * @return el ticket o técnico resultante
+     */
+    private Object aplicarSinPublicar(String registro) {
+        TipoEvento tipo = Journal.tipo(registro);
+        String contenido = Journal.contenido(registro);
+        
+        if (tipo == TipoEvento.TECNICO_AGREGADO) {
+            Tecnico recibido = repository.parsearTecnico(contenido);
+            if (recibido == null) {
+                throw new IllegalArgumentException("Registro de técnico no válido: " + registro);
+            }
+            
+            Tecnico existente = mapaTecnicos.get(recibido.getId());
+            if (existente != null) {
+                existente.setNombre(recibido.getNombre());
+                existente.setSkills(recibido.getSkills());
+                reindexarSkills(existente);
+                return existente;
+            }
+            
+            tecnicos.add(recibido);
+            mapaTecnicos.put(recibido.getId(), recibido);
+            indexarSkills(recibido);
+            despachador.registrarTecnico(recibido);
+            siguienteIdTecnico = Math.max(siguienteIdTecnico, recibido.getId() + 1);
+            return recibido;
+        }
+        
+        Ticket recibido;
+        try {
+            recibido = repository.parsearTicket(contenido, mapaTecnicos);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Registro de ticket no válido: " + registro, e);
+        }
+        if (recibido == null) {
+            throw new IllegalArgumentException("Registro de ticket no válido: " + registro);
+        }
+        
+        Ticket existente = mapaTickets.get(recibido.getId());
+        if (existente == null) {
+            moverTexto(recibido);
+            tickets.add(recibido);
+            mapaTickets.put(recibido.getId(), recibido);
+            indexarPendiente(recibido);
+            actualizarIndices(recibido);
+            if (historico) {
+                indiceTextoIncompleto = true;
+            } else {
+                indiceTexto.agregar(recibido);
+                clasificadorBayes.entrenar(recibido);
+            }
+            siguienteIdTicket = Math.max(siguienteIdTicket, recibido.getId() + 1);
+            if (recibido.getTecnicoAsignado() != null && recibido.getEstado() != Estado.CERRADO) {
+                despachador.incrementarCarga(recibido.getTecnicoAsignado());
+            }
+            return recibido;
+        }
+        
+        Tecnico anterior = (existente.getEstado() != Estado.CERRADO) ? existente.getTecnicoAsignado() : null;
+        Tecnico nuevo = (recibido.getEstado() != Estado.CERRADO) ? recibido.getTecnicoAsignado() : null;
+        desindexarPendiente(existente);
+        existente.restaurarDesde(recibido);
+        moverTexto(existente);
+        indexarPendiente(existente);
+        actualizarIndices(existente);
+        if (!historico) {
+            clasificadorBayes.entrenar(existente);
+        }
+        if (anterior != nuevo) {
+            despachador.decrementarCarga(anterior);
+            despachador.incrementarCarga(nuevo);
+        }
+        return existente;
+    }
+    
+    /**
+     * Convierte una réplica de solo lectura en el tablero principal: habilita
+     * las mutaciones y la persistencia en CSV, y guarda el estado actual en
+     * su directorio de datos.
+     * 
+     * @throws IllegalStateException si otro proceso usa el directorio de
+     *                               datos, como el líder cuando ambos se
+     *                               iniciaron en el mismo directorio
+     */
+    public synchronized void promover() {
+        bloquearDirectorio();
+        this.soloLectura = false;
+        this.persistente = true;
+        reconstruirIndices();
+        guardarDatos();
+        if (journalPersistente == null) {
+            abrirJournalPersistente();
+        }
+    }
+    
+    public synchronized void setSoloLectura(boolean soloLectura) {
+        this.soloLectura = soloLectura;
+    }
+    
+    public synchronized boolean isSoloLectura() {
+        return soloLectura;
+    }
+    
+    /**
+     * Devuelve el journal de mutaciones del tablero.
+     * 
+     * @return journal del servicio
+     */
+    public Journal getJournal() {
+        return journal;
     }
     
     // Métodos de utilidad
     
+    /**
+     * Ejecuta una lectura dentro de la sección crítica del tablero. Los
+     * tickets y técnicos que devuelven las consultas son los objetos vivos
+     * del tablero, así que quien lee sus campos desde otro hilo (por ejemplo
+     * para convertirlos a JSON) debe hacerlo aquí para no ver un cambio a
+     * medias.
+     * 
+     * @param lectura Consulta y conversión a realizar
+     * @return resultado de la lectura
+     */
+    public synchronized <T> T leer(Supplier<T> lectura) {
+        return lectura.get();
+    }
+    
     /**
      * Busca un ticket por su ID.
      * 
      * @param id ID del ticket
      * @return Ticket encontrado o null si no existe
      */
-    public Ticket buscarTicketPorId(int id) {
-        return tickets.stream()
-            .filter(t -> t.getId() == id)
-            .findFirst()
-            .orElse(null);
+    public synchronized Ticket buscarTicketPorId(int id) {
+        return mapaTickets.get(id);
     }
     
     /**
@@ -332,7 +2016,7 @@ public class TableroService {
      * @param id ID del técnico
      * @return Técnico encontrado o null si no existe
      */
-    public Tecnico buscarTecnicoPorId(int id) {
+    public synchronized Tecnico buscarTecnicoPorId(int id) {
         return mapaTecnicos.get(id);
     }
     
@@ -354,11 +2038,20 @@ public class TableroService {
     
     // Getters
     
-    public List<Ticket> getTickets() {
+    /**
+     * Devuelve el bus donde se publican los cambios del tablero.
+     * 
+     * @return bus de eventos del servicio
+     */
+    public BusEventos getBusEventos() {
+        return busEventos;
+    }
+    
+    public synchronized List<Ticket> getTickets() {
         return new ArrayList<>(tickets);
     }
     
-    public List<Tecnico> getTecnicos() {
+    public synchronized List<Tecnico> getTecnicos() {
         return new ArrayList<>(tecnicos);
     }
 }
\ No newline at end of file
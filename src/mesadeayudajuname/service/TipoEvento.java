@@ -0,0 +1,52 @@
+package mesadeayudajuname.service;
+
+/**
+ * Tipos de evento publicados por {@link TableroService} en su
+ * {@link BusEventos} cada vez que cambia el estado del tablero.
+ * 
+ * @author juanulb
+ */
+public enum TipoEvento {
+    /**
+     * Se creó un ticket nuevo
+     */
+    TICKET_CREADO,
+    
+    /**
+     * Se asignó (o reasignó) un técnico a un ticket
+     */
+    TICKET_ASIGNADO,
+    
+    /**
+     * Un ticket pasó a EN_CURSO
+     */
+    TICKET_INICIADO,
+    
+    /**
+     * Un ticket pasó a CERRADO
+     */
+    TICKET_CERRADO,
+    
+    /**
+     * Se elevó la prioridad de un ticket por antigüedad
+     */
+    TICKET_ESCALADO,
+    
+    /**
+     * Cambió la categoría o la prioridad de un ticket abierto al
+     * reclasificarlo con los diccionarios actuales
+     */
+    TICKET_RECLASIFICADO,
+    
+    /**
+     * Se agregó un técnico al sistema
+     */
+    TECNICO_AGREGADO,
+    
+    /**
+     * Transiciones ya ocurridas de varios tickets, incluidas en una
+     * instantánea del tablero para que una réplica tenga el historial
+     * completo. No se publica en el bus
+     */
+    HISTORIAL
+}
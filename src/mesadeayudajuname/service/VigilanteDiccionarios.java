@@ -0,0 +1,123 @@
+package mesadeayudajuname.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Vigila el archivo de diccionarios del {@link Clasificador} y lo recarga
+ * en cuanto cambia, sin reiniciar la aplicación. Usa un {@link WatchService}
+ * sobre el directorio del archivo, de modo que no consume CPU mientras el
+ * archivo no se toque.
+ *
+ * Los editores suelen guardar en varios pasos (truncar, escribir, renombrar),
+ * así que tras cada aviso se espera un momento a que lleguen los demás y se
+ * recarga una sola vez. Si el archivo nuevo tiene errores se informa y se
+ * sigue clasificando con el diccionario anterior.
+ *
+ * @author juanulb
+ */
+public class VigilanteDiccionarios {
+    private static final long ESPERA_AGRUPACION_MS = 200;
+
+    private final File archivo;
+    private final Thread hilo;
+    private volatile WatchService vigilante;
+
+    /**
+     * Constructor que vigila el archivo de diccionarios del directorio de
+     * datos.
+     */
+    public VigilanteDiccionarios() {
+        this(Clasificador.archivoDiccionarios());
+    }
+
+    /**
+     * Constructor del vigilante.
+     *
+     * @param archivo Archivo de diccionarios a vigilar
+     */
+    public VigilanteDiccionarios(File archivo) {
+        this.archivo = archivo.getAbsoluteFile();
+        this.hilo = new Thread(this::vigilar, "vigilante-diccionarios");
+        this.hilo.setDaemon(true);
+    }
+
+    /**
+     * Comienza a vigilar el archivo en segundo plano. Si el directorio de
+     * datos todavía no existe se crea, para poder vigilarlo.
+     *
+     * @throws IOException si no se puede vigilar el directorio del archivo
+     */
+    public void iniciar() throws IOException {
+        archivo.getParentFile().mkdirs();
+        vigilante = FileSystems.getDefault().newWatchService();
+        archivo.getParentFile().toPath().register(vigilante,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        hilo.start();
+    }
+
+    /**
+     * Deja de vigilar el archivo.
+     */
+    public void detener() {
+        try {
+            if (vigilante != null) {
+                vigilante.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error al detener el vigilante de diccionarios: " + e.getMessage());
+        }
+    }
+
+    private void vigilar() {
+        Path nombre = archivo.toPath().getFileName();
+        try {
+            while (true) {
+                WatchKey clave = vigilante.take();
+                boolean cambio = false;
+                for (WatchEvent<?> evento : clave.pollEvents()) {
+                    if (nombre.equals(evento.context())) {
+                        cambio = true;
+                    }
+                }
+                clave.reset();
+
+                if (cambio) {
+                    Thread.sleep(ESPERA_AGRUPACION_MS);
+                    descartarPendientes();
+                    recargar();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Vigilante detenido
+        }
+    }
+
+    /**
+     * Consume los avisos que llegaron durante la espera, que corresponden
+     * al mismo guardado.
+     */
+    private void descartarPendientes() {
+        WatchKey clave;
+        while ((clave = vigilante.poll()) != null) {
+            clave.pollEvents();
+            clave.reset();
+        }
+    }
+
+    private void recargar() {
+        if (!archivo.exists()) {
+            return;
+        }
+        try {
+            DiccionarioClasificacion nuevo = Clasificador.recargar(archivo);
+            System.out.printf("Diccionarios recargados: %d palabras clave, %d categorías, compilados en %.2f ms%n",
+                              nuevo.getCantidadPalabras(), nuevo.getCategorias().size(),
+                              nuevo.getMilisegundosCompilacion());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo recargar " + archivo.getName()
+                               + ", se conserva el diccionario anterior: " + e.getMessage());
+        }
+    }
+}
@@ -18,6 +18,26 @@ public class CSVRepository {
     private static final String CSV_SEPARATOR = ";";
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    private final File ticketsFile;
+    private final File tecnicosFile;
+    
+    /**
+     * Constructor del repositorio sobre el directorio de trabajo.
+     */
+    public CSVRepository() {
+        this(new File("."));
+    }
+    
+    /**
+     * Constructor del repositorio.
+     * 
+     * @param directorio Directorio de los archivos CSV
+     */
+    public CSVRepository(File directorio) {
+        this.ticketsFile = new File(directorio, TICKETS_FILE);
+        this.tecnicosFile = new File(directorio, TECNICOS_FILE);
+    }
+    
     /**
      * Guarda la lista de tickets en el archivo CSV.
      * 
@@ -25,42 +45,69 @@ public class CSVRepository {
      * @throws IOException si hay error en la escritura del archivo
      */
     public void guardarTickets(List<Ticket> tickets) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TICKETS_FILE))) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(ticketsFile))) {
             // Escribir encabezado
-            writer.println("id;titulo;descripcion;categoria;estado;prioridad;tecnicoId;fechaCreacion;fechaInicio;fechaCierre");
+            writer.println("id;titulo;descripcion;categoria;estado;prioridad;tecnicoId;fechaCreacion;fechaInicio;fechaCierre;escalamientos;fechaEscalamiento;duplicadoDe;clasificacionAutomatica");
             
             for (Ticket ticket : tickets) {
-                StringBuilder line = new StringBuilder();
-                line.append(ticket.getId()).append(CSV_SEPARATOR);
-                line.append(escaparCSV(ticket.getTitulo())).append(CSV_SEPARATOR);
-                line.append(escaparCSV(ticket.getDescripcion())).append(CSV_SEPARATOR);
-                line.append(escaparCSV(ticket.getCategoria())).append(CSV_SEPARATOR);
-                line.append(ticket.getEstado().name()).append(CSV_SEPARATOR);
-                line.append(ticket.getPrioridad().name()).append(CSV_SEPARATOR);
-                
-                // Técnico asignado
-                if (ticket.getTecnicoAsignado() != null) {
-                    line.append(ticket.getTecnicoAsignado().getId());
-                }
-                line.append(CSV_SEPARATOR);
-                
-                // Fechas
-                line.append(ticket.getFechaCreacion().format(DATE_FORMAT)).append(CSV_SEPARATOR);
-                
-                if (ticket.getFechaInicio() != null) {
-                    line.append(ticket.getFechaInicio().format(DATE_FORMAT));
-                }
-                line.append(CSV_SEPARATOR);
-                
-                if (ticket.getFechaCierre() != null) {
-                    line.append(ticket.getFechaCierre().format(DATE_FORMAT));
-                }
-                
-                writer.println(line.toString());
+                writer.println(formatearTicket(ticket));
             }
         }
     }
     
+    /**
+     * Convierte un ticket en una línea CSV (sin salto de línea).
+     * 
+     * @param ticket Ticket a convertir
+     * @return línea CSV con todos los campos del ticket
+     */
+    public String formatearTicket(Ticket ticket) {
+        StringBuilder line = new StringBuilder();
+        line.append(ticket.getId()).append(CSV_SEPARATOR);
+        line.append(escaparCSV(ticket.getTitulo())).append(CSV_SEPARATOR);
+        line.append(escaparCSV(ticket.getDescripcion())).append(CSV_SEPARATOR);
+        line.append(escaparCSV(ticket.getCategoria())).append(CSV_SEPARATOR);
+        line.append(ticket.getEstado().name()).append(CSV_SEPARATOR);
+        line.append(ticket.getPrioridad().name()).append(CSV_SEPARATOR);
+        
+        // Técnico asignado
+        if (ticket.getTecnicoAsignado() != null) {
+            line.append(ticket.getTecnicoAsignado().getId());
+        }
+        line.append(CSV_SEPARATOR);
+        
+        // Fechas
+        line.append(ticket.getFechaCreacion().format(DATE_FORMAT)).append(CSV_SEPARATOR);
+        
+        if (ticket.getFechaInicio() != null) {
+            line.append(ticket.getFechaInicio().format(DATE_FORMAT));
+        }
+        line.append(CSV_SEPARATOR);
+        
+        if (ticket.getFechaCierre() != null) {
+            line.append(ticket.getFechaCierre().format(DATE_FORMAT));
+        }
+        line.append(CSV_SEPARATOR);
+        
+        // Escalamientos por antigüedad
+        line.append(ticket.getEscalamientos()).append(CSV_SEPARATOR);
+        if (ticket.getFechaEscalamiento() != null) {
+            line.append(ticket.getFechaEscalamiento().format(DATE_FORMAT));
+        }
+        line.append(CSV_SEPARATOR);
+        
+        // Ticket original si es un duplicado
+        if (ticket.esDuplicado()) {
+            line.append(ticket.getDuplicadoDe());
+        }
+        line.append(CSV_SEPARATOR);
+        
+        // Categoría y prioridad elegidas por el clasificador
+        line.append(ticket.esClasificacionAutomatica());
+        
+        return line.toString();
+    }
+    
     /**
      * Carga la lista de tickets desde el archivo CSV.
      * 
@@ -70,7 +117,7 @@ public class CSVRepository {
      */
     public List<Ticket> cargarTickets(Map<Integer, Tecnico> tecnicos) throws IOException {
         List<Ticket> tickets = new ArrayList<>();
-        File file = new File(TICKETS_FILE);
+        File file = ticketsFile;
         
         if (!file.exists()) {
             return tickets; // Devolver lista vacía si no existe el archivo
@@ -79,65 +126,15 @@ public class CSVRepository {
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line = reader.readLine(); // Saltar encabezado
             
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(CSV_SEPARATOR, -1);
-                if (parts.length >= 6) {
-                    try {
-                        int id = Integer.parseInt(parts[0]);
-                        String titulo = desescaparCSV(parts[1]);
-                        String descripcion = desescaparCSV(parts[2]);
-                        String categoria = desescaparCSV(parts[3]);
-                        Estado estado = Estado.valueOf(parts[4]);
-                        Prioridad prioridad = Prioridad.valueOf(parts[5]);
-                        
-                        // Crear ticket
-                        Ticket ticket = new Ticket(id, titulo, descripcion, categoria, prioridad);
-                        
-                        // Asignar técnico si existe
-                        if (parts.length > 6 && !parts[6].isEmpty()) {
-                            int tecnicoId = Integer.parseInt(parts[6]);
-                            Tecnico tecnico = tecnicos.get(tecnicoId);
-                            if (tecnico != null) {
-                                // Usar reflection para establecer el técnico sin validaciones
-                                java.lang.reflect.Field tecnicoField = Ticket.class.getDeclaredField("tecnicoAsignado");
-                                tecnicoField.setAccessible(true);
-                                tecnicoField.set(ticket, tecnico);
-                            }
-                        }
-                        
-                        // Establecer fechas y estado usando reflection para evitar validaciones
-                        if (parts.length > 7 && !parts[7].isEmpty()) {
-                            LocalDateTime fechaCreacion = LocalDateTime.parse(parts[7], DATE_FORMAT);
-                            java.lang.reflect.Field fechaCreacionField = Ticket.class.getDeclaredField("fechaCreacion");
-                            fechaCreacionField.setAccessible(true);
-                            fechaCreacionField.set(ticket, fechaCreacion);
-                        }
-                        
-                        if (parts.length > 8 && !parts[8].isEmpty()) {
-                            LocalDateTime fechaInicio = LocalDateTime.parse(parts[8], DATE_FORMAT);
-                            java.lang.reflect.Field fechaInicioField = Ticket.class.getDeclaredField("fechaInicio");
-                            fechaInicioField.setAccessible(true);
-                            fechaInicioField.set(ticket, fechaInicio);
-                        }
-                        
-                        if (parts.length > 9 && !parts[9].isEmpty()) {
-                            LocalDateTime fechaCierre = LocalDateTime.parse(parts[9], DATE_FORMAT);
-                            java.lang.reflect.Field fechaCierreField = Ticket.class.getDeclaredField("fechaCierre");
-                            fechaCierreField.setAccessible(true);
-                            fechaCierreField.set(ticket, fechaCierre);
-                        }
-                        
-                        // Establecer estado
-                        java.lang.reflect.Field estadoField = Ticket.class.getDeclaredField("estado");
-                        estadoField.setAccessible(true);
-                        estadoField.set(ticket, estado);
-                        
+            while ((line = leerRegistro(reader)) != null) {
+                try {
+                    Ticket ticket = parsearTicket(line, tecnicos);
+                    if (ticket != null) {
                         tickets.add(ticket);
-                        
-                    } catch (Exception e) {
-                        System.err.println("Error al procesar línea del CSV: " + line);
-                        e.printStackTrace();
                     }
+                } catch (Exception e) {
+                    System.err.println("Error al procesar línea del CSV: " + line);
+                    e.printStackTrace();
                 }
             }
         }
@@ -145,6 +142,98 @@ public class CSVRepository {
         return tickets;
     }
     
+    /**
+     * Convierte una línea CSV en un ticket, restaurando su estado, técnico y
+     * fechas tal como fueron guardados.
+     * 
+     * @param line Línea CSV generada por {@link #formatearTicket(Ticket)}
+     * @param tecnicos Mapa de técnicos para realizar las asignaciones
+     * @return Ticket leído, o null si la línea no tiene suficientes campos
+     * @throws Exception si algún campo no tiene el formato esperado
+     */
+    public Ticket parsearTicket(String line, Map<Integer, Tecnico> tecnicos) throws Exception {
+        String[] parts = dividirCampos(line);
+        if (parts.length < 6) {
+            return null;
+        }
+        
+        int id = Integer.parseInt(parts[0]);
+        String titulo = desescaparCSV(parts[1]);
+        String descripcion = desescaparCSV(parts[2]);
+        String categoria = desescaparCSV(parts[3]);
+        Estado estado = Estado.valueOf(parts[4]);
+        Prioridad prioridad = Prioridad.valueOf(parts[5]);
+        
+        // Crear ticket
+        Ticket ticket = new Ticket(id, titulo, descripcion, categoria, prioridad);
+        
+        // Asignar técnico si existe
+        if (parts.length > 6 && !parts[6].isEmpty()) {
+            int tecnicoId = Integer.parseInt(parts[6]);
+            Tecnico tecnico = tecnicos.get(tecnicoId);
+            if (tecnico != null) {
+                // Usar reflection para establecer el técnico sin validaciones
+                java.lang.reflect.Field tecnicoField = Ticket.class.getDeclaredField("tecnicoAsignado");
+                tecnicoField.setAccessible(true);
+                tecnicoField.set(ticket, tecnico);
+            }
+        }
+        
+        // Establecer fechas y estado usando reflection para evitar validaciones
+        if (parts.length > 7 && !parts[7].isEmpty()) {
+            LocalDateTime fechaCreacion = LocalDateTime.parse(parts[7], DATE_FORMAT);
+            java.lang.reflect.Field fechaCreacionField = Ticket.class.getDeclaredField("fechaCreacion");
+            fechaCreacionField.setAccessible(true);
+            fechaCreacionField.set(ticket, fechaCreacion);
+        }
+        
+        if (parts.length > 8 && !parts[8].isEmpty()) {
+            LocalDateTime fechaInicio = LocalDateTime.parse(parts[8], DATE_FORMAT);
+            java.lang.reflect.Field fechaInicioField = Ticket.class.getDeclaredField("fechaInicio");
+            fechaInicioField.setAccessible(true);
+            fechaInicioField.set(ticket, fechaInicio);
+        }
+        
+        if (parts.length > 9 && !parts[9].isEmpty()) {
+            LocalDateTime fechaCierre = LocalDateTime.parse(parts[9], DATE_FORMAT);
+            java.lang.reflect.Field fechaCierreField = Ticket.class.getDeclaredField("fechaCierre");
+            fechaCierreField.setAccessible(true);
+            fechaCierreField.set(ticket, fechaCierre);
+        }
+        
+        // Escalamientos (columnas opcionales en archivos anteriores)
+        if (parts.length > 10 && !parts[10].isEmpty()) {
+            java.lang.reflect.Field escalamientosField = Ticket.class.getDeclaredField("escalamientos");
+            escalamientosField.setAccessible(true);
+            escalamientosField.set(ticket, Integer.parseInt(parts[10]));
+        }
+        
+        if (parts.length > 11 && !parts[11].isEmpty()) {
+            LocalDateTime fechaEscalamiento = LocalDateTime.parse(parts[11], DATE_FORMAT);
+            java.lang.reflect.Field fechaEscalamientoField = Ticket.class.getDeclaredField("fechaEscalamiento");
+            fechaEscalamientoField.setAccessible(true);
+            fechaEscalamientoField.set(ticket, fechaEscalamiento);
+        }
+        
+        // Ticket original (columna opcional en archivos anteriores)
+        if (parts.length > 12 && !parts[12].isEmpty()) {
+            ticket.marcarDuplicadoDe(Integer.parseInt(parts[12]));
+        }
+        
+        // Clasificación automática (columna opcional en archivos anteriores;
+        // sin ella el ticket se considera clasificado a mano)
+        if (parts.length > 13 && Boolean.parseBoolean(parts[13])) {
+            ticket.marcarClasificacionAutomatica();
+        }
+        
+        // Establecer estado
+        java.lang.reflect.Field estadoField = Ticket.class.getDeclaredField("estado");
+        estadoField.setAccessible(true);
+        estadoField.set(ticket, estado);
+        
+        return ticket;
+    }
+    
     /**
      * Guarda la lista de técnicos en el archivo CSV.
      * 
@@ -152,24 +241,34 @@ public class CSVRepository {
      * @throws IOException si hay error en la escritura del archivo
      */
     public void guardarTecnicos(List<Tecnico> tecnicos) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TECNICOS_FILE))) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(tecnicosFile))) {
             // Escribir encabezado
             writer.println("id;nombre;skills");
             
             for (Tecnico tecnico : tecnicos) {
-                StringBuilder line = new StringBuilder();
-                line.append(tecnico.getId()).append(CSV_SEPARATOR);
-                line.append(escaparCSV(tecnico.getNombre())).append(CSV_SEPARATOR);
-                
-                // Skills separadas por comas
-                String skills = String.join(",", tecnico.getSkills());
-                line.append(escaparCSV(skills));
-                
-                writer.println(line.toString());
+                writer.println(formatearTecnico(tecnico));
             }
         }
     }
     
+    /**
+     * Convierte un técnico en una línea CSV (sin salto de línea).
+     * 
+     * @param tecnico Técnico a convertir
+     * @return línea CSV con los campos del técnico
+     */
+    public String formatearTecnico(Tecnico tecnico) {
+        StringBuilder line = new StringBuilder();
+        line.append(tecnico.getId()).append(CSV_SEPARATOR);
+        line.append(escaparCSV(tecnico.getNombre())).append(CSV_SEPARATOR);
+        
+        // Skills separadas por comas
+        String skills = String.join(",", tecnico.getSkills());
+        line.append(escaparCSV(skills));
+        
+        return line.toString();
+    }
+    
     /**
      * Carga la lista de técnicos desde el archivo CSV.
      * 
@@ -178,7 +277,7 @@ public class CSVRepository {
      */
     public List<Tecnico> cargarTecnicos() throws IOException {
         List<Tecnico> tecnicos = new ArrayList<>();
-        File file = new File(TECNICOS_FILE);
+        File file = tecnicosFile;
         
         if (!file.exists()) {
             return tecnicos; // Devolver lista vacía si no existe el archivo
@@ -187,25 +286,14 @@ public class CSVRepository {
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line = reader.readLine(); // Saltar encabezado
             
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(CSV_SEPARATOR, -1);
-                if (parts.length >= 3) {
-                    try {
-                        int id = Integer.parseInt(parts[0]);
-                        String nombre = desescaparCSV(parts[1]);
-                        String skillsStr = desescaparCSV(parts[2]);
-                        
-                        List<String> skills = new ArrayList<>();
-                        if (!skillsStr.isEmpty()) {
-                            skills.addAll(Arrays.asList(skillsStr.split(",")));
-                        }
-                        
-                        Tecnico tecnico = new Tecnico(id, nombre, skills);
+            while ((line = leerRegistro(reader)) != null) {
+                try {
+                    Tecnico tecnico = parsearTecnico(line);
+                    if (tecnico != null) {
                         tecnicos.add(tecnico);
-                        
-                    } catch (NumberFormatException e) {
-                        System.err.println("Error al procesar línea del CSV de técnicos: " + line);
                     }
+                } catch (NumberFormatException e) {
+                    System.err.println("Error al procesar línea del CSV de técnicos: " + line);
                 }
             }
         }
@@ -213,6 +301,99 @@ public class CSVRepository {
         return tecnicos;
     }
     
+    /**
+     * Convierte una línea CSV en un técnico.
+     * 
+     * @param line Línea CSV generada por {@link #formatearTecnico(Tecnico)}
+     * @return Técnico leído, o null si la línea no tiene suficientes campos
+     * @throws NumberFormatException si el ID no es numérico
+     */
+    public Tecnico parsearTecnico(String line) {
+        String[] parts = dividirCampos(line);
+        if (parts.length < 3) {
+            return null;
+        }
+        
+        int id = Integer.parseInt(parts[0]);
+        String nombre = desescaparCSV(parts[1]);
+        String skillsStr = desescaparCSV(parts[2]);
+        
+        List<String> skills = new ArrayList<>();
+        if (!skillsStr.isEmpty()) {
+            skills.addAll(Arrays.asList(skillsStr.split(",")));
+        }
+        
+        return new Tecnico(id, nombre, skills);
+    }
+    
+    /**
+     * Lee un registro del archivo. Un campo entre comillas puede contener
+     * saltos de línea, así que se siguen leyendo líneas mientras queden
+     * comillas sin cerrar.
+     * 
+     * @param reader Lector del archivo CSV
+     * @return registro completo, o null al final del archivo
+     * @throws IOException si hay error en la lectura del archivo
+     */
+    private String leerRegistro(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        
+        StringBuilder registro = new StringBuilder(line);
+        boolean abiertas = comillasAbiertas(line, false);
+        while (abiertas && (line = reader.readLine()) != null) {
+            registro.append('\n').append(line);
+            abiertas = comillasAbiertas(line, true);
+        }
+        return registro.toString();
+    }
+    
+    /**
+     * Indica si al final de un texto queda un campo entre comillas abierto.
+     * Las comillas duplicadas ("") abren y cierran, así que no cambian el
+     * resultado.
+     * 
+     * @param texto Texto a recorrer
+     * @param abiertas Si el texto empieza dentro de un campo entre comillas
+     * @return true si el texto termina dentro de un campo entre comillas
+     */
+    private static boolean comillasAbiertas(String texto, boolean abiertas) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                abiertas = !abiertas;
+            }
+        }
+        return abiertas;
+    }
+    
+    /**
+     * Divide un registro en campos sin cortar los campos entre comillas, que
+     * pueden contener el separador. Los campos se devuelven sin desescapar.
+     * 
+     * @param line Registro CSV
+     * @return campos del registro
+     */
+    private static String[] dividirCampos(String line) {
+        List<String> campos = new ArrayList<>();
+        boolean abiertas = false;
+        int inicio = 0;
+        
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                abiertas = !abiertas;
+            } else if (c == CSV_SEPARATOR.charAt(0) && !abiertas) {
+                campos.add(line.substring(inicio, i));
+                inicio = i + 1;
+            }
+        }
+        campos.add(line.substring(inicio));
+        
+        return campos.toArray(new String[0]);
+    }
+    
     /**
      * Escapa caracteres especiales para CSV.
      * 
@@ -221,7 +402,7 @@ public class CSVRepository {
      */
     private String escaparCSV(String value) {
         if (value == null) return "";
-        if (value.contains(CSV_SEPARATOR) || value.contains("\"") || value.contains("\n")) {
+        if (value.contains(CSV_SEPARATOR) || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
             return "\"" + value.replace("\"", "\"\"") + "\"";
         }
         return value;
@@ -235,7 +416,7 @@ public class CSVRepository {
      */
     private String desescaparCSV(String value) {
         if (value == null) return "";
-        if (value.startsWith("\"") && value.endsWith("\"")) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
             return value.substring(1, value.length() - 1).replace("\"\"", "\"");
         }
         return value;
@@ -0,0 +1,364 @@
+package mesadeayudajuname.util;
+
+import mesadeayudajuname.model.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Utilidades mínimas para leer y escribir JSON sin dependencias externas.
+ * Los objetos se representan como {@code Map<String, Object>}, los arreglos
+ * como {@code List<Object>}, los números como {@code Long} o {@code Double}.
+ *
+ * @author juanulb
+ */
+public class Json {
+    private static final DateTimeFormatter FECHA_ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    /**
+     * Serializa un valor a texto JSON.
+     * Acepta mapas, colecciones, arreglos de objetos, números, booleanos,
+     * cadenas, enumeradores y null; cualquier otro objeto se escribe con
+     * su {@code toString()}.
+     *
+     * @param valor Valor a serializar
+     * @return texto JSON
+     */
+    public static String escribir(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escribir(valor, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Serializa un valor a JSON agregándolo al final de un StringBuilder.
+     *
+     * @param valor Valor a serializar
+     * @param sb Destino de la serialización
+     */
+    public static void escribir(Object valor, StringBuilder sb) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof Map) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<?, ?> entrada : ((Map<?, ?>) valor).entrySet()) {
+                if (!primero) sb.append(',');
+                primero = false;
+                escribirCadena(String.valueOf(entrada.getKey()), sb);
+                sb.append(':');
+                escribir(entrada.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (valor instanceof Iterable) {
+            sb.append('[');
+            boolean primero = true;
+            for (Object elemento : (Iterable<?>) valor) {
+                if (!primero) sb.append(',');
+                primero = false;
+                escribir(elemento, sb);
+            }
+            sb.append(']');
+        } else if (valor instanceof Object[]) {
+            escribir(Arrays.asList((Object[]) valor), sb);
+        } else if (valor instanceof Double || valor instanceof Float) {
+            double numero = ((Number) valor).doubleValue();
+            if (Double.isNaN(numero) || Double.isInfinite(numero)) {
+                sb.append("null");
+            } else {
+                sb.append(numero);
+            }
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else {
+            escribirCadena(valor.toString(), sb);
+        }
+    }
+
+    /**
+     * Escribe una cadena JSON entre comillas, escapando los caracteres especiales.
+     */
+    private static void escribirCadena(String texto, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Convierte un ticket en un mapa listo para serializar.
+     *
+     * @param ticket Ticket a convertir
+     * @return mapa con los campos del ticket
+     */
+    public static Map<String, Object> ticket(Ticket ticket) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        mapa.put("id", ticket.getId());
+        mapa.put("titulo", ticket.getTitulo());
+        mapa.put("descripcion", ticket.getDescripcion());
+        mapa.put("categoria", ticket.getCategoria());
+        mapa.put("estado", ticket.getEstado());
+        mapa.put("prioridad", ticket.getPrioridad());
+        mapa.put("escalamientos", ticket.getEscalamientos());
+        mapa.put("duplicadoDe", ticket.esDuplicado() ? ticket.getDuplicadoDe() : null);
+        mapa.put("clasificacionAutomatica", ticket.esClasificacionAutomatica());
+        mapa.put("tecnicoId", ticket.getTecnicoAsignado() != null ? ticket.getTecnicoAsignado().getId() : null);
+        mapa.put("fechaCreacion", ticket.getFechaCreacion().format(FECHA_ISO));
+        mapa.put("fechaInicio", ticket.getFechaInicio() != null ? ticket.getFechaInicio().format(FECHA_ISO) : null);
+        mapa.put("fechaCierre", ticket.getFechaCierre() != null ? ticket.getFechaCierre().format(FECHA_ISO) : null);
+        return mapa;
+    }
+
+    /**
+     * Convierte una lista de tickets en una lista de mapas listos para serializar.
+     *
+     * @param tickets Tickets a convertir
+     * @return lista de mapas
+     */
+    public static List<Object> tickets(List<Ticket> tickets) {
+        List<Object> lista = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            lista.add(ticket(ticket));
+        }
+        return lista;
+    }
+
+    /**
+     * Convierte un técnico en un mapa listo para serializar.
+     *
+     * @param tecnico Técnico a convertir
+     * @return mapa con los campos del técnico
+     */
+    public static Map<String, Object> tecnico(Tecnico tecnico) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        mapa.put("id", tecnico.getId());
+        mapa.put("nombre", tecnico.getNombre());
+        mapa.put("skills", tecnico.getSkills());
+        return mapa;
+    }
+
+    /**
+     * Interpreta un texto JSON.
+     *
+     * @param texto Texto JSON
+     * @return Mapa, lista, cadena, número, booleano o null según el contenido
+     * @throws IllegalArgumentException si el texto no es JSON válido
+     */
+    public static Object parsear(String texto) {
+        Lector lector = new Lector(texto);
+        lector.saltarEspacios();
+        Object valor = lector.leerValor();
+        lector.saltarEspacios();
+        if (!lector.fin()) {
+            throw lector.error("Contenido inesperado después del valor");
+        }
+        return valor;
+    }
+
+    /**
+     * Interpreta un texto JSON que debe contener un objeto.
+     *
+     * @param texto Texto JSON
+     * @return mapa con los campos del objeto (vacío si el texto está vacío)
+     * @throws IllegalArgumentException si el texto no es un objeto JSON válido
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parsearObjeto(String texto) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Object valor = parsear(texto);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    /**
+     * Analizador descendente recursivo de JSON.
+     */
+    private static class Lector {
+        private final String texto;
+        private int pos;
+
+        Lector(String texto) {
+            this.texto = texto;
+            this.pos = 0;
+        }
+
+        boolean fin() {
+            return pos >= texto.length();
+        }
+
+        void saltarEspacios() {
+            while (!fin() && Character.isWhitespace(texto.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String mensaje) {
+            return new IllegalArgumentException("JSON inválido en posición " + pos + ": " + mensaje);
+        }
+
+        Object leerValor() {
+            if (fin()) {
+                throw error("Fin de texto inesperado");
+            }
+            char c = texto.charAt(pos);
+            switch (c) {
+                case '{': return leerObjeto();
+                case '[': return leerArreglo();
+                case '"': return leerCadena();
+                case 't': return leerLiteral("true", Boolean.TRUE);
+                case 'f': return leerLiteral("false", Boolean.FALSE);
+                case 'n': return leerLiteral("null", null);
+                default:
+                    if (c == '-' || Character.isDigit(c)) {
+                        return leerNumero();
+                    }
+                    throw error("Carácter inesperado '" + c + "'");
+            }
+        }
+
+        Map<String, Object> leerObjeto() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            pos++;
+            saltarEspacios();
+            if (!fin() && texto.charAt(pos) == '}') {
+                pos++;
+                return mapa;
+            }
+            while (true) {
+                saltarEspacios();
+                if (fin() || texto.charAt(pos) != '"') {
+                    throw error("Se esperaba una clave");
+                }
+                String clave = leerCadena();
+                saltarEspacios();
+                esperar(':');
+                saltarEspacios();
+                mapa.put(clave, leerValor());
+                saltarEspacios();
+                if (!fin() && texto.charAt(pos) == ',') {
+                    pos++;
+                    continue;
+                }
+                esperar('}');
+                return mapa;
+            }
+        }
+
+        List<Object> leerArreglo() {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            saltarEspacios();
+            if (!fin() && texto.charAt(pos) == ']') {
+                pos++;
+                return lista;
+            }
+            while (true) {
+                saltarEspacios();
+                lista.add(leerValor());
+                saltarEspacios();
+                if (!fin() && texto.charAt(pos) == ',') {
+                    pos++;
+                    continue;
+                }
+                esperar(']');
+                return lista;
+            }
+        }
+
+        String leerCadena() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (true) {
+                if (fin()) {
+                    throw error("Cadena sin cerrar");
+                }
+                char c = texto.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (fin()) {
+                    throw error("Escape incompleto");
+                }
+                char escape = texto.charAt(pos++);
+                switch (escape) {
+                    case '"': sb.append('"'); break;
+                    case '\\': sb.append('\\'); break;
+                    case '/': sb.append('/'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > texto.length()) {
+                            throw error("Escape unicode incompleto");
+                        }
+                        sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("Escape no válido '\\" + escape + "'");
+                }
+            }
+        }
+
+        Object leerNumero() {
+            int inicio = pos;
+            boolean decimal = false;
+            if (texto.charAt(pos) == '-') pos++;
+            while (!fin()) {
+                char c = texto.charAt(pos);
+                if (Character.isDigit(c)) {
+                    pos++;
+                } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                    decimal = true;
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            String numero = texto.substring(inicio, pos);
+            try {
+                return decimal ? (Object) Double.parseDouble(numero) : (Object) Long.parseLong(numero);
+            } catch (NumberFormatException e) {
+                throw error("Número no válido '" + numero + "'");
+            }
+        }
+
+        Object leerLiteral(String literal, Object valor) {
+            if (!texto.startsWith(literal, pos)) {
+                throw error("Literal no válido");
+            }
+            pos += literal.length();
+            return valor;
+        }
+
+        void esperar(char esperado) {
+            if (fin() || texto.charAt(pos) != esperado) {
+                throw error("Se esperaba '" + esperado + "'");
+            }
+            pos++;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package mesadeayudajuname.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Escribe tablas de texto de columnas de ancho fijo en la consola.
+ *
+ * Las filas se arman en un único búfer de caracteres reutilizable y se
+ * envían al {@link Writer} en bloques grandes, en lugar de una llamada a
+ * {@code printf} por fila: no hay formateo ni sincronización por celda y,
+ * sobre una terminal remota, la salida viaja en pocos paquetes. Los textos
+ * más largos que su columna se recortan con "..." al copiarlos al búfer y
+ * los números se escriben dígito a dígito, así que escribir una celda no
+ * crea objetos.
+ *
+ * Con {@link #setPaginacion} la tabla se detiene cada cierta cantidad de
+ * filas y pregunta si debe seguir antes de escribir la siguiente.
+ *
+ * Uso:
+ * <pre>
+ *   RenderizadorTabla tabla = new RenderizadorTabla(salida,
+ *       new String[] {"ID", "TÍTULO"}, new int[] {4, 0});
+ *   tabla.escribirEncabezado();
+ *   for (Ticket ticket : tickets) {
+ *       tabla.celda(ticket.getId()).celda(ticket.getTitulo());
+ *       if (!tabla.terminarFila()) break;
+ *   }
+ *   tabla.terminar();
+ * </pre>
+ *
+ * @author juanulb
+ */
+public class RenderizadorTabla {
+    private static final int TAMANO_BUFER = 1 << 16;
+    private static final char SEPARADOR = '─';
+    private static final String PUNTOS = "...";
+    private static final String FIN_DE_LINEA = System.lineSeparator();
+
+    private final Writer salida;
+    private final String[] titulos;
+    private final int[] anchos;
+    private final char[] bufer;
+    private final char[] digitos;
+    private int posicion;
+    private int columna;
+
+    private int filasPorPagina;
+    private BooleanSupplier continuar;
+    private int filasEnPagina;
+    private int filas;
+    private boolean detenida;
+
+    /**
+     * Constructor de una tabla.
+     *
+     * @param salida Destino del texto; no se cierra al terminar
+     * @param titulos Título de cada columna
+     * @param anchos Ancho de cada columna; 0 para una columna sin límite,
+     *               que conviene que sea la última
+     */
+    public RenderizadorTabla(Writer salida, String[] titulos, int[] anchos) {
+        if (titulos.length != anchos.length || titulos.length == 0) {
+            throw new IllegalArgumentException("Se necesita un ancho por cada título");
+        }
+        this.salida = salida;
+        this.titulos = titulos.clone();
+        this.anchos = anchos.clone();
+        this.bufer = new char[TAMANO_BUFER];
+        this.digitos = new char[20];
+    }
+
+    /**
+     * Activa la paginación.
+     *
+     * @param filasPorPagina Filas visibles antes de preguntar; 0 para no
+     *                       paginar
+     * @param continuar Se invoca al completar una página, con la salida ya
+     *                  enviada; devuelve false para no escribir más filas
+     */
+    public void setPaginacion(int filasPorPagina, BooleanSupplier continuar) {
+        this.filasPorPagina = filasPorPagina;
+        this.continuar = continuar;
+    }
+
+    /**
+     * Escribe los títulos de las columnas y una línea separadora.
+     */
+    public void escribirEncabezado() {
+        int ancho = 0;
+        for (int i = 0; i < titulos.length; i++) {
+            escribirCelda(titulos[i]);
+            ancho += ((anchos[i] > 0) ? anchos[i] : titulos[i].length()) + 1;
+        }
+        finDeLinea();
+        for (int i = 1; i < ancho; i++) {
+            agregar(SEPARADOR);
+        }
+        finDeLinea();
+    }
+
+    /**
+     * Agrega una celda de texto a la fila actual.
+     *
+     * @param texto Texto de la celda; null se escribe vacío
+     * @return esta tabla
+     */
+    public RenderizadorTabla celda(String texto) {
+        if (prepararCelda()) {
+            escribirCelda(texto);
+        }
+        return this;
+    }
+
+    /**
+     * Agrega una celda numérica a la fila actual.
+     *
+     * @param numero Número de la celda
+     * @return esta tabla
+     */
+    public RenderizadorTabla celda(long numero) {
+        if (!prepararCelda()) {
+            return this;
+        }
+
+        int cantidad = 0;
+        long resto = Math.abs(numero);
+        do {
+            digitos[digitos.length - 1 - cantidad++] = (char) ('0' + Math.abs(resto % 10));
+            resto /= 10;
+        } while (resto != 0);
+        if (numero < 0) {
+            digitos[digitos.length - 1 - cantidad++] = '-';
+        }
+
+        reservar(cantidad);
+        System.arraycopy(digitos, digitos.length - cantidad, bufer, posicion, cantidad);
+        posicion += cantidad;
+        completarCelda(cantidad);
+        return this;
+    }
+
+    /**
+     * Termina la fila actual.
+     *
+     * @return false si la paginación se detuvo y no se escriben más filas
+     */
+    public boolean terminarFila() {
+        if (detenida) {
+            return false;
+        }
+        finDeLinea();
+        filas++;
+        filasEnPagina++;
+        return true;
+    }
+
+    /**
+     * Envía lo que quede en el búfer.
+     */
+    public void terminar() {
+        vaciar();
+        try {
+            salida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return filas escritas, sin contar el encabezado
+     */
+    public int getFilas() {
+        return filas;
+    }
+
+    /**
+     * @return true si el usuario detuvo la paginación
+     */
+    public boolean isDetenida() {
+        return detenida;
+    }
+
+    /**
+     * Al empezar una fila con la página completa, envía la salida y
+     * pregunta si debe seguir.
+     *
+     * @return false si la celda no debe escribirse
+     */
+    private boolean prepararCelda() {
+        if (detenida) {
+            return false;
+        }
+        if (columna == 0 && filasPorPagina > 0 && filasEnPagina >= filasPorPagina) {
+            terminar();
+            filasEnPagina = 0;
+            if (!continuar.getAsBoolean()) {
+                detenida = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copia un texto en la columna actual, recortado a su ancho.
+     */
+    private void escribirCelda(String texto) {
+        int ancho = anchos[Math.min(columna, anchos.length - 1)];
+        int longitud = (texto != null) ? texto.length() : 0;
+
+        if (ancho > 0 && longitud > ancho) {
+            int visibles = Math.max(0, ancho - PUNTOS.length());
+            copiar(texto, visibles);
+            copiar(PUNTOS, Math.min(PUNTOS.length(), ancho));
+            longitud = ancho;
+        } else if (longitud > 0) {
+            copiar(texto, longitud);
+        }
+        completarCelda(longitud);
+    }
+
+    /**
+     * Rellena la celda hasta el ancho de su columna, salvo en la última,
+     * y pasa a la siguiente.
+     */
+    private void completarCelda(int escritos) {
+        boolean ultima = columna >= anchos.length - 1;
+        if (!ultima) {
+            for (int i = escritos; i < anchos[columna]; i++) {
+                agregar(' ');
+            }
+            agregar(' ');
+        }
+        columna++;
+    }
+
+    private void copiar(String texto, int cantidad) {
+        int copiados = 0;
+        while (copiados < cantidad) {
+            if (posicion == bufer.length) {
+                vaciar();
+            }
+            int tramo = Math.min(cantidad - copiados, bufer.length - posicion);
+            texto.getChars(copiados, copiados + tramo, bufer, posicion);
+            posicion += tramo;
+            copiados += tramo;
+        }
+    }
+
+    private void agregar(char c) {
+        if (posicion == bufer.length) {
+            vaciar();
+        }
+        bufer[posicion++] = c;
+    }
+
+    private void reservar(int cantidad) {
+        if (bufer.length - posicion < cantidad) {
+            vaciar();
+        }
+    }
+
+    private void finDeLinea() {
+        // Sin espacios al final si la última celda quedó vacía
+        while (posicion > 0 && bufer[posicion - 1] == ' ' && columna > 0) {
+            posicion--;
+        }
+        copiar(FIN_DE_LINEA, FIN_DE_LINEA.length());
+        columna = 0;
+    }
+
+    private void vaciar() {
+        if (posicion == 0) {
+            return;
+        }
+        try {
+            salida.write(bufer, 0, posicion);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        posicion = 0;
+    }
+}
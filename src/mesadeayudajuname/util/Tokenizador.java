@@ -0,0 +1,104 @@
+package mesadeayudajuname.util;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Utilidades para dividir texto en español en términos de búsqueda.
+ * Los términos se pasan a minúsculas y se les quitan los acentos, de modo
+ * que "Conexión" y "conexion" coinciden; se descartan las palabras vacías
+ * más comunes y se reducen el plural y la vocal final de género, de modo
+ * que "impresoras", "impresora" e "impresor" producen el mismo término.
+ *
+ * @author juanulb
+ */
+public class Tokenizador {
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final int LONGITUD_MINIMA = 2;
+
+    private static final Set<String> PALABRAS_VACIAS = new HashSet<>(Arrays.asList(
+        "a", "al", "algo", "ante", "con", "como", "cual", "de", "del", "desde", "donde",
+        "el", "ella", "ellos", "en", "entre", "era", "es", "esa", "ese", "eso", "esta",
+        "estan", "este", "esto", "fue", "ha", "han", "hay", "la", "las", "le", "les",
+        "lo", "los", "mas", "me", "mi", "muy", "ni", "no", "nos", "o", "para", "pero",
+        "por", "que", "se", "ser", "si", "sin", "sobre", "son", "su", "sus", "tambien",
+        "te", "todo", "tu", "un", "una", "uno", "unos", "unas", "y", "ya", "yo"
+    ));
+
+    /**
+     * Pasa un texto a minúsculas y le quita tildes y diéresis. La eñe se
+     * conserva como "n" porque el texto de los tickets suele escribirse sin
+     * ella de forma indistinta.
+     *
+     * @param texto Texto a plegar
+     * @return texto en minúsculas y sin marcas diacríticas
+     */
+    public static String plegarAcentos(String texto) {
+        if (esAscii(texto)) {
+            return texto.toLowerCase(Locale.ROOT);
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean esAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Divide un texto en términos de búsqueda normalizados.
+     *
+     * @param texto Texto a dividir
+     * @return términos en el orden en que aparecen, con repeticiones
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return terminos;
+        }
+
+        String plegado = plegarAcentos(texto);
+        int inicio = -1;
+        for (int i = 0; i <= plegado.length(); i++) {
+            boolean esParte = i < plegado.length() && Character.isLetterOrDigit(plegado.charAt(i));
+            if (esParte && inicio < 0) {
+                inicio = i;
+            } else if (!esParte && inicio >= 0) {
+                agregarTermino(plegado.substring(inicio, i), terminos);
+                inicio = -1;
+            }
+        }
+        return terminos;
+    }
+
+    private static void agregarTermino(String palabra, List<String> terminos) {
+        if (palabra.length() < LONGITUD_MINIMA || PALABRAS_VACIAS.contains(palabra)) {
+            return;
+        }
+        terminos.add(raiz(palabra));
+    }
+
+    /**
+     * Raíz ligera: quita la "s" del plural y luego una vocal final a, e u o
+     * ("redes" -> "red", "clientes" -> "client", "discos" -> "disc").
+     */
+    private static String raiz(String palabra) {
+        int n = palabra.length();
+        if (n > 3 && palabra.charAt(n - 1) == 's') {
+            n--;
+        }
+        if (n > 3) {
+            char ultima = palabra.charAt(n - 1);
+            if (ultima == 'a' || ultima == 'e' || ultima == 'o') {
+                n--;
+            }
+        }
+        return palabra.substring(0, n);
+    }
+}
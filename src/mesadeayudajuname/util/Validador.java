@@ -1,7 +1,13 @@
 package mesadeayudajuname.util;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Clase de utilidades para validación de datos.
@@ -49,6 +55,33 @@ public class Validador {
         }
     }
     
+    /**
+     * Interpreta una fecha en formato ISO, con hora ({@code 2025-09-25T12:00})
+     * o sin ella ({@code 2025-09-25}). Sin hora, se toma el inicio del día o,
+     * si se indica, su último instante, para usarla como límite de un rango.
+     * 
+     * @param texto Fecha a interpretar
+     * @param finDelDia true para completar una fecha sin hora con 23:59:59.999
+     * @param nombreCampo Nombre del campo para mensajes de error
+     * @return fecha interpretada, o null si el texto está vacío
+     * @throws IllegalArgumentException si el texto no es una fecha válida
+     */
+    public static LocalDateTime parsearFecha(String texto, boolean finDelDia, String nombreCampo) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return null;
+        }
+        String valor = texto.trim();
+        try {
+            if (valor.length() <= 10) {
+                LocalDate fecha = LocalDate.parse(valor);
+                return finDelDia ? fecha.atTime(LocalTime.MAX) : fecha.atStartOfDay();
+            }
+            return LocalDateTime.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha no válida para '" + nombreCampo + "': " + texto);
+        }
+    }
+    
     /**
      * Normaliza una cadena de texto (trim y primera letra mayúscula).
      * 
@@ -76,20 +109,17 @@ public class Validador {
      * @return Lista de habilidades normalizadas
      */
     public static List<String> validarYNormalizarSkills(List<String> skills) {
-        List<String> skillsNormalizadas = new ArrayList<>();
+        Set<String> skillsNormalizadas = new LinkedHashSet<>();
         
         if (skills != null) {
             for (String skill : skills) {
                 if (skill != null && !skill.trim().isEmpty()) {
-                    String skillNormalizada = normalizarTexto(skill);
-                    if (!skillsNormalizadas.contains(skillNormalizada)) {
-                        skillsNormalizadas.add(skillNormalizada);
-                    }
+                    skillsNormalizadas.add(normalizarTexto(skill));
                 }
             }
         }
         
-        return skillsNormalizadas;
+        return new ArrayList<>(skillsNormalizadas);
     }
     
     /**
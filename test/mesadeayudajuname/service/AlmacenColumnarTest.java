@@ -0,0 +1,177 @@
+package mesadeayudajuname.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import mesadeayudajuname.model.*;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link AlmacenColumnar}: las métricas por columnas deben dar
+ * los mismos valores que las calculadas recorriendo los tickets.
+ *
+ * @author juanulb
+ */
+public class AlmacenColumnarTest {
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String[] CATEGORIAS = {"Redes", "Hardware", "Software", "Seguridad", "General"};
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 30, 1, 59, 59);
+
+    private final List<File> directorios = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        System.clearProperty(TableroService.PROPIEDAD_METRICAS_COLUMNARES);
+        for (File directorio : directorios) {
+            directorio.delete();
+        }
+    }
+
+    @Test
+    public void minutosComoDurationEnLosLimites() throws ReflectiveOperationException {
+        AlmacenColumnar almacen = new AlmacenColumnar();
+        // Menos de un minuto por un nanosegundo: con milisegundos daría 1
+        almacen.actualizar(cerrado(1, BASE.plusNanos(900), BASE.plusSeconds(60).plusNanos(100)));
+        // Un nanosegundo menos que dos minutos: con milisegundos daría 2
+        almacen.actualizar(cerrado(2, BASE.plusNanos(1), BASE.plusSeconds(120)));
+        // Exactamente cuatro minutos
+        almacen.actualizar(cerrado(3, BASE, BASE.plusMinutes(4)));
+
+        assertEquals((1 + 4) / 2.0, almacen.promedioMinutosResolucion(), 0.0);
+    }
+
+    @Test
+    public void promediosIgualesAUsarDuration() throws ReflectiveOperationException {
+        Random aleatorio = new Random(45);
+        AlmacenColumnar almacen = new AlmacenColumnar();
+        List<Ticket> tickets = new ArrayList<>();
+        for (int id = 1; id <= 5000; id++) {
+            LocalDateTime creacion = BASE.plusNanos(aleatorio.nextLong(1_000_000_000_000L));
+            LocalDateTime inicio = creacion.plusNanos(aleatorio.nextLong(600_000_000_000L));
+            LocalDateTime cierre = inicio.plusNanos(aleatorio.nextLong(-1_000_000_000L, 600_000_000_000L));
+            Ticket ticket = cerrado(id, inicio, cierre);
+            fijar(ticket, "fechaCreacion", creacion);
+            tickets.add(ticket);
+            almacen.actualizar(ticket);
+        }
+
+        double resolucion = tickets.stream()
+            .mapToLong(Ticket::calcularDuracionResolucion)
+            .filter(duracion -> duracion > 0)
+            .average()
+            .orElse(0.0);
+        double espera = tickets.stream()
+            .mapToLong(t -> Duration.between(t.getFechaCreacion(), t.getFechaInicio()).toMinutes())
+            .average()
+            .orElse(0.0);
+        assertEquals(resolucion, almacen.promedioMinutosResolucion(), 0.0);
+        assertEquals(espera, almacen.promedioMinutosEspera(), 0.0);
+    }
+
+    @Test
+    public void metricasColumnaresIgualesALasDeLosTickets() throws IOException {
+        List<String> instantanea = instantaneaAleatoria(new Random(2024), 3000);
+
+        TableroService porTickets = tablero(instantanea, false);
+        TableroService porColumnas = tablero(instantanea, true);
+
+        Map<String, Object> esperadas = porTickets.calcularMetricas();
+        Map<String, Object> obtenidas = porColumnas.calcularMetricas();
+        for (String clave : new String[] {"cacheClasificacionAciertos", "cacheClasificacionFallos",
+                                           "diccionarioCompilacionMs", "textoFueraDelHeapBytes"}) {
+            esperadas.remove(clave);
+            obtenidas.remove(clave);
+        }
+        assertEquals(3000, esperadas.get("totalTickets"));
+        assertEquals(esperadas, obtenidas);
+
+        // Después de cambios, las columnas siguen a los tickets
+        for (Ticket ticket : porTickets.buscarPorEstado(Estado.EN_CURSO).subList(0, 50)) {
+            porTickets.cerrarTicket(ticket.getId());
+            porColumnas.cerrarTicket(ticket.getId());
+        }
+        assertEquals(porTickets.calcularMetricas().get("ticketsPorEstado"),
+                     porColumnas.calcularMetricas().get("ticketsPorEstado"));
+        assertEquals(porTickets.calcularMetricas().get("ticketsEnCursoPorTecnico"),
+                     porColumnas.calcularMetricas().get("ticketsEnCursoPorTecnico"));
+    }
+
+    private TableroService tablero(List<String> instantanea, boolean columnas) throws IOException {
+        if (columnas) {
+            System.setProperty(TableroService.PROPIEDAD_METRICAS_COLUMNARES, "true");
+        }
+        File directorio = Files.createTempDirectory("metricas").toFile();
+        directorios.add(directorio);
+        try {
+            TableroService tablero = new TableroService(false, directorio);
+            tablero.cargarInstantanea(instantanea);
+            return tablero;
+        } finally {
+            System.clearProperty(TableroService.PROPIEDAD_METRICAS_COLUMNARES);
+        }
+    }
+
+    /**
+     * Genera una instantánea con técnicos y tickets en todos los estados,
+     * con fechas al segundo como las del CSV.
+     */
+    private static List<String> instantaneaAleatoria(Random aleatorio, int cantidad) {
+        List<String> registros = new ArrayList<>();
+        for (int tecnico = 1; tecnico <= 5; tecnico++) {
+            registros.add(Journal.formatear(0, 0, TipoEvento.TECNICO_AGREGADO,
+                                            tecnico + ";Tecnico " + tecnico + ";" + String.join(",", CATEGORIAS)));
+        }
+        for (int id = 1; id <= cantidad; id++) {
+            Estado estado = Estado.values()[aleatorio.nextInt(Estado.values().length)];
+            LocalDateTime creacion = BASE.plusSeconds(aleatorio.nextInt(10_000_000));
+            LocalDateTime inicio = (estado != Estado.ABIERTO) ? creacion.plusSeconds(aleatorio.nextInt(50_000)) : null;
+            LocalDateTime cierre = (estado == Estado.CERRADO) ? inicio.plusSeconds(aleatorio.nextInt(50_000)) : null;
+            int escalamientos = aleatorio.nextInt(3);
+
+            String linea = id + ";Ticket " + id + ";Descripción " + id
+                + ";" + CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)]
+                + ";" + estado
+                + ";" + Prioridad.values()[aleatorio.nextInt(Prioridad.values().length)]
+                + ";" + ((inicio != null) ? String.valueOf(1 + aleatorio.nextInt(5)) : "")
+                + ";" + creacion.format(FORMATO)
+                + ";" + ((inicio != null) ? inicio.format(FORMATO) : "")
+                + ";" + ((cierre != null) ? cierre.format(FORMATO) : "")
+                + ";" + escalamientos
+                + ";" + ((escalamientos > 0) ? creacion.plusHours(1).format(FORMATO) : "")
+                + ";" + ((id > 1 && aleatorio.nextInt(10) == 0) ? String.valueOf(id - 1) : "")
+                + ";" + aleatorio.nextBoolean();
+            registros.add(Journal.formatear(0, 0, TipoEvento.TICKET_CREADO, linea));
+        }
+        return registros;
+    }
+
+    private static Ticket cerrado(int id, LocalDateTime inicio, LocalDateTime cierre)
+            throws ReflectiveOperationException {
+        Ticket ticket = new Ticket(id, "Ticket " + id, "Descripción", "Redes", Prioridad.MEDIA);
+        fijar(ticket, "fechaCreacion", inicio);
+        fijar(ticket, "fechaInicio", inicio);
+        fijar(ticket, "fechaCierre", cierre);
+        fijar(ticket, "estado", Estado.CERRADO);
+        return ticket;
+    }
+
+    /**
+     * Fija un campo del ticket sin validaciones, como hace
+     * {@link mesadeayudajuname.util.CSVRepository} al cargarlo.
+     */
+    private static void fijar(Ticket ticket, String campo, Object valor) throws ReflectiveOperationException {
+        Field field = Ticket.class.getDeclaredField(campo);
+        field.setAccessible(true);
+        field.set(ticket, valor);
+    }
+}
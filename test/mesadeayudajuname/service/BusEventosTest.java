@@ -0,0 +1,136 @@
+package mesadeayudajuname.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link BusEventos}: orden de entrega, consistencia de las
+ * ranuras del buffer y contadores de las políticas de desborde.
+ *
+ * @author juanulb
+ */
+public class BusEventosTest {
+    private BusEventos bus;
+
+    @Before
+    public void setUp() {
+        bus = new BusEventos();
+    }
+
+    @After
+    public void tearDown() {
+        bus.cerrar();
+    }
+
+    @Test
+    public void entregaTodosLosEventosEnOrden() throws InterruptedException {
+        List<EventoTicket> recibidos = new ArrayList<>();
+        BusEventos.Suscripcion suscripcion = bus.suscribir(evento -> {
+            synchronized (recibidos) {
+                recibidos.add(evento);
+            }
+        }, 1024, PoliticaDesborde.DESCARTAR_NUEVO);
+
+        for (int i = 1; i <= 500; i++) {
+            bus.publicar(TipoEvento.TICKET_CREADO, i, i % 7);
+        }
+
+        esperarHasta(() -> suscripcion.getEntregados() == 500);
+        assertEquals(0, suscripcion.getDescartados());
+        synchronized (recibidos) {
+            assertEquals(500, recibidos.size());
+            for (int i = 0; i < recibidos.size(); i++) {
+                EventoTicket evento = recibidos.get(i);
+                assertEquals(i + 1, evento.getSecuencia());
+                assertEquals(i + 1, evento.getTicketId());
+                assertEquals((i + 1) % 7, evento.getTecnicoId());
+                assertEquals(TipoEvento.TICKET_CREADO, evento.getTipo());
+            }
+        }
+    }
+
+    @Test
+    public void descartarAntiguoNuncaEntregaRanurasMezcladas() throws InterruptedException {
+        final int total = 200_000;
+        AtomicReference<String> error = new AtomicReference<>();
+        AtomicLong ultimaSecuencia = new AtomicLong();
+        BusEventos.Suscripcion suscripcion = bus.suscribir(evento -> {
+            // Todos los campos de un evento derivan de su secuencia
+            int valor = (int) evento.getSecuencia();
+            if (evento.getTicketId() != valor || evento.getTecnicoId() != (valor ^ 0x5555)
+                    || evento.getTipo() != TipoEvento.values()[valor % 5]) {
+                error.compareAndSet(null, "Evento mezclado: " + evento);
+            }
+            if (evento.getSecuencia() <= ultimaSecuencia.get()) {
+                error.compareAndSet(null, "Secuencia fuera de orden: " + evento);
+            }
+            ultimaSecuencia.set(evento.getSecuencia());
+        }, 8, PoliticaDesborde.DESCARTAR_ANTIGUO);
+
+        for (int i = 1; i <= total; i++) {
+            bus.publicar(TipoEvento.values()[i % 5], i, i ^ 0x5555);
+        }
+
+        esperarHasta(() -> suscripcion.getEntregados() + suscripcion.getDescartados() == total);
+        assertNull(error.get());
+        assertEquals(0, suscripcion.getPendientes());
+    }
+
+    @Test
+    public void descartarNuevoCuentaLosEventosRechazados() throws InterruptedException {
+        CountDownLatch liberar = new CountDownLatch(1);
+        BusEventos.Suscripcion suscripcion = bus.suscribir(evento -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 4, PoliticaDesborde.DESCARTAR_NUEVO);
+
+        for (int i = 1; i <= 10; i++) {
+            bus.publicar(TipoEvento.TICKET_ASIGNADO, i, 1);
+        }
+
+        // El hilo de entrega puede haber tomado el primer evento o no
+        long descartados = suscripcion.getDescartados();
+        assertTrue("descartados=" + descartados, descartados == 5 || descartados == 6);
+
+        liberar.countDown();
+        esperarHasta(() -> suscripcion.getEntregados() + suscripcion.getDescartados() == 10);
+        assertEquals(descartados, suscripcion.getDescartados());
+    }
+
+    @Test
+    public void cancelarDetieneLaEntrega() throws InterruptedException {
+        AtomicLong recibidos = new AtomicLong();
+        BusEventos.Suscripcion suscripcion = bus.suscribir(evento -> recibidos.incrementAndGet(),
+                                                           16, PoliticaDesborde.DESCARTAR_NUEVO);
+        bus.publicar(TipoEvento.TICKET_CERRADO, 1, 0);
+        esperarHasta(() -> recibidos.get() == 1);
+
+        suscripcion.cancelar();
+        assertFalse(suscripcion.isActiva());
+        bus.publicar(TipoEvento.TICKET_CERRADO, 2, 0);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(1, recibidos.get());
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                fail("La condición no se cumplió en 10 segundos");
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+}
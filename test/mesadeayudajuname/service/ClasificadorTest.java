@@ -0,0 +1,207 @@
+package mesadeayudajuname.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+import mesadeayudajuname.model.Prioridad;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del {@link Clasificador}: mismos resultados que las expresiones
+ * regulares a las que reemplazó el autómata, y ubicación y recarga del
+ * archivo de diccionarios.
+ *
+ * @author juanulb
+ */
+public class ClasificadorTest {
+    // Expresiones del clasificador anterior al autómata, como referencia
+    private static final Pattern PRIORIDAD_ALTA = Pattern.compile(
+        "\\b(urgente|crítico|crítica|emergencia|emergency|down|caído|parado|" +
+        "no funciona|error crítico|falla crítica|servidor caído)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PRIORIDAD_MEDIA = Pattern.compile(
+        "\\b(importante|problema|issue|lento|lenta|intermitente|" +
+        "no responde|timeout|delay|retraso)\\b", Pattern.CASE_INSENSITIVE);
+    private static final String[] CATEGORIAS = {"Redes", "Hardware", "Software", "Seguridad"};
+    private static final Pattern[] PATRONES_CATEGORIAS = {
+        Pattern.compile("\\b(red|redes|network|conexión|internet|wifi|ethernet|" +
+                        "router|switch|ip|dns|firewall|vpn)\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\b(hardware|hw|disco|ram|memoria|cpu|procesador|monitor|" +
+                        "pantalla|teclado|mouse|impresora|scanner)\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\b(software|sw|aplicación|aplicacion|programa|windows|linux|" +
+                        "office|excel|word|outlook|navegador|browser)\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\b(seguridad|security|virus|malware|antivirus|contraseña|" +
+                        "password|login|acceso|cuenta|usuario|hack)\\b", Pattern.CASE_INSENSITIVE)
+    };
+
+    // Palabras que contienen una palabra clave sin serlo
+    private static final List<String> CASI_CLAVES = Arrays.asList(
+        "redondo", "ipad", "switches", "cpus", "red_", "_red", "red2", "hw3", "downtime", "cuentas",
+        "contraseñas", "programas", "wifi6", "no funcionan", "no  responde", "emergencias");
+    private static final List<String> COMUNES = Arrays.asList(
+        "la", "el", "de", "sala", "equipo", "señal", "impresión", "niño", "pública", "no", "funciona",
+        "servidor", "error", "falla", "responde", "2do", "piso", "ÁREA");
+    private static final String[] SEPARADORES = {" ", " ", " ", ", ", ". ", "\n", " - ", " (", ") ", "/", ": ", "!"};
+
+    private File temporal;
+
+    @After
+    public void tearDown() throws IOException {
+        System.clearProperty(TableroService.PROPIEDAD_DIRECTORIO_DATOS);
+        if (temporal != null) {
+            temporal.delete();
+        }
+        // Las pruebas se ejecutan en el directorio del proyecto
+        Clasificador.recargar(Clasificador.archivoDiccionarios());
+    }
+
+    @Test
+    public void automataIgualALasExpresionesRegulares() {
+        List<String> claves = new ArrayList<>();
+        for (String linea : new String[] {PRIORIDAD_ALTA.pattern(), PRIORIDAD_MEDIA.pattern()}) {
+            claves.addAll(palabras(linea));
+        }
+        for (Pattern patron : PATRONES_CATEGORIAS) {
+            claves.addAll(palabras(patron.pattern()));
+        }
+
+        Random aleatorio = new Random(40);
+        List<String> titulos = new ArrayList<>();
+        List<String> descripciones = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String titulo = textoAleatorio(aleatorio, claves, 4);
+            String descripcion = textoAleatorio(aleatorio, claves, 12);
+            ResultadoClasificacion resultado = Clasificador.clasificar(titulo, descripcion);
+            String contenido = (titulo + " " + descripcion).toLowerCase();
+            assertEquals(contenido, categoriaAnterior(contenido), resultado.getCategoria());
+            assertEquals(contenido, prioridadAnterior(contenido), resultado.getPrioridad());
+            titulos.add(titulo);
+            descripciones.add(descripcion);
+        }
+
+        // El lote da lo mismo que de a uno
+        String[] categorias = new String[titulos.size()];
+        Prioridad[] prioridades = new Prioridad[titulos.size()];
+        Clasificador.clasificarLote(titulos, descripciones, categorias, prioridades);
+        for (int i = 0; i < titulos.size(); i++) {
+            ResultadoClasificacion resultado = Clasificador.clasificar(titulos.get(i), descripciones.get(i));
+            assertEquals(resultado.getCategoria(), categorias[i]);
+            assertEquals(resultado.getPrioridad(), prioridades[i]);
+        }
+    }
+
+    @Test
+    public void letrasAcentuadasNoSonLimiteDePalabra() {
+        // El \b de las expresiones solo reconocía letras ASCII
+        assertTrue(PATRONES_CATEGORIAS[1].matcher("ramón no puede imprimir").find());
+        assertEquals("General", Clasificador.clasificar("Ramón", "no puede imprimir").getCategoria());
+        assertEquals("Hardware", Clasificador.clasificar("RAM", "de Ramón").getCategoria());
+    }
+
+    @Test
+    public void archivoDiccionariosEstaEnElDirectorioDeDatos() {
+        assertEquals(new File(".", Clasificador.ARCHIVO_DICCIONARIOS), Clasificador.archivoDiccionarios());
+
+        System.setProperty(TableroService.PROPIEDAD_DIRECTORIO_DATOS, "datos/replica");
+        assertEquals(new File("datos/replica", Clasificador.ARCHIVO_DICCIONARIOS), Clasificador.archivoDiccionarios());
+    }
+
+    @Test
+    public void recargarUsaElDiccionarioNuevo() throws IOException {
+        assertEquals("General", Clasificador.clasificar("Sharepoint", "no sincroniza").getCategoria());
+        int generacion = Clasificador.getDiccionario().getGeneracion();
+
+        temporal = File.createTempFile("diccionarios", ".txt");
+        Files.write(temporal.toPath(), List.of("[ALTA]", "no sincroniza", "[Software]", "sharepoint, office"),
+                    StandardCharsets.UTF_8);
+        Clasificador.recargar(temporal);
+
+        // El resultado guardado en la caché con el diccionario anterior se descarta
+        ResultadoClasificacion resultado = Clasificador.clasificar("Sharepoint", "no sincroniza");
+        assertEquals("Software", resultado.getCategoria());
+        assertEquals(Prioridad.ALTA, resultado.getPrioridad());
+        assertTrue(Clasificador.getDiccionario().getGeneracion() > generacion);
+    }
+
+    @Test
+    public void recargarArchivoInvalidoConservaElDiccionario() throws IOException {
+        DiccionarioClasificacion anterior = Clasificador.getDiccionario();
+
+        temporal = File.createTempFile("diccionarios", ".txt");
+        Files.write(temporal.toPath(), List.of("palabras sin sección"), StandardCharsets.UTF_8);
+        try {
+            Clasificador.recargar(temporal);
+            fail("Se esperaba un error de formato");
+        } catch (IllegalArgumentException e) {
+            assertSame(anterior, Clasificador.getDiccionario());
+        }
+    }
+
+    private static String categoriaAnterior(String contenido) {
+        for (int i = 0; i < PATRONES_CATEGORIAS.length; i++) {
+            if (PATRONES_CATEGORIAS[i].matcher(contenido).find()) {
+                return CATEGORIAS[i];
+            }
+        }
+        return "General";
+    }
+
+    private static Prioridad prioridadAnterior(String contenido) {
+        if (PRIORIDAD_ALTA.matcher(contenido).find()) {
+            return Prioridad.ALTA;
+        } else if (PRIORIDAD_MEDIA.matcher(contenido).find()) {
+            return Prioridad.MEDIA;
+        }
+        return Prioridad.BAJA;
+    }
+
+    /**
+     * Extrae las alternativas de una expresión "\b(a|b|c)\b".
+     */
+    private static List<String> palabras(String patron) {
+        return Arrays.asList(patron.substring(3, patron.length() - 3).split("\\|"));
+    }
+
+    /**
+     * Arma un texto con palabras clave en mayúsculas o minúsculas, palabras
+     * que las contienen y palabras comunes, unidas por separadores variados.
+     */
+    private static String textoAleatorio(Random aleatorio, List<String> claves, int maximo) {
+        StringBuilder texto = new StringBuilder();
+        int cantidad = aleatorio.nextInt(maximo + 1);
+        for (int i = 0; i < cantidad; i++) {
+            if (i > 0) {
+                texto.append(SEPARADORES[aleatorio.nextInt(SEPARADORES.length)]);
+            }
+            int tipo = aleatorio.nextInt(10);
+            String palabra;
+            if (tipo < 2) {
+                palabra = claves.get(aleatorio.nextInt(claves.size()));
+            } else if (tipo < 4) {
+                palabra = CASI_CLAVES.get(aleatorio.nextInt(CASI_CLAVES.size()));
+            } else {
+                palabra = COMUNES.get(aleatorio.nextInt(COMUNES.size()));
+            }
+            switch (aleatorio.nextInt(3)) {
+                case 0:
+                    palabra = palabra.toUpperCase(Locale.ROOT);
+                    break;
+                case 1:
+                    palabra = Character.toUpperCase(palabra.charAt(0)) + palabra.substring(1);
+                    break;
+                default:
+                    break;
+            }
+            texto.append(palabra);
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package mesadeayudajuname.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import mesadeayudajuname.model.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de ida y vuelta de {@link HistorialTransiciones}: el texto de las
+ * instantáneas y el archivo binario deben devolver las mismas transiciones,
+ * incluso entre bloques separados por más de {@code Integer.MAX_VALUE}
+ * milisegundos.
+ *
+ * @author juanulb
+ */
+public class HistorialTransicionesTest {
+    private File archivo;
+    private Map<Integer, Ticket> tickets;
+    private HuellaTickets huella;
+
+    @Before
+    public void setUp() throws IOException {
+        archivo = File.createTempFile("historial", ".dat");
+        archivo.delete();
+        Ticket ultimo = new Ticket(50, "Último", "Descripción", "Redes", Prioridad.MEDIA);
+        tickets = new HashMap<>();
+        tickets.put(ultimo.getId(), ultimo);
+        huella = HuellaTickets.de(ultimo);
+    }
+
+    @After
+    public void tearDown() {
+        archivo.delete();
+        new File(archivo.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void formatearYRegistrarFormateadas() {
+        HistorialTransiciones original = aleatorio(new Random(47), 5000);
+
+        List<String> grupos = new ArrayList<>();
+        original.formatear(700, grupos);
+        assertEquals(8, grupos.size());
+        HistorialTransiciones leido = new HistorialTransiciones();
+        for (String grupo : grupos) {
+            leido.registrarFormateadas(grupo);
+        }
+
+        assertMismoHistorial(original, leido);
+    }
+
+    @Test
+    public void guardarPorPartesYCargar() throws IOException {
+        Random aleatorio = new Random(470);
+        HistorialTransiciones original = new HistorialTransiciones();
+        registrarAleatorias(original, aleatorio, 3000);
+        original.guardar(archivo, huella);
+        long tamanoParcial = archivo.length();
+
+        // El segundo guardado solo agrega las transiciones nuevas
+        registrarAleatorias(original, aleatorio, 2000);
+        original.guardar(archivo, huella);
+        assertTrue(archivo.length() > tamanoParcial);
+
+        HistorialTransiciones leido = new HistorialTransiciones();
+        assertTrue(leido.cargar(archivo, tickets));
+        assertMismoHistorial(original, leido);
+    }
+
+    @Test
+    public void cargarDescartaLaTransicionIncompleta() throws IOException {
+        HistorialTransiciones original = aleatorio(new Random(4700), 100);
+        original.guardar(archivo, huella);
+        long completo = archivo.length();
+        try (RandomAccessFile recorte = new RandomAccessFile(archivo, "rw")) {
+            recorte.setLength(completo - 1);
+        }
+
+        HistorialTransiciones leido = new HistorialTransiciones();
+        assertTrue(leido.cargar(archivo, tickets));
+        assertEquals(99, leido.getTamano());
+        assertTrue(archivo.length() < completo - 1);
+
+        // El guardado siguiente continúa después de la última completa
+        leido.registrar(1, TipoEvento.TICKET_CERRADO, 0, Long.MAX_VALUE / 2);
+        leido.guardar(archivo, huella);
+        HistorialTransiciones releido = new HistorialTransiciones();
+        assertTrue(releido.cargar(archivo, tickets));
+        assertMismoHistorial(leido, releido);
+    }
+
+    @Test
+    public void cargarConOtrosTicketsFalla() throws IOException {
+        aleatorio(new Random(1), 10).guardar(archivo, huella);
+        Map<Integer, Ticket> otros = new HashMap<>();
+        otros.put(50, new Ticket(50, "Otro título", "Descripción", "Redes", Prioridad.MEDIA));
+
+        HistorialTransiciones leido = new HistorialTransiciones();
+        try {
+            leido.cargar(archivo, otros);
+            fail("Se esperaba un historial de otros tickets");
+        } catch (IOException e) {
+            assertEquals(0, leido.getTamano());
+        }
+    }
+
+    private static HistorialTransiciones aleatorio(Random aleatorio, int cantidad) {
+        HistorialTransiciones historial = new HistorialTransiciones();
+        registrarAleatorias(historial, aleatorio, cantidad);
+        return historial;
+    }
+
+    /**
+     * Registra transiciones con saltos de tiempo cortos y, de vez en cuando,
+     * de más de 24 días, que obligan a empezar un bloque nuevo.
+     */
+    private static void registrarAleatorias(HistorialTransiciones historial, Random aleatorio, int cantidad) {
+        long instante = 1_700_000_000_000L + historial.getTamano() * 10_000_000_000L;
+        for (int i = 0; i < cantidad; i++) {
+            instante += (aleatorio.nextInt(50) == 0) ? 3_000_000_000L : aleatorio.nextInt(60_000);
+            historial.registrar(1 + aleatorio.nextInt(50),
+                                TipoEvento.values()[aleatorio.nextInt(TipoEvento.values().length)],
+                                aleatorio.nextInt(4), instante);
+        }
+    }
+
+    private static void assertMismoHistorial(HistorialTransiciones esperado, HistorialTransiciones leido) {
+        assertEquals(esperado.getTamano(), leido.getTamano());
+        assertEquals(describir(esperado.entre(Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE)),
+                     describir(leido.entre(Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE)));
+        for (int ticketId = 1; ticketId <= 50; ticketId++) {
+            assertEquals(describir(esperado.deTicket(ticketId)), describir(leido.deTicket(ticketId)));
+        }
+    }
+
+    private static List<String> describir(List<HistorialTransiciones.Transicion> transiciones) {
+        List<String> lineas = new ArrayList<>();
+        for (HistorialTransiciones.Transicion transicion : transiciones) {
+            lineas.add(transicion.getTicketId() + "," + transicion.getTipo() + ","
+                       + transicion.getTecnicoId() + "," + transicion.getInstante());
+        }
+        return lineas;
+    }
+}
@@ -0,0 +1,157 @@
+package mesadeayudajuname.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.util.CSVRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del journal en disco: los puntos de control y los registros deben
+ * leerse tal como se escribieron, y {@link TableroService#estadoEn} debe
+ * reproducir el tablero de cada instante, incluso con separadores, comillas
+ * y saltos de línea en los textos.
+ *
+ * @author juanulb
+ */
+public class JournalPersistenteTest {
+    private File directorio;
+    private CSVRepository repository;
+
+    @Before
+    public void setUp() throws IOException {
+        directorio = Files.createTempDirectory("journal").toFile();
+        repository = new CSVRepository(directorio);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio.toPath())) {
+            archivos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void puntoControlYRegistrosConservanTextoEspecial() throws IOException, InterruptedException {
+        TableroService tablero = new TableroService(false, directorio);
+        Journal journal = tablero.getJournal();
+        long desde = journal.getUltimaSecuencia();
+        int lector = journal.registrarLector(desde, false);
+        int ana = tablero.agregarTecnico("Ana; \"la jefa\"", Arrays.asList("Redes", "Hardware"));
+        int ticket = tablero.crearTicket("VPN; caida", "Dice \"no\";\r\notra línea\\n", "Redes", Prioridad.ALTA);
+        List<String> instantanea = new ArrayList<>();
+        tablero.escribirInstantanea(instantanea);
+        tablero.asignarTicket(ticket, ana);
+        tablero.cerrarTicket(ticket);
+        List<String> registros = journal.leerDesde(desde, Integer.MAX_VALUE, 0);
+        journal.quitarLector(lector);
+
+        JournalPersistente archivo = new JournalPersistente(new File(directorio, "journal.log"),
+                                                            new File(directorio, "puntos"), Long.MAX_VALUE);
+        archivo.guardarPuntoControl(instantanea, 1000, archivo.getLongitud(), 0);
+        archivo.agregar(registros);
+
+        JournalPersistente.PuntoControl punto = archivo.puntoControlAnterior(1000);
+        assertEquals(instantanea, archivo.leerPuntoControl(punto));
+        assertEquals(registros, archivo.leerDesde(punto, archivo.getLongitud()));
+        assertNull(archivo.puntoControlAnterior(999));
+
+        // Al reabrir el archivo se encuentran el punto y los registros
+        JournalPersistente reabierto = new JournalPersistente(new File(directorio, "journal.log"),
+                                                              new File(directorio, "puntos"), Long.MAX_VALUE);
+        assertEquals(registros, reabierto.leerDesde(reabierto.puntoControlAnterior(1000), reabierto.getLongitud()));
+    }
+
+    @Test
+    public void estadoEnReproduceCadaInstante() throws IOException, InterruptedException {
+        TableroService tablero = new TableroService(true, directorio);
+        int ana = tablero.agregarTecnico("Ana; \"la jefa\"", Arrays.asList("Redes", "Software"));
+        int primero = tablero.crearTicket("VPN; caida", "Dice \"no\";\notra línea", "Redes", Prioridad.ALTA);
+        LocalDateTime antes = pausa();
+        List<String> estadoAntes = estado(tablero);
+        pausa();
+
+        tablero.asignarTicket(primero, ana);
+        tablero.crearTicket("Office; licencia", "\"\";;\n", "Software", Prioridad.MEDIA);
+        tablero.cerrarTicket(primero);
+        LocalDateTime despues = pausa();
+        List<String> estadoDespues = estado(tablero);
+
+        TableroService pasado = tablero.estadoEn(antes);
+        assertEquals(estadoAntes, estado(pasado));
+        assertTrue(pasado.isSoloLectura());
+        assertEquals(Estado.ABIERTO, pasado.buscarTicketPorId(primero).getEstado());
+        assertEquals(estadoDespues, estado(tablero.estadoEn(despues)));
+
+        // El índice de texto de un instante pasado se arma con la primera búsqueda
+        assertEquals(1, pasado.buscarTexto("caida", 10).size());
+        assertEquals(1, pasado.consultar(new ConsultaTickets().conTexto("caida")).size());
+        assertTrue(pasado.buscarTexto("licencia", 10).isEmpty());
+
+        // Un instante ya pasado se reconstruye una sola vez
+        assertSame(tablero.estadoEn(despues), tablero.estadoEn(despues));
+    }
+
+    @Test
+    public void estadoEnPartiendoDeUnPuntoDeControlEnSegundoPlano() throws IOException, InterruptedException {
+        TableroService tablero = new TableroService(true, directorio);
+        int ana = tablero.agregarTecnico("Ana", Arrays.asList("Redes"));
+        for (int i = 0; i < 2600; i++) {
+            tablero.crearTicket("Red; piso " + i, "Sin \"acceso\"", "Redes", Prioridad.BAJA);
+        }
+        LocalDateTime medio = pausa();
+        List<String> estadoMedio = estado(tablero);
+        pausa();
+        for (int i = 0; i < 2600; i++) {
+            tablero.crearTicket("Red; piso " + i, "Sin \"acceso\"", "Redes", Prioridad.BAJA);
+        }
+        tablero.esperarPuntoControl();
+        assertEquals(2, tablero.calcularMetricas().get("journalPuntosControl"));
+
+        pausa();
+        tablero.asignarTicket(1, ana);
+        tablero.cerrarTicket(1);
+        LocalDateTime fin = pausa();
+        List<String> estadoFin = estado(tablero);
+
+        assertEquals(estadoMedio, estado(tablero.estadoEn(medio)));
+        assertEquals(estadoFin, estado(tablero.estadoEn(fin)));
+    }
+
+    /**
+     * Deja pasar unos milisegundos antes y después del instante devuelto, de
+     * modo que ningún cambio comparta su marca de tiempo.
+     */
+    private static LocalDateTime pausa() throws InterruptedException {
+        Thread.sleep(5);
+        LocalDateTime instante = LocalDateTime.now();
+        Thread.sleep(5);
+        return instante;
+    }
+
+    /**
+     * Describe el tablero con sus líneas CSV, de modo que dos tableros
+     * iguales producen la misma lista.
+     */
+    private List<String> estado(TableroService tablero) {
+        List<String> lineas = new ArrayList<>();
+        for (Tecnico tecnico : tablero.getTecnicos()) {
+            lineas.add(repository.formatearTecnico(tecnico));
+        }
+        for (Ticket ticket : tablero.getTickets()) {
+            lineas.add(repository.formatearTicket(ticket));
+        }
+        return lineas;
+    }
+}
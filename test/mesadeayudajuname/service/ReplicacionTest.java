@@ -0,0 +1,144 @@
+package mesadeayudajuname.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import mesadeayudajuname.model.*;
+import mesadeayudajuname.util.CSVRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la replicación del tablero: instantáneas, registros del journal
+ * y un seguidor conectado por TCP deben reproducir exactamente el tablero
+ * del líder, incluso con separadores, comillas y saltos de línea en los
+ * textos.
+ *
+ * @author juanulb
+ */
+public class ReplicacionTest {
+    private File directorioLider;
+    private File directorioReplica;
+    private TableroService lider;
+    private CSVRepository repository;
+
+    @Before
+    public void setUp() throws IOException {
+        directorioLider = Files.createTempDirectory("lider").toFile();
+        directorioReplica = Files.createTempDirectory("replica").toFile();
+        lider = new TableroService(false, directorioLider);
+        repository = new CSVRepository(directorioLider);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        borrar(directorioLider);
+        borrar(directorioReplica);
+    }
+
+    @Test
+    public void instantaneaConservaTextoEspecial() {
+        poblar(lider);
+
+        List<String> instantanea = new ArrayList<>();
+        lider.escribirInstantanea(instantanea);
+        TableroService replica = new TableroService(false, directorioReplica);
+        replica.cargarInstantanea(instantanea);
+
+        assertEquals(estado(lider), estado(replica));
+        assertEquals(lider.historialTicket(1).size(), replica.historialTicket(1).size());
+    }
+
+    @Test
+    public void registrosDelJournalConservanTextoEspecial() throws InterruptedException {
+        Journal journal = lider.getJournal();
+        long desde = journal.getUltimaSecuencia();
+        int lector = journal.registrarLector(desde, false);
+        TableroService replica = new TableroService(false, directorioReplica);
+
+        poblar(lider);
+        for (String registro : journal.leerDesde(desde, Integer.MAX_VALUE, 0)) {
+            replica.aplicarRegistro(registro);
+        }
+        journal.quitarLector(lector);
+
+        assertEquals(estado(lider), estado(replica));
+    }
+
+    @Test
+    public void seguidorAlcanzaAlLider() throws IOException, InterruptedException {
+        // La mitad de los cambios llega en la instantánea y la otra mitad por el journal
+        int tecnico = lider.agregarTecnico("Ana; \"la jefa\"", Arrays.asList("Redes", "Software"));
+        lider.crearTicket("VPN; caida", "Dice \"no\";\notra línea", "Redes", Prioridad.ALTA);
+
+        ReplicacionLider replicacion = new ReplicacionLider(lider, 0);
+        replicacion.iniciar();
+        ReplicacionSeguidor seguidor = new ReplicacionSeguidor("localhost", replicacion.getPuerto());
+        try {
+            seguidor.iniciar();
+            esperarHasta(() -> seguidor.getTableroService().getTickets().size() == 1);
+
+            lider.asignarTicket(1, tecnico);
+            int segundo = lider.crearTicket("Office; licencia", "\"\";;\n", "Software", Prioridad.MEDIA);
+            lider.asignarTicket(segundo, tecnico);
+            lider.cerrarTicket(1);
+            esperarHasta(() -> estado(seguidor.getTableroService()).equals(estado(lider)));
+        } finally {
+            seguidor.detener();
+            replicacion.detener();
+        }
+
+        assertTrue(seguidor.getTableroService().isSoloLectura());
+    }
+
+    private static void poblar(TableroService tablero) {
+        int ana = tablero.agregarTecnico("Ana; \"la jefa\"", Arrays.asList("Redes", "Hardware"));
+        int primero = tablero.crearTicket("VPN; caida", "El cliente dice \"no conecta\";\nprobado dos veces",
+                                          "Redes", Prioridad.ALTA);
+        int segundo = tablero.crearTicket("\"Impresora\"", "Atasco\r\nde papel; bandeja 2", "Hardware", Prioridad.BAJA);
+        tablero.crearTicket("Consulta", ";", "General", Prioridad.MEDIA);
+        tablero.asignarTicket(primero, ana);
+        tablero.cerrarTicket(primero);
+        tablero.asignarTicket(segundo, ana);
+    }
+
+    /**
+     * Describe el tablero con las mismas líneas CSV que se replican, de modo
+     * que dos tableros iguales producen la misma lista.
+     */
+    private List<String> estado(TableroService tablero) {
+        List<String> lineas = new ArrayList<>();
+        for (Tecnico tecnico : tablero.getTecnicos()) {
+            lineas.add(repository.formatearTecnico(tecnico));
+        }
+        for (Ticket ticket : tablero.getTickets()) {
+            lineas.add(repository.formatearTicket(ticket));
+        }
+        return lineas;
+    }
+
+    private static void esperarHasta(java.util.function.BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                fail("La réplica no alcanzó al líder en 10 segundos");
+            }
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+    private static void borrar(File directorio) throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio.toPath())) {
+            archivos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package mesadeayudajuname.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import mesadeayudajuname.model.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de ida y vuelta de {@link CSVRepository}: cada ticket y técnico
+ * formateado debe leerse igual, incluso con separadores, comillas y saltos
+ * de línea en sus textos.
+ *
+ * @author juanulb
+ */
+public class CSVRepositoryTest {
+    private static final String TITULO = "VPN; caida";
+    private static final String DESCRIPCION = "El cliente dice \"no conecta\";\nprobado con \"\" y ;;\r\nfin";
+
+    private File directorio;
+    private CSVRepository repository;
+    private Tecnico tecnico;
+    private Map<Integer, Tecnico> tecnicos;
+
+    @Before
+    public void setUp() throws IOException {
+        directorio = Files.createTempDirectory("csv-test").toFile();
+        repository = new CSVRepository(directorio);
+        tecnico = new Tecnico(3, "Ana; \"la jefa\"", Arrays.asList("Redes", "Seguridad"));
+        tecnicos = new HashMap<>();
+        tecnicos.put(tecnico.getId(), tecnico);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<java.nio.file.Path> archivos = Files.walk(directorio.toPath())) {
+            archivos.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void formatearYParsearTicketConTextoEspecial() throws Exception {
+        Ticket original = ticketCerrado();
+
+        Ticket leido = repository.parsearTicket(repository.formatearTicket(original), tecnicos);
+
+        assertMismoTicket(original, leido);
+    }
+
+    @Test
+    public void formatearYParsearTicketPendiente() throws Exception {
+        Ticket original = new Ticket(8, "\"", ";", "General", Prioridad.BAJA);
+        original.marcarDuplicadoDe(2);
+
+        Ticket leido = repository.parsearTicket(repository.formatearTicket(original), tecnicos);
+
+        assertMismoTicket(original, leido);
+        assertNull(leido.getTecnicoAsignado());
+    }
+
+    @Test
+    public void formatearYParsearTecnicoConTextoEspecial() {
+        Tecnico leido = repository.parsearTecnico(repository.formatearTecnico(tecnico));
+
+        assertEquals(tecnico.getId(), leido.getId());
+        assertEquals(tecnico.getNombre(), leido.getNombre());
+        assertEquals(tecnico.getSkills(), leido.getSkills());
+    }
+
+    @Test
+    public void guardarYCargarArchivosConTextoEspecial() throws IOException {
+        Ticket cerrado = ticketCerrado();
+        Ticket pendiente = new Ticket(9, "Impresora\n2do piso", "sin \"toner\"", "Hardware", Prioridad.MEDIA);
+
+        repository.guardarTecnicos(List.of(tecnico));
+        repository.guardarTickets(List.of(cerrado, pendiente));
+
+        List<Tecnico> tecnicosLeidos = repository.cargarTecnicos();
+        assertEquals(1, tecnicosLeidos.size());
+        assertEquals(tecnico.getNombre(), tecnicosLeidos.get(0).getNombre());
+
+        Map<Integer, Tecnico> mapa = new HashMap<>();
+        mapa.put(tecnicosLeidos.get(0).getId(), tecnicosLeidos.get(0));
+        List<Ticket> ticketsLeidos = repository.cargarTickets(mapa);
+        assertEquals(2, ticketsLeidos.size());
+        // El archivo se lee por líneas, así que "\r\n" dentro de un campo vuelve como "\n"
+        assertEquals(DESCRIPCION.replace("\r\n", "\n"), ticketsLeidos.get(0).getDescripcion());
+        assertEquals(TITULO, ticketsLeidos.get(0).getTitulo());
+        assertMismoTicket(pendiente, ticketsLeidos.get(1));
+    }
+
+    @Test
+    public void parsearLineaSinColumnasNuevas() throws Exception {
+        Ticket leido = repository.parsearTicket(
+                "4;Sin red;No hay red;Redes;ABIERTO;ALTA;;2024-01-02 03:04:05;;", tecnicos);
+
+        assertEquals(4, leido.getId());
+        assertEquals(Estado.ABIERTO, leido.getEstado());
+        assertEquals(0, leido.getEscalamientos());
+        assertFalse(leido.esDuplicado());
+        assertFalse(leido.esClasificacionAutomatica());
+    }
+
+    private Ticket ticketCerrado() {
+        Ticket ticket = new Ticket(7, TITULO, DESCRIPCION, "Redes", Prioridad.ALTA);
+        ticket.asignar(tecnico);
+        ticket.cerrar();
+        ticket.marcarClasificacionAutomatica();
+        return ticket;
+    }
+
+    private static void assertMismoTicket(Ticket esperado, Ticket leido) {
+        assertEquals(esperado.getId(), leido.getId());
+        assertEquals(esperado.getTitulo(), leido.getTitulo());
+        assertEquals(esperado.getDescripcion(), leido.getDescripcion());
+        assertEquals(esperado.getCategoria(), leido.getCategoria());
+        assertEquals(esperado.getEstado(), leido.getEstado());
+        assertEquals(esperado.getPrioridad(), leido.getPrioridad());
+        assertEquals(idTecnico(esperado), idTecnico(leido));
+        assertEquals(segundos(esperado.getFechaCreacion()), leido.getFechaCreacion());
+        assertEquals(segundos(esperado.getFechaInicio()), leido.getFechaInicio());
+        assertEquals(segundos(esperado.getFechaCierre()), leido.getFechaCierre());
+        assertEquals(esperado.getEscalamientos(), leido.getEscalamientos());
+        assertEquals(esperado.getDuplicadoDe(), leido.getDuplicadoDe());
+        assertEquals(esperado.esClasificacionAutomatica(), leido.esClasificacionAutomatica());
+    }
+
+    private static Integer idTecnico(Ticket ticket) {
+        return ticket.getTecnicoAsignado() != null ? ticket.getTecnicoAsignado().getId() : null;
+    }
+
+    private static java.time.LocalDateTime segundos(java.time.LocalDateTime fecha) {
+        return fecha != null ? fecha.truncatedTo(ChronoUnit.SECONDS) : null;
+    }
+}